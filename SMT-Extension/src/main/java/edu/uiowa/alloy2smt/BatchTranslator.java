@@ -0,0 +1,297 @@
+/*
+ * This file is part of alloy2smt.
+ * Copyright (C) 2018-2019  The University of Iowa
+ *
+ * @author Mudathir Mohamed, Paul Meng
+ *
+ */
+
+package edu.uiowa.alloy2smt;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import edu.mit.csail.sdg.parser.CompModule;
+import edu.uiowa.alloy2smt.mapping.Mapper;
+import edu.uiowa.alloy2smt.translators.Alloy2SmtTranslator;
+import edu.uiowa.alloy2smt.translators.Translation;
+import edu.uiowa.alloy2smt.utils.AlloySettings;
+import edu.uiowa.alloy2smt.utils.Serializers;
+import edu.uiowa.smt.TranslationContext;
+import edu.uiowa.smt.smtAst.SmtProgram;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Translates many alloy models in one JVM using a pool of worker threads.
+ * For each model a .smt2 script and a .mapping.json file are written to the
+ * output directory, and a line describing the translation is appended to a
+ * JSON lines report as soon as the model is done.
+ */
+public class BatchTranslator
+{
+    public static final String DEFAULT_REPORT_FILE = "report.jsonl";
+
+    private final AlloySettings settings;
+    private final File outputDirectory;
+    private final int threads;
+
+    public BatchTranslator(AlloySettings settings, File outputDirectory, int threads)
+    {
+        if(threads < 1)
+        {
+            throw new IllegalArgumentException("The number of threads should be positive: " + threads);
+        }
+        this.settings = settings;
+        this.outputDirectory = outputDirectory;
+        this.threads = threads;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Result
+    {
+        @JsonProperty("model")
+        public String model;
+
+        @JsonProperty("smt2")
+        public String smtFile;
+
+        @JsonProperty("mapping")
+        public String mappingFile;
+
+        // phase times in milliseconds
+        @JsonProperty("parseTime")
+        public Long parseTime;
+
+        @JsonProperty("translateTime")
+        public Long translateTime;
+
+        @JsonProperty("printTime")
+        public Long printTime;
+
+        @JsonProperty("error")
+        public String error;
+    }
+
+    /**
+     * @param inputs directories (searched recursively), glob patterns, .als files,
+     *               or files listing one model per line
+     * @return the alloy models without duplicates
+     */
+    public static List<File> collectModels(List<String> inputs) throws IOException
+    {
+        Set<File> models = new LinkedHashSet<>();
+        for (String input : inputs)
+        {
+            Path path = Paths.get(input);
+            if(isGlob(input))
+            {
+                models.addAll(findModels(input));
+            }
+            else if(Files.isDirectory(path))
+            {
+                models.addAll(findModels(path, model -> model.toString().endsWith(".als")));
+            }
+            else if(input.endsWith(".als"))
+            {
+                models.add(path.toFile());
+            }
+            else
+            {
+                for (String line : Files.readAllLines(path, StandardCharsets.UTF_8))
+                {
+                    line = line.trim();
+                    if(!line.isEmpty() && !line.startsWith("#"))
+                    {
+                        models.add(new File(line));
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(models);
+    }
+
+    private static boolean isGlob(String input)
+    {
+        return input.contains("*") || input.contains("?") || input.contains("[") || input.contains("{");
+    }
+
+    private static List<File> findModels(String glob) throws IOException
+    {
+        // search from the longest directory prefix without wildcards
+        String separator = File.separator;
+        int wildcard = 0;
+        while (!isGlob(glob.substring(0, wildcard + 1)))
+        {
+            wildcard++;
+        }
+        int lastSeparator = glob.lastIndexOf(separator, wildcard);
+        Path root = lastSeparator < 0 ? Paths.get(".") : Paths.get(glob.substring(0, lastSeparator + 1));
+        Path pattern = lastSeparator < 0 ? Paths.get(".").resolve(glob) : Paths.get(glob);
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern.normalize());
+        return findModels(root, model -> matcher.matches(model.normalize()));
+    }
+
+    private static List<File> findModels(Path root, Predicate<Path> filter) throws IOException
+    {
+        if(!Files.isDirectory(root))
+        {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> paths = Files.walk(root))
+        {
+            return paths.filter(Files::isRegularFile)
+                        .filter(filter)
+                        .sorted()
+                        .map(Path::toFile)
+                        .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * translates the models and writes the report
+     * @return the results in the same order of the models
+     */
+    public List<Result> translate(List<File> models, File reportFile) throws IOException, InterruptedException
+    {
+        outputDirectory.mkdirs();
+        if(reportFile.getParentFile() != null)
+        {
+            reportFile.getParentFile().mkdirs();
+        }
+
+        // models with the same file name get distinct output names
+        List<String> outputNames = new ArrayList<>();
+        Set<String> usedNames = new HashSet<>();
+        for (File model : models)
+        {
+            String name = model.getName();
+            String outputName = name;
+            for (int i = 2; !usedNames.add(outputName); i++)
+            {
+                outputName = name.replaceAll("\\.als$", "") + "-" + i + ".als";
+            }
+            outputNames.add(outputName);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, models.size())));
+        try (Writer report = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(reportFile), StandardCharsets.UTF_8)))
+        {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (int i = 0; i < models.size(); i++)
+            {
+                File model = models.get(i);
+                String outputName = outputNames.get(i);
+                futures.add(executor.submit(() ->
+                {
+                    Result result = translate(model, outputName);
+                    writeReportLine(report, result);
+                    return result;
+                }));
+            }
+
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures)
+            {
+                results.add(future.get());
+            }
+            return results;
+        }
+        catch (ExecutionException exception)
+        {
+            // failures of the models are in the results, so only the report can fail
+            Throwable cause = exception.getCause();
+            if(cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if(cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private void writeReportLine(Writer report, Result result) throws IOException
+    {
+        String line = Serializers.getObjectMapper().writeValueAsString(result);
+        synchronized (report)
+        {
+            report.write(line);
+            report.write("\n");
+            report.flush();
+        }
+    }
+
+    /**
+     * translates a single model, and reports its failure instead of throwing it
+     */
+    Result translate(File model, String outputName)
+    {
+        Result result = new Result();
+        result.model = model.getPath();
+        File smtFile = new File(outputDirectory, outputName + ".smt2");
+        File mappingFile = new File(outputDirectory, outputName + ".mapping.json");
+        try
+        {
+            long start = System.nanoTime();
+            CompModule alloyModel = Utils.parseFromFile(model.getPath());
+            result.parseTime = elapsed(start);
+
+            start = System.nanoTime();
+            Alloy2SmtTranslator translator = new Alloy2SmtTranslator(alloyModel, settings);
+            TranslationContext.Binding binding = translator.getContext().bind();
+            try
+            {
+                SmtProgram program = translator.translate();
+                Mapper mapper = translator.generateMapper();
+                result.translateTime = elapsed(start);
+
+                start = System.nanoTime();
+                String smtScript = Utils.print(program, settings);
+                Translation translation = new Translation(translator, program, mapper, smtScript, settings);
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(smtFile), StandardCharsets.UTF_8)))
+                {
+                    Main.writeSmtScript(translation, writer);
+                }
+                mapper.writeToJson(mappingFile.getPath());
+                result.printTime = elapsed(start);
+            }
+            finally
+            {
+                binding.close();
+            }
+            result.smtFile = smtFile.getPath();
+            result.mappingFile = mappingFile.getPath();
+        }
+        catch (Exception | StackOverflowError exception)
+        {
+            result.error = exception.toString();
+            // do not leave incomplete outputs
+            smtFile.delete();
+            mappingFile.delete();
+        }
+        return result;
+    }
+
+    private static long elapsed(long start)
+    {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -10,15 +10,16 @@ package edu.uiowa.alloy2smt;
 import edu.uiowa.alloy2smt.translators.Translation;
 import edu.uiowa.alloy2smt.utils.AlloySettings;
 import edu.uiowa.smt.printers.SmtLibPrinter;
+import edu.uiowa.smt.printers.TeeWriter;
 import org.apache.commons.cli.*;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Paths;
-import java.util.Formatter;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
 
 public class Main
@@ -55,18 +56,54 @@ public class Main
         return true;        
     } 
 
-    public static void main(String[] args)
+    /**
+     * writes the translation followed by all alloy commands, each one in its own scope
+     */
+    public static void writeSmtScript(Translation translation, Writer writer) throws IOException
     {
-        Options             options             = new Options();
-        CommandLineParser   commandLineParser   = new DefaultParser();        
-        
+        writer.write(translation.getSmtScript());
+        writer.write("\n");
+
+        // translate all alloy commands
+        for (int i = 0; i < translation.getCommands().size(); i++)
+        {
+            writer.write(SmtLibPrinter.PUSH + "\n");
+            translation.translateCommand(i, writer);
+            writer.write(SmtLibPrinter.CHECK_SAT + "\n" + SmtLibPrinter.GET_MODEL + "\n" +
+                    SmtLibPrinter.POP + "\n\n");
+        }
+    }
+
+    static Options createOptions()
+    {
+        Options options = new Options();
+
         options.addOption(Option.builder("i").longOpt("input").desc("Input Alloy model").hasArg().build());
         options.addOption(Option.builder("o").longOpt("output").desc("SMT-LIB model output").hasArg().build());
+        options.addOption(Option.builder("b").longOpt("batch")
+                .desc("Translate many Alloy models given as directories, globs, .als files or files listing models")
+                .hasArgs().build());
+        options.addOption(Option.builder("d").longOpt("output-dir").desc("Output directory of batch mode").hasArg().build());
+        options.addOption(Option.builder("t").longOpt("threads").desc("Number of batch translation threads").hasArg().build());
+        options.addOption(Option.builder("r").longOpt("report").desc("JSON lines report of batch mode").hasArg().build());
+        return options;
+    }
+
+    public static void main(String[] args)
+    {
+        Options             options             = createOptions();
+        CommandLineParser   commandLineParser   = new DefaultParser();
 
         try
         {
             CommandLine command = commandLineParser.parse(options, args);
 
+            if (command.hasOption("b"))
+            {
+                runBatch(command);
+                return;
+            }
+
             Translation translation;
             String      defaultOutputFile;
 
@@ -111,30 +148,20 @@ public class Main
             {
                 outputFile = new File(defaultOutputFile);
             }
-            try (Formatter formatter = new Formatter(outputFile))
+            // stream the translation to both the output file and the console
+            Writer console = new OutputStreamWriter(System.out);
+            try (Writer fileWriter = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(outputFile), StandardCharsets.UTF_8)))
             {
-                formatter.format("%s\n", translation.getSmtScript());
-
-                System.out.println("\n");
-                System.out.println(translation.getSmtScript());
-
-                // translate all alloy commands
-                for (int i = 0; i < translation.getCommands().size(); i++)
-                {
-                    String commandTranslation = translation.translateCommand(i);
-
-                    commandTranslation         =    SmtLibPrinter.PUSH + "\n" + commandTranslation +
-                            SmtLibPrinter.CHECK_SAT + "\n" + SmtLibPrinter.GET_MODEL + "\n" +
-                            SmtLibPrinter.POP + "\n";
-
-                    formatter.format("%s\n", commandTranslation);
-                    System.out.println("\n" + commandTranslation);
-                }
+                Writer writer = new TeeWriter(fileWriter, console);
+                writeSmtScript(translation, writer);
+                writer.flush();
             }
             System.out.println("\nThe SMT-LIB model was generated at: " + outputFile.getAbsolutePath());
         }
-        catch (ParseException exception)
+        catch (ParseException | NumberFormatException exception)
         {
+            System.err.println(exception.getMessage());
             HelpFormatter formatter = new HelpFormatter();
             formatter.printHelp( "java -jar alloy2smt.jar ", options );
         }
@@ -143,4 +170,48 @@ public class Main
             exception.printStackTrace();
         }
     }
+
+    /**
+     * @return the number of batch translation threads, by default the number of processors
+     * @throws ParseException if the number of threads is not a positive integer
+     */
+    static int getThreads(CommandLine command) throws ParseException
+    {
+        if(!command.hasOption("t"))
+        {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        String value = command.getOptionValue("t").trim();
+        try
+        {
+            int threads = Integer.parseInt(value);
+            if(threads > 0)
+            {
+                return threads;
+            }
+        }
+        catch (NumberFormatException exception)
+        {
+            // reported below
+        }
+        throw new ParseException("The number of threads should be a positive integer: " + value);
+    }
+
+    private static void runBatch(CommandLine command) throws IOException, InterruptedException, ParseException
+    {
+        File outputDirectory = new File(command.getOptionValue("d", OUTPUT_DIR).trim());
+        int threads = getThreads(command);
+        File reportFile = command.hasOption("r") ?
+                new File(command.getOptionValue("r").trim()) :
+                new File(outputDirectory, BatchTranslator.DEFAULT_REPORT_FILE);
+
+        List<File> models = BatchTranslator.collectModels(Arrays.asList(command.getOptionValues("b")));
+        BatchTranslator batchTranslator = new BatchTranslator(AlloySettings.Default, outputDirectory, threads);
+        List<BatchTranslator.Result> results = batchTranslator.translate(models, reportFile);
+
+        long failures = results.stream().filter(result -> result.error != null).count();
+        System.out.println("Translated " + (results.size() - failures) + " of " + results.size() +
+                " models into: " + outputDirectory.getAbsolutePath());
+        System.out.println("The report was generated at: " + reportFile.getAbsolutePath());
+    }
 }
@@ -14,44 +14,161 @@ import edu.uiowa.alloy2smt.mapping.Mapper;
 import edu.uiowa.alloy2smt.translators.Alloy2SmtTranslator;
 import edu.uiowa.alloy2smt.translators.Translation;
 import edu.uiowa.alloy2smt.utils.AlloySettings;
+import edu.uiowa.smt.CommonSubexpressionEliminator;
+import edu.uiowa.smt.TranslationContext;
 import edu.uiowa.smt.printers.SmtLibPrettyPrinter;
 import edu.uiowa.smt.printers.SmtLibPrinter;
 import edu.uiowa.smt.smtAst.SmtProgram;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class Utils
 {
+    // the alloy parser is not known to be thread safe, so only the smt translation runs concurrently
+    private static final Object parserLock = new Object();
+
     public static Translation translateFromFile(String filePath, AlloySettings settings)
     {
-        CompModule alloyModel = CompUtil.parseEverything_fromFile(null, null, filePath);
+        CompModule alloyModel = parseFromFile(filePath);
         return getTranslation(alloyModel, settings);
     }
 
+    public static CompModule parseFromFile(String filePath)
+    {
+        synchronized (parserLock)
+        {
+            return CompUtil.parseEverything_fromFile(null, null, filePath);
+        }
+    }
+
     public static Translation translate(String alloyProgram, AlloySettings settings)
     {
-        CompModule alloyModel = CompUtil.parseEverything_fromString(null, alloyProgram);
+        CompModule alloyModel;
+        synchronized (parserLock)
+        {
+            alloyModel = CompUtil.parseEverything_fromString(null, alloyProgram);
+        }
         return getTranslation(alloyModel, settings);
     }
 
     public static Translation translate(Map<String, String> alloyFiles, String originalFileName, int resolutionMode,
                                         AlloySettings settings)
     {
-        CompModule alloyModel = CompUtil.parseEverything_fromFile(null, alloyFiles, originalFileName, resolutionMode);
+        CompModule alloyModel;
+        synchronized (parserLock)
+        {
+            alloyModel = CompUtil.parseEverything_fromFile(null, alloyFiles, originalFileName, resolutionMode);
+        }
         return getTranslation(alloyModel, settings);
     }
 
+    /**
+     * translates the alloy programs in parallel using as many threads as processors
+     * @return the translations in the same order of the programs
+     */
+    public static List<Translation> translate(List<String> alloyPrograms, AlloySettings settings) throws InterruptedException
+    {
+        int threads = Math.max(1, Math.min(alloyPrograms.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            return translate(alloyPrograms, settings, executor);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * translates the alloy programs in parallel on the given executor, which is not shut down.
+     * Each translation has its own {@link TranslationContext}, so the scripts are the same as the
+     * scripts of sequential translations.
+     * @return the translations in the same order of the programs
+     * @throws RuntimeException the failure of the first program that fails to translate
+     */
+    public static List<Translation> translate(List<String> alloyPrograms, AlloySettings settings,
+                                              ExecutorService executor) throws InterruptedException
+    {
+        List<Future<Translation>> futures = new ArrayList<>();
+        for (String alloyProgram : alloyPrograms)
+        {
+            Callable<Translation> task = () -> translate(alloyProgram, settings);
+            futures.add(executor.submit(task));
+        }
+
+        List<Translation> translations = new ArrayList<>();
+        try
+        {
+            for (Future<Translation> future : futures)
+            {
+                translations.add(future.get());
+            }
+            return translations;
+        }
+        catch (ExecutionException exception)
+        {
+            Throwable cause = exception.getCause();
+            if(cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if(cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+        finally
+        {
+            // stop the remaining translations if one fails or the thread is interrupted
+            for (Future<Translation> future : futures)
+            {
+                future.cancel(true);
+            }
+        }
+    }
+
     private static Translation getTranslation(CompModule alloyModel, AlloySettings settings)
     {
         Alloy2SmtTranslator translator  = new Alloy2SmtTranslator(alloyModel, settings);
-        SmtProgram program              = translator.translate();
-        Mapper mapper                   = translator.generateMapper();
-        SmtLibPrettyPrinter printer     = new SmtLibPrettyPrinter(settings);
-        printer.visit(program);
+        TranslationContext.Binding binding = translator.getContext().bind();
+        try
+        {
+            SmtProgram program              = translator.translate();
+            Mapper mapper                   = translator.generateMapper();
+            String smtScript                = print(program, settings);
 
-        String smtScript                = printer.getSmtLib();
+            Translation translation         = new Translation(translator, program, mapper, smtScript, settings);
+            return translation;
+        }
+        finally
+        {
+            binding.close();
+        }
+    }
 
-        Translation translation         = new Translation(translator, program, mapper, smtScript, settings);
-        return translation;
+    /**
+     * prints the program in the context bound to the current thread
+     */
+    static String print(SmtProgram program, AlloySettings settings)
+    {
+        SmtLibPrettyPrinter printer     = new SmtLibPrettyPrinter(settings);
+        if(settings.eliminateCommonSubexpressions)
+        {
+            printer.visit(new CommonSubexpressionEliminator().optimize(program));
+        }
+        else
+        {
+            printer.visit(program);
+        }
+        return printer.getSmtLib();
     }
 }
@@ -9,9 +9,12 @@
 package edu.uiowa.alloy2smt.mapping;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.uiowa.alloy2smt.utils.Serializers;
+import edu.uiowa.smt.smtAst.Expression;
+import edu.uiowa.smt.smtAst.FunctionDefinition;
+import edu.uiowa.smt.smtAst.SmtModel;
+import edu.uiowa.smt.smtAst.SmtValues;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
@@ -20,7 +23,9 @@ import javax.xml.bind.annotation.XmlRootElement;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @XmlRootElement(name = "Mapper")
 public class Mapper
@@ -33,32 +38,98 @@ public class Mapper
     @JsonProperty("fields")
     public List<MappingField> fields = new ArrayList<>();
 
+    /**
+     * @return the (get-value) command of the signature and field functions needed
+     * for an instance, or null if the symbol of some function is unknown.
+     * The values of integers are defined by a function that only (get-model) prints.
+     */
+    public String buildGetValueCommand()
+    {
+        Map<String, String> functions = getInstanceFunctions();
+        if(functions == null || functions.isEmpty())
+        {
+            return null;
+        }
+        StringBuilder command = new StringBuilder("(get-value (");
+        for (String symbol : functions.keySet())
+        {
+            command.append(symbol).append(' ');
+        }
+        command.setLength(command.length() - 1);
+        return command.append("))").toString();
+    }
+
+    /**
+     * @param values the output of the command built by {@link Mapper#buildGetValueCommand()}
+     * @return a model with a constant function for each value
+     */
+    public SmtModel buildModel(SmtValues values)
+    {
+        List<String> names = new ArrayList<>(getInstanceFunctions().values());
+        if(names.size() != values.getValues().size())
+        {
+            throw new RuntimeException("Expected " + names.size() + " values but found " + values.getValues().size());
+        }
+        SmtModel model = new SmtModel();
+        for (int i = 0; i < names.size(); i++)
+        {
+            Expression value = values.getValues().get(i).getValue();
+            model.addFunction(new FunctionDefinition(names.get(i), new ArrayList<>(), value.getSort(), value, true));
+        }
+        return model;
+    }
+
+    /**
+     * @return a map from the symbols of the functions to their names in the model
+     */
+    private Map<String, String> getInstanceFunctions()
+    {
+        Map<String, String> functions = new LinkedHashMap<>();
+        for (MappingSignature signature : signatures)
+        {
+            // the signature Int has no function in the model
+            if(signature.label.equals("Int"))
+            {
+                continue;
+            }
+            if(signature.functionSymbol == null)
+            {
+                return null;
+            }
+            functions.put(signature.functionSymbol, signature.functionName);
+        }
+        for (MappingField field : fields)
+        {
+            if(field.functionSymbol == null)
+            {
+                return null;
+            }
+            functions.put(field.functionSymbol, field.functionName);
+        }
+        return functions;
+    }
+
     public void writeToXml(String xmlFile) throws JAXBException
     {
-        JAXBContext context = JAXBContext.newInstance(Mapper.class);
-        Marshaller marshaller = context.createMarshaller();
-        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+        Marshaller marshaller = Serializers.getMarshaller(Mapper.class);
         marshaller.marshal(this, new File(xmlFile));
     }
 
     public static Mapper readFromXml(String xmlFile) throws JAXBException
     {
-        JAXBContext context = JAXBContext.newInstance(Mapper.class);
-        Unmarshaller unmarshaller = context.createUnmarshaller();
+        Unmarshaller unmarshaller = Serializers.getUnmarshaller(Mapper.class);
         Mapper mapper = (Mapper) unmarshaller.unmarshal(new File(xmlFile));
         return mapper;
     }
 
     public void writeToJson(String jsonFile) throws IOException
     {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File(jsonFile), this);
+        Serializers.getPrettyWriter().writeValue(new File(jsonFile), this);
     }
 
     public static Mapper readFromJson(String jsonFile) throws IOException
     {
-        ObjectMapper objectMapper = new ObjectMapper();
-        Mapper mapper = objectMapper.readValue(new File(jsonFile), Mapper.class);
+        Mapper mapper = Serializers.getObjectMapper().readValue(new File(jsonFile), Mapper.class);
         return mapper;
     }
 }
@@ -26,6 +26,10 @@ public class MappingField
     @JsonProperty("functionName")
     public String functionName; // function name in SMT model
 
+    @XmlAttribute(name = "functionSymbol")
+    @JsonProperty("functionSymbol")
+    public String functionSymbol; // function symbol in SMT commands
+
     @XmlAttribute(name = "id")
     @JsonProperty("id")
     public int id;
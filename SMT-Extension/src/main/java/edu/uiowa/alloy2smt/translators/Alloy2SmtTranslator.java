@@ -20,6 +20,8 @@ import edu.uiowa.alloy2smt.utils.AlloySettings;
 import edu.uiowa.alloy2smt.utils.AlloyUtils;
 import edu.uiowa.smt.AbstractTranslator;
 import edu.uiowa.smt.Environment;
+import edu.uiowa.smt.LayeredMap;
+import edu.uiowa.smt.TranslationContext;
 import edu.uiowa.smt.TranslatorUtils;
 import edu.uiowa.smt.smtAst.*;
 
@@ -54,7 +56,6 @@ public class Alloy2SmtTranslator extends AbstractTranslator
 
     public Alloy2SmtTranslator(CompModule alloyModel, AlloySettings alloySettings)
     {
-        TranslatorUtils.reset();
         this.alloySettings = alloySettings;
         this.smtProgram = new SmtProgram();
         this.alloyModel = alloyModel;
@@ -90,33 +91,41 @@ public class Alloy2SmtTranslator extends AbstractTranslator
         this.exprTranslator = new ExprTranslator(this);
     }
 
+    /**
+     * creates a translator for a single command of the given translator. The
+     * program and the maps of the given translator are layered instead of
+     * copied, so the cost of this constructor does not depend on the size of
+     * the model. The given translator should not be modified while this one is used.
+     */
     public Alloy2SmtTranslator(Alloy2SmtTranslator translator)
     {
         this.alloySettings = translator.alloySettings;
-        this.smtProgram = new SmtProgram(translator.smtProgram);
+        // fresh names continue from the given translator, so they do not clash with its names
+        this.context = translator.context;
+        this.smtProgram = translator.smtProgram.newLayer();
         this.alloyModel = translator.alloyModel;
         this.reachableSigs = new ArrayList<>(translator.reachableSigs);
         this.topLevelSigs = new ArrayList<>(translator.topLevelSigs);
-        this.sigToIdMap = new HashMap<>(translator.sigToIdMap);
+        this.sigToIdMap = new LayeredMap<>(translator.sigToIdMap);
 
-        this.commands = this.alloyModel.getAllCommands();
+        this.commands = translator.commands;
 
 
         this.signatureTranslator = new SignatureTranslator(this);
-        this.comparisonOperations = new HashMap<>(translator.comparisonOperations);
-        this.integerConstants = new HashMap<>(translator.integerConstants);
-        this.arithmeticOperations = new HashMap<>(translator.arithmeticOperations);
-        this.signaturesMap = new HashMap<>(translator.signaturesMap);
-        this.funcNamesMap = new HashMap<>(translator.funcNamesMap);
-        this.functionsMap = new HashMap<>(translator.functionsMap);
-        this.fieldsMap = new HashMap<>(translator.fieldsMap);
-        this.sigFacts = new HashMap<>(translator.sigFacts);
+        this.comparisonOperations = new LayeredMap<>(translator.comparisonOperations);
+        this.integerConstants = new LayeredMap<>(translator.integerConstants);
+        this.arithmeticOperations = new LayeredMap<>(translator.arithmeticOperations);
+        this.signaturesMap = new LayeredMap<>(translator.signaturesMap);
+        this.funcNamesMap = new LayeredMap<>(translator.funcNamesMap);
+        this.functionsMap = new LayeredMap<>(translator.functionsMap);
+        this.fieldsMap = new LayeredMap<>(translator.fieldsMap);
+        this.sigFacts = new LayeredMap<>(translator.sigFacts);
         this.existentialBdVars = new ArrayList<>(translator.existentialBdVars);
         this.funcNames = new HashSet<>(translator.funcNames);
 
-        this.setComprehensionFuncNameToInputsMap = new HashMap<>(translator.setComprehensionFuncNameToInputsMap);
-        this.setCompFuncNameToDefMap = new HashMap<>(translator.setCompFuncNameToDefMap);
-        this.setCompFuncNameToBdVarExprMap = new HashMap<>(translator.setCompFuncNameToBdVarExprMap);
+        this.setComprehensionFuncNameToInputsMap = new LayeredMap<>(translator.setComprehensionFuncNameToInputsMap);
+        this.setCompFuncNameToDefMap = new LayeredMap<>(translator.setCompFuncNameToDefMap);
+        this.setCompFuncNameToBdVarExprMap = new LayeredMap<>(translator.setCompFuncNameToBdVarExprMap);
         this.exprTranslator = new ExprTranslator(this);
     }
 
@@ -134,14 +143,22 @@ public class Alloy2SmtTranslator extends AbstractTranslator
     @Override
     public SmtProgram translate()
     {
-        translateSpecialFunctions();
-        this.signatureTranslator.translateSigs();
-        this.signatureTranslator.translateSpecialSigFacts();
-        //translateFunctionsAndPredicates();
-        this.signatureTranslator.translateSigFacts();
-        translateFacts();
-        translateSpecialAssertions();
-        return this.smtProgram;
+        TranslationContext.Binding binding = context.bind();
+        try
+        {
+            translateSpecialFunctions();
+            this.signatureTranslator.translateSigs();
+            this.signatureTranslator.translateSpecialSigFacts();
+            //translateFunctionsAndPredicates();
+            this.signatureTranslator.translateSigFacts();
+            translateFacts();
+            translateSpecialAssertions();
+            return this.smtProgram;
+        }
+        finally
+        {
+            binding.close();
+        }
     }
 
     private void translateSpecialFunctions()
@@ -182,9 +199,9 @@ public class Alloy2SmtTranslator extends AbstractTranslator
     private void addIdenAtom(Sort sort, FunctionDeclaration identity)
     {
         // Axiom for identity relation
-        VariableDeclaration a = new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false);
+        VariableDeclaration a = new VariableDeclaration(getFreshName(sort), sort, false);
 
-        VariableDeclaration b = new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false);
+        VariableDeclaration b = new VariableDeclaration(getFreshName(sort), sort, false);
 
         MultiArityExpression tupleAB = new MultiArityExpression(MultiArityExpression.Op.MKTUPLE, a.getVariable(), b.getVariable());
 
@@ -294,6 +311,7 @@ public class Alloy2SmtTranslator extends AbstractTranslator
 
         signature.label = sig.label;
         signature.functionName = TranslatorUtils.getOriginalName(signaturesMap.get(sig).getName());
+        signature.functionSymbol = TranslatorUtils.sanitizeWithBars(signaturesMap.get(sig));
 
         signature.id = getSigId(sig);
 
@@ -335,6 +353,7 @@ public class Alloy2SmtTranslator extends AbstractTranslator
 
         mappingField.label = field.label;
         mappingField.functionName = TranslatorUtils.getOriginalName(fieldsMap.get(field).getName());
+        mappingField.functionSymbol = TranslatorUtils.sanitizeWithBars(fieldsMap.get(field));
         mappingField.id = getSigId(field);
         mappingField.parentId = getSigId(field.sig);
         mappingField.isPrivate = field.isPrivate != null;
@@ -393,17 +412,25 @@ public class Alloy2SmtTranslator extends AbstractTranslator
      */
     public List<Assertion> translateCommand(int commandIndex)
     {
-        Command command = this.commands.get(commandIndex);
+        TranslationContext.Binding binding = context.bind();
+        try
+        {
+            Command command = this.commands.get(commandIndex);
 
-        List<Assertion> assertions = getAssertions(command);
+            List<Assertion> assertions = getAssertions(command);
 
-        if (alloySettings.includeCommandScope)
+            if (alloySettings.includeCommandScope)
+            {
+                assertions.addAll(translateSignaturesScope(command));
+                assertions.addAll(translateIntScope(command));
+            }
+
+            return assertions;
+        }
+        finally
         {
-            assertions.addAll(translateSignaturesScope(command));
-            assertions.addAll(translateIntScope(command));
+            binding.close();
         }
-
-        return assertions;
     }
 
     private List<Assertion> translateIntScope(Command command)
@@ -489,13 +516,13 @@ public class Alloy2SmtTranslator extends AbstractTranslator
                 {
                     List<VariableDeclaration> declarations = new ArrayList<>();
                     Sort sort = signature.type().is_int() ? AbstractTranslator.uninterpretedInt : AbstractTranslator.atomSort;
-                    VariableDeclaration firstAtom = new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false);
+                    VariableDeclaration firstAtom = new VariableDeclaration(getFreshName(sort), sort, false);
                     declarations.add(firstAtom);
                     Expression firstTuple = new MultiArityExpression(MultiArityExpression.Op.MKTUPLE, firstAtom.getVariable());
                     Expression set = UnaryExpression.Op.SINGLETON.make(firstTuple);
                     for (int i = 1; i < scope; i++)
                     {
-                        VariableDeclaration declaration = new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false);
+                        VariableDeclaration declaration = new VariableDeclaration(getFreshName(sort), sort, false);
                         declarations.add(declaration);
                         Expression tuple = new MultiArityExpression(MultiArityExpression.Op.MKTUPLE, declaration.getVariable());
                         Expression singleton = UnaryExpression.Op.SINGLETON.make(tuple);
@@ -0,0 +1,98 @@
+/*
+ * This file is part of alloy2smt.
+ * Copyright (C) 2018-2019  The University of Iowa
+ *
+ * @author Mudathir Mohamed, Paul Meng
+ *
+ */
+
+package edu.uiowa.alloy2smt.translators;
+
+import edu.mit.csail.sdg.ast.Command;
+import edu.mit.csail.sdg.ast.Expr;
+import edu.uiowa.alloy2smt.utils.AlloySettings;
+import edu.uiowa.smt.smtAst.SmtProgram;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * A translation whose scripts are served by a {@link TranslationCache} entry.
+ * When the entry is reused the alloy model is not parsed, so the commands only
+ * describe the original ones and the smt ast is not available.
+ */
+public class CachedTranslation extends Translation
+{
+    private final String key;
+    private final TranslationCache.Entry entry;
+    private final List<Command> commands;
+    // the translation that filled the entry, or null if the entry is reused
+    private final Translation translation;
+
+    CachedTranslation(String key, TranslationCache.Entry entry, List<Command> commands, Translation translation,
+                      AlloySettings alloySettings)
+    {
+        super(null, null, entry.mapper, entry.smtScript, alloySettings);
+        this.key = key;
+        this.entry = entry;
+        this.commands = commands;
+        this.translation = translation;
+    }
+
+    /**
+     * @return true if the translation was reused without parsing the alloy model
+     */
+    public boolean isReused()
+    {
+        return translation == null;
+    }
+
+    /**
+     * @return the cache key, which identifies the sources and the settings of the translation
+     */
+    public String getKey()
+    {
+        return key;
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the translation is reused
+     */
+    @Override
+    public SmtProgram getSmtAst()
+    {
+        return getTranslation().getSmtAst();
+    }
+
+    @Override
+    public List<Command> getCommands()
+    {
+        return commands;
+    }
+
+    @Override
+    public void translateCommand(int commandIndex, Writer writer) throws IOException
+    {
+        writer.write(entry.commandScripts.get(commandIndex));
+        writer.flush();
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the translation is reused
+     */
+    @Override
+    public int getSigId(Expr expr)
+    {
+        return getTranslation().getSigId(expr);
+    }
+
+    private Translation getTranslation()
+    {
+        if(translation == null)
+        {
+            throw new UnsupportedOperationException("The alloy model of a reused translation is not available");
+        }
+        return translation;
+    }
+}
@@ -140,7 +140,7 @@ public class ExprBinaryTranslator
     private Expression translateOneArrowOne(ExprBinary expr, Environment environment)
     {
         SetSort sort = new SetSort(new TupleSort(AlloyUtils.getExprSorts(expr)));
-        VariableDeclaration multiplicitySet = new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false);
+        VariableDeclaration multiplicitySet = new VariableDeclaration(translator.getFreshName(sort), sort, false);
 
         Expression A = exprTranslator.translateExpr(expr.left, environment);
         Expression B = exprTranslator.translateExpr(expr.right, environment);
@@ -217,7 +217,7 @@ public class ExprBinaryTranslator
     private Expression translateOneArrowSome(ExprBinary expr, Environment environment)
     {
         SetSort sort = new SetSort(new TupleSort(AlloyUtils.getExprSorts(expr)));
-        VariableDeclaration multiplicitySet = new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false);
+        VariableDeclaration multiplicitySet = new VariableDeclaration(translator.getFreshName(sort), sort, false);
 
 
         Expression A = exprTranslator.translateExpr(expr.left, environment);
@@ -282,7 +282,7 @@ public class ExprBinaryTranslator
     private Expression translateOneArrowAny(ExprBinary expr, Environment environment)
     {
         SetSort sort = new SetSort(new TupleSort(AlloyUtils.getExprSorts(expr)));
-        VariableDeclaration multiplicitySet = new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false);
+        VariableDeclaration multiplicitySet = new VariableDeclaration(translator.getFreshName(sort), sort, false);
 
         Expression A = exprTranslator.translateExpr(expr.left, environment);
         Expression B = exprTranslator.translateExpr(expr.right, environment);
@@ -338,7 +338,7 @@ public class ExprBinaryTranslator
     private Expression translateSomeArrowOne(ExprBinary expr, Environment environment)
     {
         SetSort sort = new SetSort(new TupleSort(AlloyUtils.getExprSorts(expr)));
-        VariableDeclaration multiplicitySet = new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false);
+        VariableDeclaration multiplicitySet = new VariableDeclaration(translator.getFreshName(sort), sort, false);
 
         Expression A = exprTranslator.translateExpr(expr.left, environment);
         Expression B = exprTranslator.translateExpr(expr.right, environment);
@@ -401,7 +401,7 @@ public class ExprBinaryTranslator
     private Expression translateAnyArrowOne(ExprBinary expr, Environment environment)
     {
         SetSort sort = new SetSort(new TupleSort(AlloyUtils.getExprSorts(expr)));
-        VariableDeclaration multiplicitySet = new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false);
+        VariableDeclaration multiplicitySet = new VariableDeclaration(translator.getFreshName(sort), sort, false);
 
         Expression A = exprTranslator.translateExpr(expr.left, environment);
         Expression B = exprTranslator.translateExpr(expr.right, environment);
@@ -455,7 +455,7 @@ public class ExprBinaryTranslator
     private Expression translateSomeArrowSome(ExprBinary expr, Environment environment)
     {
         SetSort sort = new SetSort(new TupleSort(AlloyUtils.getExprSorts(expr)));
-        VariableDeclaration multiplicitySet = new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false);
+        VariableDeclaration multiplicitySet = new VariableDeclaration(translator.getFreshName(sort), sort, false);
 
         Expression A = exprTranslator.translateExpr(expr.left, environment);
         Expression B = exprTranslator.translateExpr(expr.right, environment);
@@ -502,7 +502,7 @@ public class ExprBinaryTranslator
     private Expression translateSomeArrowAny(ExprBinary expr, Environment environment)
     {
         SetSort sort = new SetSort(new TupleSort(AlloyUtils.getExprSorts(expr)));
-        VariableDeclaration multiplicitySet = new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false);
+        VariableDeclaration multiplicitySet = new VariableDeclaration(translator.getFreshName(sort), sort, false);
 
         Expression A = exprTranslator.translateExpr(expr.left, environment);
         Expression B = exprTranslator.translateExpr(expr.right, environment);
@@ -542,7 +542,7 @@ public class ExprBinaryTranslator
     private Expression translateAnyArrowSome(ExprBinary expr, Environment environment)
     {
         SetSort sort = new SetSort(new TupleSort(AlloyUtils.getExprSorts(expr)));
-        VariableDeclaration multiplicitySet = new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false);
+        VariableDeclaration multiplicitySet = new VariableDeclaration(translator.getFreshName(sort), sort, false);
 
         Expression A = exprTranslator.translateExpr(expr.left, environment);
         Expression B = exprTranslator.translateExpr(expr.right, environment);
@@ -580,7 +580,7 @@ public class ExprBinaryTranslator
     private Expression translateOneArrowLone(ExprBinary expr, Environment environment)
     {
         SetSort sort = new SetSort(new TupleSort(AlloyUtils.getExprSorts(expr)));
-        VariableDeclaration multiplicitySet = new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false);
+        VariableDeclaration multiplicitySet = new VariableDeclaration(translator.getFreshName(sort), sort, false);
 
 
         Expression A = exprTranslator.translateExpr(expr.left, environment);
@@ -662,7 +662,7 @@ public class ExprBinaryTranslator
     private Expression translateSomeArrowLone(ExprBinary expr, Environment environment)
     {
         SetSort sort = new SetSort(new TupleSort(AlloyUtils.getExprSorts(expr)));
-        VariableDeclaration multiplicitySet = new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false);
+        VariableDeclaration multiplicitySet = new VariableDeclaration(translator.getFreshName(sort), sort, false);
 
 
         Expression A = exprTranslator.translateExpr(expr.left, environment);
@@ -731,7 +731,7 @@ public class ExprBinaryTranslator
     private Expression translateAnyArrowLone(ExprBinary expr, Environment environment)
     {
         SetSort sort = new SetSort(new TupleSort(AlloyUtils.getExprSorts(expr)));
-        VariableDeclaration multiplicitySet = new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false);
+        VariableDeclaration multiplicitySet = new VariableDeclaration(translator.getFreshName(sort), sort, false);
 
         Expression A = exprTranslator.translateExpr(expr.left, environment);
         Expression B = exprTranslator.translateExpr(expr.right, environment);
@@ -792,7 +792,7 @@ public class ExprBinaryTranslator
     private Expression translateLoneArrowLone(ExprBinary expr, Environment environment)
     {
         SetSort sort = new SetSort(new TupleSort(AlloyUtils.getExprSorts(expr)));
-        VariableDeclaration multiplicitySet = new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false);
+        VariableDeclaration multiplicitySet = new VariableDeclaration(translator.getFreshName(sort), sort, false);
 
         Expression A = exprTranslator.translateExpr(expr.left, environment);
         Expression B = exprTranslator.translateExpr(expr.right, environment);
@@ -877,7 +877,7 @@ public class ExprBinaryTranslator
     private Expression translateLoneArrowOne(ExprBinary expr, Environment environment)
     {
         SetSort sort = new SetSort(new TupleSort(AlloyUtils.getExprSorts(expr)));
-        VariableDeclaration multiplicitySet = new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false);
+        VariableDeclaration multiplicitySet = new VariableDeclaration(translator.getFreshName(sort), sort, false);
 
         Expression A = exprTranslator.translateExpr(expr.left, environment);
         Expression B = exprTranslator.translateExpr(expr.right, environment);
@@ -959,7 +959,7 @@ public class ExprBinaryTranslator
     private Expression translateLoneArrowSome(ExprBinary expr, Environment environment)
     {
         SetSort sort = new SetSort(new TupleSort(AlloyUtils.getExprSorts(expr)));
-        VariableDeclaration multiplicitySet = new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false);
+        VariableDeclaration multiplicitySet = new VariableDeclaration(translator.getFreshName(sort), sort, false);
 
         Expression A = exprTranslator.translateExpr(expr.left, environment);
         Expression B = exprTranslator.translateExpr(expr.right, environment);
@@ -1031,7 +1031,7 @@ public class ExprBinaryTranslator
     private Expression translateLoneArrowAny(ExprBinary expr, Environment environment)
     {
         SetSort sort = new SetSort(new TupleSort(AlloyUtils.getExprSorts(expr)));
-        VariableDeclaration multiplicitySet = new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false);
+        VariableDeclaration multiplicitySet = new VariableDeclaration(translator.getFreshName(sort), sort, false);
 
         Expression A = exprTranslator.translateExpr(expr.left, environment);
         Expression B = exprTranslator.translateExpr(expr.right, environment);
@@ -1248,7 +1248,7 @@ public class ExprBinaryTranslator
         Expression leftExpr = exprTranslator.translateExpr(expr.left, environment);
         Expression rightExpr = exprTranslator.translateExpr(expr.right, environment);
 
-        FunctionDeclaration result = new FunctionDeclaration(TranslatorUtils.getFreshName(AbstractTranslator.setOfUninterpretedIntTuple), AbstractTranslator.setOfUninterpretedIntTuple, false);
+        FunctionDeclaration result = new FunctionDeclaration(translator.getFreshName(AbstractTranslator.setOfUninterpretedIntTuple), AbstractTranslator.setOfUninterpretedIntTuple, false);
         exprTranslator.translator.smtProgram.addFunction(result);
 
         VariableDeclaration x = new VariableDeclaration("x", AbstractTranslator.uninterpretedInt, false);
@@ -6,7 +6,6 @@ import edu.uiowa.alloy2smt.utils.AlloySettings;
 import edu.uiowa.alloy2smt.utils.AlloyUtils;
 import edu.uiowa.smt.AbstractTranslator;
 import edu.uiowa.smt.Environment;
-import edu.uiowa.smt.TranslatorUtils;
 import edu.uiowa.smt.smtAst.*;
 
 import java.io.File;
@@ -149,7 +148,7 @@ public class ExprCallTranslator
             }
         }
 
-        String freshName = TranslatorUtils.getFreshName(AbstractTranslator.setOfUninterpretedIntTuple);
+        String freshName = translator.getFreshName(AbstractTranslator.setOfUninterpretedIntTuple);
         FunctionDeclaration result;
         if(translator.alloySettings.integerSingletonsOnly)
         {
@@ -10,7 +10,7 @@ import edu.uiowa.smt.smtAst.FunctionDeclaration;
 import edu.uiowa.smt.smtAst.LetExpression;
 import edu.uiowa.smt.smtAst.VariableDeclaration;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class ExprLetTranslator
@@ -30,7 +30,7 @@ public class ExprLetTranslator
 
         VariableDeclaration declaration = new VariableDeclaration(exprLet.var.label,
                 expression.getSort() , true);
-        Map<VariableDeclaration, Expression> map = new HashMap<>();
+        Map<VariableDeclaration, Expression> map = new LinkedHashMap<>();
         map.put(declaration, expression);
 
         Environment newEnvironment = new Environment(environment);
@@ -3,7 +3,6 @@ package edu.uiowa.alloy2smt.translators;
 import edu.mit.csail.sdg.ast.*;
 import edu.uiowa.alloy2smt.utils.AlloyUtils;
 import edu.uiowa.smt.Environment;
-import edu.uiowa.smt.TranslatorUtils;
 import edu.uiowa.smt.smtAst.*;
 
 import java.util.*;
@@ -175,7 +174,7 @@ public class ExprQtTranslator
                 throw new UnsupportedOperationException();
             }
         }
-        FunctionDeclaration setFunction = new FunctionDeclaration(TranslatorUtils.getFreshName(returnSort), argumentSorts, returnSort, false);
+        FunctionDeclaration setFunction = new FunctionDeclaration(translator.getFreshName(returnSort), argumentSorts, returnSort, false);
         translator.smtProgram.addFunction(setFunction);
 
         Expression setFunctionExpression;
@@ -321,7 +320,7 @@ public class ExprQtTranslator
                 {
                     // either the set is empty or a singleton
                     Expression empty = BinaryExpression.Op.EQ.make(variable.getVariable(), emptySet);
-                    VariableDeclaration singleElement = new VariableDeclaration(TranslatorUtils.getFreshName(setSort.elementSort), setSort.elementSort, false);
+                    VariableDeclaration singleElement = new VariableDeclaration(translator.getFreshName(setSort.elementSort), setSort.elementSort, false);
                     Expression singleton = UnaryExpression.Op.SINGLETON.make(singleElement.getVariable());
                     Expression isSingleton = BinaryExpression.Op.EQ.make(variable.getVariable(), singleton);
                     Expression emptyOrSingleton = MultiArityExpression.Op.OR.make(empty, isSingleton);
@@ -457,7 +456,7 @@ public class ExprQtTranslator
         for (Map.Entry<String, Expression> entry : ranges.entrySet())
         {
             VariableDeclaration oldVariable = (VariableDeclaration) ((Variable) environment.get(entry.getKey())).getDeclaration();
-            VariableDeclaration newVariable = new VariableDeclaration(TranslatorUtils.getFreshName(oldVariable.getSort()), oldVariable.getSort(), false);
+            VariableDeclaration newVariable = new VariableDeclaration(translator.getFreshName(oldVariable.getSort()), oldVariable.getSort(), false);
             if(oldVariable.getConstraint() != null)
             {
                 Expression newConstraint = oldVariable.getConstraint().substitute(oldVariable.getVariable(), newVariable.getVariable());
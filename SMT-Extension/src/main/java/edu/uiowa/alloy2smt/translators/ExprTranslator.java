@@ -12,7 +12,6 @@ import edu.mit.csail.sdg.ast.*;
 import edu.uiowa.alloy2smt.utils.AlloyUtils;
 import edu.uiowa.smt.AbstractTranslator;
 import edu.uiowa.smt.Environment;
-import edu.uiowa.smt.TranslatorUtils;
 import edu.uiowa.smt.smtAst.*;
 
 import java.util.*;
@@ -248,7 +247,7 @@ public class ExprTranslator
 
         for (int i = 0; i < num; i++)
         {
-            bdVars.add(new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false));
+            bdVars.add(new VariableDeclaration(translator.getFreshName(sort), sort, false));
         }
         return bdVars;
     }
@@ -265,7 +264,7 @@ public class ExprTranslator
         for (int i = 0; i < num; i++)
         {
             Sort sort = new TupleSort(elementSorts);
-            bdVars.add(new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false));
+            bdVars.add(new VariableDeclaration(translator.getFreshName(sort), sort, false));
         }
         return bdVars;
     }
@@ -12,7 +12,6 @@ import edu.mit.csail.sdg.ast.*;
 import edu.uiowa.alloy2smt.utils.AlloyUtils;
 import edu.uiowa.smt.AbstractTranslator;
 import edu.uiowa.smt.Environment;
-import edu.uiowa.smt.TranslatorUtils;
 import edu.uiowa.smt.smtAst.*;
 
 import java.util.ArrayList;
@@ -176,7 +175,7 @@ public class ExprUnaryTranslator
         
         for(Sort sort : sorts)
         {
-            String name = TranslatorUtils.getFreshName(sort);
+            String name = translator.getFreshName(sort);
             VariableDeclaration bdVar;
             Expression bdVarExpr;
 
@@ -208,7 +207,7 @@ public class ExprUnaryTranslator
         
         for(Sort sort : sorts)
         {
-            String name = TranslatorUtils.getFreshName(sort);
+            String name = translator.getFreshName(sort);
             VariableDeclaration bdVar;
             Expression bdVarExpr;
             
@@ -305,7 +304,7 @@ public class ExprUnaryTranslator
 //                    throw new UnsupportedOperationException();
 //                }
 //            }
-//             multiplicitySet = new FunctionDeclaration(TranslatorUtils.getFreshName(), argumentSorts, expression.getSort());
+//             multiplicitySet = new FunctionDeclaration(translator.getFreshName(), argumentSorts, expression.getSort());
 //
 //            translator.smtProgram.addFunction(multiplicitySet);
 //            Expression setFunctionExpression;
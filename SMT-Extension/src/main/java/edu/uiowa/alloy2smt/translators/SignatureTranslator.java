@@ -210,12 +210,12 @@ public class SignatureTranslator
 
         if (isInt)
         {
-            String name = TranslatorUtils.getFreshName(AbstractTranslator.uninterpretedInt);
+            String name = translator.getFreshName(AbstractTranslator.uninterpretedInt);
             constDecl = new ConstantDeclaration(name, AbstractTranslator.uninterpretedInt, false);
         }
         else
         {
-            String name = TranslatorUtils.getFreshName(AbstractTranslator.atomSort);
+            String name = translator.getFreshName(AbstractTranslator.atomSort);
             constDecl = new ConstantDeclaration(name, AbstractTranslator.atomSort, false);
         }
         expr = AlloyUtils.mkSingletonOutOfTuple(new MultiArityExpression(MultiArityExpression.Op.MKTUPLE, constDecl.getVariable()));
@@ -235,13 +235,13 @@ public class SignatureTranslator
 
         if (isInt)
         {
-            String name = TranslatorUtils.getFreshName(AbstractTranslator.uninterpretedInt);
+            String name = translator.getFreshName(AbstractTranslator.uninterpretedInt);
             constDecl = new ConstantDeclaration(name, AbstractTranslator.uninterpretedInt, false);
             expr = AlloyUtils.mkSingletonOutOfTuple(new FunctionCallExpression(AbstractTranslator.uninterpretedIntValue, constDecl.getVariable()));
         }
         else
         {
-            String name = TranslatorUtils.getFreshName(AbstractTranslator.atomSort);
+            String name = translator.getFreshName(AbstractTranslator.atomSort);
             constDecl = new ConstantDeclaration(name, AbstractTranslator.atomSort,false);
             expr = AlloyUtils.mkSingletonOutOfTuple(new MultiArityExpression(MultiArityExpression.Op.MKTUPLE, constDecl.getVariable()));
         }
@@ -261,13 +261,13 @@ public class SignatureTranslator
 
         if (isInt)
         {
-            String name = TranslatorUtils.getFreshName(AbstractTranslator.uninterpretedInt);
+            String name = translator.getFreshName(AbstractTranslator.uninterpretedInt);
             constDecl = new ConstantDeclaration(name, AbstractTranslator.uninterpretedInt, false);
             expr = AlloyUtils.mkSingletonOutOfTuple(new FunctionCallExpression(AbstractTranslator.uninterpretedIntValue, constDecl.getVariable()));
         }
         else
         {
-            String name = TranslatorUtils.getFreshName(AbstractTranslator.atomSort);
+            String name = translator.getFreshName(AbstractTranslator.atomSort);
             constDecl = new ConstantDeclaration(name, AbstractTranslator.atomSort, false);
             expr = AlloyUtils.mkSingletonOutOfTuple(new MultiArityExpression(MultiArityExpression.Op.MKTUPLE, constDecl.getVariable()));
         }
@@ -394,7 +394,7 @@ public class SignatureTranslator
             }
 
             String name = "this";
-            Map<VariableDeclaration, Expression> boundVariables = new HashMap<>();
+            Map<VariableDeclaration, Expression> boundVariables = new LinkedHashMap<>();
             VariableDeclaration declaration = new VariableDeclaration(name, AbstractTranslator.atomSort, true);
             boundVariables.put(declaration, translator.signaturesMap.get(sigFact.getKey()).getVariable());
             Expression member = AlloyUtils.getMemberExpression(boundVariables, 0);
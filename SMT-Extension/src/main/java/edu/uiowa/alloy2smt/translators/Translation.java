@@ -4,15 +4,17 @@ import edu.mit.csail.sdg.ast.Command;
 import edu.mit.csail.sdg.ast.Expr;
 import edu.uiowa.alloy2smt.mapping.Mapper;
 import edu.uiowa.alloy2smt.utils.AlloySettings;
+import edu.uiowa.smt.CommonSubexpressionEliminator;
+import edu.uiowa.smt.TranslationContext;
 import edu.uiowa.smt.printers.SmtLibPrettyPrinter;
 import edu.uiowa.smt.printers.SmtLibPrinter;
 import edu.uiowa.smt.smtAst.*;
 
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.List;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 public class Translation
 {
@@ -56,6 +58,8 @@ public class Translation
 
     /**
      * @return an abstract syntax tree for the smt translation
+     * @throws UnsupportedOperationException if this is a {@link CachedTranslation}
+     * reused without parsing the alloy model, see {@link CachedTranslation#isReused()}
      */
     public SmtProgram getSmtAst()
     {
@@ -74,103 +78,124 @@ public class Translation
      */
     public String translateCommand(int commandIndex)
     {
+        StringWriter writer = new StringWriter();
+        try
+        {
+            translateCommand(commandIndex, writer);
+        }
+        catch (IOException exception)
+        {
+            // string writers do not throw
+            throw new UncheckedIOException(exception);
+        }
+        return writer.toString();
+    }
 
+    /**
+     * streams the translation of the given command (ignoring scope
+     * constraints) into the writer, which is flushed but not closed
+     * @param commandIndex the index of the command
+     * @param writer where the smt commands are written
+     * @throws IOException if the writer fails
+     */
+    public void translateCommand(int commandIndex, Writer writer) throws IOException
+    {
+        // the command translator is layered over the model translator
         Alloy2SmtTranslator commandTranslator = new Alloy2SmtTranslator(translator);
 
-        // store old declarations, definitions, and assertions
-        List<Sort>                sorts                 = new ArrayList<>(commandTranslator.smtProgram.getSorts());
-        List<ConstantDeclaration> constantDeclarations  = new ArrayList<>(commandTranslator.smtProgram.getConstantDeclarations());
-        List<FunctionDeclaration> functionDeclarations  = new ArrayList<>(commandTranslator.smtProgram.getFunctions());
-        List<Assertion> assertions = new ArrayList<>(commandTranslator.smtProgram.getAssertions());
-
-
         List<Assertion> commandAssertions = commandTranslator.translateCommand(commandIndex);
 
-        // get new declarations, definitions, and assertions
-        List<Sort> newSorts = commandTranslator.smtProgram
-                .getSorts().stream()
-                .filter(((Predicate<Sort>) new HashSet<>(sorts)::contains).negate())
-                .collect(Collectors.toList());
-
-        List<ConstantDeclaration> newConstantDeclarations = commandTranslator.smtProgram
-                .getConstantDeclarations().stream()
-                .filter(((Predicate<ConstantDeclaration>) new HashSet<>(constantDeclarations)::contains).negate())
-                .collect(Collectors.toList());
-
-        List<FunctionDeclaration> newFunctionDeclarations = commandTranslator.smtProgram
-                .getFunctions().stream()
-                .filter(((Predicate<FunctionDeclaration>) new HashSet<>(functionDeclarations)::contains).negate())
-                .collect(Collectors.toList());
-
-        List<Assertion> newAssertions = commandTranslator.smtProgram
-                .getAssertions().stream()
-                .filter(((Predicate<Assertion>) new HashSet<>(assertions)::contains).negate())
-                .collect(Collectors.toList());
-
-
-        // get the translation for new declarations and definitions
-        StringBuilder stringBuilder = new StringBuilder();
-        for (Sort sort : newSorts)
+        // fresh names introduced while optimizing and printing continue the numbering of the model
+        TranslationContext.Binding binding = translator.getContext().bind();
+        try
         {
-            SmtLibPrinter printer = new SmtLibPrettyPrinter();
-            printer.visit(sort);
-            stringBuilder.append(printer.getSmtLib());
+            // get the declarations, definitions, and assertions added by the command
+            SmtProgram delta = commandTranslator.smtProgram.getDelta();
+            if(alloySettings.eliminateCommonSubexpressions)
+            {
+                delta = new CommonSubexpressionEliminator().optimize(delta);
+            }
+
+            // the translation is complete before anything is written
+            SmtLibPrinter printer = new SmtLibPrettyPrinter(SmtSettings.Default, writer);
+            for (Sort sort : delta.getSorts())
+            {
+                printer.visit(sort);
+            }
+
+            for (ConstantDeclaration declaration : delta.getConstantDeclarations())
+            {
+                printer.visit(declaration);
+            }
+
+            for (FunctionDeclaration declaration : delta.getFunctions())
+            {
+                printer.visit(declaration);
+            }
+
+            for (Assertion newAssertion : delta.getAssertions())
+            {
+                printer.visit(newAssertion);
+            }
+
+            // the command assertions
+            for (Assertion assertion: commandAssertions)
+            {
+                printer.visit(assertion);
+            }
+            printer.flush();
         }
-
-        for (ConstantDeclaration declaration : newConstantDeclarations)
-        {
-            SmtLibPrinter printer = new SmtLibPrettyPrinter();
-            printer.visit(declaration);
-            stringBuilder.append(printer.getSmtLib());
-        }
-
-        for (FunctionDeclaration declaration : newFunctionDeclarations)
+        finally
         {
-            SmtLibPrinter printer = new SmtLibPrettyPrinter();
-            printer.visit(declaration);
-            stringBuilder.append(printer.getSmtLib());
+            binding.close();
         }
+    }
 
-        for (Assertion newAssertion : newAssertions)
+    /**
+     * @return a translation for all commands in smt using (check-sat)
+     * without getting the models
+     */
+    public String translateAllCommandsWithCheckSat()
+    {
+        StringWriter writer = new StringWriter();
+        try
         {
-            SmtLibPrinter printer = new SmtLibPrettyPrinter();
-            printer.visit(newAssertion);
-            stringBuilder.append(printer.getSmtLib());
+            translateAllCommandsWithCheckSat(writer);
         }
-
-        // get the translation for the command assertion
-        SmtLibPrinter printer     = new SmtLibPrettyPrinter();
-        for (Assertion assertion: commandAssertions)
+        catch (IOException exception)
         {
-            printer.visit(assertion);
+            // string writers do not throw
+            throw new UncheckedIOException(exception);
         }
-
-        stringBuilder.append(printer.getSmtLib());
-        
-        return stringBuilder.toString();
+        return writer.toString();
     }
 
     /**
-     * @return a translation for all commands in smt using (check-sat)
-     * without getting the models
+     * streams a translation for all commands in smt using (check-sat)
+     * without getting the models into the writer, which is flushed but not closed
+     * @throws IOException if the writer fails
      */
-    public String translateAllCommandsWithCheckSat()
+    public void translateAllCommandsWithCheckSat(Writer writer) throws IOException
     {
-        StringBuilder stringBuilder = new StringBuilder(getSmtScript());
-        for (int i = 0; i < translator.commands.size() ; i++)
+        writer.write(getSmtScript());
+        for (int i = 0; i < getCommands().size() ; i++)
         {
-            stringBuilder.append(SmtLibPrinter.PUSH + "\n");
-            stringBuilder.append(translateCommand(i) + "\n");
-            stringBuilder.append(SmtLibPrinter.CHECK_SAT + "\n");
-            stringBuilder.append(SmtLibPrinter.POP + "\n");
+            writer.write(SmtLibPrinter.PUSH + "\n");
+            translateCommand(i, writer);
+            writer.write("\n");
+            writer.write(SmtLibPrinter.CHECK_SAT + "\n");
+            writer.write(SmtLibPrinter.POP + "\n");
         }
-        return stringBuilder.toString();
+        writer.flush();
     }
 
     /**
      *
      * @param expr can be Sig, Field, or Skolem
      * @return the unique id of the expr it exists in the idMap, or generate  a new id
+     * @throws UnsupportedOperationException if this is a {@link CachedTranslation}
+     * reused without parsing the alloy model, see {@link CachedTranslation#isReused()}.
+     * The ids of the sigs and fields of the model are available in {@link #getMapper()}.
      */
     public int getSigId(Expr expr)
     {
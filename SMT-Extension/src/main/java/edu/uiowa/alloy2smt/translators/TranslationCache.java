@@ -0,0 +1,399 @@
+/*
+ * This file is part of alloy2smt.
+ * Copyright (C) 2018-2019  The University of Iowa
+ *
+ * @author Mudathir Mohamed, Paul Meng
+ *
+ */
+
+package edu.uiowa.alloy2smt.translators;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import edu.mit.csail.sdg.alloy4.Pos;
+import edu.mit.csail.sdg.alloy4.Util;
+import edu.mit.csail.sdg.ast.Command;
+import edu.mit.csail.sdg.ast.CommandScope;
+import edu.mit.csail.sdg.ast.ExprConstant;
+import edu.mit.csail.sdg.ast.Sig;
+import edu.uiowa.alloy2smt.Utils;
+import edu.uiowa.alloy2smt.mapping.Mapper;
+import edu.uiowa.alloy2smt.utils.AlloySettings;
+import edu.uiowa.alloy2smt.utils.Serializers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Caches translations by the hash of the alloy sources and the settings, so
+ * that executing an unchanged model skips parsing and translation. Entries are
+ * kept in memory (least recently used first out) and in json files on disk,
+ * which survive restarts.
+ */
+public class TranslationCache
+{
+    // change the version when the translation or the format of the entries changes
+    private static final String VERSION = "2";
+    public static final int DEFAULT_MEMORY_ENTRIES = 8;
+    public static final int DEFAULT_DISK_ENTRIES = 64;
+    public static final File DEFAULT_DIRECTORY = new File(System.getProperty("java.io.tmpdir"), "alloy2smt-cache");
+
+    private static final TranslationCache instance = new TranslationCache(DEFAULT_MEMORY_ENTRIES, DEFAULT_DISK_ENTRIES,
+            DEFAULT_DIRECTORY);
+
+    private final int diskEntries;
+    private final File directory;
+    private final Map<String, Entry> memory;
+
+    /**
+     * @param memoryEntries the maximum number of entries in memory
+     * @param diskEntries the maximum number of entries on disk
+     * @param directory the directory of the entries on disk, or null to keep entries only in memory
+     */
+    public TranslationCache(int memoryEntries, int diskEntries, File directory)
+    {
+        this.diskEntries = diskEntries;
+        this.directory = directory;
+        this.memory = new LinkedHashMap<String, Entry>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+            {
+                return size() > memoryEntries;
+            }
+        };
+    }
+
+    public static TranslationCache getInstance()
+    {
+        return instance;
+    }
+
+    public static class Entry
+    {
+        @JsonProperty("smtScript")
+        public String smtScript;
+
+        @JsonProperty("commandScripts")
+        public List<String> commandScripts = new ArrayList<>();
+
+        @JsonProperty("commands")
+        public List<CommandEntry> commands = new ArrayList<>();
+
+        @JsonProperty("mapper")
+        public Mapper mapper;
+
+        // all the files the model depends on, including the modules that were not given
+        @JsonProperty("loadedFiles")
+        public Map<String, String> loadedFiles = new LinkedHashMap<>();
+    }
+
+    /**
+     * the fields of an alloy command needed to describe it
+     */
+    public static class CommandEntry
+    {
+        @JsonProperty("filename")
+        public String filename;
+        @JsonProperty("x")
+        public int x;
+        @JsonProperty("y")
+        public int y;
+        @JsonProperty("x2")
+        public int x2;
+        @JsonProperty("y2")
+        public int y2;
+        @JsonProperty("label")
+        public String label;
+        @JsonProperty("check")
+        public boolean check;
+        @JsonProperty("overall")
+        public int overall;
+        @JsonProperty("bitwidth")
+        public int bitwidth;
+        @JsonProperty("maxseq")
+        public int maxseq;
+        @JsonProperty("expects")
+        public int expects;
+        @JsonProperty("scopes")
+        public List<ScopeEntry> scopes = new ArrayList<>();
+        @JsonProperty("parent")
+        public CommandEntry parent;
+
+        static CommandEntry make(Command command)
+        {
+            CommandEntry entry = new CommandEntry();
+            entry.filename = command.pos.filename;
+            entry.x = command.pos.x;
+            entry.y = command.pos.y;
+            entry.x2 = command.pos.x2;
+            entry.y2 = command.pos.y2;
+            entry.label = command.label;
+            entry.check = command.check;
+            entry.overall = command.overall;
+            entry.bitwidth = command.bitwidth;
+            entry.maxseq = command.maxseq;
+            entry.expects = command.expects;
+            for (CommandScope scope : command.scope)
+            {
+                ScopeEntry scopeEntry = new ScopeEntry();
+                scopeEntry.sig = scope.sig.label;
+                scopeEntry.isExact = scope.isExact;
+                scopeEntry.startingScope = scope.startingScope;
+                scopeEntry.endingScope = scope.endingScope;
+                scopeEntry.increment = scope.increment;
+                entry.scopes.add(scopeEntry);
+            }
+            entry.parent = command.parent == null ? null : make(command.parent);
+            return entry;
+        }
+
+        /**
+         * @return a command with the same description, whose formula is true and whose
+         * scopes refer to placeholder signatures
+         */
+        Command toCommand()
+        {
+            List<CommandScope> commandScopes = new ArrayList<>();
+            for (ScopeEntry scope : scopes)
+            {
+                commandScopes.add(new CommandScope(Pos.UNKNOWN, new Sig.PrimSig(scope.sig), scope.isExact,
+                        scope.startingScope, scope.endingScope, scope.increment));
+            }
+            Pos pos = new Pos(filename, x, y, x2, y2);
+            Command parentCommand = parent == null ? null : parent.toCommand();
+            return new Command(pos, null, label, check, overall, bitwidth, maxseq, expects, commandScopes,
+                    null, ExprConstant.TRUE, parentCommand);
+        }
+    }
+
+    public static class ScopeEntry
+    {
+        @JsonProperty("sig")
+        public String sig;
+        @JsonProperty("isExact")
+        public boolean isExact;
+        @JsonProperty("startingScope")
+        public int startingScope;
+        @JsonProperty("endingScope")
+        public int endingScope;
+        @JsonProperty("increment")
+        public int increment;
+    }
+
+    /**
+     * translates the alloy model like {@link Utils#translate(Map, String, int, AlloySettings)}
+     * unless an entry for the same sources and settings exists.
+     * Like the alloy parser, it replaces the content of alloyFiles with all the files the model depends on.
+     */
+    public CachedTranslation translate(Map<String, String> alloyFiles, String originalFileName, int resolutionMode,
+                                       AlloySettings settings)
+    {
+        String key = getKey(alloyFiles, originalFileName, resolutionMode, settings);
+
+        Entry entry = get(key, alloyFiles);
+        if(entry != null)
+        {
+            alloyFiles.clear();
+            alloyFiles.putAll(entry.loadedFiles);
+            List<Command> commands = new ArrayList<>();
+            for (CommandEntry command : entry.commands)
+            {
+                commands.add(command.toCommand());
+            }
+            return new CachedTranslation(key, entry, commands, null, settings);
+        }
+
+        Translation translation = Utils.translate(alloyFiles, originalFileName, resolutionMode, settings);
+        entry = new Entry();
+        entry.smtScript = translation.getSmtScript();
+        entry.mapper = translation.getMapper();
+        for (int i = 0; i < translation.getCommands().size(); i++)
+        {
+            entry.commandScripts.add(translation.translateCommand(i));
+            entry.commands.add(CommandEntry.make(translation.getCommands().get(i)));
+        }
+        entry.loadedFiles.putAll(alloyFiles);
+        put(key, entry);
+        return new CachedTranslation(key, entry, translation.getCommands(), translation, settings);
+    }
+
+    private Entry get(String key, Map<String, String> alloyFiles)
+    {
+        Entry entry;
+        synchronized (memory)
+        {
+            entry = memory.get(key);
+        }
+        if(entry == null && directory != null)
+        {
+            File file = new File(directory, key + ".json");
+            try
+            {
+                entry = Serializers.getObjectMapper().readValue(file, Entry.class);
+                // keep recently used entries when the directory is pruned
+                file.setLastModified(System.currentTimeMillis());
+            }
+            catch (IOException exception)
+            {
+                // a missing or corrupted entry is a miss
+                return null;
+            }
+        }
+        if(entry == null || !isValid(entry, alloyFiles))
+        {
+            return null;
+        }
+        synchronized (memory)
+        {
+            memory.put(key, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * @return true if the modules that were loaded by the parser, instead of being given, have not changed
+     */
+    private boolean isValid(Entry entry, Map<String, String> alloyFiles)
+    {
+        for (Map.Entry<String, String> file : entry.loadedFiles.entrySet())
+        {
+            if(alloyFiles.containsKey(file.getKey()))
+            {
+                continue;
+            }
+            try
+            {
+                if(!file.getValue().equals(Util.readAll(file.getKey())))
+                {
+                    return false;
+                }
+            }
+            catch (IOException exception)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void put(String key, Entry entry)
+    {
+        synchronized (memory)
+        {
+            memory.put(key, entry);
+        }
+        if(directory == null)
+        {
+            return;
+        }
+        try
+        {
+            // write to a temporary file first so that readers never see a partial entry
+            Files.createDirectories(directory.toPath());
+            Path temporary = Files.createTempFile(directory.toPath(), key, ".tmp");
+            Serializers.getObjectMapper().writeValue(temporary.toFile(), entry);
+            Files.move(temporary, directory.toPath().resolve(key + ".json"), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            prune();
+        }
+        catch (IOException exception)
+        {
+            // the cache on disk is optional
+        }
+    }
+
+    /**
+     * removes the least recently used entries on disk
+     */
+    private void prune()
+    {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".json"));
+        if(files == null || files.length <= diskEntries)
+        {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < files.length - diskEntries; i++)
+        {
+            files[i].delete();
+        }
+    }
+
+    public void clear()
+    {
+        synchronized (memory)
+        {
+            memory.clear();
+        }
+        if(directory != null)
+        {
+            File[] files = directory.listFiles((dir, name) -> name.endsWith(".json"));
+            if(files != null)
+            {
+                for (File file : files)
+                {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    static String getKey(Map<String, String> alloyFiles, String originalFileName, int resolutionMode,
+                         AlloySettings settings)
+    {
+        MessageDigest digest = getDigest();
+        update(digest, VERSION);
+        update(digest, originalFileName);
+        update(digest, Integer.toString(resolutionMode));
+        for (Map.Entry<String, String> file : new TreeMap<>(alloyFiles).entrySet())
+        {
+            update(digest, file.getKey());
+            update(digest, file.getValue());
+        }
+        update(digest, settings.getLogic().toString());
+        update(digest, new TreeMap<>(settings.getSolverOptions()).toString());
+        update(digest, settings.produceUnsatCore + " " + settings.finiteModelFinding + " " +
+                settings.eliminateCommonSubexpressions + " " + settings.includeCommandScope + " " +
+                settings.integerSingletonsOnly);
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest getDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException exception)
+        {
+            // every java platform supports SHA-256
+            throw new RuntimeException(exception);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value)
+    {
+        // the length separates consecutive values
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    private static String toHex(byte[] bytes)
+    {
+        StringBuilder builder = new StringBuilder();
+        for (byte b : bytes)
+        {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+}
@@ -6,6 +6,7 @@ import edu.mit.csail.sdg.ast.ExprBinary;
 import edu.uiowa.alloy2smt.Utils;
 import edu.uiowa.alloy2smt.translators.Translation;
 import edu.uiowa.smt.AbstractTranslator;
+import edu.uiowa.smt.TranslationContext;
 import edu.uiowa.smt.TranslatorUtils;
 import edu.uiowa.smt.smtAst.*;
 
@@ -483,11 +484,9 @@ public class AlloyUtils
         }
     }
 
-    private static int symbolIndex = 0;
     private static int getFreshSymbol()
     {
-        symbolIndex ++;
-        return symbolIndex;
+        return TranslationContext.current().getFreshSymbolIndex();
     }
 }
 
@@ -3,6 +3,7 @@ package edu.uiowa.alloy2smt.utils;
 import edu.mit.csail.sdg.ast.Command;
 import edu.uiowa.alloy2smt.translators.Translation;
 import edu.uiowa.smt.cvc4.Cvc4Process;
+import edu.uiowa.smt.cvc4.Cvc4ProcessPool;
 import edu.uiowa.smt.printers.SmtLibPrinter;
 
 import java.util.ArrayList;
@@ -10,9 +11,17 @@ import java.util.List;
 
 public class Cvc4Task
 {
-    public Cvc4Process cvc4Process;
+    private final Cvc4ProcessPool pool;
 
-    public Cvc4Task() {}
+    public Cvc4Task()
+    {
+        this(Cvc4ProcessPool.getDefault());
+    }
+
+    public Cvc4Task(Cvc4ProcessPool pool)
+    {
+        this.pool = pool;
+    }
 
     public List<CommandResult> run(Translation translation, boolean includeScope) throws Exception
     {
@@ -20,19 +29,23 @@ public class Cvc4Task
         String smtScript = translation.getSmtScript();
         if (smtScript != null)
         {
-            cvc4Process = Cvc4Process.start();
-
-            cvc4Process.sendCommand(smtScript);
-
-            // surround each command except the last one with (push) and (pop)
-            for (int index = 0; index < translation.getCommands().size(); index++)
+            Cvc4Process cvc4Process = pool.lease(smtScript);
+            try
+            {
+                // surround each command with (push) and (pop)
+                for (int index = 0; index < translation.getCommands().size(); index++)
+                {
+                    // (push)
+                    cvc4Process.sendCommand(SmtLibPrinter.PUSH);
+                    CommandResult commandResult = solveCommand(index, includeScope, translation, cvc4Process);
+                    // (pop)
+                    cvc4Process.sendCommand(SmtLibPrinter.POP);
+                    commandResults.add(commandResult);
+                }
+            }
+            finally
             {
-                // (push)
-                cvc4Process.sendCommand(SmtLibPrinter.PUSH);
-                CommandResult commandResult = solveCommand(index, includeScope, translation);
-                // (pop)
-                cvc4Process.sendCommand(SmtLibPrinter.POP);
-                commandResults.add(commandResult);
+                pool.release(cvc4Process);
             }
             return commandResults;
         }
@@ -42,16 +55,19 @@ public class Cvc4Task
     public CommandResult run(Translation translation, boolean includeScope, int commandIndex ) throws Exception
     {
         String smtScript = translation.getSmtScript();
-        cvc4Process = Cvc4Process.start();
-
-        cvc4Process.sendCommand(smtScript);
-
-        CommandResult commandResult = solveCommand(commandIndex, includeScope, translation);
-
-        return commandResult;
+        Cvc4Process cvc4Process = pool.lease(smtScript);
+        try
+        {
+            return solveCommand(commandIndex, includeScope, translation, cvc4Process);
+        }
+        finally
+        {
+            pool.release(cvc4Process);
+        }
     }
 
-    private CommandResult solveCommand(int index, boolean includeScope, Translation translation) throws Exception
+    private CommandResult solveCommand(int index, boolean includeScope, Translation translation,
+                                       Cvc4Process cvc4Process) throws Exception
     {
         String commandTranslation = translation.translateCommand(index);
         Command command = translation.getCommands().get(index);
@@ -1,12 +1,10 @@
 package edu.uiowa.alloy2smt.utils;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.mit.csail.sdg.alloy4.Pos;
 
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlRootElement;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 @XmlRootElement(name = "Range")
@@ -55,16 +53,12 @@ public class Range
 
     public String toJson() throws IOException
     {
-        ObjectMapper objectMapper = new ObjectMapper();
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        objectMapper.writeValue(outputStream, this);
-        return outputStream.toString();
+        return Serializers.getObjectMapper().writeValueAsString(this);
     }
 
     public static Range fromJson(String json) throws IOException
     {
-        ObjectMapper objectMapper = new ObjectMapper();
-        Range range = objectMapper.readValue(json, Range.class);
+        Range range = Serializers.getObjectMapper().readValue(json, Range.class);
         return range;
     }
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+/*
+ * This file is part of alloy2smt.
+ * Copyright (C) 2018-2019  The University of Iowa
+ *
+ * @author Mudathir Mohamed, Paul Meng
+ *
+ */
+
+package edu.uiowa.alloy2smt.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared json mappers and xml contexts, which are expensive to create.
+ * Mappers and contexts are thread safe, but marshallers and unmarshallers
+ * are not, so each thread gets its own.
+ */
+public class Serializers
+{
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ObjectWriter prettyWriter = objectMapper.writerWithDefaultPrettyPrinter();
+
+    private static final Map<Class<?>, JAXBContext> contexts = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Map<Class<?>, Marshaller>> marshallers = ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<Map<Class<?>, Unmarshaller>> unmarshallers = ThreadLocal.withInitial(HashMap::new);
+
+    private Serializers()
+    {
+    }
+
+    /**
+     * @return the shared mapper, which should not be reconfigured
+     */
+    public static ObjectMapper getObjectMapper()
+    {
+        return objectMapper;
+    }
+
+    public static ObjectWriter getPrettyWriter()
+    {
+        return prettyWriter;
+    }
+
+    public static JAXBContext getContext(Class<?> type) throws JAXBException
+    {
+        JAXBContext context = contexts.get(type);
+        if(context == null)
+        {
+            // two threads may create the same context, but only one is kept
+            context = JAXBContext.newInstance(type);
+            JAXBContext previous = contexts.putIfAbsent(type, context);
+            if(previous != null)
+            {
+                context = previous;
+            }
+        }
+        return context;
+    }
+
+    /**
+     * @return a marshaller of the current thread that formats its output
+     */
+    public static Marshaller getMarshaller(Class<?> type) throws JAXBException
+    {
+        Marshaller marshaller = marshallers.get().get(type);
+        if(marshaller == null)
+        {
+            marshaller = getContext(type).createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+            marshallers.get().put(type, marshaller);
+        }
+        return marshaller;
+    }
+
+    /**
+     * @return an unmarshaller of the current thread
+     */
+    public static Unmarshaller getUnmarshaller(Class<?> type) throws JAXBException
+    {
+        Unmarshaller unmarshaller = unmarshallers.get().get(type);
+        if(unmarshaller == null)
+        {
+            unmarshaller = getContext(type).createUnmarshaller();
+            unmarshallers.get().put(type, unmarshaller);
+        }
+        return unmarshaller;
+    }
+}
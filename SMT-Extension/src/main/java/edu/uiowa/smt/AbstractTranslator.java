@@ -50,6 +50,8 @@ public abstract class AbstractTranslator
     public final static FunctionDeclaration uninterpretedIntValue = new FunctionDeclaration(uninterpretedIntValueName, uninterpretedInt, intSort, false);
 
     // non static members
+    // the context is shared with the translators layered over this one
+    protected TranslationContext context = new TranslationContext();
     public SmtProgram smtProgram;
     public Map<String, FunctionDeclaration> functionsMap;
     public Map<BinaryExpression.Op, FunctionDefinition> comparisonOperations;
@@ -74,6 +76,16 @@ public abstract class AbstractTranslator
 
     public abstract SmtProgram translate();
 
+    public TranslationContext getContext()
+    {
+        return context;
+    }
+
+    public String getFreshName(Sort sort)
+    {
+        return context.getFreshName(sort);
+    }
+
     public Expression handleIntConstant(Expression expression)
     {
         if(expression.getSort().equals(AbstractTranslator.intSortTuple))
@@ -102,7 +114,7 @@ public abstract class AbstractTranslator
             return integerConstants.get(value);
         }
 
-        ConstantDeclaration uninterpretedInt = new ConstantDeclaration(TranslatorUtils.getFreshName(AbstractTranslator.uninterpretedInt) + "_" + value.toString(),
+        ConstantDeclaration uninterpretedInt = new ConstantDeclaration(getFreshName(AbstractTranslator.uninterpretedInt) + "_" + value.toString(),
                 AbstractTranslator.uninterpretedInt, false);
         integerConstants.put(value, uninterpretedInt);
         smtProgram.addConstantDeclaration(uninterpretedInt);
@@ -0,0 +1,382 @@
+/*
+ * This file is part of alloy2smt.
+ * Copyright (C) 2018-2019  The University of Iowa
+ *
+ * @author Mudathir Mohamed, Paul Meng
+ *
+ */
+
+package edu.uiowa.smt;
+
+import edu.uiowa.smt.smtAst.*;
+
+import java.util.*;
+
+/**
+ * Shares the subterms repeated in the assertions of a program. Repeated closed
+ * subterms become definitions (define-fun) of the program, and repeated subterms
+ * that depend on bound variables become let bindings right inside the quantifier
+ * that binds them. Subterms smaller than the minimum size are left as they are.
+ */
+public class CommonSubexpressionEliminator
+{
+    public static final int DEFAULT_MIN_SIZE = 4;
+
+    private final int minSize;
+    private final TranslationContext context;
+
+    // memoized properties of the subterms, which are shared by the interner
+    private final Map<Expression, Integer> sizes = new IdentityHashMap<>();
+    private final Map<Expression, Set<Declaration>> freeVariables = new IdentityHashMap<>();
+
+    public CommonSubexpressionEliminator()
+    {
+        this(DEFAULT_MIN_SIZE);
+    }
+
+    /**
+     * @param minSize the minimum number of nodes of a shared subterm
+     */
+    public CommonSubexpressionEliminator(int minSize)
+    {
+        this(minSize, TranslationContext.current());
+    }
+
+    /**
+     * @param minSize the minimum number of nodes of a shared subterm
+     * @param context the context of the translation that generates the names of the shared subterms
+     */
+    public CommonSubexpressionEliminator(int minSize, TranslationContext context)
+    {
+        this.minSize = minSize;
+        this.context = context;
+    }
+
+    /**
+     * @param program a program to optimize, which is not modified
+     * @return an equivalent program where repeated subterms of the assertions are shared
+     */
+    public SmtProgram optimize(SmtProgram program)
+    {
+        List<Expression> expressions = new ArrayList<>();
+        for (Assertion assertion : program.getAssertions())
+        {
+            expressions.add(assertion.getExpression());
+        }
+
+        // closed subterms become definitions
+        Map<Expression, Expression> replacements = new HashMap<>();
+        List<FunctionDefinition> definitions = new ArrayList<>();
+        for (Expression candidate : getCandidates(expressions, Collections.emptySet(), Collections.emptySet()))
+        {
+            Expression body = replaceChildren(candidate, replacements);
+            FunctionDefinition definition = new FunctionDefinition(context.getFreshName(candidate.getSort()),
+                    new ArrayList<>(), candidate.getSort(), body, false);
+            definitions.add(definition);
+            replacements.put(candidate, definition.getVariable());
+        }
+
+        SmtProgram optimizedProgram = new SmtProgram();
+        program.getSorts().forEach(optimizedProgram::addSort);
+        program.getFunctions().forEach(optimizedProgram::addFunction);
+        // definitions are ordered by size, so each one is defined before being used
+        definitions.forEach(optimizedProgram::addFunction);
+        program.getConstantDeclarations().forEach(optimizedProgram::addConstantDeclaration);
+        for (Assertion assertion : program.getAssertions())
+        {
+            Expression expression = replace(assertion.getExpression(), replacements);
+            expression = shareBoundSubterms(expression, new HashSet<>());
+            optimizedProgram.addAssertion(expression == assertion.getExpression() ? assertion :
+                    new Assertion(assertion.getSymbolicName(), assertion.getComment(), expression));
+        }
+        return optimizedProgram;
+    }
+
+    /**
+     * replaces the repeated subterms inside each quantifier with let variables
+     * @param scope the variables bound outside the expression
+     */
+    private Expression shareBoundSubterms(Expression expression, Set<Declaration> scope)
+    {
+        if(expression instanceof QuantifiedExpression)
+        {
+            QuantifiedExpression quantified = (QuantifiedExpression) expression;
+            Set<Declaration> newScope = new HashSet<>(scope);
+            newScope.addAll(quantified.getVariables());
+
+            Expression body = quantified.getExpression();
+            Map<Expression, Expression> replacements = new HashMap<>();
+            List<Map.Entry<VariableDeclaration, Expression>> bindings = new ArrayList<>();
+            for (Expression candidate : getCandidates(Collections.singletonList(body), newScope,
+                    new HashSet<>(quantified.getVariables())))
+            {
+                VariableDeclaration variable = new VariableDeclaration(
+                        context.getFreshName(candidate.getSort()), candidate.getSort(), false);
+                bindings.add(new AbstractMap.SimpleEntry<>(variable, replaceChildren(candidate, replacements)));
+                replacements.put(candidate, variable.getVariable());
+            }
+            if(bindings.isEmpty())
+            {
+                body = shareBoundSubterms(body, newScope);
+            }
+            else
+            {
+                body = replace(body, replacements);
+                // smaller bindings are used by larger ones, so they are bound first
+                for (int i = bindings.size() - 1; i >= 0; i--)
+                {
+                    Map<VariableDeclaration, Expression> letVariables = new LinkedHashMap<>();
+                    letVariables.put(bindings.get(i).getKey(), bindings.get(i).getValue());
+                    body = new LetExpression(letVariables, body);
+                }
+                body = shareBoundSubterms(body, newScope);
+            }
+            return body == quantified.getExpression() ? quantified : quantified.getOp().make(body, quantified.getVariables());
+        }
+        if(expression instanceof LetExpression)
+        {
+            LetExpression let = (LetExpression) expression;
+            Map<VariableDeclaration, Expression> letVariables = new LinkedHashMap<>();
+            boolean isChanged = false;
+            for (Map.Entry<VariableDeclaration, Expression> entry : let.getLetVariables().entrySet())
+            {
+                Expression value = shareBoundSubterms(entry.getValue(), scope);
+                isChanged = isChanged || value != entry.getValue();
+                letVariables.put(entry.getKey(), value);
+            }
+            Set<Declaration> newScope = new HashSet<>(scope);
+            newScope.addAll(let.getLetVariables().keySet());
+            Expression body = shareBoundSubterms(let.getExpression(), newScope);
+            return !isChanged && body == let.getExpression() ? let : new LetExpression(letVariables, body);
+        }
+        List<Expression> children = getChildren(expression);
+        List<Expression> newChildren = new ArrayList<>(children.size());
+        for (Expression child : children)
+        {
+            newChildren.add(shareBoundSubterms(child, scope));
+        }
+        return rebuild(expression, children, newChildren);
+    }
+
+    /**
+     * @param scope the variables that the candidates may depend on
+     * @param requiredVariables the candidates should depend on at least one of
+     *                          these variables, unless it is empty
+     * @return the subterms repeated in the given expressions that are worth
+     * sharing, ordered by size
+     */
+    private List<Expression> getCandidates(List<Expression> expressions, Set<Declaration> scope,
+                                           Set<Declaration> requiredVariables)
+    {
+        Map<Expression, Integer> counts = new LinkedHashMap<>();
+        for (Expression expression : expressions)
+        {
+            count(expression, counts);
+        }
+        List<Expression> candidates = new ArrayList<>();
+        for (Map.Entry<Expression, Integer> entry : counts.entrySet())
+        {
+            Expression expression = entry.getKey();
+            if(entry.getValue() < 2 || getSize(expression) < minSize || expression instanceof Sort)
+            {
+                continue;
+            }
+            Set<Declaration> variables = getFreeVariables(expression);
+            if(!scope.containsAll(variables))
+            {
+                continue;
+            }
+            if(!requiredVariables.isEmpty() && Collections.disjoint(variables, requiredVariables))
+            {
+                continue;
+            }
+            candidates.add(expression);
+        }
+        candidates.sort(Comparator.comparingInt(this::getSize));
+        return candidates;
+    }
+
+    private void count(Expression expression, Map<Expression, Integer> counts)
+    {
+        Integer count = counts.get(expression);
+        counts.put(expression, count == null ? 1 : count + 1);
+        // the subterms of a repeated term are counted once
+        if(count == null)
+        {
+            for (Expression child : getChildren(expression))
+            {
+                count(child, counts);
+            }
+        }
+    }
+
+    private int getSize(Expression expression)
+    {
+        Integer size = sizes.get(expression);
+        if(size == null)
+        {
+            size = 1;
+            for (Expression child : getChildren(expression))
+            {
+                size += getSize(child);
+            }
+            sizes.put(expression, size);
+        }
+        return size;
+    }
+
+    /**
+     * @return the variables of the expression that are bound outside it, ignoring global functions
+     */
+    private Set<Declaration> getFreeVariables(Expression expression)
+    {
+        Set<Declaration> variables = freeVariables.get(expression);
+        if(variables != null)
+        {
+            return variables;
+        }
+        variables = new HashSet<>();
+        if(expression instanceof Variable)
+        {
+            Declaration declaration = ((Variable) expression).getDeclaration();
+            if(declaration instanceof VariableDeclaration)
+            {
+                variables.add(declaration);
+            }
+        }
+        else if(expression instanceof QuantifiedExpression)
+        {
+            QuantifiedExpression quantified = (QuantifiedExpression) expression;
+            variables.addAll(getFreeVariables(quantified.getExpression()));
+            variables.removeAll(quantified.getVariables());
+        }
+        else if(expression instanceof LetExpression)
+        {
+            LetExpression let = (LetExpression) expression;
+            variables.addAll(getFreeVariables(let.getExpression()));
+            variables.removeAll(let.getLetVariables().keySet());
+            for (Expression value : let.getLetVariables().values())
+            {
+                variables.addAll(getFreeVariables(value));
+            }
+        }
+        else
+        {
+            for (Expression child : getChildren(expression))
+            {
+                variables.addAll(getFreeVariables(child));
+            }
+        }
+        freeVariables.put(expression, variables);
+        return variables;
+    }
+
+    private Expression replace(Expression expression, Map<Expression, Expression> replacements)
+    {
+        Expression replacement = replacements.get(expression);
+        if(replacement != null)
+        {
+            return replacement;
+        }
+        return replaceChildren(expression, replacements);
+    }
+
+    private Expression replaceChildren(Expression expression, Map<Expression, Expression> replacements)
+    {
+        List<Expression> children = getChildren(expression);
+        List<Expression> newChildren = new ArrayList<>(children.size());
+        for (Expression child : children)
+        {
+            newChildren.add(replace(child, replacements));
+        }
+        return rebuild(expression, children, newChildren);
+    }
+
+    private static List<Expression> getChildren(Expression expression)
+    {
+        if(expression instanceof UnaryExpression)
+        {
+            return Collections.singletonList(((UnaryExpression) expression).getExpression());
+        }
+        if(expression instanceof BinaryExpression)
+        {
+            BinaryExpression binary = (BinaryExpression) expression;
+            return Arrays.asList(binary.getA(), binary.getB());
+        }
+        if(expression instanceof MultiArityExpression)
+        {
+            return ((MultiArityExpression) expression).getExpressions();
+        }
+        if(expression instanceof FunctionCallExpression)
+        {
+            return ((FunctionCallExpression) expression).getArguments();
+        }
+        if(expression instanceof ITEExpression)
+        {
+            ITEExpression ite = (ITEExpression) expression;
+            return Arrays.asList(ite.getCondExpression(), ite.getThenExpression(), ite.getElseExpression());
+        }
+        if(expression instanceof QuantifiedExpression)
+        {
+            return Collections.singletonList(((QuantifiedExpression) expression).getExpression());
+        }
+        if(expression instanceof LetExpression)
+        {
+            LetExpression let = (LetExpression) expression;
+            List<Expression> children = new ArrayList<>(let.getLetVariables().values());
+            children.add(let.getExpression());
+            return children;
+        }
+        // variables, constants and sorts
+        return Collections.emptyList();
+    }
+
+    private static Expression rebuild(Expression expression, List<Expression> children, List<Expression> newChildren)
+    {
+        boolean isChanged = false;
+        for (int i = 0; i < children.size(); i++)
+        {
+            isChanged = isChanged || children.get(i) != newChildren.get(i);
+        }
+        if(!isChanged)
+        {
+            return expression;
+        }
+        if(expression instanceof UnaryExpression)
+        {
+            return ((UnaryExpression) expression).getOP().make(newChildren.get(0));
+        }
+        if(expression instanceof BinaryExpression)
+        {
+            return ((BinaryExpression) expression).getOp().make(newChildren.get(0), newChildren.get(1));
+        }
+        if(expression instanceof MultiArityExpression)
+        {
+            return ((MultiArityExpression) expression).getOp().make(newChildren);
+        }
+        if(expression instanceof FunctionCallExpression)
+        {
+            return new FunctionCallExpression(((FunctionCallExpression) expression).getFunction(), newChildren);
+        }
+        if(expression instanceof ITEExpression)
+        {
+            return new ITEExpression(newChildren.get(0), newChildren.get(1), newChildren.get(2));
+        }
+        if(expression instanceof QuantifiedExpression)
+        {
+            QuantifiedExpression quantified = (QuantifiedExpression) expression;
+            return quantified.getOp().make(newChildren.get(0), quantified.getVariables());
+        }
+        if(expression instanceof LetExpression)
+        {
+            Map<VariableDeclaration, Expression> letVariables = new LinkedHashMap<>();
+            int index = 0;
+            for (VariableDeclaration variable : ((LetExpression) expression).getLetVariables().keySet())
+            {
+                letVariables.put(variable, newChildren.get(index++));
+            }
+            return new LetExpression(letVariables, newChildren.get(index));
+        }
+        throw new UnsupportedOperationException(expression.getClass().getName());
+    }
+}
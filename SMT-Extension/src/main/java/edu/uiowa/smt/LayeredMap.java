@@ -0,0 +1,148 @@
+/*
+ * This file is part of alloy2smt.
+ * Copyright (C) 2018-2019  The University of Iowa
+ *
+ * @author Mudathir Mohamed, Paul Meng
+ *
+ */
+
+package edu.uiowa.smt;
+
+import java.util.*;
+
+/**
+ * A map that reads through to a parent map and keeps its own additions
+ * locally, so the parent is never modified. Creating a layer costs O(1)
+ * regardless of the size of the parent.
+ * The parent should not be modified while the layer is in use.
+ */
+public class LayeredMap<K, V> extends AbstractMap<K, V>
+{
+    private final Map<K, V> parent;
+    private final Map<K, V> local = new HashMap<>();
+
+    public LayeredMap(Map<K, V> parent)
+    {
+        this.parent = parent;
+    }
+
+    public Map<K, V> getParent()
+    {
+        return parent;
+    }
+
+    /**
+     * @return the entries added to this layer
+     */
+    public Map<K, V> getLocal()
+    {
+        return Collections.unmodifiableMap(local);
+    }
+
+    @Override
+    public V get(Object key)
+    {
+        V value = local.get(key);
+        if(value != null || local.containsKey(key))
+        {
+            return value;
+        }
+        return parent.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return local.containsKey(key) || parent.containsKey(key);
+    }
+
+    @Override
+    public V put(K key, V value)
+    {
+        V oldValue = get(key);
+        local.put(key, value);
+        return oldValue;
+    }
+
+    @Override
+    public V remove(Object key)
+    {
+        throw new UnsupportedOperationException("Entries can not be removed from a layered map");
+    }
+
+    @Override
+    public int size()
+    {
+        int size = parent.size();
+        for (K key : local.keySet())
+        {
+            if(!parent.containsKey(key))
+            {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet()
+    {
+        return new AbstractSet<Entry<K, V>>()
+        {
+            @Override
+            public Iterator<Entry<K, V>> iterator()
+            {
+                Iterator<Entry<K, V>> localIterator = local.entrySet().iterator();
+                Iterator<Entry<K, V>> parentIterator = parent.entrySet().iterator();
+                return new Iterator<Entry<K, V>>()
+                {
+                    private Entry<K, V> next;
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        while (next == null)
+                        {
+                            if(localIterator.hasNext())
+                            {
+                                next = localIterator.next();
+                            }
+                            else if(parentIterator.hasNext())
+                            {
+                                Entry<K, V> entry = parentIterator.next();
+                                // local entries shadow the parent ones
+                                if(!local.containsKey(entry.getKey()))
+                                {
+                                    next = new SimpleImmutableEntry<>(entry);
+                                }
+                            }
+                            else
+                            {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+
+                    @Override
+                    public Entry<K, V> next()
+                    {
+                        if(!hasNext())
+                        {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<K, V> entry = next;
+                        next = null;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size()
+            {
+                return LayeredMap.this.size();
+            }
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package edu.uiowa.smt;
 
+import edu.uiowa.smt.parser.SmtModelReader;
 import edu.uiowa.smt.parser.SmtModelVisitor;
 import edu.uiowa.smt.parser.antlr.SmtLexer;
 import edu.uiowa.smt.parser.antlr.SmtParser;
@@ -18,6 +19,9 @@ public class Result
     public String model;
     public SmtModel smtModel;
     private SmtModelVisitor visitor;
+    private SmtModelReader reader;
+    // the model of the reader, which the antlr visitor parses if the reader fails
+    private String parsedModel;
 
     public Result()
     {
@@ -29,7 +33,27 @@ public class Result
         this.satResult = satResult;
     }
 
+    /**
+     * parses the model with {@link SmtModelReader}, and falls back to the
+     * antlr parser for inputs the reader does not support
+     */
     public SmtModel parseModel(String model)
+    {
+        this.visitor = null;
+        this.parsedModel = model;
+        this.reader = new SmtModelReader();
+        try
+        {
+            return reader.readModel(model);
+        }
+        catch (RuntimeException exception)
+        {
+            this.reader = null;
+            return parseModelWithAntlr(model);
+        }
+    }
+
+    private SmtModel parseModelWithAntlr(String model)
     {
         SmtParser parser = getSmtParser(model);
 
@@ -41,11 +65,29 @@ public class Result
         return smtModel;
     }
 
+    /**
+     * parses the output of (get-value), whose expressions may refer to the
+     * functions of the model parsed last, if any
+     */
     public SmtValues parseValues(String values)
     {
-        if(this.visitor == null)
+        if(this.reader == null && this.visitor == null)
         {
-            throw new RuntimeException("Result.parseValues method should only be called after Result.parseModel is called");
+            // without a model, the values can not refer to its functions
+            parseModel("(model)");
+        }
+        if(this.reader != null)
+        {
+            try
+            {
+                return reader.readValues(values);
+            }
+            catch (RuntimeException exception)
+            {
+                // the antlr visitor needs the functions of the model
+                this.reader = null;
+                parseModelWithAntlr(parsedModel);
+            }
         }
         SmtParser parser = getSmtParser(values);
         ParseTree tree = parser.getValue();
@@ -55,11 +97,18 @@ public class Result
 
     public SmtUnsatCore parseUnsatCore(String core)
     {
-        SmtParser parser = getSmtParser(core);
-        ParseTree tree = parser.getUnsatCore();
-        SmtModelVisitor visitor = new SmtModelVisitor();
-        SmtUnsatCore smtUnsatCore = (SmtUnsatCore) visitor.visit(tree);
-        return smtUnsatCore;
+        try
+        {
+            return new SmtModelReader().readUnsatCore(core);
+        }
+        catch (RuntimeException exception)
+        {
+            SmtParser parser = getSmtParser(core);
+            ParseTree tree = parser.getUnsatCore();
+            SmtModelVisitor visitor = new SmtModelVisitor();
+            SmtUnsatCore smtUnsatCore = (SmtUnsatCore) visitor.visit(tree);
+            return smtUnsatCore;
+        }
     }
 
     private SmtParser getSmtParser(String values)
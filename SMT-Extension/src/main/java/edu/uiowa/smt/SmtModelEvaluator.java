@@ -0,0 +1,374 @@
+/*
+ * This file is part of alloy2smt.
+ * Copyright (C) 2018-2019  The University of Iowa
+ *
+ * @author Mudathir Mohamed, Paul Meng
+ *
+ */
+
+package edu.uiowa.smt;
+
+import edu.uiowa.smt.smtAst.*;
+
+import java.util.*;
+
+/**
+ * Evaluates closed expressions in a model printed by cvc4. Arguments are bound
+ * in environments chained to a shared root, so applying a function never copies
+ * the definitions of the model. The values of closed applications, including
+ * constants and the sets of relations, are computed once, and unary functions
+ * printed as (ite (= x c1) v1 (ite (= x c2) v2 ...)), like intValue, are turned
+ * into tables on their first application.
+ */
+public class SmtModelEvaluator
+{
+    private final Map<String, FunctionDefinition> functions;
+    private final Environment root = new Environment();
+    // the values of closed applications by function and evaluated arguments
+    private final Map<String, Map<List<Expression>, Expression>> applications = new HashMap<>();
+    private final Map<String, FunctionTable> tables = new HashMap<>();
+    private final Map<String, List<List<Expression>>> tuples = new HashMap<>();
+
+    /**
+     * the branches of a unary function indexed by the constants its argument is compared to
+     */
+    private static class FunctionTable
+    {
+        final String argument;
+        final Map<Expression, Expression> branches = new HashMap<>();
+        Expression otherwise;
+
+        FunctionTable(String argument)
+        {
+            this.argument = argument;
+        }
+    }
+
+    public SmtModelEvaluator(SmtModel model)
+    {
+        this.functions = new HashMap<>();
+        // make sure this is a cvc4 model
+        for (FunctionDeclaration declaration : model.getFunctions())
+        {
+            if(!(declaration instanceof FunctionDefinition))
+            {
+                throw new RuntimeException("The function " + declaration + " is not defined");
+            }
+            functions.put(declaration.getName(), (FunctionDefinition) declaration);
+        }
+    }
+
+    /**
+     * @param functions the definitions of the model, which are not copied and
+     *                  should not be modified while the evaluator is in use
+     */
+    public SmtModelEvaluator(Map<String, FunctionDefinition> functions)
+    {
+        this.functions = functions;
+    }
+
+    public FunctionDefinition getDefinition(String name)
+    {
+        return functions.get(name);
+    }
+
+    public Expression evaluate(Expression expression)
+    {
+        return evaluate(expression, root);
+    }
+
+    /**
+     * @return the value of the function applied to evaluated arguments
+     */
+    public Expression apply(String functionName, List<Expression> arguments)
+    {
+        Map<List<Expression>, Expression> values = applications.computeIfAbsent(functionName, k -> new HashMap<>());
+        Expression value = values.get(arguments);
+        if(value != null)
+        {
+            return value;
+        }
+
+        FunctionDefinition definition = functions.get(functionName);
+        if(definition == null)
+        {
+            throw new RuntimeException("Function " + functionName + " is undefined");
+        }
+        if(definition.inputVariables.size() != arguments.size())
+        {
+            throw new RuntimeException(String.format("Function '%1$s' expects %2$d arguments but %3$d arguments were passed",
+                    functionName, definition.inputVariables.size(), arguments.size()));
+        }
+
+        Environment environment = root;
+        Expression body = definition.getExpression();
+        if(!arguments.isEmpty())
+        {
+            environment = new Environment(root);
+            for (int i = 0; i < arguments.size(); i++)
+            {
+                environment.put(definition.inputVariables.get(i).getName(), arguments.get(i));
+            }
+            if(arguments.size() == 1)
+            {
+                FunctionTable table = getTable(definition);
+                body = table.branches.getOrDefault(arguments.get(0), table.otherwise);
+            }
+        }
+        value = evaluate(body, environment);
+        values.put(new ArrayList<>(arguments), value);
+        return value;
+    }
+
+    /**
+     * @return the tuples of a set constant, each as a list of evaluated atoms
+     */
+    public List<List<Expression>> getTuples(String functionName)
+    {
+        List<List<Expression>> result = tuples.get(functionName);
+        if(result != null)
+        {
+            return result;
+        }
+        FunctionDefinition definition = functions.get(functionName);
+        if(definition == null)
+        {
+            throw new RuntimeException("Function " + functionName + " is undefined");
+        }
+        if(!definition.inputVariables.isEmpty())
+        {
+            throw new UnsupportedOperationException();
+        }
+        result = new ArrayList<>();
+        for (Expression element : getElements(definition.getExpression(), root))
+        {
+            if(element instanceof MultiArityExpression &&
+                    ((MultiArityExpression) element).getOp() == MultiArityExpression.Op.MKTUPLE)
+            {
+                result.add(((MultiArityExpression) element).getExpressions());
+            }
+            else
+            {
+                result.add(Collections.singletonList(element));
+            }
+        }
+        tuples.put(functionName, result);
+        return result;
+    }
+
+    private FunctionTable getTable(FunctionDefinition definition)
+    {
+        FunctionTable table = tables.get(definition.getName());
+        if(table != null)
+        {
+            return table;
+        }
+        table = new FunctionTable(definition.inputVariables.get(0).getName());
+        Expression body = definition.getExpression();
+        while (body instanceof ITEExpression)
+        {
+            ITEExpression ite = (ITEExpression) body;
+            Expression constant = getComparedConstant(ite.getCondExpression(), table.argument);
+            if(constant == null)
+            {
+                break;
+            }
+            // the first matching branch wins
+            table.branches.putIfAbsent(constant, ite.getThenExpression());
+            body = ite.getElseExpression();
+        }
+        table.otherwise = body;
+        tables.put(definition.getName(), table);
+        return table;
+    }
+
+    /**
+     * @return c if the condition is (= argument c) or (= c argument) for a constant c, or null otherwise
+     */
+    private static Expression getComparedConstant(Expression condition, String argument)
+    {
+        if(!(condition instanceof BinaryExpression) || ((BinaryExpression) condition).getOp() != BinaryExpression.Op.EQ)
+        {
+            return null;
+        }
+        BinaryExpression equality = (BinaryExpression) condition;
+        Expression variable = equality.getA() instanceof Variable ? equality.getA() : equality.getB();
+        Expression constant = equality.getA() instanceof Variable ? equality.getB() : equality.getA();
+        if(!(variable instanceof Variable) || !((Variable) variable).getName().equals(argument))
+        {
+            return null;
+        }
+        if(constant instanceof UninterpretedConstant || constant instanceof IntConstant ||
+                constant instanceof BoolConstant)
+        {
+            return constant;
+        }
+        return null;
+    }
+
+    private Expression evaluate(Expression expression, Environment environment)
+    {
+        // the else branches of ite chains are followed without recursion
+        while (expression instanceof ITEExpression)
+        {
+            ITEExpression ite = (ITEExpression) expression;
+            Expression condition = evaluate(ite.getCondExpression(), environment);
+            if(!(condition instanceof BoolConstant))
+            {
+                throw new RuntimeException("Expected a boolean constant but got " + condition);
+            }
+            boolean isTrue = Boolean.parseBoolean(((BoolConstant) condition).getValue());
+            expression = isTrue ? ite.getThenExpression() : ite.getElseExpression();
+        }
+
+        if(expression instanceof IntConstant || expression instanceof BoolConstant)
+        {
+            return expression;
+        }
+        if(expression instanceof UninterpretedConstant)
+        {
+            return evaluateUninterpretedConstant((UninterpretedConstant) expression);
+        }
+        if(expression instanceof Variable)
+        {
+            String name = ((Variable) expression).getName();
+            if(environment.containsKey(name))
+            {
+                return environment.get(name);
+            }
+            return apply(name, Collections.emptyList());
+        }
+        if(expression instanceof FunctionCallExpression)
+        {
+            FunctionCallExpression functionCall = (FunctionCallExpression) expression;
+            List<Expression> arguments = new ArrayList<>();
+            for (Expression argument : functionCall.getArguments())
+            {
+                arguments.add(evaluate(argument, environment));
+            }
+            return apply(functionCall.getFunctionName(), arguments);
+        }
+        if(expression instanceof BinaryExpression)
+        {
+            BinaryExpression binary = (BinaryExpression) expression;
+            switch (binary.getOp())
+            {
+                case EQ:
+                {
+                    Expression left = evaluate(binary.getA(), environment);
+                    Expression right = evaluate(binary.getB(), environment);
+                    return left.equals(right) ? BoolConstant.True : BoolConstant.False;
+                }
+                case UNION: return evaluateSet(binary, environment);
+                default:
+                    throw new UnsupportedOperationException(binary.getOp().toString());
+            }
+        }
+        if(expression instanceof UnaryExpression)
+        {
+            UnaryExpression unary = (UnaryExpression) expression;
+            switch (unary.getOP())
+            {
+                case EMPTYSET:
+                case SINGLETON: return evaluateSet(unary, environment);
+                default: return unary.getOP().make(evaluate(unary.getExpression(), environment));
+            }
+        }
+        if(expression instanceof MultiArityExpression)
+        {
+            MultiArityExpression multiArity = (MultiArityExpression) expression;
+            List<Expression> expressions = new ArrayList<>();
+            for (Expression child : multiArity.getExpressions())
+            {
+                expressions.add(evaluate(child, environment));
+            }
+            return multiArity.getOp().make(expressions);
+        }
+        throw new UnsupportedOperationException(expression.toString());
+    }
+
+    private Expression evaluateUninterpretedConstant(UninterpretedConstant constant)
+    {
+        if(constant.getSort().equals(AbstractTranslator.atomSort))
+        {
+            return constant;
+        }
+        if(constant.getSort().equals(AbstractTranslator.uninterpretedInt))
+        {
+            if(!functions.containsKey(AbstractTranslator.uninterpretedIntValueName))
+            {
+                throw new RuntimeException("The function " + AbstractTranslator.uninterpretedIntValueName + " is undefined in this model");
+            }
+            // convert the uninterpreted int to int
+            return apply(AbstractTranslator.uninterpretedIntValueName, Collections.singletonList(constant));
+        }
+        throw new UnsupportedOperationException(constant.toString());
+    }
+
+    /**
+     * rebuilds a set from its evaluated elements, with uninterpreted integers replaced by their values
+     */
+    private Expression evaluateSet(Expression set, Environment environment)
+    {
+        List<Expression> elements = getElements(set, environment);
+        if(elements.isEmpty())
+        {
+            Sort sort = set.getSort();
+            if(sort.equals(AbstractTranslator.setOfUninterpretedIntTuple))
+            {
+                sort = AbstractTranslator.setOfIntSortTuple;
+            }
+            return UnaryExpression.Op.EMPTYSET.make(sort);
+        }
+        Expression result = null;
+        for (int i = elements.size() - 1; i >= 0; i--)
+        {
+            Expression singleton = UnaryExpression.Op.SINGLETON.make(elements.get(i));
+            result = result == null ? singleton : BinaryExpression.Op.UNION.make(singleton, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return the evaluated elements of a set printed by cvc4 as nested unions of singletons
+     */
+    private List<Expression> getElements(Expression set, Environment environment)
+    {
+        List<Expression> elements = new ArrayList<>();
+        // the unions are traversed with a stack because they can be nested thousands of times
+        Deque<Expression> stack = new ArrayDeque<>();
+        stack.push(set);
+        while (!stack.isEmpty())
+        {
+            Expression current = stack.pop();
+            if(current instanceof UnaryExpression && ((UnaryExpression) current).getOP() == UnaryExpression.Op.EMPTYSET)
+            {
+                continue;
+            }
+            if(current instanceof UnaryExpression && ((UnaryExpression) current).getOP() == UnaryExpression.Op.SINGLETON)
+            {
+                elements.add(evaluate(((UnaryExpression) current).getExpression(), environment));
+            }
+            else if(current instanceof BinaryExpression &&
+                    ((BinaryExpression) current).getOp() == BinaryExpression.Op.UNION)
+            {
+                BinaryExpression binary = (BinaryExpression) current;
+                // the left elements come first
+                stack.push(binary.getB());
+                stack.push(binary.getA());
+            }
+            else if(current instanceof Variable || current instanceof FunctionCallExpression ||
+                    current instanceof ITEExpression)
+            {
+                // sets defined in terms of other functions
+                Expression value = evaluate(current, environment);
+                stack.push(value);
+            }
+            else
+            {
+                throw new UnsupportedOperationException(current.toString());
+            }
+        }
+        return elements;
+    }
+}
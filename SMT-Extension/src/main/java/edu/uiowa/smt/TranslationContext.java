@@ -0,0 +1,150 @@
+/*
+ * This file is part of alloy2smt.
+ * Copyright (C) 2018-2019  The University of Iowa
+ *
+ * @author Mudathir Mohamed, Paul Meng
+ *
+ */
+
+package edu.uiowa.smt;
+
+import edu.uiowa.smt.smtAst.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The state of a single translation, which used to be static, so that
+ * several translations can run concurrently in the same JVM.
+ * Translators hold their context explicitly. Code that has no access to the
+ * translator, like the ast, uses the context bound to the current thread by
+ * {@link #bind()}, or a shared default context outside translations.
+ */
+public class TranslationContext
+{
+    private static final TranslationContext defaultContext = new TranslationContext();
+    private static final ThreadLocal<TranslationContext> currentContext = new ThreadLocal<>();
+
+    private final AtomicInteger freshNameIndex = new AtomicInteger();
+    private final AtomicInteger symbolIndex = new AtomicInteger();
+
+    /**
+     * @return the context bound to the current thread, or the default context
+     */
+    public static TranslationContext current()
+    {
+        TranslationContext context = currentContext.get();
+        return context == null ? defaultContext : context;
+    }
+
+    /**
+     * binds this context to the current thread until the returned binding is closed
+     */
+    public Binding bind()
+    {
+        Binding binding = new Binding(currentContext.get());
+        currentContext.set(this);
+        return binding;
+    }
+
+    public static class Binding implements AutoCloseable
+    {
+        private final TranslationContext previous;
+
+        private Binding(TranslationContext previous)
+        {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close()
+        {
+            if(previous == null)
+            {
+                currentContext.remove();
+            }
+            else
+            {
+                currentContext.set(previous);
+            }
+        }
+    }
+
+    public void reset()
+    {
+        freshNameIndex.set(0);
+        symbolIndex.set(0);
+    }
+
+    /**
+     * @return a fresh symbol index for the names of assertions in unsat cores
+     */
+    public int getFreshSymbolIndex()
+    {
+        return symbolIndex.incrementAndGet();
+    }
+
+    /**
+     * @return a fresh name whose prefix depends on the sort
+     */
+    public String getFreshName(Sort sort)
+    {
+        int index = freshNameIndex.incrementAndGet();
+        if(sort != null)
+        {
+            if (sort instanceof SetSort)
+            {
+                Sort elementSort = ((SetSort) sort).elementSort;
+                if (elementSort instanceof TupleSort)
+                {
+                    int arity = ((TupleSort) elementSort).elementSorts.size();
+                    if (arity > 1)
+                    {
+                        return "r" + arity + "." + index;
+                    }
+                }
+                return "s" + "." + index;
+            }
+
+            if (sort instanceof TupleSort)
+            {
+                int arity = ((TupleSort) sort).elementSorts.size();
+                if (arity > 1)
+                {
+                    return "t" + arity + "." + index;
+                }
+                Sort tupleSort = ((TupleSort) sort).elementSorts.get(0);
+                if (tupleSort instanceof UninterpretedSort)
+                {
+                    UninterpretedSort uninterpretedSort = (UninterpretedSort) tupleSort;
+
+                    if (uninterpretedSort.equals(AbstractTranslator.atomSort))
+                    {
+                        return "tA." + index;
+                    }
+
+                    if (uninterpretedSort.equals(AbstractTranslator.uninterpretedInt))
+                    {
+                        return "tU." + index;
+                    }
+                }
+                return "t" + "." + index;
+            }
+
+            if (sort instanceof UninterpretedSort)
+            {
+                UninterpretedSort uninterpretedSort = (UninterpretedSort) sort;
+
+                if (uninterpretedSort.equals(AbstractTranslator.atomSort))
+                {
+                    return "a." + index;
+                }
+
+                if (uninterpretedSort.equals(AbstractTranslator.uninterpretedInt))
+                {
+                    return "u." + index;
+                }
+            }
+        }
+        return "x." + index;
+    }
+}
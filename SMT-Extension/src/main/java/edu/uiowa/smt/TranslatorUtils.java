@@ -16,8 +16,6 @@ import java.util.stream.Collectors;
 
 public class TranslatorUtils
 {
-    private static int freshNameIndex = 0;
-
     public static String sanitizeWithBars(Declaration declaration)
     {
         if(declaration.isOriginal())
@@ -28,71 +26,20 @@ public class TranslatorUtils
         return declaration.getName();
     }
 
+    /**
+     * @return a fresh name from the context of the current translation
+     */
     public static String getFreshName(Sort sort)
     {
-        freshNameIndex++;
-        if(sort != null)
-        {
-            if (sort instanceof SetSort)
-            {
-                Sort elementSort = ((SetSort) sort).elementSort;
-                if (elementSort instanceof TupleSort)
-                {
-                    int arity = ((TupleSort) elementSort).elementSorts.size();
-                    if (arity > 1)
-                    {
-                        return "r" + arity + "." + freshNameIndex;
-                    }
-                }
-                return "s" + "." + freshNameIndex;
-            }
-
-            if (sort instanceof TupleSort)
-            {
-                int arity = ((TupleSort) sort).elementSorts.size();
-                if (arity > 1)
-                {
-                    return "t" + arity + "." + freshNameIndex;
-                }
-                Sort tupleSort = ((TupleSort) sort).elementSorts.get(0);
-                if (tupleSort instanceof UninterpretedSort)
-                {
-                    UninterpretedSort uninterpretedSort = (UninterpretedSort) tupleSort;
-
-                    if (uninterpretedSort.equals(AbstractTranslator.atomSort))
-                    {
-                        return "tA." + freshNameIndex;
-                    }
-
-                    if (uninterpretedSort.equals(AbstractTranslator.uninterpretedInt))
-                    {
-                        return "tU." + freshNameIndex;
-                    }
-                }
-                return "t" + "." + freshNameIndex;
-            }
-
-            if (sort instanceof UninterpretedSort)
-            {
-                UninterpretedSort uninterpretedSort = (UninterpretedSort) sort;
-
-                if (uninterpretedSort.equals(AbstractTranslator.atomSort))
-                {
-                    return "a." + freshNameIndex;
-                }
-
-                if (uninterpretedSort.equals(AbstractTranslator.uninterpretedInt))
-                {
-                    return "u." + freshNameIndex;
-                }
-            }
-        }
-        return "x." + freshNameIndex;
+        return TranslationContext.current().getFreshName(sort);
     }
 
+    /**
+     * resets the context of the current translation
+     */
     public static void reset()
     {
-        freshNameIndex = 0;
+        TranslationContext.current().reset();
     }
 
     public static Sort getSetSortOfAtomWithArity(int n)
@@ -0,0 +1,229 @@
+package edu.uiowa.smt.cvc4;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A size-bounded record of the commands sent to a cvc4 process. A complete
+ * journal can be replayed by a fresh process to reproduce a crash.
+ */
+public abstract class Cvc4Journal
+{
+    protected final long maxSize;
+    protected long size;
+    protected boolean isTruncated;
+
+    protected Cvc4Journal(long maxSize)
+    {
+        if(maxSize < 1)
+        {
+            throw new IllegalArgumentException("The journal size should be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param maxSize the maximum number of characters kept in memory
+     * @return a journal that keeps the most recent characters in a ring buffer
+     */
+    public static Cvc4Journal inMemory(int maxSize)
+    {
+        return new MemoryJournal(maxSize);
+    }
+
+    /**
+     * @param maxSize the maximum number of characters written to disk
+     * @return a journal that spills commands to a temporary file, and stops
+     * recording once the file reaches the maximum size
+     */
+    public static Cvc4Journal onDisk(long maxSize)
+    {
+        return new DiskJournal(maxSize);
+    }
+
+    public abstract void append(char[] chars, int offset, int length);
+
+    public void append(String string)
+    {
+        append(string.toCharArray(), 0, string.length());
+    }
+
+    /**
+     * @return true if every command since the start of the process is recorded
+     */
+    public boolean isComplete()
+    {
+        return !isTruncated;
+    }
+
+    /**
+     * @return the maximum number of characters recorded
+     */
+    public long getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * @return the number of characters recorded so far
+     */
+    public long size()
+    {
+        return size;
+    }
+
+    /**
+     * @return a file with the recorded commands that cvc4 can run
+     * @throws IOException if the file can not be written
+     */
+    public abstract File toFile() throws IOException;
+
+    /**
+     * @return the recorded commands, which are the most recent ones if the journal is truncated
+     */
+    public abstract String getContent() throws IOException;
+
+    /**
+     * releases the resources of the journal
+     */
+    public void close()
+    {
+    }
+
+    private static class MemoryJournal extends Cvc4Journal
+    {
+        private final char[] buffer;
+        // the index of the oldest character once the buffer is full
+        private int start;
+
+        MemoryJournal(int maxSize)
+        {
+            super(maxSize);
+            buffer = new char[maxSize];
+        }
+
+        @Override
+        public synchronized void append(char[] chars, int offset, int length)
+        {
+            if(length >= buffer.length)
+            {
+                isTruncated = isTruncated || size + length > buffer.length;
+                System.arraycopy(chars, offset + length - buffer.length, buffer, 0, buffer.length);
+                start = 0;
+                size = buffer.length;
+                return;
+            }
+            int end = (int) ((start + size) % buffer.length);
+            int firstPart = Math.min(length, buffer.length - end);
+            System.arraycopy(chars, offset, buffer, end, firstPart);
+            System.arraycopy(chars, offset + firstPart, buffer, 0, length - firstPart);
+            size += length;
+            if(size > buffer.length)
+            {
+                isTruncated = true;
+                start = (int) ((start + size - buffer.length) % buffer.length);
+                size = buffer.length;
+            }
+        }
+
+        @Override
+        public synchronized String getContent()
+        {
+            StringBuilder content = new StringBuilder((int) size);
+            int firstPart = (int) Math.min(size, buffer.length - start);
+            content.append(buffer, start, firstPart);
+            content.append(buffer, 0, (int) size - firstPart);
+            return content.toString();
+        }
+
+        @Override
+        public File toFile() throws IOException
+        {
+            File file = File.createTempFile("tmp", ".smt2");
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))
+            {
+                writer.write(getContent());
+            }
+            return file;
+        }
+    }
+
+    private static class DiskJournal extends Cvc4Journal
+    {
+        private File file;
+        private Writer writer;
+
+        DiskJournal(long maxSize)
+        {
+            super(maxSize);
+        }
+
+        @Override
+        public synchronized void append(char[] chars, int offset, int length)
+        {
+            if(isTruncated)
+            {
+                return;
+            }
+            if(size + length > maxSize)
+            {
+                isTruncated = true;
+                return;
+            }
+            try
+            {
+                if(writer == null)
+                {
+                    file = File.createTempFile("cvc4", ".journal.smt2");
+                    file.deleteOnExit();
+                    writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+                }
+                writer.write(chars, offset, length);
+                size += length;
+            }
+            catch (IOException exception)
+            {
+                // a journal that can not be written is only useful up to this point
+                isTruncated = true;
+            }
+        }
+
+        @Override
+        public synchronized File toFile() throws IOException
+        {
+            if(writer == null)
+            {
+                File empty = File.createTempFile("tmp", ".smt2");
+                empty.deleteOnExit();
+                return empty;
+            }
+            writer.flush();
+            return file;
+        }
+
+        @Override
+        public synchronized String getContent() throws IOException
+        {
+            File journalFile = toFile();
+            return new String(java.nio.file.Files.readAllBytes(journalFile.toPath()), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public synchronized void close()
+        {
+            if(writer != null)
+            {
+                try
+                {
+                    writer.close();
+                }
+                catch (IOException exception)
+                {
+                    // the file is deleted anyway
+                }
+                file.delete();
+                writer = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package edu.uiowa.smt.cvc4;
+
+import edu.uiowa.smt.Result;
+import edu.uiowa.smt.printers.SmtLibPrinter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+/**
+ * Enumerates the next models of a process whose last (check-sat) was sat, like
+ * the solution iterator of kodkod. Each model is fetched by pipelining
+ * (block-model), (check-sat) and the model command without waiting in between,
+ * and a background thread prefetches the next models while the current one is
+ * displayed. The last result of the enumeration is the first one that is not
+ * sat. The process should not receive other commands until the enumerator is
+ * closed.
+ */
+public class Cvc4ModelEnumerator implements Iterator<Result>, AutoCloseable
+{
+    public static final int DEFAULT_PREFETCH = 2;
+
+    // marks the failure of the producer in the queue
+    private static final Result FAILURE = new Result();
+
+    private final Cvc4Process process;
+    private final String modelCommand;
+    private final Predicate<String> needsModel;
+    private final BlockingQueue<Result> results;
+    private final Thread producer;
+    private volatile boolean isCancelled;
+    // an IOException or a RuntimeException
+    private volatile Exception failure;
+    // whether the last result was returned
+    private boolean isDone;
+
+    public Cvc4ModelEnumerator(Cvc4Process process)
+    {
+        this(process, SmtLibPrinter.GET_MODEL, DEFAULT_PREFETCH);
+    }
+
+    /**
+     * starts prefetching the models that follow the current model of the process
+     * @param process a process whose last (check-sat) was sat
+     * @param modelCommand the command that prints each model, like (get-model)
+     * @param prefetch the maximum number of models fetched ahead of the consumer
+     */
+    public Cvc4ModelEnumerator(Cvc4Process process, String modelCommand, int prefetch)
+    {
+        this(process, modelCommand, output -> false, prefetch);
+    }
+
+    /**
+     * @param needsModel whether the output of the model command is not enough, in
+     *                   which case (get-model) is sent before moving to the next model
+     */
+    public Cvc4ModelEnumerator(Cvc4Process process, String modelCommand, Predicate<String> needsModel,
+                               int prefetch)
+    {
+        if(prefetch < 1)
+        {
+            throw new IllegalArgumentException("The number of prefetched models should be positive: " + prefetch);
+        }
+        this.process = Objects.requireNonNull(process);
+        this.modelCommand = modelCommand;
+        this.needsModel = needsModel;
+        this.results = new ArrayBlockingQueue<>(prefetch);
+        this.producer = new Thread(this::produce, "cvc4-model-enumerator");
+        this.producer.setDaemon(true);
+        this.producer.start();
+    }
+
+    private void produce()
+    {
+        try
+        {
+            while (!isCancelled)
+            {
+                Result result = fetch();
+                results.put(result);
+                if(!"sat".equals(result.satResult))
+                {
+                    return;
+                }
+            }
+        }
+        catch (InterruptedException | InterruptedIOException exception)
+        {
+            // cancelled
+        }
+        catch (IOException | RuntimeException exception)
+        {
+            failure = exception;
+            try
+            {
+                results.put(FAILURE);
+            }
+            catch (InterruptedException interruptedException)
+            {
+                // cancelled
+            }
+        }
+    }
+
+    private Result fetch() throws IOException
+    {
+        CompletableFuture<String> blockResponse = process.sendCommandAsync(SmtLibPrinter.BLOCK_MODEL);
+        CompletableFuture<String> satResponse = process.sendCommandAsync(SmtLibPrinter.CHECK_SAT);
+        // requested before the satisfiability is known, so the last request fails harmlessly
+        CompletableFuture<String> modelResponse = process.sendCommandAsync(modelCommand);
+
+        String blockOutput = Cvc4Process.getResponse(blockResponse);
+        if(blockOutput.startsWith("(error"))
+        {
+            throw new IOException("Failed to block the model: " + blockOutput);
+        }
+        Result result = new Result(null, Cvc4Process.getResponse(satResponse));
+        String model = Cvc4Process.getResponse(modelResponse);
+        if("sat".equals(result.satResult))
+        {
+            // the process is still at this model because the next round is not sent yet
+            if(needsModel.test(model))
+            {
+                model = process.sendCommand(SmtLibPrinter.GET_MODEL);
+            }
+            result.model = model;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        return !isDone && !isCancelled;
+    }
+
+    /**
+     * @return the next result, which blocks until it is fetched
+     * @throws UncheckedIOException if cvc4 failed
+     * @throws RuntimeException if fetching the result failed otherwise
+     */
+    @Override
+    public Result next()
+    {
+        if(!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        Result result;
+        try
+        {
+            result = results.take();
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for cvc4"));
+        }
+        if(result == FAILURE)
+        {
+            isDone = true;
+            if(failure instanceof IOException)
+            {
+                throw new UncheckedIOException((IOException) failure);
+            }
+            throw (RuntimeException) failure;
+        }
+        isDone = !"sat".equals(result.satResult);
+        return result;
+    }
+
+    /**
+     * stops prefetching without waiting for the background thread
+     */
+    public void cancel()
+    {
+        isCancelled = true;
+        producer.interrupt();
+        results.clear();
+    }
+
+    /**
+     * stops prefetching and waits until the background thread no longer sends
+     * commands to the process. Commands already sent are still processed by cvc4.
+     */
+    @Override
+    public void close()
+    {
+        cancel();
+        try
+        {
+            producer.join();
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
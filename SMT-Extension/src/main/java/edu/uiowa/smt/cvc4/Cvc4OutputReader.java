@@ -0,0 +1,166 @@
+package edu.uiowa.smt.cvc4;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Drains the output of a cvc4 process on a dedicated thread. The output of
+ * each command ends with the sentinel line printed by (echo success), which
+ * completes the oldest pending response with everything printed before it.
+ */
+class Cvc4OutputReader implements Runnable
+{
+    static final String SENTINEL = "success";
+
+    private static final byte[] sentinelBytes = SENTINEL.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] quotedSentinelBytes = ("\"" + SENTINEL + "\"").getBytes(StandardCharsets.UTF_8);
+
+    private final InputStream inputStream;
+    private final Queue<CompletableFuture<String>> pendingResponses = new ArrayDeque<>();
+    private boolean isClosed;
+
+    // the output of the current command
+    private byte[] buffer = new byte[8192];
+    private int length;
+    private int lineStart;
+
+    Cvc4OutputReader(InputStream inputStream)
+    {
+        this.inputStream = inputStream;
+    }
+
+    static Cvc4OutputReader start(InputStream inputStream)
+    {
+        Cvc4OutputReader reader = new Cvc4OutputReader(inputStream);
+        Thread thread = new Thread(reader, "cvc4-output-reader");
+        thread.setDaemon(true);
+        thread.start();
+        return reader;
+    }
+
+    /**
+     * registers a response for a command whose sentinel is about to be sent
+     */
+    synchronized void expect(CompletableFuture<String> response)
+    {
+        if(isClosed)
+        {
+            response.completeExceptionally(new IOException("The cvc4 process has terminated"));
+        }
+        else
+        {
+            pendingResponses.add(response);
+        }
+    }
+
+    @Override
+    public void run()
+    {
+        byte[] chunk = new byte[65536];
+        try
+        {
+            int count;
+            while ((count = inputStream.read(chunk)) != -1)
+            {
+                int start = 0;
+                for (int i = 0; i < count; i++)
+                {
+                    if(chunk[i] == '\n')
+                    {
+                        append(chunk, start, i + 1 - start);
+                        start = i + 1;
+                        endLine();
+                    }
+                }
+                append(chunk, start, count - start);
+            }
+            close(null);
+        }
+        catch (IOException exception)
+        {
+            close(exception);
+        }
+    }
+
+    private void append(byte[] bytes, int offset, int count)
+    {
+        if(length + count > buffer.length)
+        {
+            byte[] newBuffer = new byte[Math.max(buffer.length * 2, length + count)];
+            System.arraycopy(buffer, 0, newBuffer, 0, length);
+            buffer = newBuffer;
+        }
+        System.arraycopy(bytes, offset, buffer, length, count);
+        length += count;
+    }
+
+    private void endLine()
+    {
+        int lineEnd = length - 1;
+        if(lineEnd > lineStart && buffer[lineEnd - 1] == '\r')
+        {
+            lineEnd--;
+        }
+        if(isLine(sentinelBytes, lineEnd) || isLine(quotedSentinelBytes, lineEnd))
+        {
+            String output = new String(buffer, 0, lineStart, StandardCharsets.UTF_8).trim();
+            length = 0;
+            lineStart = 0;
+            CompletableFuture<String> response;
+            synchronized (this)
+            {
+                response = pendingResponses.poll();
+            }
+            if(response != null)
+            {
+                response.complete(output);
+            }
+        }
+        else
+        {
+            lineStart = length;
+        }
+    }
+
+    private boolean isLine(byte[] bytes, int lineEnd)
+    {
+        if(lineEnd - lineStart != bytes.length)
+        {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++)
+        {
+            if(buffer[lineStart + i] != bytes[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private synchronized void close(IOException exception)
+    {
+        isClosed = true;
+        // like a blocking read, the first pending command gets whatever the process printed before exiting
+        CompletableFuture<String> response = pendingResponses.poll();
+        if(response != null)
+        {
+            if(exception == null)
+            {
+                response.complete(new String(buffer, 0, length, StandardCharsets.UTF_8).trim());
+            }
+            else
+            {
+                response.completeExceptionally(exception);
+            }
+        }
+        while (!pendingResponses.isEmpty())
+        {
+            pendingResponses.poll().completeExceptionally(new IOException("The cvc4 process has terminated"));
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package edu.uiowa.smt.cvc4;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Races processes with different option profiles on the same command. The
+ * first sat or unsat answer wins and the other processes are stopped. The
+ * winning profile of each model is remembered, so that later races of the
+ * model start with it, which matters when fewer processes than profiles race.
+ */
+public class Cvc4Portfolio
+{
+    public static final int DEFAULT_MODELS = 64;
+
+    private static final ExecutorService executor = Executors.newCachedThreadPool(runnable ->
+    {
+        Thread thread = new Thread(runnable, "cvc4-portfolio");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Cvc4ProcessPool pool;
+    private final List<Cvc4Profile> profiles;
+    // the name of the winning profile by model, least recently used first out
+    private final Map<String, String> winners;
+    private final Set<Race> races = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    /**
+     * the answer of a profile, whose process is still leased from the pool
+     */
+    public static class Outcome
+    {
+        public final Cvc4Profile profile;
+        public final Cvc4Process process;
+        public final String result;
+
+        Outcome(Cvc4Profile profile, Cvc4Process process, String result)
+        {
+            this.profile = profile;
+            this.process = process;
+            this.result = result;
+        }
+
+        public boolean isDefinitive()
+        {
+            return "sat".equals(result) || "unsat".equals(result);
+        }
+    }
+
+    /**
+     * the processes of a race, which are stopped together once it is over
+     */
+    private static class Race
+    {
+        final List<Cvc4Process> processes = new ArrayList<>();
+        boolean isOver;
+
+        synchronized boolean add(Cvc4Process process)
+        {
+            if(isOver)
+            {
+                return false;
+            }
+            processes.add(process);
+            return true;
+        }
+
+        synchronized void stop(Cvc4Process winner)
+        {
+            isOver = true;
+            for (Cvc4Process process : processes)
+            {
+                if(process != winner)
+                {
+                    process.cancel();
+                }
+            }
+        }
+    }
+
+    public Cvc4Portfolio(Cvc4ProcessPool pool)
+    {
+        this(pool, Cvc4Profile.PROFILES, DEFAULT_MODELS);
+    }
+
+    /**
+     * @param profiles the profiles in the order they are raced
+     * @param models the maximum number of models whose winning profile is remembered
+     */
+    public Cvc4Portfolio(Cvc4ProcessPool pool, List<Cvc4Profile> profiles, int models)
+    {
+        if(profiles.isEmpty())
+        {
+            throw new IllegalArgumentException("A portfolio needs at least one profile");
+        }
+        this.pool = pool;
+        this.profiles = new ArrayList<>(profiles);
+        this.winners = new LinkedHashMap<String, String>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest)
+            {
+                return size() > models;
+            }
+        };
+    }
+
+    public List<Cvc4Profile> getProfiles()
+    {
+        return Collections.unmodifiableList(profiles);
+    }
+
+    /**
+     * @return the profiles raced for the model: the last winner first, then the others in order
+     */
+    public List<Cvc4Profile> getCandidates(String modelKey, int size)
+    {
+        String winner;
+        synchronized (winners)
+        {
+            winner = winners.get(modelKey);
+        }
+        List<Cvc4Profile> candidates = new ArrayList<>();
+        for (Cvc4Profile profile : profiles)
+        {
+            if(profile.getName().equals(winner))
+            {
+                candidates.add(0, profile);
+            }
+            else
+            {
+                candidates.add(profile);
+            }
+        }
+        return candidates.subList(0, Math.max(1, Math.min(size, candidates.size())));
+    }
+
+    /**
+     * races processes leased from the pool, one per profile, on a command
+     * @param modelKey identifies the model whose winning profile is remembered
+     * @param baseScript the smt script shared by all commands of the model
+     * @param command the command followed by (check-sat)
+     * @param size the number of profiles raced
+     * @param timeout the wall-clock limit of each process in milliseconds, or 0 for no limit
+     * @return the first sat or unsat outcome, or the outcome of the first profile if
+     * none is definitive. Its process should be returned to the pool by the caller,
+     * while the other processes are returned by the portfolio.
+     * @throws Exception if no profile could be raced
+     */
+    public Outcome solve(String modelKey, String baseScript, String command, int size, long timeout) throws Exception
+    {
+        List<Cvc4Profile> candidates = getCandidates(modelKey, size);
+        Race race = new Race();
+        races.add(race);
+        CompletionService<Outcome> completionService = new ExecutorCompletionService<>(executor);
+        Map<Cvc4Profile, Outcome> outcomes = new HashMap<>();
+        Outcome winner = null;
+        Exception failure = null;
+        int received = 0;
+        try
+        {
+            for (Cvc4Profile profile : candidates)
+            {
+                completionService.submit(() -> race(race, profile, baseScript, command, timeout));
+            }
+            for (; received < candidates.size(); received++)
+            {
+                try
+                {
+                    Outcome outcome = completionService.take().get();
+                    outcomes.put(outcome.profile, outcome);
+                    if(winner == null && outcome.isDefinitive())
+                    {
+                        winner = outcome;
+                        race.stop(winner.process);
+                    }
+                }
+                catch (ExecutionException exception)
+                {
+                    if(failure == null)
+                    {
+                        failure = exception.getCause() instanceof Exception ?
+                                (Exception) exception.getCause() : exception;
+                    }
+                }
+            }
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            race.stop(null);
+            for (Outcome outcome : outcomes.values())
+            {
+                pool.release(outcome.process);
+            }
+            // the stopped processes are returned to the pool once their solves end
+            int pending = candidates.size() - received;
+            executor.execute(() -> releaseAll(completionService, pending));
+            throw exception;
+        }
+        finally
+        {
+            races.remove(race);
+        }
+
+        if(winner != null)
+        {
+            synchronized (winners)
+            {
+                winners.put(modelKey, winner.profile.getName());
+            }
+        }
+        else
+        {
+            for (Cvc4Profile profile : candidates)
+            {
+                if(outcomes.containsKey(profile))
+                {
+                    winner = outcomes.get(profile);
+                    break;
+                }
+            }
+        }
+        for (Outcome outcome : outcomes.values())
+        {
+            if(outcome != winner)
+            {
+                // stopped processes are destroyed by the pool
+                pool.release(outcome.process);
+            }
+        }
+        if(winner == null)
+        {
+            throw failure;
+        }
+        return winner;
+    }
+
+    private Outcome race(Race race, Cvc4Profile profile, String baseScript, String command, long timeout) throws Exception
+    {
+        Cvc4Process process = pool.lease(profile.apply(baseScript));
+        if(!race.add(process))
+        {
+            // the race was over before the process was ready
+            return new Outcome(profile, process, Cvc4Process.getUnknownResult(Cvc4Process.Interruption.CANCELLED));
+        }
+        try
+        {
+            String result = process.solve(writer -> writer.write(command), timeout);
+            return new Outcome(profile, process, result);
+        }
+        catch (Exception exception)
+        {
+            pool.invalidate(process);
+            throw exception;
+        }
+    }
+
+    private void releaseAll(CompletionService<Outcome> completionService, int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            try
+            {
+                pool.release(completionService.take().get().process);
+            }
+            catch (InterruptedException exception)
+            {
+                return;
+            }
+            catch (ExecutionException exception)
+            {
+                // the process of a failed profile is already destroyed
+            }
+        }
+    }
+
+    /**
+     * stops all the processes of the current races
+     */
+    public void cancel()
+    {
+        for (Race race : races)
+        {
+            race.stop(null);
+        }
+    }
+}
@@ -1,7 +1,14 @@
 package edu.uiowa.smt.cvc4;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 
 public class Cvc4Process
@@ -11,36 +18,179 @@ public class Cvc4Process
     public static final String SEP      = File.separator;
     public static final String BIN_PATH = ".." + SEP + "bin" + SEP;
 
+    private static final String ECHO_SENTINEL = "\n(echo " + Cvc4OutputReader.SENTINEL + ")\n";
+    private static final Logger LOGGER = Logger.getLogger(Cvc4Process.class.getName());
+
+    public enum TranscriptMode
+    {
+        // commands are not recorded, and a crashed session can not be replayed
+        NONE,
+        // the most recent commands are kept in a ring buffer
+        MEMORY,
+        // commands are spilled to a temporary file
+        DISK
+    }
+
+    /**
+     * The reasons why a solve is stopped before cvc4 answers
+     */
+    public enum Interruption
+    {
+        TIMEOUT, MEMOUT, CANCELLED;
+
+        @Override
+        public String toString()
+        {
+            return name().toLowerCase(Locale.US);
+        }
+    }
+
+    // the maximum virtual memory in megabytes of new processes, or 0 for no limit.
+    // It is enforced with ulimit, which is not available on windows.
+    private static volatile long memoryLimit = 0;
+
+    // opt-in recording of the commands sent to new processes, guarded by Cvc4Process.class
+    private static TranscriptMode transcriptMode = TranscriptMode.NONE;
+    // the maximum number of characters recorded per process, guarded by Cvc4Process.class
+    private static long transcriptMaxSize = 64 * 1024 * 1024;
+
     private Process process;
-    private Scanner scanner;
-    private OutputStream outputStream;
-    private StringBuilder smtCode;
+    private Cvc4OutputReader reader;
+    private Writer writer;
+    private Cvc4Journal journal;
+    private String binPath;
+    // the number of (push) commands not yet popped
+    private int assertionLevel;
+    // why the process was stopped, if it was
+    private volatile Interruption interruption;
 
-    private Cvc4Process(Process process)
+    Cvc4Process(Process process)
     {
         this.process        = process;
-        this.scanner        = new Scanner(process.getInputStream());
-        this.outputStream   = process.getOutputStream();
-        this.smtCode        = new StringBuilder();
+        this.reader         = Cvc4OutputReader.start(process.getInputStream());
+        this.writer         = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8), 1 << 16);
+        this.journal        = createJournal();
+    }
+
+    /**
+     * Writes a command directly into the process pipe
+     */
+    public interface CommandWriter
+    {
+        void write(Writer writer) throws IOException;
     }
 
     public static Cvc4Process start() throws Exception
     {
-        ProcessBuilder processBuilder = getProcessBuilder();
+        return start(BIN_PATH);
+    }
+
+    /**
+     * starts a new cvc4 process
+     * @param binPath the directory that contains the cvc4 binaries
+     * @return the new process
+     * @throws Exception if no cvc4 binary can be executed
+     */
+    public static Cvc4Process start(String binPath) throws Exception
+    {
+        ProcessBuilder processBuilder = getProcessBuilder(binPath);
         Process process = processBuilder.start();
-        return new Cvc4Process(process);
+        Cvc4Process cvc4Process = new Cvc4Process(process);
+        cvc4Process.binPath = binPath;
+        return cvc4Process;
+    }
+
+    /**
+     * @return the maximum virtual memory in megabytes of new processes, or 0 for no limit
+     */
+    public static long getMemoryLimit()
+    {
+        return memoryLimit;
+    }
+
+    /**
+     * sets the maximum virtual memory of the processes started afterwards. The
+     * processes already running keep their limit, see {@link Cvc4ProcessPool#clear()}.
+     * @param limit the limit in megabytes, or 0 for no limit
+     */
+    public static void setMemoryLimit(long limit)
+    {
+        if(limit < 0)
+        {
+            throw new IllegalArgumentException("The memory limit should not be negative: " + limit);
+        }
+        memoryLimit = limit;
+    }
+
+    /**
+     * @return how the commands sent to new processes are recorded
+     */
+    public static synchronized TranscriptMode getTranscriptMode()
+    {
+        return transcriptMode;
     }
 
+    /**
+     * @return the maximum number of characters recorded per new process
+     */
+    public static synchronized long getTranscriptMaxSize()
+    {
+        return transcriptMaxSize;
+    }
+
+    /**
+     * sets how the commands sent to the processes started afterwards are recorded
+     * @param mode where the commands are recorded
+     * @param maxSize the maximum number of characters recorded per process
+     */
+    public static synchronized void setTranscript(TranscriptMode mode, long maxSize)
+    {
+        if(maxSize < 1)
+        {
+            throw new IllegalArgumentException("The transcript size should be positive: " + maxSize);
+        }
+        transcriptMode = Objects.requireNonNull(mode);
+        transcriptMaxSize = maxSize;
+    }
+
+    private static synchronized Cvc4Journal createJournal()
+    {
+        switch (transcriptMode)
+        {
+            case MEMORY: return Cvc4Journal.inMemory((int) Math.min(Integer.MAX_VALUE - 8, transcriptMaxSize));
+            case DISK: return Cvc4Journal.onDisk(transcriptMaxSize);
+            default: return null;
+        }
+    }
+
+    /**
+     * @return the record of the commands sent to this process, or null if
+     * {@link Cvc4Process#getTranscriptMode()} was NONE when the process started
+     */
+    public Cvc4Journal getJournal()
+    {
+        return journal;
+    }
+
+    /**
+     * replays the recorded session on a new process
+     * @return the output of the new process
+     */
     private String runCVC4() throws Exception
     {
-        ProcessBuilder processBuilder = getProcessBuilder();
+        if(journal == null)
+        {
+            return "The cvc4 session can not be replayed because its transcript is not recorded";
+        }
+        if(!journal.isComplete())
+        {
+            return "The cvc4 session can not be replayed because its transcript exceeded "
+                    + journal.getMaxSize() + " characters. The last commands are:\n" + journal.getContent();
+        }
+
+        ProcessBuilder processBuilder = getProcessBuilder(binPath);
 
-        String tempDirectory        = System.getProperty("java.io.tmpdir");
-        // save the smt file
-        File smtFile        = File.createTempFile("tmp", ".smt2", new File(tempDirectory));
-        Formatter formatter = new Formatter(smtFile);
-        formatter.format("%s", smtCode.toString());
-        formatter.close();
+        File smtFile        = journal.toFile();
         processBuilder.command().add(smtFile.getAbsolutePath());
 
         // start the process
@@ -51,27 +201,27 @@ public class Cvc4Process
         while ((line = bufferedReader.readLine()) != null)
         {
             stringBuilder.append(line);
-            stringBuilder.append("/n");
+            stringBuilder.append("\n");
         }
         process.destroyForcibly();
         return stringBuilder.toString();
     }
 
-    private static ProcessBuilder getProcessBuilder() throws Exception
+    private static ProcessBuilder getProcessBuilder(String binPath) throws Exception
     {
         String cvc4;
 
         if (onWindows())
         {
-            cvc4 = BIN_PATH + "cvc4_win64.exe";
+            cvc4 = binPath + "cvc4_win64.exe";
         }
         else if (onMac())
         {
-            cvc4 = BIN_PATH + "cvc4_mac";
+            cvc4 = binPath + "cvc4_mac";
         }
         else if (OS.startsWith("Linux"))
         {
-            cvc4 = BIN_PATH + "cvc4_linux";
+            cvc4 = binPath + "cvc4_linux";
         }
         else
         {
@@ -92,6 +242,13 @@ public class Cvc4Process
         ProcessBuilder processBuilder = new ProcessBuilder();
         List<String> command = new ArrayList<>();
 
+        if(memoryLimit > 0 && !onWindows())
+        {
+            // the shell sets the limit and replaces itself with cvc4, whose path and arguments follow
+            command.add("/bin/sh");
+            command.add("-c");
+            command.add("ulimit -v " + memoryLimit * 1024 + " && exec \"$0\" \"$@\"");
+        }
         command.add(cvc4);
 
         // tell cvc4 the input language is smt2
@@ -106,18 +263,64 @@ public class Cvc4Process
 
     public String sendCommand(String command) throws IOException
     {
-        outputStream.write((command + "\n").getBytes());
-        smtCode.append(command + "\n");
-        System.out.println(command);
+        return getResponse(sendCommandAsync(command));
+    }
+
+    public String sendCommand(CommandWriter commandWriter) throws IOException
+    {
+        return getResponse(sendCommandAsync(commandWriter));
+    }
+
+    /**
+     * sends a command without waiting for its output, so that several
+     * commands can be pipelined
+     * @param command an smt command
+     * @return the output of the command once cvc4 has processed it
+     * @throws IOException if the command could not be written to the process
+     */
+    public CompletableFuture<String> sendCommandAsync(String command) throws IOException
+    {
+        if(LOGGER.isLoggable(Level.FINE))
+        {
+            LOGGER.fine(command);
+        }
+        synchronized (this)
+        {
+            updateAssertionLevel(command);
+            return sendCommandAsync(writer -> writer.write(command));
+        }
+    }
+
+    /**
+     * streams a command into the process pipe without waiting for its output
+     * @param commandWriter writes the command to the pipe
+     * @return the output of the command once cvc4 has processed it
+     * @throws IOException if the command could not be written to the process
+     */
+    public synchronized CompletableFuture<String> sendCommandAsync(CommandWriter commandWriter) throws IOException
+    {
+        CompletableFuture<String> response = new CompletableFuture<>();
         try
         {
-            outputStream.flush();
+            if(journal != null)
+            {
+                commandWriter.write(new TranscriptWriter(writer, journal));
+                journal.append("\n");
+            }
+            else
+            {
+                commandWriter.write(writer);
+            }
+            // register the response before its sentinel reaches the process
+            reader.expect(response);
+            writer.write(ECHO_SENTINEL);
+            writer.flush();
         }
         catch (java.io.IOException ioException)
         {
-            if(ioException.getMessage().toLowerCase().contains("pipe"))
+            response.completeExceptionally(ioException);
+            if(ioException.getMessage() != null && ioException.getMessage().toLowerCase().contains("pipe"))
             {
-//                System.out.println(smtCode.toString());
                 try
                 {
                     String error = runCVC4();
@@ -131,33 +334,221 @@ public class Cvc4Process
             }
             throw ioException;
         }
-        return receiveOutput();
+        return response;
+    }
+
+    /**
+     * sends a command, like (check-sat), and waits for its output at most the
+     * given time. If the time elapses, the solve is cancelled, or the process runs
+     * out of memory, the process is destroyed and the result is unknown with the
+     * reason, like "unknown (timeout)". A destroyed process should be replaced,
+     * for example with {@link Cvc4ProcessPool#replace(Cvc4Process)}.
+     * @param timeout the wall-clock limit in milliseconds, or 0 for no limit
+     * @return the output of the command, or the unknown result of the interruption
+     * @throws IOException if the process failed for another reason
+     */
+    public String solve(CommandWriter command, long timeout) throws IOException
+    {
+        CompletableFuture<String> response = sendCommandAsync(command);
+        String output;
+        try
+        {
+            output = timeout > 0 ? response.get(timeout, TimeUnit.MILLISECONDS) : response.get();
+        }
+        catch (TimeoutException exception)
+        {
+            interrupt(Interruption.TIMEOUT);
+            return getUnknownResult(Interruption.TIMEOUT);
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            interrupt(Interruption.CANCELLED);
+            return getUnknownResult(Interruption.CANCELLED);
+        }
+        catch (ExecutionException exception)
+        {
+            if(interruption != null)
+            {
+                return getUnknownResult(interruption);
+            }
+            throw exception.getCause() instanceof IOException ?
+                    (IOException) exception.getCause() : new IOException(exception.getCause());
+        }
+        if(interruption != null)
+        {
+            // the process printed something before it was destroyed
+            return getUnknownResult(interruption);
+        }
+        if(isOutOfMemory(output))
+        {
+            interrupt(Interruption.MEMOUT);
+            return getUnknownResult(Interruption.MEMOUT);
+        }
+        return output;
+    }
+
+    /**
+     * stops the current solve of this process, if any, from another thread. The
+     * process is destroyed and can not be used afterwards.
+     */
+    public void cancel()
+    {
+        interrupt(Interruption.CANCELLED);
+    }
+
+    private void interrupt(Interruption reason)
+    {
+        synchronized (this)
+        {
+            if(interruption == null)
+            {
+                interruption = reason;
+            }
+        }
+        destroy();
     }
 
-    private String receiveOutput() throws IOException
+    /**
+     * @return why the process was destroyed by a solve, or null
+     */
+    public Interruption getInterruption()
     {
-        String line = "";
-        outputStream.write(("(echo success)\n").getBytes());
-        outputStream.flush();
+        return interruption;
+    }
 
-        StringBuilder output = new StringBuilder();
+    public static String getUnknownResult(Interruption reason)
+    {
+        return "unknown (" + reason + ")";
+    }
 
-        while(scanner.hasNextLine())
+    /**
+     * @return the interruption of an unknown result returned by a solve, or null for other results
+     */
+    public static Interruption getInterruption(String result)
+    {
+        for (Interruption reason : Interruption.values())
         {
-            line = scanner.nextLine();
+            if(getUnknownResult(reason).equals(result))
+            {
+                return reason;
+            }
+        }
+        return null;
+    }
 
-            if(line.equals("success"))
+    /**
+     * @return true if the output is the message of cvc4 when it fails to allocate memory
+     */
+    private static boolean isOutOfMemory(String output)
+    {
+        if(output.startsWith("sat") || output.startsWith("unsat") || output.startsWith("unknown"))
+        {
+            return false;
+        }
+        String lowerCase = output.toLowerCase(Locale.US);
+        return lowerCase.contains("bad_alloc") || lowerCase.contains("out of memory") ||
+                lowerCase.contains("cannot allocate memory");
+    }
+
+    static String getResponse(CompletableFuture<String> response) throws IOException
+    {
+        try
+        {
+            return response.get();
+        }
+        catch (InterruptedException exception)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for cvc4");
+        }
+        catch (ExecutionException exception)
+        {
+            if(exception.getCause() instanceof IOException)
             {
-                return output.toString().trim();
+                throw (IOException) exception.getCause();
             }
-            output.append(line).append("\n");
+            throw new IOException(exception.getCause());
         }
-        return line;
+    }
+
+    /**
+     * Copies everything written to the process into the journal
+     */
+    private static class TranscriptWriter extends Writer
+    {
+        private final Writer writer;
+        private final Cvc4Journal transcript;
+
+        TranscriptWriter(Writer writer, Cvc4Journal transcript)
+        {
+            this.writer = writer;
+            this.transcript = transcript;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException
+        {
+            writer.write(chars, offset, length);
+            transcript.append(chars, offset, length);
+        }
+
+        @Override
+        public void write(String string, int offset, int length) throws IOException
+        {
+            writer.write(string, offset, length);
+            transcript.append(string.substring(offset, offset + length));
+        }
+
+        @Override
+        public void flush() throws IOException
+        {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            flush();
+        }
+    }
+
+    private void updateAssertionLevel(String command)
+    {
+        String trimmed = command.trim();
+        boolean isPush = trimmed.startsWith("(push");
+        if((isPush || trimmed.startsWith("(pop")) && trimmed.indexOf(')') == trimmed.length() - 1)
+        {
+            String levels = trimmed.substring(isPush ? 5 : 4, trimmed.length() - 1).trim();
+            int count = levels.isEmpty() ? 1 : Integer.parseInt(levels);
+            assertionLevel += isPush ? count : -count;
+        }
+        else if(trimmed.equals("(reset)") || trimmed.equals("(reset-assertions)"))
+        {
+            assertionLevel = 0;
+        }
+    }
+
+    /**
+     * @return the number of assertion levels pushed and not yet popped
+     */
+    public int getAssertionLevel()
+    {
+        return assertionLevel;
+    }
+
+    public boolean isAlive()
+    {
+        return process.isAlive();
     }
 
     public void destroy()
     {
         process.destroyForcibly();
+        if(journal != null)
+        {
+            journal.close();
+        }
     }
 
     private static boolean onWindows()
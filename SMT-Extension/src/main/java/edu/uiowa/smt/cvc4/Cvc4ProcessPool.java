@@ -0,0 +1,412 @@
+package edu.uiowa.smt.cvc4;
+
+import java.util.*;
+
+/**
+ * A bounded pool of warm cvc4 processes. Each idle process has already
+ * received a base script followed by (push 1), so leasing a process for
+ * the same script costs a single round trip instead of a fork and a full
+ * re-assertion of the script.
+ */
+public class Cvc4ProcessPool
+{
+    public static final int DEFAULT_MAX_SIZE = 4;
+    public static final long DEFAULT_IDLE_TIMEOUT = 5 * 60 * 1000;
+
+    private static final Cvc4ProcessPool defaultPool = new Cvc4ProcessPool(Cvc4Process.BIN_PATH);
+
+    private final Starter starter;
+    private final int maxSize;
+    private final long idleTimeout;
+
+    // most recently used processes first
+    private final Deque<Entry> idleEntries = new ArrayDeque<>();
+    private final Map<Cvc4Process, Entry> leasedEntries = new IdentityHashMap<>();
+    // the number of slots reserved for processes being started
+    private int reservedSlots;
+    private Timer evictionTimer;
+    private boolean isShutdown;
+    // incremented by clear(), so that older processes are not reused
+    private volatile int generation;
+
+    /**
+     * starts the processes of a pool
+     */
+    interface Starter
+    {
+        Cvc4Process start() throws Exception;
+    }
+
+    private static class Entry
+    {
+        final Cvc4Process process;
+        final int generation;
+        String baseScript;
+        boolean isUsed;
+        long lastUsed;
+
+        Entry(Cvc4Process process, int generation)
+        {
+            this.process = process;
+            this.generation = generation;
+        }
+    }
+
+    public Cvc4ProcessPool(String binPath)
+    {
+        this(binPath, DEFAULT_MAX_SIZE, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * @param binPath the directory that contains the cvc4 binaries
+     * @param maxSize the maximum number of processes (idle and leased) alive at the same time
+     * @param idleTimeout the time in milliseconds after which an idle process is destroyed
+     */
+    public Cvc4ProcessPool(String binPath, int maxSize, long idleTimeout)
+    {
+        this(() -> Cvc4Process.start(binPath), maxSize, idleTimeout);
+    }
+
+    Cvc4ProcessPool(Starter starter, int maxSize, long idleTimeout)
+    {
+        if(maxSize < 1)
+        {
+            throw new IllegalArgumentException("The pool size should be positive: " + maxSize);
+        }
+        this.starter = starter;
+        this.maxSize = maxSize;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * @return a shared pool for the binaries in {@link Cvc4Process#BIN_PATH}
+     */
+    public static Cvc4ProcessPool getDefault()
+    {
+        return defaultPool;
+    }
+
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * @return the number of processes alive in this pool (idle and leased)
+     */
+    public synchronized int size()
+    {
+        return idleEntries.size() + leasedEntries.size() + reservedSlots;
+    }
+
+    public synchronized int idleSize()
+    {
+        return idleEntries.size();
+    }
+
+    /**
+     * leases a process loaded with the given base script. The caller should
+     * return the process using {@link Cvc4ProcessPool#release(Cvc4Process)}
+     * or {@link Cvc4ProcessPool#invalidate(Cvc4Process)} when done.
+     * This method blocks while all processes of the pool are leased.
+     * @param baseScript the smt script shared by all commands of a model
+     * @return a process where the base script is asserted below the current level
+     * @throws Exception if no process could be started
+     */
+    public Cvc4Process lease(String baseScript) throws Exception
+    {
+        Entry entry;
+        synchronized (this)
+        {
+            evictIdle();
+            while (true)
+            {
+                if(isShutdown)
+                {
+                    throw new IllegalStateException("The cvc4 process pool is shut down");
+                }
+                entry = takeIdleEntry(baseScript, size() >= maxSize);
+                if(entry != null || size() < maxSize)
+                {
+                    break;
+                }
+                wait();
+            }
+
+            if(entry == null)
+            {
+                // reserve a slot for a new process
+                reservedSlots++;
+            }
+            else
+            {
+                leasedEntries.put(entry.process, entry);
+            }
+        }
+
+        if(entry == null)
+        {
+            entry = startProcess();
+        }
+
+        try
+        {
+            if(!baseScript.equals(entry.baseScript))
+            {
+                load(entry, baseScript);
+            }
+            return entry.process;
+        }
+        catch (Exception exception)
+        {
+            discard(entry);
+            throw exception;
+        }
+    }
+
+    /**
+     * returns a leased process to the pool. The assertions added since the
+     * lease are popped, and the process is destroyed if it is no longer healthy.
+     * @param process a process leased from this pool
+     */
+    public void release(Cvc4Process process)
+    {
+        Entry entry;
+        synchronized (this)
+        {
+            entry = leasedEntries.get(process);
+        }
+        if(entry == null)
+        {
+            return;
+        }
+
+        if(!restore(entry))
+        {
+            discard(entry);
+            return;
+        }
+
+        synchronized (this)
+        {
+            leasedEntries.remove(process);
+            entry.lastUsed = System.currentTimeMillis();
+            if(isShutdown || entry.generation != generation)
+            {
+                process.destroy();
+            }
+            else
+            {
+                idleEntries.addFirst(entry);
+                scheduleEviction();
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * destroys a leased process without returning it to the pool
+     * @param process a process leased from this pool
+     */
+    public void invalidate(Cvc4Process process)
+    {
+        Entry entry;
+        synchronized (this)
+        {
+            entry = leasedEntries.get(process);
+        }
+        if(entry != null)
+        {
+            discard(entry);
+        }
+    }
+
+    /**
+     * destroys a leased process, for example one stopped by
+     * {@link Cvc4Process#solve(Cvc4Process.CommandWriter, long)}, and leases a
+     * replacement loaded with the same base script
+     * @param process a process leased from this pool
+     * @return a process where the base script is asserted below the current level
+     * @throws Exception if no process could be started
+     */
+    public Cvc4Process replace(Cvc4Process process) throws Exception
+    {
+        Entry entry;
+        synchronized (this)
+        {
+            entry = leasedEntries.get(process);
+        }
+        if(entry == null || entry.baseScript == null)
+        {
+            throw new IllegalArgumentException("The process is not leased from this pool with a base script");
+        }
+        String baseScript = entry.baseScript;
+        discard(entry);
+        return lease(baseScript);
+    }
+
+    /**
+     * destroys the idle processes that were not used during the idle timeout
+     */
+    public synchronized void evictIdle()
+    {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> iterator = idleEntries.iterator();
+        while (iterator.hasNext())
+        {
+            Entry entry = iterator.next();
+            if(now - entry.lastUsed >= idleTimeout || !entry.process.isAlive())
+            {
+                iterator.remove();
+                entry.process.destroy();
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * destroys the idle processes, and the leased ones when they are released,
+     * so that the processes leased afterwards are started with the current
+     * settings of {@link Cvc4Process}, like its memory limit
+     */
+    public synchronized void clear()
+    {
+        generation++;
+        for (Entry entry : idleEntries)
+        {
+            entry.process.destroy();
+        }
+        idleEntries.clear();
+        notifyAll();
+    }
+
+    /**
+     * destroys all idle processes. Leased processes are destroyed when released.
+     */
+    public synchronized void shutdown()
+    {
+        isShutdown = true;
+        for (Entry entry : idleEntries)
+        {
+            entry.process.destroy();
+        }
+        idleEntries.clear();
+        if(evictionTimer != null)
+        {
+            evictionTimer.cancel();
+            evictionTimer = null;
+        }
+        notifyAll();
+    }
+
+    private Entry takeIdleEntry(String baseScript, boolean isFull)
+    {
+        // prefer a process already loaded with the same script
+        for (Iterator<Entry> iterator = idleEntries.iterator(); iterator.hasNext(); )
+        {
+            Entry entry = iterator.next();
+            if(baseScript.equals(entry.baseScript))
+            {
+                iterator.remove();
+                return entry;
+            }
+        }
+        // when no new process can be started, reuse the least recently used one after a (reset)
+        return isFull ? idleEntries.pollLast() : null;
+    }
+
+    private Entry startProcess() throws Exception
+    {
+        Entry entry = null;
+        // a process started before a clear() is not reused
+        int startGeneration = generation;
+        try
+        {
+            entry = new Entry(starter.start(), startGeneration);
+            return entry;
+        }
+        finally
+        {
+            synchronized (this)
+            {
+                reservedSlots--;
+                if(entry != null)
+                {
+                    leasedEntries.put(entry.process, entry);
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    private void load(Entry entry, String baseScript) throws Exception
+    {
+        Cvc4Process process = entry.process;
+        entry.baseScript = null;
+        if(entry.isUsed)
+        {
+            process.sendCommand("(reset)");
+        }
+        entry.isUsed = true;
+        process.sendCommand(baseScript);
+        process.sendCommand("(push 1)");
+        entry.baseScript = baseScript;
+    }
+
+    /**
+     * pops the assertions added during the lease
+     * @return true if the process is healthy and back at its base level
+     */
+    private boolean restore(Entry entry)
+    {
+        Cvc4Process process = entry.process;
+        try
+        {
+            if(!process.isAlive() || entry.baseScript == null)
+            {
+                return false;
+            }
+            int levels = process.getAssertionLevel();
+            if(levels < 1)
+            {
+                // the base script itself was popped or reset, so it has to be reloaded
+                entry.baseScript = null;
+                return true;
+            }
+            process.sendCommand("(pop " + levels + ")");
+            process.sendCommand("(push 1)");
+            return process.isAlive();
+        }
+        catch (Exception exception)
+        {
+            return false;
+        }
+    }
+
+    private void discard(Entry entry)
+    {
+        entry.process.destroy();
+        synchronized (this)
+        {
+            leasedEntries.remove(entry.process);
+            notifyAll();
+        }
+    }
+
+    private void scheduleEviction()
+    {
+        if(evictionTimer == null)
+        {
+            evictionTimer = new Timer("cvc4-pool-eviction", true);
+            long period = Math.max(1000, idleTimeout / 2);
+            evictionTimer.schedule(new TimerTask()
+            {
+                @Override
+                public void run()
+                {
+                    evictIdle();
+                }
+            }, period, period);
+        }
+    }
+}
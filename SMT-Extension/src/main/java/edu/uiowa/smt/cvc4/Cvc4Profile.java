@@ -0,0 +1,95 @@
+package edu.uiowa.smt.cvc4;
+
+import java.util.*;
+
+/**
+ * A named set of cvc4 options that override the options of a script. Models
+ * can be much faster with or without finite model finding, or with another
+ * quantifier instantiation strategy, so a portfolio races several profiles.
+ */
+public class Cvc4Profile
+{
+    public static final Cvc4Profile DEFAULT = new Cvc4Profile("default", Collections.emptyMap());
+
+    // in the order they are raced
+    public static final List<Cvc4Profile> PROFILES = Collections.unmodifiableList(Arrays.asList(
+            DEFAULT,
+            new Cvc4Profile("no-finite-model-find", options("finite-model-find", "false")),
+            new Cvc4Profile("full-saturate-quant", options("finite-model-find", "false",
+                    "full-saturate-quant", "true")),
+            new Cvc4Profile("finite-model-find-bound", options("finite-model-find", "true",
+                    "fmf-bound", "true"))));
+
+    private final String name;
+    private final Map<String, String> options;
+
+    public Cvc4Profile(String name, Map<String, String> options)
+    {
+        this.name = name;
+        this.options = Collections.unmodifiableMap(new LinkedHashMap<>(options));
+    }
+
+    private static Map<String, String> options(String... keysAndValues)
+    {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2)
+        {
+            options.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return options;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public Map<String, String> getOptions()
+    {
+        return options;
+    }
+
+    /**
+     * @return the script with the options of this profile set after its
+     * (set-logic) and (set-option) commands, where they override the options of
+     * the script. The script itself is returned if the profile has no options.
+     */
+    public String apply(String script)
+    {
+        if(options.isEmpty())
+        {
+            return script;
+        }
+        // the end of the leading (set-logic) and (set-option) lines
+        int end = 0;
+        while (end < script.length())
+        {
+            int lineEnd = script.indexOf('\n', end);
+            lineEnd = lineEnd < 0 ? script.length() : lineEnd + 1;
+            String line = script.substring(end, lineEnd).trim();
+            if(!line.isEmpty() && !line.startsWith("(set-logic") && !line.startsWith("(set-option"))
+            {
+                break;
+            }
+            end = lineEnd;
+        }
+        StringBuilder builder = new StringBuilder(script.length() + 64 * options.size());
+        builder.append(script, 0, end);
+        if(end > 0 && script.charAt(end - 1) != '\n')
+        {
+            builder.append('\n');
+        }
+        for (Map.Entry<String, String> option : options.entrySet())
+        {
+            builder.append("(set-option :").append(option.getKey()).append(' ').append(option.getValue()).append(")\n");
+        }
+        builder.append(script, end, script.length());
+        return builder.toString();
+    }
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+}
@@ -0,0 +1,634 @@
+/*
+ * This file is part of alloy2smt.
+ * Copyright (C) 2018-2019  The University of Iowa
+ *
+ * @author Mudathir Mohamed, Paul Meng
+ *
+ */
+
+package edu.uiowa.smt.parser;
+
+import edu.uiowa.smt.AbstractTranslator;
+import edu.uiowa.smt.Environment;
+import edu.uiowa.smt.smtAst.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A single pass reader for the models, values, and unsat cores printed by
+ * cvc4, which accepts the language of the grammar Smt.g4 and builds the same
+ * ast as {@link SmtModelVisitor} without a parse tree. Expressions are read
+ * with an explicit stack, so deeply nested sets do not overflow the call stack.
+ * Any input the reader does not understand raises a {@link RuntimeException}.
+ */
+public class SmtModelReader
+{
+    private static final int LEFT_PARENTHESIS = 0;
+    private static final int RIGHT_PARENTHESIS = 1;
+    private static final int SYMBOL = 2;
+    private static final int END = 3;
+
+    private static final String ATOM_PREFIX = "@uc_Atom_";
+    private static final String UNINTERPRETED_INT_PREFIX = "@uc_UInt_";
+
+    // the kinds of expressions that are read with the stack
+    private enum Kind
+    {
+        UNARY, BINARY, TERNARY, MULTI_ARITY, QUANTIFIER, CALL, PARENTHESES
+    }
+
+    private static class Frame
+    {
+        final Kind kind;
+        final String operator;
+        final Environment environment;
+        final List<Expression> expressions = new ArrayList<>(2);
+        List<VariableDeclaration> variables;
+        FunctionDeclaration function;
+
+        Frame(Kind kind, String operator, Environment environment)
+        {
+            this.kind = kind;
+            this.operator = operator;
+            this.environment = environment;
+        }
+    }
+
+    private final Environment root = new Environment();
+    private String text;
+    private int position;
+    private int token;
+    private int tokenStart;
+    private int tokenEnd;
+
+    /**
+     * @param model the output of (get-model)
+     */
+    public SmtModel readModel(String model)
+    {
+        reset(model);
+        SmtModel smtModel = new SmtModel();
+        expect(LEFT_PARENTHESIS);
+        expectSymbol("model");
+        while (token == LEFT_PARENTHESIS)
+        {
+            int start = tokenStart;
+            next();
+            String command = readSymbol();
+            if(command.equals("declare-sort"))
+            {
+                String sortName = readSymbol();
+                int arity = Integer.parseInt(readInteger());
+                expect(RIGHT_PARENTHESIS);
+                smtModel.addSort(new Sort(sortName, arity));
+            }
+            else if(command.equals("define-fun"))
+            {
+                String name = readSymbol();
+                // ignore named formulas
+                if(name.contains("\"filename\":"))
+                {
+                    //ToDo: support functions of named formulas
+                    skipToEndOf(start);
+                    continue;
+                }
+                FunctionDefinition definition = readFunctionDefinition(processName(name));
+                smtModel.addFunction(definition);
+                if(definition.getInputVariables().size() == 0)
+                {
+                    root.put(definition.getName(), definition.getVariable());
+                }
+            }
+            else
+            {
+                throw error("Unexpected command '" + command + "'");
+            }
+        }
+        expect(RIGHT_PARENTHESIS);
+        expect(END);
+        return smtModel;
+    }
+
+    /**
+     * @param values the output of (get-value), whose expressions may refer to
+     *               the functions of the last model read. Other constants get
+     *               declarations with the sorts of their values.
+     */
+    public SmtValues readValues(String values)
+    {
+        reset(values);
+        List<ExpressionValue> expressionValues = new ArrayList<>();
+        expect(LEFT_PARENTHESIS);
+        do
+        {
+            expect(LEFT_PARENTHESIS);
+            Expression expression;
+            Expression value;
+            String symbol = token == SYMBOL ? text.substring(tokenStart, tokenEnd) : null;
+            if(symbol != null && readConstant(symbol) == null && !root.containsKey(processName(symbol)))
+            {
+                next();
+                value = readExpression(root);
+                expression = new ConstantDeclaration(processName(symbol), value.getSort(), true).getVariable();
+            }
+            else
+            {
+                expression = readExpression(root);
+                value = readExpression(root);
+            }
+            expect(RIGHT_PARENTHESIS);
+            expressionValues.add(new ExpressionValue(expression, value));
+        }
+        while (token == LEFT_PARENTHESIS);
+        expect(RIGHT_PARENTHESIS);
+        expect(END);
+        return new SmtValues(expressionValues);
+    }
+
+    /**
+     * @param core the output of (get-unsat-core)
+     */
+    public SmtUnsatCore readUnsatCore(String core)
+    {
+        reset(core);
+        List<String> names = new ArrayList<>();
+        expect(LEFT_PARENTHESIS);
+        while (token == SYMBOL)
+        {
+            names.add(processName(readSymbol()));
+        }
+        expect(RIGHT_PARENTHESIS);
+        expect(END);
+        return new SmtUnsatCore(names);
+    }
+
+    private FunctionDefinition readFunctionDefinition(String name)
+    {
+        Environment environment = new Environment(root);
+        List<VariableDeclaration> variables = readVariableDeclarations(environment);
+        Sort returnSort = readSort();
+        Expression expression = readExpression(environment);
+        expect(RIGHT_PARENTHESIS);
+        return new FunctionDefinition(name, variables, returnSort, expression, true);
+    }
+
+    /**
+     * reads a list of declarations and adds their variables to the environment
+     */
+    private List<VariableDeclaration> readVariableDeclarations(Environment environment)
+    {
+        List<VariableDeclaration> variables = new ArrayList<>();
+        expect(LEFT_PARENTHESIS);
+        while (token == LEFT_PARENTHESIS)
+        {
+            next();
+            String name = processName(readSymbol());
+            Sort sort = readSort();
+            expect(RIGHT_PARENTHESIS);
+            VariableDeclaration variable = new VariableDeclaration(name, sort, true);
+            variables.add(variable);
+            environment.put(name, variable.getVariable());
+        }
+        expect(RIGHT_PARENTHESIS);
+        return variables;
+    }
+
+    private Sort readSort()
+    {
+        if(token == SYMBOL)
+        {
+            String sortName = readSymbol();
+            switch (sortName)
+            {
+                case AbstractTranslator.atom: return AbstractTranslator.atomSort;
+                case AbstractTranslator.intSortName: return AbstractTranslator.intSort;
+                case AbstractTranslator.uninterpretedIntName: return AbstractTranslator.uninterpretedInt;
+                case AbstractTranslator.boolSortName: return AbstractTranslator.boolSort;
+                default:
+                    throw new UnsupportedOperationException(String.format("Unknown sort '%s'", sortName));
+            }
+        }
+        expect(LEFT_PARENTHESIS);
+        String constructor = readSymbol();
+        Sort sort;
+        if(constructor.equals("Set"))
+        {
+            sort = new SetSort(readSort());
+        }
+        else if(constructor.equals("Tuple"))
+        {
+            List<Sort> sorts = new ArrayList<>();
+            do
+            {
+                sorts.add(readSort());
+            }
+            while (token != RIGHT_PARENTHESIS);
+            sort = new TupleSort(sorts);
+        }
+        else
+        {
+            throw error("Unknown sort constructor '" + constructor + "'");
+        }
+        expect(RIGHT_PARENTHESIS);
+        return sort;
+    }
+
+    private Expression readExpression(Environment environment)
+    {
+        Deque<Frame> stack = new ArrayDeque<>();
+        Expression expression = null;
+        while (true)
+        {
+            if(expression == null)
+            {
+                Environment currentEnvironment = stack.isEmpty() ? environment : stack.peek().environment;
+                expression = readTerm(stack, currentEnvironment);
+                if(expression == null)
+                {
+                    // a frame was pushed for a compound expression
+                    continue;
+                }
+            }
+            if(stack.isEmpty())
+            {
+                return expression;
+            }
+            Frame frame = stack.peek();
+            frame.expressions.add(expression);
+            if(token == RIGHT_PARENTHESIS)
+            {
+                next();
+                stack.pop();
+                expression = build(frame);
+            }
+            else
+            {
+                expression = null;
+            }
+        }
+    }
+
+    /**
+     * reads a constant, a variable, or the beginning of a compound expression
+     * @return the expression read, or null if a frame is pushed to the stack
+     */
+    private Expression readTerm(Deque<Frame> stack, Environment environment)
+    {
+        if(token == SYMBOL)
+        {
+            return readAtom(readSymbol(), environment);
+        }
+        expect(LEFT_PARENTHESIS);
+        if(token == LEFT_PARENTHESIS)
+        {
+            stack.push(new Frame(Kind.PARENTHESES, null, environment));
+            return null;
+        }
+        String head = readSymbol();
+        switch (head)
+        {
+            case "not":
+            case "singleton":
+            case "complement":
+            case "transpose":
+            case "tclosure":
+                stack.push(new Frame(Kind.UNARY, head, environment));
+                return null;
+            case "-":
+                // negative integers
+                if(token == SYMBOL && isInteger(tokenStart, tokenEnd))
+                {
+                    String integer = readInteger();
+                    if(token == RIGHT_PARENTHESIS)
+                    {
+                        next();
+                        return IntConstant.getInstance(Integer.parseInt("-" + integer));
+                    }
+                    Frame frame = new Frame(Kind.BINARY, head, environment);
+                    frame.expressions.add(IntConstant.getInstance(Integer.parseInt(integer)));
+                    stack.push(frame);
+                    return null;
+                }
+                stack.push(new Frame(Kind.BINARY, head, environment));
+                return null;
+            case "=":
+            case ">":
+            case ">=":
+            case "<":
+            case "<=":
+            case "+":
+            case "*":
+            case "/":
+            case "mod":
+            case "=>":
+            case "union":
+            case "intersection":
+            case "setminus":
+            case "member":
+            case "subset":
+            case "join":
+            case "product":
+                stack.push(new Frame(Kind.BINARY, head, environment));
+                return null;
+            case "ite":
+                stack.push(new Frame(Kind.TERNARY, head, environment));
+                return null;
+            case "mkTuple":
+            case "insert":
+            case "distinct":
+            case "or":
+            case "and":
+                stack.push(new Frame(Kind.MULTI_ARITY, head, environment));
+                return null;
+            case "forall":
+            case "exists":
+            {
+                Environment newEnvironment = new Environment(environment);
+                Frame frame = new Frame(Kind.QUANTIFIER, head, newEnvironment);
+                frame.variables = readVariableDeclarations(newEnvironment);
+                stack.push(frame);
+                return null;
+            }
+            case "as":
+            {
+                expectSymbol("emptyset");
+                Sort sort = readSort();
+                expect(RIGHT_PARENTHESIS);
+                if(!(sort instanceof SetSort))
+                {
+                    throw error("The empty set has a non set sort " + sort);
+                }
+                return UnaryExpression.Op.EMPTYSET.make(new SetSort(((SetSort) sort).elementSort));
+            }
+            default:
+                if(token == RIGHT_PARENTHESIS)
+                {
+                    next();
+                    return readAtom(head, environment);
+                }
+                Frame frame = new Frame(Kind.CALL, head, environment);
+                Variable function = (Variable) environment.get(processName(head));
+                frame.function = (FunctionDeclaration) function.getDeclaration();
+                stack.push(frame);
+                return null;
+        }
+    }
+
+    private Expression build(Frame frame)
+    {
+        List<Expression> expressions = frame.expressions;
+        switch (frame.kind)
+        {
+            case UNARY:
+                checkSize(frame, 1);
+                return UnaryExpression.Op.getOp(frame.operator).make(expressions.get(0));
+            case BINARY:
+                checkSize(frame, 2);
+                return BinaryExpression.Op.getOp(frame.operator).make(expressions.get(0), expressions.get(1));
+            case TERNARY:
+                checkSize(frame, 3);
+                return new ITEExpression(expressions.get(0), expressions.get(1), expressions.get(2));
+            case MULTI_ARITY:
+                return MultiArityExpression.Op.getOp(frame.operator).make(expressions);
+            case QUANTIFIER:
+                checkSize(frame, 1);
+                return QuantifiedExpression.Op.getOp(frame.operator).make(expressions.get(0), frame.variables);
+            case CALL:
+                return new FunctionCallExpression(frame.function, expressions);
+            case PARENTHESES:
+                checkSize(frame, 1);
+                return expressions.get(0);
+            default:
+                throw new UnsupportedOperationException(frame.kind.toString());
+        }
+    }
+
+    private void checkSize(Frame frame, int size)
+    {
+        if(frame.expressions.size() != size)
+        {
+            throw error(String.format("Expected %d operands for '%s' but found %d", size,
+                    frame.operator, frame.expressions.size()));
+        }
+    }
+
+    private Expression readAtom(String symbol, Environment environment)
+    {
+        Expression constant = readConstant(symbol);
+        if(constant != null)
+        {
+            return constant;
+        }
+        String variableName = processName(symbol);
+        if(!environment.containsKey(variableName))
+        {
+            throw new RuntimeException(String.format("The variable '%s' is undefined", variableName));
+        }
+        return environment.get(variableName);
+    }
+
+    /**
+     * @return the boolean, integer, or uninterpreted constant of the symbol, or null if it is not a constant
+     */
+    private static Expression readConstant(String symbol)
+    {
+        switch (symbol)
+        {
+            case "true": return BoolConstant.True;
+            case "false": return BoolConstant.False;
+            default:
+        }
+        if(isInteger(0, symbol.length(), symbol))
+        {
+            return IntConstant.getInstance(Integer.parseInt(symbol));
+        }
+        if(symbol.startsWith(ATOM_PREFIX) && isInteger(ATOM_PREFIX.length(), symbol.length(), symbol))
+        {
+            return new UninterpretedConstant(symbol, AbstractTranslator.atomSort);
+        }
+        if(symbol.startsWith(UNINTERPRETED_INT_PREFIX) &&
+                isInteger(UNINTERPRETED_INT_PREFIX.length(), symbol.length(), symbol))
+        {
+            return new UninterpretedConstant(symbol, AbstractTranslator.uninterpretedInt);
+        }
+        return null;
+    }
+
+    private static String processName(String name)
+    {
+        return name.replace("|", "").trim();
+    }
+
+    private boolean isInteger(int start, int end)
+    {
+        return isInteger(start, end, text);
+    }
+
+    private static boolean isInteger(int start, int end, String string)
+    {
+        if(start >= end)
+        {
+            return false;
+        }
+        for (int i = start; i < end; i++)
+        {
+            char c = string.charAt(i);
+            if(c < '0' || c > '9')
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void reset(String input)
+    {
+        text = input;
+        position = 0;
+        next();
+    }
+
+    /**
+     * moves to the next token skipping white spaces and comments
+     */
+    private void next()
+    {
+        int length = text.length();
+        while (position < length)
+        {
+            char c = text.charAt(position);
+            if(c == ';')
+            {
+                while (position < length && text.charAt(position) != '\n' && text.charAt(position) != '\r')
+                {
+                    position++;
+                }
+            }
+            else if(Character.isWhitespace(c))
+            {
+                position++;
+            }
+            else
+            {
+                break;
+            }
+        }
+        tokenStart = position;
+        if(position == length)
+        {
+            token = END;
+            tokenEnd = position;
+            return;
+        }
+        char c = text.charAt(position);
+        if(c == '(' || c == ')')
+        {
+            token = c == '(' ? LEFT_PARENTHESIS : RIGHT_PARENTHESIS;
+            position++;
+            tokenEnd = position;
+            return;
+        }
+        token = SYMBOL;
+        if(c == '|')
+        {
+            int end = text.indexOf('|', position + 1);
+            if(end < 0)
+            {
+                throw error("Unterminated symbol");
+            }
+            position = end + 1;
+        }
+        else
+        {
+            while (position < length)
+            {
+                c = text.charAt(position);
+                if(c == '(' || c == ')' || c == ';' || c == '|' || Character.isWhitespace(c))
+                {
+                    break;
+                }
+                position++;
+            }
+        }
+        tokenEnd = position;
+    }
+
+    private String readSymbol()
+    {
+        if(token != SYMBOL)
+        {
+            throw error("Expected a symbol");
+        }
+        String symbol = text.substring(tokenStart, tokenEnd);
+        next();
+        return symbol;
+    }
+
+    private String readInteger()
+    {
+        if(token != SYMBOL || !isInteger(tokenStart, tokenEnd))
+        {
+            throw error("Expected an integer");
+        }
+        return readSymbol();
+    }
+
+    private void expect(int expectedToken)
+    {
+        if(token != expectedToken)
+        {
+            throw error("Unexpected token");
+        }
+        if(token != END)
+        {
+            next();
+        }
+    }
+
+    private void expectSymbol(String symbol)
+    {
+        if(token != SYMBOL || !text.regionMatches(tokenStart, symbol, 0, symbol.length())
+                || tokenEnd - tokenStart != symbol.length())
+        {
+            throw error("Expected '" + symbol + "'");
+        }
+        next();
+    }
+
+    /**
+     * skips the rest of the list that starts at the given position
+     */
+    private void skipToEndOf(int start)
+    {
+        position = start;
+        next();
+        int depth = 0;
+        do
+        {
+            if(token == LEFT_PARENTHESIS)
+            {
+                depth++;
+            }
+            else if(token == RIGHT_PARENTHESIS)
+            {
+                depth--;
+            }
+            else if(token == END)
+            {
+                throw error("Unbalanced parentheses");
+            }
+            next();
+        }
+        while (depth > 0);
+    }
+
+    private RuntimeException error(String message)
+    {
+        int end = Math.min(text.length(), tokenEnd + 20);
+        return new RuntimeException(String.format("%s at position %d near '%s'", message, tokenStart,
+                text.substring(tokenStart, end)));
+    }
+}
@@ -3,6 +3,7 @@ package edu.uiowa.smt.printers;
 import edu.uiowa.smt.TranslatorUtils;
 import edu.uiowa.smt.smtAst.*;
 
+import java.io.Writer;
 import java.util.Map;
 
 public class SmtLibPrettyPrinter extends SmtLibPrinter
@@ -13,7 +14,7 @@ public class SmtLibPrettyPrinter extends SmtLibPrinter
     {
         for (int i = 0; i < tabsCount; i++)
         {
-            stringBuilder.append(" ");
+            writer.append(" ");
         }
     }
 
@@ -27,16 +28,21 @@ public class SmtLibPrettyPrinter extends SmtLibPrinter
         super();
     }
 
+    public SmtLibPrettyPrinter(SmtSettings smtSettings, Writer writer)
+    {
+        super(smtSettings, writer);
+    }
+
     @Override
     public void visit(UnaryExpression unaryExpression)
     {
         tabsCount++;
-        stringBuilder.append("\n");
+        writer.append("\n");
         printTabs();
-        stringBuilder.append("(" + unaryExpression.getOP() + " ");
+        writer.append("(" + unaryExpression.getOP() + " ");
         tabsCount++;
         this.visit(unaryExpression.getExpression());
-        stringBuilder.append(")");
+        writer.append(")");
         tabsCount -= 2;
 
     }
@@ -47,23 +53,23 @@ public class SmtLibPrettyPrinter extends SmtLibPrinter
         if(binaryExpression.getOp() != BinaryExpression.Op.TUPSEL)
         {
             tabsCount++;
-            stringBuilder.append("\n");
+            writer.append("\n");
             printTabs();
-            stringBuilder.append("(" + binaryExpression.getOp() + " ");
+            writer.append("(" + binaryExpression.getOp() + " ");
             tabsCount++;
             this.visit(binaryExpression.getA());
-            stringBuilder.append(" ");
+            writer.append(" ");
             this.visit(binaryExpression.getB());
-            stringBuilder.append(")");
+            writer.append(")");
             tabsCount -= 2;
         }
         else
         {
-            stringBuilder.append("((_ " + binaryExpression.getOp() + " ");
-            stringBuilder.append(((IntConstant)binaryExpression.getA()).getValue());
-            stringBuilder.append(") ");
+            writer.append("((_ " + binaryExpression.getOp() + " ");
+            writer.append(((IntConstant)binaryExpression.getA()).getValue());
+            writer.append(") ");
             this.visit(binaryExpression.getB());
-            stringBuilder.append(")");
+            writer.append(")");
         }
     }
 
@@ -71,9 +77,9 @@ public class SmtLibPrettyPrinter extends SmtLibPrinter
     public void visit(MultiArityExpression multiArityExpression)
     {
         tabsCount++;
-        stringBuilder.append("\n");
+        writer.append("\n");
         printTabs();
-        stringBuilder.append("(" + multiArityExpression.getOp() + " ");
+        writer.append("(" + multiArityExpression.getOp() + " ");
         tabsCount++;
         if(multiArityExpression.getExpressions().size() == 1)
         {
@@ -84,7 +90,7 @@ public class SmtLibPrettyPrinter extends SmtLibPrinter
             for (int i = 0; i < multiArityExpression.getExpressions().size()-1; ++i)
             {
                 this.visit(multiArityExpression.getExpressions().get(i));
-                stringBuilder.append(" ");
+                writer.append(" ");
             }
             this.visit(multiArityExpression.getExpressions().get(multiArityExpression.getExpressions().size()-1));
         }
@@ -92,7 +98,7 @@ public class SmtLibPrettyPrinter extends SmtLibPrinter
         {
             throw new RuntimeException("");
         }
-        stringBuilder.append(")");
+        writer.append(")");
         tabsCount -= 2;
     }
 
@@ -101,17 +107,17 @@ public class SmtLibPrettyPrinter extends SmtLibPrinter
     {
         quantifiedExpression = optimize(quantifiedExpression);
         tabsCount++;
-        stringBuilder.append("\n");
+        writer.append("\n");
         printTabs();
-        stringBuilder.append("(" + quantifiedExpression.getOp() + " (");
+        writer.append("(" + quantifiedExpression.getOp() + " (");
         for (VariableDeclaration boundVariable: quantifiedExpression.getVariables())
         {
             this.visit(boundVariable);
         }
-        stringBuilder.append(") ");
+        writer.append(") ");
         tabsCount ++;
         this.visit(quantifiedExpression.getExpression());
-        stringBuilder.append(")");
+        writer.append(")");
         tabsCount -= 2;
     }
 
@@ -119,24 +125,24 @@ public class SmtLibPrettyPrinter extends SmtLibPrinter
     public void visit(LetExpression let)
     {
         tabsCount++;
-        stringBuilder.append("\n");
+        writer.append("\n");
         printTabs();
-        stringBuilder.append("(let (");
+        writer.append("(let (");
         for(Map.Entry<VariableDeclaration, Expression> letVar : let.getLetVariables().entrySet())
         {
             tabsCount++;
-            stringBuilder.append("\n");
+            writer.append("\n");
             printTabs();
-            stringBuilder.append("(");
-            stringBuilder.append(TranslatorUtils.sanitizeWithBars(letVar.getKey())).append(" ");
+            writer.append("(");
+            writer.append(TranslatorUtils.sanitizeWithBars(letVar.getKey())).append(" ");
             this.visit(letVar.getValue());
-            stringBuilder.append(")");
+            writer.append(")");
             tabsCount--;
         }
-        stringBuilder.append(") ");
+        writer.append(") ");
         tabsCount ++;
         this.visit(let.getExpression());
-        stringBuilder.append(")");
+        writer.append(")");
         tabsCount -= 2;
     }
 }
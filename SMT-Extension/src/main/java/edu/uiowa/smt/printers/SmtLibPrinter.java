@@ -8,9 +8,13 @@
 
 package edu.uiowa.smt.printers;
 
+import edu.uiowa.smt.TranslationContext;
 import edu.uiowa.smt.TranslatorUtils;
 import edu.uiowa.smt.smtAst.*;
 
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
 import java.util.*;
 
 public class SmtLibPrinter implements SmtAstVisitor
@@ -22,23 +26,59 @@ public class SmtLibPrinter implements SmtAstVisitor
     public final static String PUSH = "(push 1)";
     public final static String POP = "(pop 1)";
     protected SmtSettings smtSettings;
-    protected StringBuilder stringBuilder = new StringBuilder();
+    // the printer introduces fresh variables, whose names should not clash with the translation
+    protected final TranslationContext context = TranslationContext.current();
+    protected final PrintWriter writer;
+    // the output of the printer when it is not streamed to a writer
+    private final StringBuilderWriter buffer;
 
     public SmtLibPrinter(SmtSettings smtSettings)
     {
         this.smtSettings = smtSettings;
+        this.buffer = new StringBuilderWriter();
+        this.writer = new PrintWriter(buffer);
     }
 
     public SmtLibPrinter()
     {
-        this.smtSettings = SmtSettings.Default;
+        this(SmtSettings.Default);
     }
 
+    /**
+     * @param writer where the output is streamed as it is printed. The writer
+     *               is neither flushed nor closed until {@link #flush()} is called
+     */
+    public SmtLibPrinter(SmtSettings smtSettings, Writer writer)
+    {
+        this.smtSettings = smtSettings;
+        this.buffer = null;
+        this.writer = writer instanceof PrintWriter ? (PrintWriter) writer : new PrintWriter(writer);
+    }
 
-
+    /**
+     * @return the output printed so far
+     * @throws IllegalStateException if the output is streamed to a writer
+     */
     public String getSmtLib()
     {
-        return stringBuilder.toString();
+        if(buffer == null)
+        {
+            throw new IllegalStateException("The output of the printer is streamed to a writer");
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * flushes the output to the underlying writer
+     * @throws IOException if the output could not be written
+     */
+    public void flush() throws IOException
+    {
+        // print writers do not throw, they only record errors
+        if(writer.checkError())
+        {
+            throw new IOException("The smt output could not be written");
+        }
     }
 
 
@@ -55,11 +95,17 @@ public class SmtLibPrinter implements SmtAstVisitor
         {
             if(sort instanceof UninterpretedSort)
             {
-                stringBuilder.append("(declare-sort ");
-                stringBuilder.append(sort.getName());
-                stringBuilder.append(" 0)\n");
+                writer.append("(declare-sort ");
+                writer.append(sort.getName());
+                writer.append(" 0)\n");
             }
         }
+        // constants are declared first because definitions may use them
+        for (ConstantDeclaration declaration : program.getConstantDeclarations())
+        {
+            this.visit(declaration);
+        }
+
         for (FunctionDeclaration declaration : program.getFunctions())
         {
             if(declaration instanceof  FunctionDefinition)
@@ -72,11 +118,6 @@ public class SmtLibPrinter implements SmtAstVisitor
             }
         }
 
-        for (ConstantDeclaration declaration : program.getConstantDeclarations())
-        {
-            this.visit(declaration);
-        }
-
         for (Assertion assertion: program.getAssertions())
         {
             this.visit(assertion);
@@ -88,40 +129,40 @@ public class SmtLibPrinter implements SmtAstVisitor
     {
         if (binaryExpression.getOp() != BinaryExpression.Op.TUPSEL)
         {
-            stringBuilder.append("(" + binaryExpression.getOp() + " ");
+            writer.append("(" + binaryExpression.getOp() + " ");
             this.visit(binaryExpression.getA());
-            stringBuilder.append(" ");
+            writer.append(" ");
             this.visit(binaryExpression.getB());
-            stringBuilder.append(")");
+            writer.append(")");
         }
         else
         {
-            stringBuilder.append("((_ " + binaryExpression.getOp() + " ");
-            stringBuilder.append(((IntConstant) binaryExpression.getA()).getValue());
-            stringBuilder.append(") ");
+            writer.append("((_ " + binaryExpression.getOp() + " ");
+            writer.append(((IntConstant) binaryExpression.getA()).getValue());
+            writer.append(") ");
             this.visit(binaryExpression.getB());
-            stringBuilder.append(")");
+            writer.append(")");
         }
     }
 
     @Override
     public void visit(IntSort intSort)
     {
-        stringBuilder.append(intSort.getName());
+        writer.append(intSort.getName());
     }
 
     @Override
     public void visit(QuantifiedExpression quantifiedExpression)
     {
         quantifiedExpression = optimize(quantifiedExpression);
-        stringBuilder.append("(" + quantifiedExpression.getOp() + " (");
+        writer.append("(" + quantifiedExpression.getOp() + " (");
         for (VariableDeclaration boundVariable: quantifiedExpression.getVariables())
         {
             this.visit(boundVariable);
         }
-        stringBuilder.append(") ");
+        writer.append(") ");
         this.visit(quantifiedExpression.getExpression());
-        stringBuilder.append(")");
+        writer.append(")");
     }
 
     public QuantifiedExpression optimize(QuantifiedExpression quantifiedExpression)
@@ -137,7 +178,7 @@ public class SmtLibPrinter implements SmtAstVisitor
                 TupleSort tupleSort = (TupleSort) variable.getSort();
                 for (Sort sort: tupleSort.elementSorts)
                 {
-                    VariableDeclaration declaration = new VariableDeclaration(TranslatorUtils.getFreshName(sort), sort, false);
+                    VariableDeclaration declaration = new VariableDeclaration(context.getFreshName(sort), sort, false);
                     declarations.add(declaration);
                     tupleExpressions.add(declaration.getVariable());
                 }
@@ -169,9 +210,9 @@ public class SmtLibPrinter implements SmtAstVisitor
     @Override
     public void visit(SetSort setSort)
     {
-        stringBuilder.append("(Set ");
+        writer.append("(Set ");
         this.visit(setSort.elementSort);
-        stringBuilder.append(")");
+        writer.append(")");
     }
 
     @Override
@@ -182,28 +223,28 @@ public class SmtLibPrinter implements SmtAstVisitor
     @Override
     public void visit(TupleSort tupleSort)
     {
-        stringBuilder.append("(Tuple ");
+        writer.append("(Tuple ");
         for(int i = 0; i < tupleSort.elementSorts.size()-1; ++i)
         {
             this.visit(tupleSort.elementSorts.get(i));
-            stringBuilder.append(" ");
+            writer.append(" ");
         }
         this.visit(tupleSort.elementSorts.get(tupleSort.elementSorts.size()-1));
-        stringBuilder.append(")");
+        writer.append(")");
     }
 
     @Override
     public void visit(UnaryExpression unaryExpression)
     {
-        stringBuilder.append("(" + unaryExpression.getOP() + " ");
+        writer.append("(" + unaryExpression.getOP() + " ");
         this.visit(unaryExpression.getExpression());
-        stringBuilder.append(")");
+        writer.append(")");
     }
 
     @Override
     public void visit(UninterpretedSort uninterpretedSort)
     {
-        stringBuilder.append(uninterpretedSort.getName());
+        writer.append(uninterpretedSort.getName());
     }
 
     @Override
@@ -212,98 +253,98 @@ public class SmtLibPrinter implements SmtAstVisitor
         int value = Integer.parseInt(intConstant.getValue());
         if(value >= 0)
         {
-            stringBuilder.append(intConstant.getValue());
+            writer.append(intConstant.getValue());
         }
         else
         {
-            stringBuilder.append("(- " + -value + ")");
+            writer.append("(- " + -value + ")");
         }
     }
 
     @Override
     public void visit(Variable variable)
     {
-        stringBuilder.append(TranslatorUtils.sanitizeWithBars(variable.getDeclaration()));
+        writer.append(TranslatorUtils.sanitizeWithBars(variable.getDeclaration()));
     }
 
     @Override
     public void visit(FunctionDeclaration functionDeclaration)
     {
-        stringBuilder.append("(declare-fun ");
-        stringBuilder.append(TranslatorUtils.sanitizeWithBars(functionDeclaration) + " (");
+        writer.append("(declare-fun ");
+        writer.append(TranslatorUtils.sanitizeWithBars(functionDeclaration) + " (");
 
         List<Sort> inputSorts  = functionDeclaration.getInputSorts();
         for(int i = 0 ; i < inputSorts.size(); i++)
         {
             this.visit(inputSorts.get(i));
         }
-        stringBuilder.append(") ");
+        writer.append(") ");
         this.visit(functionDeclaration.getSort());
-        stringBuilder.append(")\n");
+        writer.append(")\n");
     }
 
     @Override
     public void visit(FunctionDefinition definition)
     {
-        stringBuilder.append("(define-fun ").append(TranslatorUtils.sanitizeWithBars(definition)).append(" (");
+        writer.append("(define-fun ").append(TranslatorUtils.sanitizeWithBars(definition)).append(" (");
         for(VariableDeclaration bdVar : definition.inputVariables)
         {
             this.visit(bdVar);
         }
-        stringBuilder.append(") ");
+        writer.append(") ");
         this.visit(definition.getSort());
-        stringBuilder.append(" ").append("\n");
+        writer.append(" ").append("\n");
         this.visit(definition.expression);
-        stringBuilder.append(")");
-        stringBuilder.append("\n");
+        writer.append(")");
+        writer.append("\n");
     }
 
     @Override
     public void visit(ConstantDeclaration constantDeclaration)
     {
-        stringBuilder.append("(declare-const ");
-        stringBuilder.append(TranslatorUtils.sanitizeWithBars(constantDeclaration) + " ");
+        writer.append("(declare-const ");
+        writer.append(TranslatorUtils.sanitizeWithBars(constantDeclaration) + " ");
         this.visit(constantDeclaration.getSort());
-        stringBuilder.append(")\n");
+        writer.append(")\n");
     }
 
     @Override
     public void visit(BoolConstant aThis) {
-        stringBuilder.append(aThis.getValue());
+        writer.append(aThis.getValue());
     }
 
     @Override
     public void visit(Assertion assertion)
     {
-        stringBuilder.append("\n");
+        writer.append("\n");
         if(! assertion.getComment().isEmpty())
         {
             // print comment
-            stringBuilder.append("; " + assertion.getComment() + "\n");
+            writer.append("; " + assertion.getComment() + "\n");
         }
 
-        stringBuilder.append("(assert ");
+        writer.append("(assert ");
         if(smtSettings.produceUnsatCore && !assertion.getSymbolicName().isEmpty())
         {
-            stringBuilder.append("(! ");
+            writer.append("(! ");
         }
         this.visit(assertion.getExpression());
         if(smtSettings.produceUnsatCore && !assertion.getSymbolicName().isEmpty())
         {
-            stringBuilder.append("\n :named |" +
+            writer.append("\n :named |" +
                     assertion.getSymbolicName().replace("\\", "/")
                     + "|))\n");
         }
         else
         {
-            stringBuilder.append(")\n");
+            writer.append(")\n");
         }
     }
 
     @Override
     public void visit(MultiArityExpression multiArityExpression)
     {
-        stringBuilder.append("(" + multiArityExpression.getOp() + " ");
+        writer.append("(" + multiArityExpression.getOp() + " ");
         if(multiArityExpression.getExpressions().size() == 1)
         {
             this.visit(multiArityExpression.getExpressions().get(0));
@@ -313,7 +354,7 @@ public class SmtLibPrinter implements SmtAstVisitor
             for (int i = 0; i < multiArityExpression.getExpressions().size()-1; ++i)
             {
                 this.visit(multiArityExpression.getExpressions().get(i));
-                stringBuilder.append(" ");
+                writer.append(" ");
             }
             this.visit(multiArityExpression.getExpressions().get(multiArityExpression.getExpressions().size()-1));            
         }
@@ -321,7 +362,7 @@ public class SmtLibPrinter implements SmtAstVisitor
         {
             throw new RuntimeException("");
         }
-        stringBuilder.append(")");
+        writer.append(")");
     }
 
     @Override
@@ -329,29 +370,29 @@ public class SmtLibPrinter implements SmtAstVisitor
     {
         if(functionCallExpression.getArguments().size() > 0)
         {
-            stringBuilder.append("(");
-            stringBuilder.append(TranslatorUtils.sanitizeWithBars(functionCallExpression.getFunction()));
-            stringBuilder.append(" ");
+            writer.append("(");
+            writer.append(TranslatorUtils.sanitizeWithBars(functionCallExpression.getFunction()));
+            writer.append(" ");
             for(int i = 0; i < functionCallExpression.getArguments().size()-1; ++i)
             {
                 this.visit(functionCallExpression.getArguments().get(i));
-                stringBuilder.append(" ");
+                writer.append(" ");
             }
             this.visit(functionCallExpression.getArguments().get(functionCallExpression.getArguments().size()-1));            
-            stringBuilder.append(")");
+            writer.append(")");
         }
         else
         {
-            stringBuilder.append(TranslatorUtils.sanitizeWithBars(functionCallExpression.getFunction()));
+            writer.append(TranslatorUtils.sanitizeWithBars(functionCallExpression.getFunction()));
         }     
     }
 
     @Override
     public void visit(VariableDeclaration variable)
     {
-        stringBuilder.append("(" + TranslatorUtils.sanitizeWithBars(variable) + " ");
+        writer.append("(" + TranslatorUtils.sanitizeWithBars(variable) + " ");
         this.visit(variable.getSort());
-        stringBuilder.append(")");
+        writer.append(")");
     }
 
     @Override
@@ -453,42 +494,42 @@ public class SmtLibPrinter implements SmtAstVisitor
 
     @Override
     public void visit(BoolSort aThis) {
-        stringBuilder.append(aThis.getName());
+        writer.append(aThis.getName());
     }
 
     @Override
     public void visit(LetExpression let)
     {
-        stringBuilder.append("(let (");
+        writer.append("(let (");
         for(Map.Entry<VariableDeclaration, Expression> letVar : let.getLetVariables().entrySet())
         {
-            stringBuilder.append("(");
-            stringBuilder.append(TranslatorUtils.sanitizeWithBars(letVar.getKey())).append(" ");
+            writer.append("(");
+            writer.append(TranslatorUtils.sanitizeWithBars(letVar.getKey())).append(" ");
             this.visit(letVar.getValue());
-            stringBuilder.append(")");
+            writer.append(")");
         }
-        stringBuilder.append(") ");
+        writer.append(") ");
         this.visit(let.getExpression());
-        stringBuilder.append(")");        
+        writer.append(")");        
     }
 
     @Override
     public void visit(ITEExpression ite)
     {
-        stringBuilder.append("(ite ");
+        writer.append("(ite ");
         this.visit(ite.getCondExpression());
-        stringBuilder.append(" ");
+        writer.append(" ");
         this.visit(ite.getThenExpression());
-        stringBuilder.append(" ");
+        writer.append(" ");
         this.visit(ite.getElseExpression());
-        stringBuilder.append(")");
+        writer.append(")");
         
     }
 
     @Override
     public void visit(UninterpretedConstant uninterpretedConstant)
     {
-        stringBuilder.append(uninterpretedConstant.getName());
+        writer.append(uninterpretedConstant.getName());
     }
 
     @Override
@@ -496,55 +537,98 @@ public class SmtLibPrinter implements SmtAstVisitor
     {
         for (String logic: smtSettings.getLogic())
         {
-            stringBuilder.append("(set-logic " + logic + ")\n");
+            writer.append("(set-logic " + logic + ")\n");
         }
         Map<String, String> options = smtSettings.getSolverOptions();
         for (Map.Entry<String, String> entry: options.entrySet())
         {
-            stringBuilder.append("(set-option ");
-            stringBuilder.append(":" + entry.getKey() + " ");
-            stringBuilder.append(entry.getValue() + ")\n");
+            writer.append("(set-option ");
+            writer.append(":" + entry.getKey() + " ");
+            writer.append(entry.getValue() + ")\n");
         }
     }
 
     @Override
     public String printGetValue(Expression expression)
     {
-        stringBuilder.append("(get-value (");
+        writer.append("(get-value (");
         visit(expression);
-        stringBuilder.append("))");
-        return stringBuilder.toString();
+        writer.append("))");
+        return getSmtLib();
     }
 
     @Override
     public void visit(SmtValues smtValues)
     {
-        stringBuilder.append("(");
+        writer.append("(");
         for (ExpressionValue value : smtValues.getValues())
         {
             visit(value);
         }
-        stringBuilder.append(")");
+        writer.append(")");
     }
 
     @Override
     public void visit(ExpressionValue expressionValue)
     {
-        stringBuilder.append("(");
+        writer.append("(");
         visit(expressionValue.getExpression());
-        stringBuilder.append(" ");
+        writer.append(" ");
         visit(expressionValue.getValue());
-        stringBuilder.append(")");
+        writer.append(")");
     }
 
     @Override
     public void visit(SmtUnsatCore smtUnsatCore)
     {
-        stringBuilder.append("(\n");
+        writer.append("(\n");
         for (String formula: smtUnsatCore.getCore())
         {
-            stringBuilder.append(formula + "\n");
+            writer.append(formula + "\n");
+        }
+        writer.append(")");
+    }
+
+    /**
+     * An unsynchronized writer over a string builder
+     */
+    private static class StringBuilderWriter extends Writer
+    {
+        private final StringBuilder stringBuilder = new StringBuilder();
+
+        @Override
+        public void write(char[] chars, int offset, int length)
+        {
+            stringBuilder.append(chars, offset, length);
+        }
+
+        @Override
+        public void write(String string, int offset, int length)
+        {
+            stringBuilder.append(string, offset, offset + length);
+        }
+
+        @Override
+        public Writer append(CharSequence sequence)
+        {
+            stringBuilder.append(sequence);
+            return this;
+        }
+
+        @Override
+        public void flush()
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
+
+        @Override
+        public String toString()
+        {
+            return stringBuilder.toString();
         }
-        stringBuilder.append(")");
     }
 }
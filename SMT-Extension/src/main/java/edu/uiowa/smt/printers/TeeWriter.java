@@ -0,0 +1,86 @@
+/*
+ * This file is part of alloy2smt.
+ * Copyright (C) 2018-2019  The University of Iowa
+ *
+ * @author Mudathir Mohamed, Paul Meng
+ *
+ */
+
+package edu.uiowa.smt.printers;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A writer that copies its output to several writers, e.g. a file and the
+ * cvc4 pipe, so that a script is streamed to both without being buffered
+ */
+public class TeeWriter extends Writer
+{
+    private final List<Writer> writers;
+
+    public TeeWriter(Writer... writers)
+    {
+        this.writers = Arrays.asList(writers);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException
+    {
+        for (Writer writer : writers)
+        {
+            writer.write(chars, offset, length);
+        }
+    }
+
+    @Override
+    public void write(String string, int offset, int length) throws IOException
+    {
+        for (Writer writer : writers)
+        {
+            writer.write(string, offset, length);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+        for (Writer writer : writers)
+        {
+            writer.flush();
+        }
+    }
+
+    /**
+     * closes all writers, even if some of them fail
+     */
+    @Override
+    public void close() throws IOException
+    {
+        IOException exception = null;
+        for (Writer writer : writers)
+        {
+            try
+            {
+                writer.close();
+            }
+            catch (IOException e)
+            {
+                if(exception == null)
+                {
+                    exception = e;
+                }
+                else
+                {
+                    exception.addSuppressed(e);
+                }
+            }
+        }
+        if(exception != null)
+        {
+            throw exception;
+        }
+    }
+}
@@ -20,6 +20,8 @@ public class BinaryExpression extends Expression
     private final Op            op;
     private Expression A;
     private Expression B;
+    // computing the sort walks down nested sets, so it is done once per node
+    private Sort sort;
 
     private BinaryExpression(Op op, Expression A, Expression B)
     {
@@ -36,6 +38,8 @@ public class BinaryExpression extends Expression
         this.B = B;
 
         checkTypes();
+        this.A = ExpressionInterner.intern(this.A);
+        this.B = ExpressionInterner.intern(this.B);
     }
 
     @Override
@@ -209,7 +213,7 @@ public class BinaryExpression extends Expression
 
         public BinaryExpression make(Expression left, Expression right)
         {
-            return new BinaryExpression(this, left, right);
+            return ExpressionInterner.intern(new BinaryExpression(this, left, right));
         }
 
         Op(String op)
@@ -254,6 +258,15 @@ public class BinaryExpression extends Expression
 
     @Override
     public Sort getSort()
+    {
+        if(sort == null)
+        {
+            sort = computeSort();
+        }
+        return sort;
+    }
+
+    private Sort computeSort()
     {
         switch (op)
         {
@@ -360,12 +373,22 @@ public class BinaryExpression extends Expression
         {
             return false;
         }
+        if(hashCode() != object.hashCode())
+        {
+            return false;
+        }
         BinaryExpression binaryObject = (BinaryExpression) object;
         return op ==  binaryObject.op &&
                 A.equals(binaryObject.A) &&
                 B.equals(binaryObject.B);
     }
 
+    @Override
+    protected int computeHashCode()
+    {
+        return 31 * (31 * op.ordinal() + A.hashCode()) + B.hashCode();
+    }
+
     @Override
     public List<Variable> getFreeVariables()
     {
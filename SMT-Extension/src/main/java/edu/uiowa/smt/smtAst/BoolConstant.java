@@ -68,6 +68,12 @@ public class BoolConstant extends Constant
         return value == booleanObject.value;
     }
 
+    @Override
+    protected int computeHashCode()
+    {
+        return Boolean.hashCode(value);
+    }
+
     @Override
     public List<Variable> getFreeVariables()
     {
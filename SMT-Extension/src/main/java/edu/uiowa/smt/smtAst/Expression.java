@@ -15,6 +15,9 @@ import java.util.Map;
 
 public abstract class Expression extends SmtAst
 {
+    // the structural hash code, computed once because expressions are immutable
+    private int hashCode;
+
     @Override
     public String toString()
     {
@@ -31,6 +34,23 @@ public abstract class Expression extends SmtAst
     @Override
     public abstract boolean equals(Object object);
 
+    @Override
+    public final int hashCode()
+    {
+        int hash = hashCode;
+        if(hash == 0)
+        {
+            hash = computeHashCode();
+            hashCode = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * @return a hash code that is consistent with the structural equality
+     */
+    protected abstract int computeHashCode();
+
     public abstract List<Variable> getFreeVariables();
 
     public abstract Expression substitute(Variable oldVariable, Variable newVariable);
@@ -0,0 +1,78 @@
+/*
+ * This file is part of alloy2smt.
+ * Copyright (C) 2018-2019  The University of Iowa
+ *
+ * @author Mudathir Mohamed, Paul Meng
+ *
+ */
+
+package edu.uiowa.smt.smtAst;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps one canonical instance for each structurally equal expression, so
+ * that identical subterms are shared and comparing interned expressions
+ * usually stops at the reference check. Expressions that are no longer used
+ * are garbage collected. Sorts are not interned because their fields are public.
+ */
+public final class ExpressionInterner
+{
+    // the table is split to reduce contention between concurrent translations
+    private static final int STRIPES = 16;
+
+    private static final List<Map<Expression, WeakReference<Expression>>> tables = new ArrayList<>();
+
+    static
+    {
+        for (int i = 0; i < STRIPES; i++)
+        {
+            tables.add(new WeakHashMap<>());
+        }
+    }
+
+    private ExpressionInterner()
+    {
+    }
+
+    /**
+     * @return the canonical instance that is structurally equal to the given expression
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Expression> T intern(T expression)
+    {
+        if(expression == null || expression instanceof Sort)
+        {
+            return expression;
+        }
+        Map<Expression, WeakReference<Expression>> table = tables.get((expression.hashCode() & 0x7fffffff) % STRIPES);
+        synchronized (table)
+        {
+            WeakReference<Expression> reference = table.get(expression);
+            Expression canonical = reference == null ? null : reference.get();
+            if(canonical != null && canonical.getClass() == expression.getClass())
+            {
+                return (T) canonical;
+            }
+            table.put(expression, new WeakReference<>(expression));
+            return expression;
+        }
+    }
+
+    /**
+     * @return a new list with the canonical instances of the given expressions
+     */
+    public static <T extends Expression> List<T> intern(List<T> expressions)
+    {
+        List<T> interned = new ArrayList<>(expressions.size());
+        for (T expression : expressions)
+        {
+            interned.add(intern(expression));
+        }
+        return interned;
+    }
+}
@@ -8,6 +8,7 @@
 
 package edu.uiowa.smt.smtAst;
 
+import edu.uiowa.smt.LayeredMap;
 import edu.uiowa.smt.printers.SmtAstVisitor;
 
 import java.util.*;
@@ -20,14 +21,14 @@ public class FunctionCallExpression extends Expression
     public FunctionCallExpression(FunctionDeclaration function, Expression ... arguments)
     {
         this.function = function;
-        this.arguments      = Arrays.asList(arguments);
+        this.arguments      = ExpressionInterner.intern(Arrays.asList(arguments));
         checkTypes();
     }
     
     public FunctionCallExpression(FunctionDeclaration function, List<Expression> arguments)
     {
         this.function = function;
-        this.arguments      = arguments;
+        this.arguments      = ExpressionInterner.intern(arguments);
         checkTypes();
     }
 
@@ -76,8 +77,8 @@ public class FunctionCallExpression extends Expression
     public Expression evaluate(Map<String, FunctionDefinition> functions)
     {
         FunctionDefinition definition = functions.get(this.function.getName());
-        // improve the performance of this line
-        Map<String, FunctionDefinition> newScope = new HashMap<>(functions);
+        // the arguments are bound in a layer instead of a copy of the functions
+        Map<String, FunctionDefinition> newScope = new LayeredMap<>(functions);
         for(int i = 0; i < arguments.size(); i++)
         {
             Expression argument = arguments.get(i);
@@ -108,11 +109,21 @@ public class FunctionCallExpression extends Expression
         {
             return false;
         }
+        if(hashCode() != object.hashCode())
+        {
+            return false;
+        }
         FunctionCallExpression functionCall = (FunctionCallExpression) object;
         return function.equals(functionCall.function) &&
                 arguments.equals(functionCall.arguments);
     }
 
+    @Override
+    protected int computeHashCode()
+    {
+        return 31 * function.getName().hashCode() + arguments.hashCode();
+    }
+
     @Override
     public List<Variable> getFreeVariables()
     {
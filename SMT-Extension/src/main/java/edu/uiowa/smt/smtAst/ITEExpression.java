@@ -36,9 +36,9 @@ public class ITEExpression extends Expression
         {
             throw new RuntimeException("Else expression of the ite is null");
         }
-        this.condExpr = condExpr;
-        this.thenExpr = thenExpr;
-        this.elseExpr = elseExpr;
+        this.condExpr = ExpressionInterner.intern(condExpr);
+        this.thenExpr = ExpressionInterner.intern(thenExpr);
+        this.elseExpr = ExpressionInterner.intern(elseExpr);
         checkTypes();
     }
 
@@ -112,12 +112,22 @@ public class ITEExpression extends Expression
         {
             return false;
         }
+        if(hashCode() != object.hashCode())
+        {
+            return false;
+        }
         ITEExpression iteObject = (ITEExpression) object;
         return  condExpr.equals(iteObject.condExpr) &&
                 thenExpr.equals(iteObject.thenExpr) &&
                 elseExpr.equals(iteObject.elseExpr);
     }
 
+    @Override
+    protected int computeHashCode()
+    {
+        return 31 * (31 * condExpr.hashCode() + thenExpr.hashCode()) + elseExpr.hashCode();
+    }
+
     @Override
     public List<Variable> getFreeVariables()
     {
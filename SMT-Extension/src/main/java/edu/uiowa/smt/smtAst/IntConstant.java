@@ -87,6 +87,12 @@ public class IntConstant extends Constant
         return value.equals(intConstant.value);
     }
 
+    @Override
+    protected int computeHashCode()
+    {
+        return value.hashCode();
+    }
+
     @Override
     public List<Variable> getFreeVariables()
     {
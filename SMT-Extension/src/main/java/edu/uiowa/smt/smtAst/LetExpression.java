@@ -11,7 +11,7 @@ package edu.uiowa.smt.smtAst;
 import edu.mit.csail.sdg.ast.Expr;
 import edu.uiowa.smt.printers.SmtAstVisitor;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -23,11 +23,11 @@ public class LetExpression extends Expression
 
     public LetExpression(Map<VariableDeclaration, Expression> letVars, Expression expr)
     {
-        this.letVariables = new HashMap<>();
-        this.expr = expr;
+        this.letVariables = new LinkedHashMap<>();
+        this.expr = ExpressionInterner.intern(expr);
         for (Map.Entry<VariableDeclaration, Expression> var : letVars.entrySet())
         {
-            this.letVariables.put(var.getKey(), var.getValue());
+            this.letVariables.put(var.getKey(), ExpressionInterner.intern(var.getValue()));
         }
        checkTypes();
     }
@@ -80,7 +80,33 @@ public class LetExpression extends Expression
     @Override
     public boolean equals(Object object)
     {
-        throw new UnsupportedOperationException();
+        if(object == this)
+        {
+            return true;
+        }
+        if(!(object instanceof LetExpression))
+        {
+            return false;
+        }
+        if(hashCode() != object.hashCode())
+        {
+            return false;
+        }
+        LetExpression letObject = (LetExpression) object;
+        return letVariables.equals(letObject.letVariables) &&
+                expr.equals(letObject.expr);
+    }
+
+    @Override
+    protected int computeHashCode()
+    {
+        int hash = 0;
+        for (Map.Entry<VariableDeclaration, Expression> entry: letVariables.entrySet())
+        {
+            // the order of let variables does not matter
+            hash += entry.getKey().getName().hashCode() ^ entry.getValue().hashCode();
+        }
+        return 31 * hash + expr.hashCode();
     }
 
     @Override
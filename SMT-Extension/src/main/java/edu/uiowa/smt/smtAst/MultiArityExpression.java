@@ -22,12 +22,11 @@ public class MultiArityExpression extends Expression
     private MultiArityExpression(Op op, List<Expression> exprs)
     {
         this.op     = op;
-        this.exprs  = exprs;
-
-        if(this.exprs.stream().anyMatch(Objects::isNull))
+        if(exprs.stream().anyMatch(Objects::isNull))
         {
             throw new RuntimeException("One of the expression is null");
         }
+        this.exprs  = ExpressionInterner.intern(exprs);
         checkTypes();
     }
 
@@ -153,12 +152,12 @@ public class MultiArityExpression extends Expression
 
         public MultiArityExpression make(List<Expression> exprs)
         {
-            return new MultiArityExpression(this, exprs);
+            return ExpressionInterner.intern(new MultiArityExpression(this, exprs));
         }
 
         public MultiArityExpression make(Expression ...exprs)
         {
-            return new MultiArityExpression(this, exprs);
+            return ExpressionInterner.intern(new MultiArityExpression(this, exprs));
         }
 
        public static Op getOp(String operator)
@@ -218,7 +217,7 @@ public class MultiArityExpression extends Expression
         {
             expressions.add(expression.evaluate(functions));
         }
-        return new MultiArityExpression(this.op, expressions);
+        return this.op.make(expressions);
     }
 
     @Override
@@ -232,11 +231,21 @@ public class MultiArityExpression extends Expression
         {
             return false;
         }
+        if(hashCode() != object.hashCode())
+        {
+            return false;
+        }
         MultiArityExpression multiArity = (MultiArityExpression) object;
         return op ==  multiArity.op &&
                 exprs.equals(multiArity.exprs);
     }
 
+    @Override
+    protected int computeHashCode()
+    {
+        return 31 * op.ordinal() + exprs.hashCode();
+    }
+
     @Override
     public List<Variable> getFreeVariables()
     {
@@ -260,7 +269,7 @@ public class MultiArityExpression extends Expression
             }
             newExpressions.add(expression.substitute(oldVariable, newVariable));
         }
-        return new MultiArityExpression(op, newExpressions);
+        return op.make(newExpressions);
     }
 
     @Override
@@ -276,6 +285,6 @@ public class MultiArityExpression extends Expression
         {
             newExpressions.add(expression.replace(oldExpression, newExpression));
         }
-        return new MultiArityExpression(op, newExpressions);
+        return op.make(newExpressions);
     }
 }
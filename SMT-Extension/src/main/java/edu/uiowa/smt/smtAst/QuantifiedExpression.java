@@ -27,7 +27,7 @@ public class QuantifiedExpression extends Expression
     private QuantifiedExpression(Op op, List<VariableDeclaration> variables, Expression expr)
     {
         this.variables = new ArrayList<>();
-        this.expr       = expr;
+        this.expr       = ExpressionInterner.intern(expr);
         this.op         = op;
         for(VariableDeclaration bdVar : variables)
         {
@@ -48,7 +48,7 @@ public class QuantifiedExpression extends Expression
     private QuantifiedExpression(Op op, Expression expr, VariableDeclaration... variables)
     {
         this.variables = Arrays.asList(variables);
-        this.expr       = expr;
+        this.expr       = ExpressionInterner.intern(expr);
         this.op         = op;
     }
     
@@ -97,12 +97,12 @@ public class QuantifiedExpression extends Expression
 
         public QuantifiedExpression make(Expression expr, VariableDeclaration... variables)
         {
-            return new QuantifiedExpression(this, expr, variables);
+            return ExpressionInterner.intern(new QuantifiedExpression(this, expr, variables));
         }
 
         public QuantifiedExpression make(Expression expr, List<VariableDeclaration> variables)
         {
-            return new QuantifiedExpression(this, variables, expr);
+            return ExpressionInterner.intern(new QuantifiedExpression(this, variables, expr));
         }
 
         @Override
@@ -135,6 +135,10 @@ public class QuantifiedExpression extends Expression
         {
             return false;
         }
+        if(hashCode() != object.hashCode())
+        {
+            return false;
+        }
         QuantifiedExpression quantifiedObject = (QuantifiedExpression) object;
         if(! variables.equals(quantifiedObject.variables))
         {
@@ -144,6 +148,18 @@ public class QuantifiedExpression extends Expression
                 expr.equals(quantifiedObject.expr);
     }
 
+    @Override
+    protected int computeHashCode()
+    {
+        int hash = op.ordinal();
+        for (VariableDeclaration variable : variables)
+        {
+            // declarations are compared by reference, but their names are stable across runs
+            hash = 31 * hash + variable.getName().hashCode();
+        }
+        return 31 * hash + expr.hashCode();
+    }
+
     @Override
     public List<Variable> getFreeVariables()
     {
@@ -185,7 +201,7 @@ public class QuantifiedExpression extends Expression
         }
 
         Expression newExpression = body.substitute(oldVariable, newVariable);
-        return new QuantifiedExpression(op, variables, newExpression);
+        return op.make(newExpression, variables);
     }
 
     @Override
@@ -196,6 +212,6 @@ public class QuantifiedExpression extends Expression
             return newExpression;
         }
         Expression expression = expr.replace(oldExpression, newExpression);
-        return new QuantifiedExpression(op, variables, expression);
+        return op.make(expression, variables);
     }
 }
@@ -41,4 +41,10 @@ public class SetSort extends Sort
         SetSort sort = (SetSort) object;
         return sort.elementSort.equals(this.elementSort);
     }
+
+    @Override
+    protected int computeHashCode()
+    {
+        return 31 * elementSort.hashCode() + 1;
+    }
 }
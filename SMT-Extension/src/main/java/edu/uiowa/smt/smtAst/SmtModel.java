@@ -10,11 +10,10 @@ package edu.uiowa.smt.smtAst;
 
 import edu.uiowa.smt.printers.SmtAstVisitor;
 import edu.uiowa.smt.AbstractTranslator;
+import edu.uiowa.smt.SmtModelEvaluator;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class SmtModel extends SmtAst
 {
@@ -27,8 +26,8 @@ public class SmtModel extends SmtAst
 
     public SmtModel(SmtModel model)
     {
-        this.functions.addAll(model.functions);
-        this.sorts.addAll(model.sorts);
+        this.functions.addAll(model.getFunctions());
+        this.sorts.addAll(model.getSorts());
     }
 
 
@@ -68,22 +67,11 @@ public class SmtModel extends SmtAst
 
     public FunctionDefinition evaluateUninterpretedInt(FunctionDefinition function)
     {
-        Map<String, FunctionDefinition> functions = new HashMap<>();
-
         if(function.inputVariables.size() > 0)
         {
             throw new UnsupportedOperationException();
         }
-        // make sure this is a cvc4 model
-        for (FunctionDeclaration declaration: this.functions)
-        {
-            if(!(declaration instanceof FunctionDefinition))
-            {
-                throw new RuntimeException("The function " + declaration + " is not defined");
-            }
-            functions.put(declaration.getName(), (FunctionDefinition) declaration);
-        }
-        Expression body = function.expression.evaluate(functions);
+        Expression body = new SmtModelEvaluator(this).evaluate(function.expression);
 
         return new FunctionDefinition(function.getName(), function.inputVariables,
                     function.getSort(), body, function.isOriginal());
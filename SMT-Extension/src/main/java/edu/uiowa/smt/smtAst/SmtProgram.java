@@ -8,6 +8,7 @@
 
 package edu.uiowa.smt.smtAst;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -15,16 +16,49 @@ public class SmtProgram extends SmtModel
 {
     private final List<ConstantDeclaration>    constantDeclarations = new ArrayList<>();
     private final List<Assertion>              assertions           = new ArrayList<>();
+    // the program below this layer, or null for a standalone program
+    private final SmtProgram                   parent;
 
     public SmtProgram()
     {
+        this.parent = null;
     }
 
     public SmtProgram(SmtProgram program)
     {
         super(program);
-        this.constantDeclarations.addAll(program.constantDeclarations);
-        this.assertions.addAll(program.assertions);
+        this.parent = null;
+        this.constantDeclarations.addAll(program.getConstantDeclarations());
+        this.assertions.addAll(program.getAssertions());
+    }
+
+    private SmtProgram(SmtProgram parent, boolean isLayer)
+    {
+        this.parent = parent;
+    }
+
+    /**
+     * @return a program that sees all the declarations and assertions of this
+     * program, and keeps the ones added to it separately without copying this
+     * program. This program should not be modified while the layer is in use.
+     */
+    public SmtProgram newLayer()
+    {
+        return new SmtProgram(this, true);
+    }
+
+    /**
+     * @return a standalone program with only the declarations and assertions
+     * added to this layer since it was created
+     */
+    public SmtProgram getDelta()
+    {
+        SmtProgram delta = new SmtProgram();
+        delta.sorts.addAll(this.sorts);
+        delta.functions.addAll(this.functions);
+        delta.constantDeclarations.addAll(this.constantDeclarations);
+        delta.assertions.addAll(this.assertions);
+        return delta;
     }
 
     public void addConstantDeclaration(ConstantDeclaration constantDeclaration)
@@ -43,13 +77,52 @@ public class SmtProgram extends SmtModel
         }
     }
 
+    @Override
+    public List<Sort> getSorts()
+    {
+        return parent == null ? this.sorts : new LayeredList<>(parent.getSorts(), this.sorts);
+    }
+
+    @Override
+    public List<FunctionDeclaration> getFunctions()
+    {
+        return parent == null ? this.functions : new LayeredList<>(parent.getFunctions(), this.functions);
+    }
+
     public List<ConstantDeclaration> getConstantDeclarations()
     {
-        return this.constantDeclarations;
+        return parent == null ? this.constantDeclarations :
+                new LayeredList<>(parent.getConstantDeclarations(), this.constantDeclarations);
     }
 
     public List<Assertion> getAssertions()
     {
-        return this.assertions;
+        return parent == null ? this.assertions : new LayeredList<>(parent.getAssertions(), this.assertions);
+    }
+
+    // a read only view of the parent items followed by the items of a layer
+    private static class LayeredList<T> extends AbstractList<T>
+    {
+        private final List<T> parentItems;
+        private final List<T> items;
+
+        LayeredList(List<T> parentItems, List<T> items)
+        {
+            this.parentItems = parentItems;
+            this.items = items;
+        }
+
+        @Override
+        public T get(int index)
+        {
+            int parentSize = parentItems.size();
+            return index < parentSize ? parentItems.get(index) : items.get(index - parentSize);
+        }
+
+        @Override
+        public int size()
+        {
+            return parentItems.size() + items.size();
+        }
     }
 }
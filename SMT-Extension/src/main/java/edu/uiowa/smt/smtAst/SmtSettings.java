@@ -10,6 +10,8 @@ public class SmtSettings extends SmtAst
     private Map<String, String> solverOptions = new HashMap<>();
     public boolean produceUnsatCore;
     public boolean finiteModelFinding;
+    // share the subterms repeated in assertions using definitions and let bindings
+    public boolean eliminateCommonSubexpressions;
 
     public static final SmtSettings Default = new SmtSettings();
 
@@ -27,6 +29,7 @@ public class SmtSettings extends SmtAst
         putSolverOption(FINITE_MODEL_FIND, Boolean.toString(true));
         finiteModelFinding = true;
         produceUnsatCore = false;
+        eliminateCommonSubexpressions = true;
     }
 
     public static SmtSettings getInstance()
@@ -40,6 +43,7 @@ public class SmtSettings extends SmtAst
         solverOptions = new HashMap<>(settings.solverOptions);
         produceUnsatCore = settings.produceUnsatCore;
         finiteModelFinding = settings.finiteModelFinding;
+        eliminateCommonSubexpressions = settings.eliminateCommonSubexpressions;
     }
 
     public void addLogic(String logic)
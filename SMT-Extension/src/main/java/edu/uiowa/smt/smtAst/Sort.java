@@ -59,7 +59,22 @@ public class Sort extends Expression
     @Override
     public boolean equals(Object object)
     {
-        throw new UnsupportedOperationException();
+        if(object == this)
+        {
+            return true;
+        }
+        if(object == null || object.getClass() != getClass())
+        {
+            return false;
+        }
+        Sort sort = (Sort) object;
+        return name.equals(sort.name) && arity == sort.arity;
+    }
+
+    @Override
+    protected int computeHashCode()
+    {
+        return 31 * name.hashCode() + arity;
     }
 
     @Override
@@ -66,4 +66,10 @@ public class TupleSort extends Sort
         TupleSort sort = (TupleSort) object;
         return sort.elementSorts.equals(this.elementSorts);
     }
+
+    @Override
+    protected int computeHashCode()
+    {
+        return elementSorts.hashCode();
+    }
 }
@@ -27,7 +27,7 @@ public class UnaryExpression extends Expression
         {
             throw new RuntimeException("Expression is null");
         }
-        this.expr   = expr;
+        this.expr   = ExpressionInterner.intern(expr);
         checkTypes();
     }
 
@@ -114,7 +114,7 @@ public class UnaryExpression extends Expression
 
         public UnaryExpression make(Expression expr)
         {
-            return new UnaryExpression(this, expr);
+            return ExpressionInterner.intern(new UnaryExpression(this, expr));
         }
 
         public static Op getOp(String operator)
@@ -178,7 +178,7 @@ public class UnaryExpression extends Expression
         {
             if(expr.equals(AbstractTranslator.setOfUninterpretedIntTuple))
             {
-                return new UnaryExpression(op, AbstractTranslator.setOfIntSortTuple);
+                return op.make(AbstractTranslator.setOfIntSortTuple);
             }
             else
             {
@@ -186,7 +186,7 @@ public class UnaryExpression extends Expression
             }
         }
         Expression expression = this.expr.evaluate(functions);
-        return new UnaryExpression(this.op, expression);
+        return this.op.make(expression);
     }
     @Override
     public boolean equals(Object object)
@@ -199,11 +199,21 @@ public class UnaryExpression extends Expression
         {
             return false;
         }
+        if(hashCode() != object.hashCode())
+        {
+            return false;
+        }
         UnaryExpression unaryObject = (UnaryExpression) object;
         return op ==  unaryObject.op &&
                 expr.equals(unaryObject.expr);
     }
 
+    @Override
+    protected int computeHashCode()
+    {
+        return 31 * op.ordinal() + expr.hashCode();
+    }
+
     @Override
     public List<Variable> getFreeVariables()
     {
@@ -219,7 +229,7 @@ public class UnaryExpression extends Expression
         }
 
         Expression newExpression = expr.substitute(oldVariable, newVariable);
-        return new UnaryExpression(op, newExpression);
+        return op.make(newExpression);
     }
 
     @Override
@@ -230,6 +240,6 @@ public class UnaryExpression extends Expression
             return newExpression;
         }
         Expression expression = expr.replace(oldExpression, newExpression);
-        return new UnaryExpression(op, expression);
+        return op.make(expression);
     }
 }
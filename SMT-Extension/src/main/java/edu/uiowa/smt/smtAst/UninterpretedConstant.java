@@ -74,6 +74,12 @@ public class UninterpretedConstant extends Constant
                 sort.equals(constant.sort);
     }
 
+    @Override
+    protected int computeHashCode()
+    {
+        return 31 * name.hashCode() + sort.hashCode();
+    }
+
     @Override
     public List<Variable> getFreeVariables()
     {
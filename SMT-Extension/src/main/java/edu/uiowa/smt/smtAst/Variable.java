@@ -64,6 +64,13 @@ public class Variable extends Expression
         return declaration.equals(constantObject.declaration);
     }
 
+    @Override
+    protected int computeHashCode()
+    {
+        // declarations are compared by reference, but their names are stable across runs
+        return declaration.getName().hashCode();
+    }
+
     @Override
     public List<Variable> getFreeVariables()
     {
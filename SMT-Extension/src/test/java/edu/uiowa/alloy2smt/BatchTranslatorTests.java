@@ -0,0 +1,99 @@
+package edu.uiowa.alloy2smt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.uiowa.alloy2smt.utils.AlloySettings;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.ParseException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+class BatchTranslatorTests
+{
+    private Path write(Path file, String content) throws IOException
+    {
+        Files.createDirectories(file.getParent());
+        return Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void collectModels() throws IOException
+    {
+        Path directory = Files.createTempDirectory("batch");
+        Path a = write(directory.resolve("a.als"), "sig A {}");
+        Path b = write(directory.resolve("nested").resolve("b.als"), "sig B {}");
+        write(directory.resolve("notes.txt"), "");
+        Path list = write(directory.resolve("models.txt"), "# models\n" + b + "\n\n");
+
+        List<File> models = BatchTranslator.collectModels(Collections.singletonList(directory.toString()));
+        Assertions.assertEquals(Arrays.asList(a.toFile(), b.toFile()), models);
+
+        models = BatchTranslator.collectModels(Collections.singletonList(directory + File.separator + "*.als"));
+        Assertions.assertEquals(Collections.singletonList(a.toFile()), models);
+
+        // duplicates are removed
+        models = BatchTranslator.collectModels(Arrays.asList(list.toString(), b.toString(), a.toString()));
+        Assertions.assertEquals(Arrays.asList(b.toFile(), a.toFile()), models);
+    }
+
+    @Test
+    void translate() throws Exception
+    {
+        Path directory = Files.createTempDirectory("batch");
+        Path valid = write(directory.resolve("valid.als"), "sig A {r: set A} \n run {some A}");
+        Path same = write(directory.resolve("nested").resolve("valid.als"), "sig B {} \n run {some B}");
+        Path invalid = write(directory.resolve("invalid.als"), "sig A {");
+        Path output = directory.resolve("output");
+        File report = output.resolve(BatchTranslator.DEFAULT_REPORT_FILE).toFile();
+
+        BatchTranslator batchTranslator = new BatchTranslator(AlloySettings.Default, output.toFile(), 2);
+        List<BatchTranslator.Result> results = batchTranslator.translate(
+                Arrays.asList(valid.toFile(), same.toFile(), invalid.toFile()), report);
+
+        Assertions.assertEquals(3, results.size());
+        Assertions.assertNull(results.get(0).error);
+        Assertions.assertTrue(new String(Files.readAllBytes(output.resolve("valid.als.smt2")),
+                StandardCharsets.UTF_8).contains("(check-sat)"));
+        Assertions.assertTrue(Files.exists(output.resolve("valid.als.mapping.json")));
+        Assertions.assertTrue(Files.exists(output.resolve("valid-2.als.smt2")));
+
+        Assertions.assertNotNull(results.get(2).error);
+        Assertions.assertNull(results.get(2).smtFile);
+        Assertions.assertFalse(Files.exists(output.resolve("invalid.als.smt2")));
+
+        List<String> lines = Files.readAllLines(report.toPath(), StandardCharsets.UTF_8);
+        Assertions.assertEquals(3, lines.size());
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (String line : lines)
+        {
+            JsonNode node = objectMapper.readTree(line);
+            Assertions.assertTrue(node.has("model"));
+            Assertions.assertTrue(node.has("error") || node.has("printTime"));
+        }
+    }
+
+    private CommandLine parse(String... args) throws ParseException
+    {
+        return new DefaultParser().parse(Main.createOptions(), args);
+    }
+
+    @Test
+    void threads() throws ParseException
+    {
+        Assertions.assertEquals(3, Main.getThreads(parse("-b", "models", "-t", "3")));
+        Assertions.assertEquals(Runtime.getRuntime().availableProcessors(), Main.getThreads(parse("-b", "models")));
+        Assertions.assertThrows(ParseException.class, () -> Main.getThreads(parse("-b", "models", "-t", "0")));
+        Assertions.assertThrows(ParseException.class, () -> Main.getThreads(parse("-b", "models", "-t", "-2")));
+        Assertions.assertThrows(ParseException.class, () -> Main.getThreads(parse("-b", "models", "-t", "many")));
+    }
+}
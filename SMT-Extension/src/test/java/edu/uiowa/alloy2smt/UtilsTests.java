@@ -0,0 +1,67 @@
+package edu.uiowa.alloy2smt;
+
+import edu.uiowa.alloy2smt.translators.Translation;
+import edu.uiowa.alloy2smt.utils.AlloySettings;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+class UtilsTests
+{
+    private final List<String> programs = Arrays.asList(
+            "sig A {r: set A} \n fact {all x: A | some y: A | x -> y in r} \n run {some A}",
+            "sig B {s: B -> B} \n fact {all x, y: B | x in y.s.B} \n run {some B}",
+            "sig C {} \n fun f[x: C]: set C {C - x} \n fact {all x: C | some f[x]} \n run {some C}",
+            "sig D {n: lone D} \n fact {all x: D | x not in x.^n} \n run {one D}");
+
+    @Test
+    void concurrentTranslations() throws Exception
+    {
+        List<String> sequentialScripts = new ArrayList<>();
+        List<String> sequentialCommands = new ArrayList<>();
+        for (String program : programs)
+        {
+            Translation translation = Utils.translate(program, AlloySettings.Default);
+            sequentialScripts.add(translation.getSmtScript());
+            sequentialCommands.add(translation.translateCommand(0));
+        }
+
+        // translate each program several times to have translations running at the same time
+        List<String> repeated = new ArrayList<>();
+        for (int i = 0; i < 8; i++)
+        {
+            repeated.addAll(programs);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Translation> translations = Utils.translate(repeated, AlloySettings.Default, executor);
+            Assertions.assertEquals(repeated.size(), translations.size());
+            for (int i = 0; i < translations.size(); i++)
+            {
+                int index = i % programs.size();
+                Assertions.assertEquals(sequentialScripts.get(index), translations.get(i).getSmtScript());
+                Assertions.assertEquals(sequentialCommands.get(index), translations.get(i).translateCommand(0));
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentTranslationFailure() throws Exception
+    {
+        List<String> invalid = Arrays.asList(programs.get(0), "sig A {", programs.get(1));
+        Assertions.assertThrows(RuntimeException.class, () -> Utils.translate(invalid, AlloySettings.Default));
+        Assertions.assertTrue(Utils.translate(Collections.emptyList(), AlloySettings.Default).isEmpty());
+    }
+}
@@ -3,10 +3,22 @@ package edu.uiowa.alloy2smt.mapping;
 import edu.uiowa.alloy2smt.Utils;
 import edu.uiowa.alloy2smt.translators.Translation;
 import edu.uiowa.alloy2smt.utils.AlloySettings;
+import edu.uiowa.smt.Result;
+import edu.uiowa.smt.smtAst.FunctionDefinition;
+import edu.uiowa.smt.smtAst.SmtModel;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 class MapperTests
 {
@@ -97,4 +109,64 @@ class MapperTests
         Assertions.assertEquals(signatureB.id, fieldB_g.types.get(0).get(1).id);
         Assertions.assertEquals(signatureA.id, fieldB_g.types.get(0).get(2).id);
     }
-}
\ No newline at end of file
+
+    @Test
+    void json() throws Exception
+    {
+        String alloy = "sig A {f: A} \n sig B extends A {g: B -> A}";
+        Mapper mapper = Utils.translate(alloy, AlloySettings.Default).getMapper();
+        File jsonFile = File.createTempFile("mapper", ".json");
+        mapper.writeToJson(jsonFile.getPath());
+
+        // the shared object mapper is used by many threads at once
+        List<Callable<Mapper>> readers = Collections.nCopies(8, () -> Mapper.readFromJson(jsonFile.getPath()));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            for (Future<Mapper> future : executor.invokeAll(readers))
+            {
+                Mapper copy = future.get();
+                Assertions.assertEquals(mapper.signatures.size(), copy.signatures.size());
+                Assertions.assertEquals(mapper.fields.size(), copy.fields.size());
+                for (int i = 0; i < mapper.signatures.size(); i++)
+                {
+                    Assertions.assertEquals(mapper.signatures.get(i).label, copy.signatures.get(i).label);
+                    Assertions.assertEquals(mapper.signatures.get(i).id, copy.signatures.get(i).id);
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void getValues()
+    {
+        String alloy = "sig A {r: set A} \n fact f {#A = 2}";
+        Translation translation = Utils.translate(alloy, AlloySettings.Default);
+        Mapper mapper = translation.getMapper();
+        String command = mapper.buildGetValueCommand();
+        Assertions.assertTrue(command.startsWith("(get-value ("));
+        Assertions.assertTrue(command.contains("|this/A |"));
+        Assertions.assertTrue(command.contains("|this/A/r |"));
+
+        // cvc4 prints a value for each requested function
+        Matcher symbols = Pattern.compile("\\|[^|]*\\||[^\\s()|]+")
+                .matcher(command.substring("(get-value (".length()));
+        StringBuilder values = new StringBuilder("(");
+        for (int i = 0; symbols.find(); i++)
+        {
+            values.append("(").append(symbols.group()).append(" (singleton (mkTuple @uc_Atom_").append(i).append(")))");
+        }
+        values.append(")");
+        SmtModel model = mapper.buildModel(new Result().parseValues(values.toString()));
+        List<String> names = model.getFunctions().stream().map(f -> f.getName()).collect(Collectors.toList());
+        Assertions.assertTrue(names.contains("this/A"));
+        Assertions.assertTrue(names.contains("this/A/r"));
+        FunctionDefinition field = (FunctionDefinition) model.getFunctions().get(names.indexOf("this/A/r"));
+        Assertions.assertEquals("(singleton (mkTuple @uc_Atom_" + names.indexOf("this/A/r") + "))",
+                field.getExpression().toString());
+    }
+}
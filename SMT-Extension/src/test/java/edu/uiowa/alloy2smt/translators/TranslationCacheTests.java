@@ -0,0 +1,90 @@
+package edu.uiowa.alloy2smt.translators;
+
+import edu.mit.csail.sdg.ast.Sig;
+import edu.uiowa.alloy2smt.utils.AlloySettings;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+class TranslationCacheTests
+{
+    private final String fileName = "/tmp/cache/model.als";
+    private final String alloy = "sig A {r: set A} \n" +
+            "run {some A} for 3 but exactly 2 A expect 1 \n" +
+            "check {no A} for 4";
+
+    private Map<String, String> files(String alloy)
+    {
+        // the parser replaces the files with all the loaded modules
+        Map<String, String> alloyFiles = new HashMap<>();
+        alloyFiles.put(fileName, alloy);
+        return alloyFiles;
+    }
+
+    @Test
+    void memoryAndDisk() throws Exception
+    {
+        File directory = Files.createTempDirectory("cache").toFile();
+        Map<String, String> alloyFiles = files(alloy);
+
+        TranslationCache cache = new TranslationCache(2, 2, directory);
+        CachedTranslation translation = cache.translate(alloyFiles, fileName, 1, AlloySettings.Default);
+        Assertions.assertFalse(translation.isReused());
+        Assertions.assertNotNull(translation.getSmtAst());
+
+        Map<String, String> loadedFiles = new HashMap<>(alloyFiles);
+        Assertions.assertTrue(loadedFiles.size() > 1);
+
+        alloyFiles = files(alloy);
+        CachedTranslation memoryTranslation = cache.translate(alloyFiles, fileName, 1, AlloySettings.Default);
+        Assertions.assertTrue(memoryTranslation.isReused());
+        Assertions.assertEquals(loadedFiles, alloyFiles);
+
+        // a new cache reads the entry from disk
+        TranslationCache diskCache = new TranslationCache(2, 2, directory);
+        CachedTranslation diskTranslation = diskCache.translate(files(alloy), fileName, 1, AlloySettings.Default);
+        Assertions.assertTrue(diskTranslation.isReused());
+        Assertions.assertThrows(UnsupportedOperationException.class, diskTranslation::getSmtAst);
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> diskTranslation.getSigId(Sig.UNIV));
+
+        for (CachedTranslation reused : new CachedTranslation[]{memoryTranslation, diskTranslation})
+        {
+            Assertions.assertEquals(translation.getKey(), reused.getKey());
+            Assertions.assertEquals(translation.getSmtScript(), reused.getSmtScript());
+            Assertions.assertEquals(translation.translateAllCommandsWithCheckSat(),
+                    reused.translateAllCommandsWithCheckSat());
+            Assertions.assertEquals(translation.getCommands().size(), reused.getCommands().size());
+            for (int i = 0; i < translation.getCommands().size(); i++)
+            {
+                Assertions.assertEquals(translation.getCommands().get(i).toString(),
+                        reused.getCommands().get(i).toString());
+                Assertions.assertEquals(translation.getCommands().get(i).check, reused.getCommands().get(i).check);
+                Assertions.assertEquals(translation.getCommands().get(i).pos, reused.getCommands().get(i).pos);
+            }
+            Assertions.assertEquals(translation.getMapper().signatures.size(), reused.getMapper().signatures.size());
+            Assertions.assertEquals(translation.getMapper().fields.size(), reused.getMapper().fields.size());
+        }
+    }
+
+    @Test
+    void changedModel() throws Exception
+    {
+        TranslationCache cache = new TranslationCache(2, 2, null);
+        cache.translate(files(alloy), fileName, 1, AlloySettings.Default);
+
+        Map<String, String> changedFiles = files(alloy + "\n sig B {}");
+        CachedTranslation translation = cache.translate(changedFiles, fileName, 1, AlloySettings.Default);
+        Assertions.assertFalse(translation.isReused());
+        Assertions.assertNotEquals(TranslationCache.getKey(files(alloy), fileName, 1, AlloySettings.Default),
+                translation.getKey());
+        Assertions.assertTrue(translation.getSmtScript().contains("this/B"));
+
+        AlloySettings settings = AlloySettings.getInstance();
+        settings.produceUnsatCore = !settings.produceUnsatCore;
+        Assertions.assertFalse(cache.translate(files(alloy), fileName, 1, settings).isReused());
+    }
+}
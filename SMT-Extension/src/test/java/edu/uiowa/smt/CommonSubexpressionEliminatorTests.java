@@ -0,0 +1,65 @@
+package edu.uiowa.smt;
+
+import edu.uiowa.smt.smtAst.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommonSubexpressionEliminatorTests
+{
+    private final FunctionDeclaration a = new FunctionDeclaration("A", AbstractTranslator.setOfBinaryAtomSort, true);
+    private final FunctionDeclaration b = new FunctionDeclaration("B", AbstractTranslator.setOfBinaryAtomSort, true);
+
+    @Test
+    void closedSubtermsBecomeDefinitions()
+    {
+        Expression join = BinaryExpression.Op.JOIN.make(UnaryExpression.Op.TRANSPOSE.make(a.getVariable()), b.getVariable());
+        Expression union = BinaryExpression.Op.UNION.make(join, a.getVariable());
+
+        SmtProgram program = new SmtProgram();
+        program.addFunction(a);
+        program.addFunction(b);
+        program.addAssertion(new Assertion("", "", BinaryExpression.Op.SUBSET.make(union, b.getVariable())));
+        program.addAssertion(new Assertion("", "", BinaryExpression.Op.EQ.make(union, a.getVariable())));
+
+        SmtProgram optimized = new CommonSubexpressionEliminator(4).optimize(program);
+
+        assertEquals(3, optimized.getFunctions().size());
+        FunctionDefinition definition = (FunctionDefinition) optimized.getFunctions().get(2);
+        assertEquals(union, definition.getExpression());
+        assertEquals(BinaryExpression.Op.SUBSET.make(definition.getVariable(), b.getVariable()),
+                optimized.getAssertions().get(0).getExpression());
+        assertEquals(BinaryExpression.Op.EQ.make(definition.getVariable(), a.getVariable()),
+                optimized.getAssertions().get(1).getExpression());
+        // the original program is not modified
+        assertEquals(BinaryExpression.Op.EQ.make(union, a.getVariable()), program.getAssertions().get(1).getExpression());
+    }
+
+    @Test
+    void boundSubtermsBecomeLetVariables()
+    {
+        FunctionDeclaration c = new FunctionDeclaration("C", AbstractTranslator.setOfUnaryAtomSort, true);
+        VariableDeclaration x = new VariableDeclaration("x", AbstractTranslator.unaryAtomSort, false);
+        Expression join = BinaryExpression.Op.JOIN.make(UnaryExpression.Op.SINGLETON.make(x.getVariable()), a.getVariable());
+        Expression body = MultiArityExpression.Op.AND.make(
+                BinaryExpression.Op.SUBSET.make(join, c.getVariable()),
+                UnaryExpression.Op.NOT.make(BinaryExpression.Op.EQ.make(join, c.getVariable())));
+        Expression forAll = QuantifiedExpression.Op.FORALL.make(body, x);
+
+        SmtProgram program = new SmtProgram();
+        program.addAssertion(new Assertion("", "", forAll));
+        SmtProgram optimized = new CommonSubexpressionEliminator(4).optimize(program);
+
+        // the repeated term depends on x, so it can not be a definition
+        assertEquals(0, optimized.getFunctions().size());
+        QuantifiedExpression quantified = (QuantifiedExpression) optimized.getAssertions().get(0).getExpression();
+        assertSame(x, quantified.getVariables().get(0));
+        LetExpression let = (LetExpression) quantified.getExpression();
+        VariableDeclaration variable = let.getLetVariables().keySet().iterator().next();
+        assertEquals(join, let.getLetVariables().get(variable));
+        assertEquals(MultiArityExpression.Op.AND.make(
+                BinaryExpression.Op.SUBSET.make(variable.getVariable(), c.getVariable()),
+                UnaryExpression.Op.NOT.make(BinaryExpression.Op.EQ.make(variable.getVariable(), c.getVariable()))),
+                let.getExpression());
+    }
+}
@@ -0,0 +1,38 @@
+package edu.uiowa.smt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LayeredMapTests
+{
+    @Test
+    void readThroughAndShadow()
+    {
+        Map<String, Integer> parent = new HashMap<>();
+        parent.put("a", 1);
+        parent.put("b", 2);
+
+        LayeredMap<String, Integer> layer = new LayeredMap<>(parent);
+        assertEquals(Integer.valueOf(1), layer.get("a"));
+        assertEquals(Integer.valueOf(2), layer.put("b", 3));
+        layer.put("c", 4);
+
+        assertEquals(Integer.valueOf(3), layer.get("b"));
+        assertTrue(layer.containsKey("c"));
+        assertEquals(3, layer.size());
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("a", 1);
+        expected.put("b", 3);
+        expected.put("c", 4);
+        assertEquals(expected, new HashMap<>(layer));
+
+        // the parent is unchanged
+        assertEquals(Integer.valueOf(2), parent.get("b"));
+        assertFalse(parent.containsKey("c"));
+        assertEquals(2, layer.getLocal().size());
+    }
+}
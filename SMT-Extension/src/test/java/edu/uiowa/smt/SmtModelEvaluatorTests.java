@@ -0,0 +1,67 @@
+package edu.uiowa.smt;
+
+import edu.uiowa.smt.parser.SmtModelReader;
+import edu.uiowa.smt.smtAst.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SmtModelEvaluatorTests
+{
+    private static final String model = "(model\n" +
+            "(declare-sort Atom 0)\n" +
+            "(declare-sort UInt 0)\n" +
+            "(define-fun intValue ((x UInt)) Int (ite (= x @uc_UInt_0) 5 (ite (= x @uc_UInt_1) (- 2) " +
+            "(ite (= x @uc_UInt_0) 7 0))))\n" +
+            "(define-fun |this/A| () (Set (Tuple Atom)) (union (singleton (mkTuple @uc_Atom_0)) " +
+            "(singleton (mkTuple @uc_Atom_1))))\n" +
+            "(define-fun |this/A/r| () (Set (Tuple Atom UInt)) (union (singleton (mkTuple @uc_Atom_0 @uc_UInt_1)) " +
+            "(singleton (mkTuple @uc_Atom_1 @uc_UInt_0))))\n" +
+            "(define-fun |this/B| () (Set (Tuple Atom)) |this/A|)\n" +
+            "(define-fun |this/C| () (Set (Tuple Atom)) (as emptyset (Set (Tuple Atom))))\n" +
+            ")";
+
+    private static UninterpretedConstant uInt(String name)
+    {
+        return new UninterpretedConstant(name, AbstractTranslator.uninterpretedInt);
+    }
+
+    @Test
+    void uninterpretedIntegers()
+    {
+        SmtModelEvaluator evaluator = new SmtModelEvaluator(new SmtModelReader().readModel(model));
+
+        // the first matching branch wins and the last else applies to the others
+        assertEquals(IntConstant.getInstance(5), evaluator.evaluate(uInt("@uc_UInt_0")));
+        assertEquals(IntConstant.getInstance(-2), evaluator.evaluate(uInt("@uc_UInt_1")));
+        assertEquals(IntConstant.getInstance(0), evaluator.evaluate(uInt("@uc_UInt_2")));
+
+        Expression value = evaluator.apply(AbstractTranslator.uninterpretedIntValueName,
+                Collections.singletonList(uInt("@uc_UInt_0")));
+        assertSame(value, evaluator.evaluate(uInt("@uc_UInt_0")));
+    }
+
+    @Test
+    void tuples()
+    {
+        SmtModelEvaluator evaluator = new SmtModelEvaluator(new SmtModelReader().readModel(model));
+        Expression atom0 = new UninterpretedConstant("@uc_Atom_0", AbstractTranslator.atomSort);
+        Expression atom1 = new UninterpretedConstant("@uc_Atom_1", AbstractTranslator.atomSort);
+
+        List<List<Expression>> tuples = evaluator.getTuples("this/A/r");
+        assertEquals(Arrays.asList(
+                Arrays.asList(atom0, IntConstant.getInstance(-2)),
+                Arrays.asList(atom1, IntConstant.getInstance(5))), tuples);
+        // the sets are evaluated once
+        assertSame(tuples, evaluator.getTuples("this/A/r"));
+
+        assertEquals(evaluator.getTuples("this/A"), evaluator.getTuples("this/B"));
+        assertEquals(Arrays.asList(Collections.singletonList(atom0), Collections.singletonList(atom1)),
+                evaluator.getTuples("this/A"));
+        assertTrue(evaluator.getTuples("this/C").isEmpty());
+    }
+}
@@ -0,0 +1,64 @@
+package edu.uiowa.smt.cvc4;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Cvc4JournalTests
+{
+    @Test
+    void memoryJournalWithinLimit() throws Exception
+    {
+        Cvc4Journal journal = Cvc4Journal.inMemory(32);
+        journal.append("(push 1)\n");
+        journal.append("(check-sat)\n");
+        assertTrue(journal.isComplete());
+        assertEquals("(push 1)\n(check-sat)\n", journal.getContent());
+        assertEquals(21, journal.size());
+    }
+
+    @Test
+    void memoryJournalKeepsLastCommands() throws Exception
+    {
+        Cvc4Journal journal = Cvc4Journal.inMemory(10);
+        journal.append("0123456");
+        journal.append("789ab");
+        assertFalse(journal.isComplete());
+        assertEquals("23456789ab", journal.getContent());
+        journal.append("cd");
+        assertEquals("456789abcd", journal.getContent());
+        journal.append("0123456789abcdef");
+        assertEquals("6789abcdef", journal.getContent());
+        assertEquals(10, journal.size());
+    }
+
+    @Test
+    void diskJournal() throws Exception
+    {
+        Cvc4Journal journal = Cvc4Journal.onDisk(1024);
+        journal.append("(set-logic ALL)\n");
+        journal.append("(declare-const x Int)\n");
+        File file = journal.toFile();
+        assertTrue(journal.isComplete());
+        assertEquals("(set-logic ALL)\n(declare-const x Int)\n",
+                new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        journal.close();
+        assertFalse(file.exists());
+    }
+
+    @Test
+    void diskJournalStopsAtLimit() throws Exception
+    {
+        Cvc4Journal journal = Cvc4Journal.onDisk(20);
+        journal.append("(set-logic ALL)\n");
+        journal.append("(declare-const x Int)\n");
+        journal.append("(push 1)\n");
+        assertFalse(journal.isComplete());
+        assertEquals("(set-logic ALL)\n", journal.getContent());
+        journal.close();
+    }
+}
@@ -0,0 +1,66 @@
+package edu.uiowa.smt.cvc4;
+
+import edu.uiowa.smt.Result;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Cvc4ModelEnumeratorTests
+{
+    @Test
+    void enumeration()
+    {
+        String[] outputs = {"", "sat", "(model A)", "", "sat", "(model B)", "", "unsat", "(error \"no model\")"};
+        Cvc4Process process = new Cvc4Process(new ScriptedProcess(index -> outputs[index]));
+        try (Cvc4ModelEnumerator enumerator = new Cvc4ModelEnumerator(process))
+        {
+            assertTrue(enumerator.hasNext());
+            assertEquals("(model A)", enumerator.next().model);
+            assertEquals("(model B)", enumerator.next().model);
+            Result last = enumerator.next();
+            assertEquals("unsat", last.satResult);
+            assertNull(last.model);
+            assertFalse(enumerator.hasNext());
+        }
+    }
+
+    @Test
+    void cancellation()
+    {
+        // an endless enumeration
+        ScriptedProcess scriptedProcess = new ScriptedProcess(index ->
+                index % 3 == 1 ? "sat" : index % 3 == 2 ? "(model " + index / 3 + ")" : "");
+        Cvc4Process process = new Cvc4Process(scriptedProcess);
+        Cvc4ModelEnumerator enumerator = new Cvc4ModelEnumerator(process, "(get-model)", 1);
+        assertEquals("(model 0)", enumerator.next().model);
+        enumerator.close();
+        assertFalse(enumerator.hasNext());
+
+        // the prefetching stopped
+        int commands = scriptedProcess.commands.get();
+        assertTrue(commands <= 3 * 3, "commands: " + commands);
+    }
+
+    @Test
+    void failure()
+    {
+        String[] outputs = {"", "sat", "(model A)"};
+        Cvc4Process process = new Cvc4Process(new ScriptedProcess(index -> outputs[index]));
+        IllegalStateException exception = new IllegalStateException();
+        try (Cvc4ModelEnumerator enumerator = new Cvc4ModelEnumerator(process, "(get-model)", output ->
+        {
+            throw exception;
+        }, 1))
+        {
+            // the failure of the producer is rethrown instead of blocking
+            assertSame(exception, assertThrows(IllegalStateException.class, enumerator::next));
+            assertFalse(enumerator.hasNext());
+        }
+    }
+
+    @Test
+    void noProcess()
+    {
+        assertThrows(NullPointerException.class, () -> new Cvc4ModelEnumerator(null));
+    }
+}
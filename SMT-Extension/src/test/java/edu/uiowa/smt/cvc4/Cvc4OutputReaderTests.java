@@ -0,0 +1,92 @@
+package edu.uiowa.smt.cvc4;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Cvc4OutputReaderTests
+{
+    private static Cvc4OutputReader reader(String output)
+    {
+        return new Cvc4OutputReader(new ByteArrayInputStream(output.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void pipelinedResponses() throws Exception
+    {
+        Cvc4OutputReader reader = reader("success\nsat\nsuccess\n(model\n(define-fun |this/A | () Int 1)\n)\r\nsuccess\n");
+        CompletableFuture<String> assertion = new CompletableFuture<>();
+        CompletableFuture<String> checkSat = new CompletableFuture<>();
+        CompletableFuture<String> getModel = new CompletableFuture<>();
+        reader.expect(assertion);
+        reader.expect(checkSat);
+        reader.expect(getModel);
+        reader.run();
+
+        assertEquals("", assertion.get());
+        assertEquals("sat", checkSat.get());
+        assertEquals("(model\n(define-fun |this/A | () Int 1)\n)", getModel.get());
+    }
+
+    @Test
+    void quotedSentinel() throws Exception
+    {
+        Cvc4OutputReader reader = reader("unsat\n\"success\"\n");
+        CompletableFuture<String> checkSat = new CompletableFuture<>();
+        reader.expect(checkSat);
+        reader.run();
+        assertEquals("unsat", checkSat.get());
+    }
+
+    @Test
+    void sentinelInsideOutput() throws Exception
+    {
+        Cvc4OutputReader reader = reader("(define-fun success () Bool true)\nsuccess\n");
+        CompletableFuture<String> getModel = new CompletableFuture<>();
+        reader.expect(getModel);
+        reader.run();
+        assertEquals("(define-fun success () Bool true)", getModel.get());
+    }
+
+    @Test
+    void largeOutput() throws Exception
+    {
+        StringBuilder model = new StringBuilder();
+        for (int i = 0; i < 100000; i++)
+        {
+            model.append("(insert (mkTuple @uc_Atom_").append(i).append(") ");
+        }
+        Cvc4OutputReader reader = reader(model + "\nsuccess\n");
+        CompletableFuture<String> getModel = new CompletableFuture<>();
+        reader.expect(getModel);
+        reader.run();
+        assertEquals(model.toString().trim(), getModel.get());
+    }
+
+    @Test
+    void processTerminated()
+    {
+        Cvc4OutputReader reader = reader("(error \"Parse Error\")\n");
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        reader.expect(first);
+        reader.expect(second);
+        reader.run();
+
+        assertEquals("(error \"Parse Error\")", first.join());
+        ExecutionException exception = assertThrows(ExecutionException.class, second::get);
+        assertTrue(exception.getCause() instanceof IOException);
+
+        CompletableFuture<String> afterClose = new CompletableFuture<>();
+        reader.expect(afterClose);
+        assertTrue(afterClose.isCompletedExceptionally());
+    }
+}
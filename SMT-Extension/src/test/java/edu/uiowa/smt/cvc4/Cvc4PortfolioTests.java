@@ -0,0 +1,76 @@
+package edu.uiowa.smt.cvc4;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Cvc4PortfolioTests
+{
+    private static final String script = "(set-logic ALL)\n(set-option :finite-model-find true)\n(declare-fun x () Int)\n";
+
+    @Test
+    void profile()
+    {
+        Cvc4Profile profile = new Cvc4Profile("test", Collections.singletonMap("finite-model-find", "false"));
+        assertEquals("(set-logic ALL)\n(set-option :finite-model-find true)\n" +
+                "(set-option :finite-model-find false)\n(declare-fun x () Int)\n", profile.apply(script));
+        assertSame(script, Cvc4Profile.DEFAULT.apply(script));
+    }
+
+    @Test
+    void race() throws Exception
+    {
+        // only the processes without finite model finding answer, once both processes raced
+        CountDownLatch racing = new CountDownLatch(2);
+        Cvc4ProcessPool pool = new Cvc4ProcessPool(() ->
+        {
+            AtomicBoolean isFast = new AtomicBoolean();
+            return new Cvc4Process(new ScriptedProcess((index, command) ->
+            {
+                if(command.contains(":finite-model-find false"))
+                {
+                    isFast.set(true);
+                }
+                if(command.contains("(check-sat)"))
+                {
+                    racing.countDown();
+                    if(!isFast.get())
+                    {
+                        return null;
+                    }
+                    try
+                    {
+                        racing.await(10, TimeUnit.SECONDS);
+                    }
+                    catch (InterruptedException exception)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "unsat";
+                }
+                return "";
+            }));
+        }, 4, Cvc4ProcessPool.DEFAULT_IDLE_TIMEOUT);
+        Cvc4Profile slow = Cvc4Profile.DEFAULT;
+        Cvc4Profile fast = new Cvc4Profile("fast", Collections.singletonMap("finite-model-find", "false"));
+        Cvc4Portfolio portfolio = new Cvc4Portfolio(pool, Arrays.asList(slow, fast), Cvc4Portfolio.DEFAULT_MODELS);
+
+        Cvc4Portfolio.Outcome outcome = portfolio.solve("model", script, "(assert true)(check-sat)", 2, 0);
+        assertEquals("unsat", outcome.result);
+        assertSame(fast, outcome.profile);
+        pool.release(outcome.process);
+
+        // the slow process was stopped and destroyed by the pool
+        assertEquals(1, pool.size());
+        // the winner is tried first
+        assertEquals(Arrays.asList(fast, slow), portfolio.getCandidates("model", 2));
+        assertEquals(Collections.singletonList(fast), portfolio.getCandidates("model", 1));
+        assertEquals(Collections.singletonList(slow), portfolio.getCandidates("other model", 1));
+    }
+}
@@ -0,0 +1,153 @@
+package edu.uiowa.smt.cvc4;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Cvc4ProcessPoolTests
+{
+    private static final String script = "(set-logic ALL)\n(declare-fun x () Int)\n";
+
+    // the processes started by the pool, in order
+    private final List<ScriptedProcess> started = new ArrayList<>();
+    // the commands received by each started process
+    private final List<List<String>> commands = new ArrayList<>();
+
+    private Cvc4ProcessPool createPool(int maxSize)
+    {
+        return new Cvc4ProcessPool(() ->
+        {
+            List<String> received = new ArrayList<>();
+            ScriptedProcess process = new ScriptedProcess((index, command) ->
+            {
+                received.add(command.trim());
+                return "";
+            });
+            started.add(process);
+            commands.add(received);
+            return new Cvc4Process(process);
+        }, maxSize, Cvc4ProcessPool.DEFAULT_IDLE_TIMEOUT);
+    }
+
+    @Test
+    void leaseAndRelease() throws Exception
+    {
+        Cvc4ProcessPool pool = createPool(2);
+        Cvc4Process process = pool.lease(script);
+        assertEquals(Arrays.asList(script.trim(), "(push 1)"), commands.get(0));
+        assertEquals(1, pool.size());
+        assertEquals(0, pool.idleSize());
+
+        // the assertions of the lease are popped on release
+        process.sendCommand("(push 1)");
+        process.sendCommand("(assert (= x 1))");
+        pool.release(process);
+        assertEquals(Arrays.asList("(pop 2)", "(push 1)"), commands.get(0).subList(4, 6));
+        assertEquals(1, pool.idleSize());
+
+        // the same script is served by the idle process without reloading it
+        assertSame(process, pool.lease(script));
+        assertEquals(6, commands.get(0).size());
+        assertEquals(1, started.size());
+
+        // another script is loaded into a new process while the pool is not full
+        Cvc4Process other = pool.lease("(set-logic ALL)\n");
+        assertNotSame(process, other);
+        assertEquals(2, pool.size());
+        pool.release(other);
+        pool.release(process);
+        assertEquals(2, pool.idleSize());
+    }
+
+    @Test
+    void reuseWhenFull() throws Exception
+    {
+        Cvc4ProcessPool pool = createPool(1);
+        Cvc4Process process = pool.lease(script);
+        pool.release(process);
+
+        // the least recently used process is reset for another script
+        String otherScript = "(set-logic ALL)\n";
+        assertSame(process, pool.lease(otherScript));
+        List<String> received = commands.get(0);
+        assertEquals(Arrays.asList("(reset)", otherScript.trim(), "(push 1)"),
+                received.subList(received.size() - 3, received.size()));
+        assertEquals(1, started.size());
+    }
+
+    @Test
+    void replace() throws Exception
+    {
+        Cvc4ProcessPool pool = createPool(1);
+        Cvc4Process process = pool.lease(script);
+        process.cancel();
+
+        Cvc4Process replacement = pool.replace(process);
+        assertNotSame(process, replacement);
+        assertFalse(started.get(0).isAlive());
+        assertEquals(Arrays.asList(script.trim(), "(push 1)"), commands.get(1));
+        assertEquals(1, pool.size());
+
+        // a process that is not leased can not be replaced
+        pool.release(replacement);
+        assertThrows(IllegalArgumentException.class, () -> pool.replace(replacement));
+    }
+
+    @Test
+    void invalidate() throws Exception
+    {
+        Cvc4ProcessPool pool = createPool(1);
+        Cvc4Process process = pool.lease(script);
+        pool.invalidate(process);
+        assertFalse(started.get(0).isAlive());
+        assertEquals(0, pool.size());
+
+        // releasing a process that is no longer leased has no effect
+        pool.release(process);
+        assertEquals(0, pool.idleSize());
+    }
+
+    @Test
+    void clear() throws Exception
+    {
+        Cvc4ProcessPool pool = createPool(2);
+        Cvc4Process idle = pool.lease(script);
+        Cvc4Process leased = pool.lease(script);
+        pool.release(idle);
+
+        pool.clear();
+        // the idle process is destroyed at once, and the leased one when it is released
+        assertFalse(started.get(0).isAlive());
+        assertTrue(started.get(1).isAlive());
+        pool.release(leased);
+        assertFalse(started.get(1).isAlive());
+        assertEquals(0, pool.size());
+
+        // the processes started afterwards are reused
+        Cvc4Process process = pool.lease(script);
+        pool.release(process);
+        assertSame(process, pool.lease(script));
+        assertEquals(3, started.size());
+    }
+
+    @Test
+    void memoryLimit()
+    {
+        long limit = Cvc4Process.getMemoryLimit();
+        try
+        {
+            Cvc4Process.setMemoryLimit(1024);
+            assertEquals(1024, Cvc4Process.getMemoryLimit());
+            assertThrows(IllegalArgumentException.class, () -> Cvc4Process.setMemoryLimit(-1));
+            assertEquals(1024, Cvc4Process.getMemoryLimit());
+        }
+        finally
+        {
+            Cvc4Process.setMemoryLimit(limit);
+        }
+    }
+}
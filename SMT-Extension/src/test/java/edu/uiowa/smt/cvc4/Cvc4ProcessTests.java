@@ -0,0 +1,86 @@
+package edu.uiowa.smt.cvc4;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Cvc4ProcessTests
+{
+    @Test
+    void solve() throws Exception
+    {
+        Cvc4Process process = new Cvc4Process(new ScriptedProcess(index -> "unsat"));
+        assertEquals("unsat", process.solve(writer -> writer.write("(check-sat)"), 10000));
+        assertNull(process.getInterruption());
+        assertTrue(process.isAlive());
+    }
+
+    @Test
+    void timeout() throws Exception
+    {
+        ScriptedProcess scriptedProcess = new ScriptedProcess(index -> null);
+        Cvc4Process process = new Cvc4Process(scriptedProcess);
+        String result = process.solve(writer -> writer.write("(check-sat)"), 100);
+        assertEquals("unknown (timeout)", result);
+        assertEquals(Cvc4Process.Interruption.TIMEOUT, Cvc4Process.getInterruption(result));
+        assertFalse(process.isAlive());
+    }
+
+    @Test
+    void cancellation() throws Exception
+    {
+        Cvc4Process process = new Cvc4Process(new ScriptedProcess(index -> null));
+        CompletableFuture<String> result = CompletableFuture.supplyAsync(() ->
+        {
+            try
+            {
+                return process.solve(writer -> writer.write("(check-sat)"), 0);
+            }
+            catch (Exception exception)
+            {
+                throw new RuntimeException(exception);
+            }
+        });
+        Thread.sleep(100);
+        process.cancel();
+        assertEquals("unknown (cancelled)", result.get(10, TimeUnit.SECONDS));
+        assertEquals(Cvc4Process.Interruption.CANCELLED, process.getInterruption());
+    }
+
+    @Test
+    void memout() throws Exception
+    {
+        Cvc4Process process = new Cvc4Process(new ScriptedProcess(index ->
+                ScriptedProcess.exit("terminate called after throwing an instance of 'std::bad_alloc'")));
+        assertEquals("unknown (memout)", process.solve(writer -> writer.write("(check-sat)"), 10000));
+        assertFalse(process.isAlive());
+    }
+
+    @Test
+    void transcript() throws Exception
+    {
+        Cvc4Process.TranscriptMode mode = Cvc4Process.getTranscriptMode();
+        long maxSize = Cvc4Process.getTranscriptMaxSize();
+        try
+        {
+            Cvc4Process.setTranscript(Cvc4Process.TranscriptMode.MEMORY, 1024);
+            Cvc4Process process = new Cvc4Process(new ScriptedProcess(index -> "unsat"));
+            assertEquals(1024, process.getJournal().getMaxSize());
+            assertThrows(IllegalArgumentException.class,
+                    () -> Cvc4Process.setTranscript(Cvc4Process.TranscriptMode.DISK, 0));
+            assertEquals(Cvc4Process.TranscriptMode.MEMORY, Cvc4Process.getTranscriptMode());
+
+            // the processes already running keep their transcript
+            Cvc4Process.setTranscript(Cvc4Process.TranscriptMode.NONE, 1024);
+            assertNotNull(process.getJournal());
+            assertNull(new Cvc4Process(new ScriptedProcess(index -> "unsat")).getJournal());
+        }
+        finally
+        {
+            Cvc4Process.setTranscript(mode, maxSize);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package edu.uiowa.smt.cvc4;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
+
+/**
+ * answers the n-th command with the n-th scripted output once its sentinel is
+ * received. A null output never answers, and an output made by
+ * {@link ScriptedProcess#exit(String)} is printed before the process exits.
+ */
+class ScriptedProcess extends Process
+{
+    private static final String EXIT = "\u0000exit\u0000";
+    private static final int END_OF_STREAM = -1;
+
+    private final BiFunction<Integer, String, String> script;
+    final AtomicInteger commands = new AtomicInteger();
+    private final BlockingQueue<Integer> output = new LinkedBlockingQueue<>();
+    private final StringBuilder input = new StringBuilder();
+    private volatile boolean isAlive = true;
+
+    ScriptedProcess(IntFunction<String> script)
+    {
+        this((index, command) -> script.apply(index));
+    }
+
+    /**
+     * @param script the output of a command given its index and its text
+     */
+    ScriptedProcess(BiFunction<Integer, String, String> script)
+    {
+        this.script = script;
+    }
+
+    static String exit(String output)
+    {
+        return EXIT + output;
+    }
+
+    @Override
+    public OutputStream getOutputStream()
+    {
+        return new OutputStream()
+        {
+            @Override
+            public void write(int b)
+            {
+                input.append((char) b);
+                String sentinel = "(echo " + Cvc4OutputReader.SENTINEL + ")\n";
+                if(input.length() >= sentinel.length() &&
+                        input.substring(input.length() - sentinel.length()).equals(sentinel))
+                {
+                    String command = input.substring(0, input.length() - sentinel.length());
+                    input.setLength(0);
+                    String response = script.apply(commands.getAndIncrement(), command);
+                    if(response == null)
+                    {
+                        return;
+                    }
+                    if(response.startsWith(EXIT))
+                    {
+                        print(response.substring(EXIT.length()) + "\n");
+                        destroy();
+                        return;
+                    }
+                    print(response + "\nsuccess\n");
+                }
+            }
+        };
+    }
+
+    private void print(String text)
+    {
+        for (byte textByte : text.getBytes(StandardCharsets.UTF_8))
+        {
+            output.add(textByte & 0xFF);
+        }
+    }
+
+    @Override
+    public InputStream getInputStream()
+    {
+        return new InputStream()
+        {
+            private boolean isClosed;
+
+            @Override
+            public int read() throws InterruptedIOException
+            {
+                if(isClosed)
+                {
+                    return END_OF_STREAM;
+                }
+                try
+                {
+                    int next = output.take();
+                    isClosed = next == END_OF_STREAM;
+                    return next;
+                }
+                catch (InterruptedException exception)
+                {
+                    throw new InterruptedIOException();
+                }
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws InterruptedIOException
+            {
+                int first = read();
+                if(first == END_OF_STREAM)
+                {
+                    return END_OF_STREAM;
+                }
+                bytes[offset] = (byte) first;
+                int count = 1;
+                Integer next;
+                while (count < length && (next = output.peek()) != null && next != END_OF_STREAM)
+                {
+                    bytes[offset + count++] = (byte) (int) output.poll();
+                }
+                return count;
+            }
+        };
+    }
+
+    @Override
+    public InputStream getErrorStream()
+    {
+        return new ByteArrayInputStream(new byte[0]);
+    }
+
+    @Override
+    public int waitFor()
+    {
+        return 0;
+    }
+
+    @Override
+    public int exitValue()
+    {
+        if(isAlive)
+        {
+            throw new IllegalThreadStateException();
+        }
+        return 1;
+    }
+
+    @Override
+    public boolean isAlive()
+    {
+        return isAlive;
+    }
+
+    @Override
+    public void destroy()
+    {
+        if(isAlive)
+        {
+            isAlive = false;
+            output.add(END_OF_STREAM);
+        }
+    }
+}
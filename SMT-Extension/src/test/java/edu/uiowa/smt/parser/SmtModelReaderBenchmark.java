@@ -0,0 +1,112 @@
+package edu.uiowa.smt.parser;
+
+import edu.uiowa.smt.parser.antlr.SmtLexer;
+import edu.uiowa.smt.parser.antlr.SmtParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Compares the time of parsing (get-model) outputs with the antlr parser and
+ * with {@link SmtModelReader}.
+ * Usage: SmtModelReaderBenchmark [model.smt2 ...]
+ * where each file is a recorded output of (get-model). Without arguments,
+ * models shaped like the cvc4 output are generated.
+ */
+public class SmtModelReaderBenchmark
+{
+    private static final int WARMUP = 5;
+    private static final int RUNS = 10;
+
+    public static void main(String[] args) throws Exception
+    {
+        Map<String, String> models = new LinkedHashMap<>();
+        for (String file : args)
+        {
+            models.put(file, new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8));
+        }
+        if(models.isEmpty())
+        {
+            for (int size : new int[]{100, 1000, 2000})
+            {
+                models.put("generated " + size + " atoms", generateModel(size));
+            }
+        }
+
+        // antlr parse trees are deep for nested sets
+        Thread thread = new Thread(null, () ->
+        {
+            System.out.println("model\tantlr (ms)\treader (ms)");
+            for (Map.Entry<String, String> entry : models.entrySet())
+            {
+                double antlr = time(entry.getValue(), SmtModelReaderBenchmark::parseWithAntlr);
+                double reader = time(entry.getValue(), model -> new SmtModelReader().readModel(model));
+                System.out.printf("%s\t%.2f\t%.2f%n", entry.getKey(), antlr, reader);
+            }
+        }, "benchmark", 1L << 30);
+        thread.start();
+        thread.join();
+    }
+
+    private static void parseWithAntlr(String model)
+    {
+        SmtParser parser = new SmtParser(new CommonTokenStream(new SmtLexer(CharStreams.fromString(model))));
+        new SmtModelVisitor().visit(parser.model());
+    }
+
+    /**
+     * @return the average time of parsing the model in milliseconds
+     */
+    private static double time(String model, Consumer<String> parser)
+    {
+        for (int i = 0; i < WARMUP; i++)
+        {
+            parser.accept(model);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++)
+        {
+            parser.accept(model);
+        }
+        return (System.nanoTime() - start) / (RUNS * 1e6);
+    }
+
+    /**
+     * @return a model with a unary and a binary relation over the given number of atoms
+     */
+    private static String generateModel(int size)
+    {
+        StringBuilder model = new StringBuilder("(model\n; cardinality of Atom is " + size + "\n");
+        model.append("(declare-sort Atom 0)\n");
+        model.append("(define-fun |this/A| () (Set (Tuple Atom)) ");
+        appendSet(model, size, 1);
+        model.append(")\n");
+        model.append("(define-fun |this/A/r| () (Set (Tuple Atom Atom)) ");
+        appendSet(model, size, 2);
+        model.append(")\n)");
+        return model.toString();
+    }
+
+    private static void appendSet(StringBuilder model, int size, int arity)
+    {
+        for (int i = 1; i < size; i++)
+        {
+            model.append("(union ");
+        }
+        for (int i = 0; i < size; i++)
+        {
+            model.append(i == 0 ? "" : " ").append("(singleton (mkTuple");
+            for (int j = 0; j < arity; j++)
+            {
+                model.append(" @uc_Atom_").append((i + j) % size);
+            }
+            model.append("))").append(i == 0 ? "" : ")");
+        }
+    }
+}
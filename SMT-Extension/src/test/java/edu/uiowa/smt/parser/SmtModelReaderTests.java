@@ -0,0 +1,123 @@
+package edu.uiowa.smt.parser;
+
+import edu.uiowa.smt.Result;
+import edu.uiowa.smt.parser.antlr.SmtLexer;
+import edu.uiowa.smt.parser.antlr.SmtParser;
+import edu.uiowa.smt.smtAst.*;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SmtModelReaderTests
+{
+    private static final String model = "(model\n" +
+            "; cardinality of Atom is 3\n" +
+            "(declare-sort Atom 0)\n" +
+            "(define-fun |this/A| () (Set (Tuple Atom)) (union (union (singleton (mkTuple @uc_Atom_0)) " +
+            "(singleton (mkTuple @uc_Atom_1))) (singleton (mkTuple @uc_Atom_2))))\n" +
+            "(define-fun |this/A/r| () (Set (Tuple Atom Atom)) (as emptyset (Set (Tuple Atom Atom))))\n" +
+            "(define-fun x () Int (- 5))\n" +
+            "(define-fun b () Bool (and (not false) (= x 3)))\n" +
+            "(define-fun f ((y Int) (z UInt)) Int (ite (> y 0) (* y 2) (+ y 1)))\n" +
+            "(define-fun q () Bool (forall ((a Atom)) (member (mkTuple a) |this/A|)))\n" +
+            "(define-fun |{\"filename\":\"file.als\",\"x1\":1,\"y1\":4}| () Bool true)\n" +
+            ")";
+
+    private static SmtModel parseWithAntlr(String model)
+    {
+        SmtParser parser = new SmtParser(new CommonTokenStream(new SmtLexer(CharStreams.fromString(model))));
+        return (SmtModel) new SmtModelVisitor().visit(parser.model());
+    }
+
+    @Test
+    void sameModelAsAntlr()
+    {
+        SmtModel expected = parseWithAntlr(model);
+        SmtModel actual = new SmtModelReader().readModel(model);
+
+        assertEquals(expected.getSorts().size(), actual.getSorts().size());
+        assertEquals(expected.getSorts().get(0).getName(), actual.getSorts().get(0).getName());
+        assertEquals(expected.getFunctions().size(), actual.getFunctions().size());
+        for (int i = 0; i < expected.getFunctions().size(); i++)
+        {
+            FunctionDefinition expectedFunction = (FunctionDefinition) expected.getFunctions().get(i);
+            FunctionDefinition actualFunction = (FunctionDefinition) actual.getFunctions().get(i);
+            assertEquals(expectedFunction.getName(), actualFunction.getName());
+            assertEquals(expectedFunction.getSort(), actualFunction.getSort());
+            assertEquals(expectedFunction.getInputVariables().size(), actualFunction.getInputVariables().size());
+            assertEquals(expectedFunction.getExpression().toString(), actualFunction.getExpression().toString());
+        }
+    }
+
+    @Test
+    void values()
+    {
+        SmtModelReader reader = new SmtModelReader();
+        reader.readModel(model);
+        SmtValues values = reader.readValues("((x (- 5)) (|this/A/r| (as emptyset (Set (Tuple Atom Atom)))))");
+        assertEquals(2, values.getValues().size());
+        assertEquals(IntConstant.getInstance(-5), values.getValue(0));
+        assertEquals("x", ((Variable) values.getExpression(0)).getName());
+    }
+
+    @Test
+    void unsatCore()
+    {
+        SmtUnsatCore core = new SmtModelReader().readUnsatCore("(\n|{\"filename\":\"file.als\"}|\nf1\n)");
+        assertEquals(Arrays.asList("{\"filename\":\"file.als\"}", "f1"), core.getCore());
+    }
+
+    @Test
+    void deeplyNestedSets()
+    {
+        int size = 100000;
+        // (union (union (singleton ...) (singleton ...)) (singleton ...)) as printed by cvc4
+        StringBuilder set = new StringBuilder();
+        for (int i = 1; i < size; i++)
+        {
+            set.append("(union ");
+        }
+        set.append("(singleton (mkTuple @uc_Atom_0))");
+        for (int i = 1; i < size; i++)
+        {
+            set.append(" (singleton (mkTuple @uc_Atom_").append(i).append(")))");
+        }
+        SmtModel smtModel = new SmtModelReader().readModel(
+                "(model (declare-sort Atom 0) (define-fun A () (Set (Tuple Atom)) " + set + "))");
+        Expression expression = ((FunctionDefinition) smtModel.getFunctions().get(0)).getExpression();
+        assertEquals(BinaryExpression.Op.UNION, ((BinaryExpression) expression).getOp());
+    }
+
+    @Test
+    void malformedInput()
+    {
+        assertThrows(RuntimeException.class, () -> new SmtModelReader().readModel("(model (define-fun x () Int 1)"));
+        assertThrows(RuntimeException.class, () -> new SmtModelReader().readModel("(model (define-fun x () Int y))"));
+    }
+
+    @Test
+    void resultFallsBackToAntlr()
+    {
+        // the reader rejects the extra token, which the antlr parser recovers from
+        Result result = new Result();
+        SmtModel smtModel = result.parseModel("(model (define-fun x () Int (- 5)) (define-fun y () Int 1 2))");
+        assertEquals(2, smtModel.getFunctions().size());
+        SmtValues values = result.parseValues("((x (- 5)))");
+        assertEquals(IntConstant.getInstance(-5), values.getValue(0));
+    }
+
+    @Test
+    void valuesWithoutModel()
+    {
+        SmtValues values = new Result().parseValues("((|this/A | (singleton (mkTuple @uc_Atom_0))) (|this/B | 2))");
+        assertEquals(2, values.getValues().size());
+        Variable variable = (Variable) values.getExpression(0);
+        assertEquals("this/A", variable.getName());
+        assertEquals(values.getValue(0).getSort(), variable.getSort());
+        assertEquals(IntConstant.getInstance(2), values.getValue(1));
+    }
+}
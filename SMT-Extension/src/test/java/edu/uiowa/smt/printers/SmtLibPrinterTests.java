@@ -0,0 +1,66 @@
+package edu.uiowa.smt.printers;
+
+import edu.uiowa.alloy2smt.Utils;
+import edu.uiowa.alloy2smt.translators.Translation;
+import edu.uiowa.alloy2smt.utils.AlloySettings;
+import edu.uiowa.smt.AbstractTranslator;
+import edu.uiowa.smt.smtAst.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SmtLibPrinterTests
+{
+    private SmtProgram getProgram()
+    {
+        SmtProgram program = new SmtProgram();
+        ConstantDeclaration x = new ConstantDeclaration("x", AbstractTranslator.intSort, false);
+        program.addConstantDeclaration(x);
+        program.addAssertion(new Assertion("", "x is positive",
+                BinaryExpression.Op.GT.make(x.getVariable(), IntConstant.getInstance(0))));
+        return program;
+    }
+
+    @Test
+    void streamedOutputEqualsMemoryOutput() throws Exception
+    {
+        SmtLibPrinter memoryPrinter = new SmtLibPrettyPrinter();
+        memoryPrinter.visit(getProgram());
+
+        StringWriter writer = new StringWriter();
+        SmtLibPrinter streamingPrinter = new SmtLibPrettyPrinter(SmtSettings.Default, writer);
+        streamingPrinter.visit(getProgram());
+        streamingPrinter.flush();
+
+        assertEquals(memoryPrinter.getSmtLib(), writer.toString());
+        assertThrows(IllegalStateException.class, streamingPrinter::getSmtLib);
+    }
+
+    @Test
+    void teeWriter() throws Exception
+    {
+        StringWriter first = new StringWriter();
+        StringWriter second = new StringWriter();
+        SmtLibPrinter printer = new SmtLibPrinter(SmtSettings.Default, new TeeWriter(first, second));
+        printer.visit(getProgram());
+        printer.flush();
+
+        assertFalse(first.toString().isEmpty());
+        assertEquals(first.toString(), second.toString());
+    }
+
+    @Test
+    void streamedCommands() throws Exception
+    {
+        String alloy = "sig A {} fact f {#A > 1} run {some A} check {no A}";
+        Translation translation = Utils.translate(alloy, AlloySettings.Default);
+
+        StringWriter writer = new StringWriter();
+        translation.translateAllCommandsWithCheckSat(writer);
+        String script = writer.toString();
+        assertTrue(script.startsWith(translation.getSmtScript()));
+        assertEquals(2, script.split("\\(check-sat\\)", -1).length - 1);
+    }
+}
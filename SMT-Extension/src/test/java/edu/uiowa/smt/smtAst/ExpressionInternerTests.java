@@ -0,0 +1,41 @@
+package edu.uiowa.smt.smtAst;
+
+import edu.uiowa.smt.AbstractTranslator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpressionInternerTests
+{
+    @Test
+    void identicalExpressionsShareOneInstance()
+    {
+        VariableDeclaration x = new VariableDeclaration("x", AbstractTranslator.intSort, false);
+        Expression first = BinaryExpression.Op.PLUS.make(x.getVariable(), new IntConstant("1"));
+        Expression second = BinaryExpression.Op.PLUS.make(x.getVariable(), new IntConstant("1"));
+        assertSame(first, second);
+
+        // subterms built with constructors are interned by their parents
+        MultiArityExpression tuple = new MultiArityExpression(MultiArityExpression.Op.MKTUPLE, first);
+        assertSame(first, tuple.getExpressions().get(0));
+
+        Expression comparison = BinaryExpression.Op.GT.make(second, new IntConstant("0"));
+        assertSame(first, ((BinaryExpression) comparison).getA());
+    }
+
+    @Test
+    void structuralHashCode()
+    {
+        VariableDeclaration x = new VariableDeclaration("x", AbstractTranslator.intSort, false);
+        VariableDeclaration otherX = new VariableDeclaration("x", AbstractTranslator.intSort, false);
+        Expression first = UnaryExpression.Op.NOT.make(BinaryExpression.Op.LT.make(x.getVariable(), new IntConstant("2")));
+        Expression second = UnaryExpression.Op.NOT.make(BinaryExpression.Op.LT.make(otherX.getVariable(), new IntConstant("2")));
+
+        // variables with different declarations are different even with the same name
+        assertNotEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+
+        assertEquals(new SetSort(new TupleSort(AbstractTranslator.atomSort)), AbstractTranslator.setOfUnaryAtomSort);
+        assertEquals(new SetSort(new TupleSort(AbstractTranslator.atomSort)).hashCode(), AbstractTranslator.setOfUnaryAtomSort.hashCode());
+    }
+}
@@ -0,0 +1,40 @@
+package edu.uiowa.smt.smtAst;
+
+import edu.uiowa.smt.AbstractTranslator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SmtProgramTests
+{
+    @Test
+    void layer()
+    {
+        SmtProgram program = new SmtProgram();
+        ConstantDeclaration x = new ConstantDeclaration("x", AbstractTranslator.intSort, true);
+        Assertion assertion = new Assertion("", "", BoolConstant.True);
+        program.addSort(AbstractTranslator.atomSort);
+        program.addConstantDeclaration(x);
+
+        SmtProgram layer = program.newLayer();
+        ConstantDeclaration y = new ConstantDeclaration("y", AbstractTranslator.intSort, true);
+        layer.addConstantDeclaration(y);
+        layer.addAssertion(assertion);
+
+        assertEquals(Arrays.asList(x, y), layer.getConstantDeclarations());
+        assertEquals(Collections.singletonList(AbstractTranslator.atomSort), layer.getSorts());
+        assertEquals(Collections.singletonList(assertion), layer.getAssertions());
+
+        // the program below the layer is unchanged
+        assertEquals(Collections.singletonList(x), program.getConstantDeclarations());
+        assertEquals(0, program.getAssertions().size());
+
+        SmtProgram delta = layer.getDelta();
+        assertEquals(0, delta.getSorts().size());
+        assertEquals(Collections.singletonList(y), delta.getConstantDeclarations());
+        assertEquals(Collections.singletonList(assertion), delta.getAssertions());
+    }
+}
@@ -30,8 +30,10 @@ import java.awt.event.FocusEvent;
 import java.awt.event.FocusListener;
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -60,6 +62,7 @@ import edu.mit.csail.sdg.alloy4.A4Preferences.IntPref;
 import edu.mit.csail.sdg.alloy4.A4Preferences.StringPref;
 import edu.mit.csail.sdg.alloy4.Computer;
 import edu.mit.csail.sdg.alloy4.ConstList;
+import edu.mit.csail.sdg.alloy4.Err;
 import edu.mit.csail.sdg.alloy4.OurBorder;
 import edu.mit.csail.sdg.alloy4.OurCheckbox;
 import edu.mit.csail.sdg.alloy4.OurConsole;
@@ -262,6 +265,47 @@ public final class VizGUI implements ComponentListener {
 
     // ==============================================================================================//
 
+    /**
+     * This maps each XML filename that is not written yet to the content of its
+     * instance.
+     */
+    private final Map<String,String> xml2content = new HashMap<String,String>();
+
+    /**
+     * Records the content of an XML instance, which is then loaded from memory and
+     * only written to the file when the file itself is needed. If the file was
+     * written already, it is overwritten at once.
+     */
+    public synchronized void putXML(String fileName, String xml) throws Err {
+        final String xmlFileName = Util.canon(fileName);
+        if (new File(xmlFileName).exists())
+            Util.writeAll(xmlFileName, xml);
+        else
+            xml2content.put(xmlFileName, xml);
+    }
+
+    /**
+     * Writes the XML file of an instance that is only kept in memory; does nothing
+     * otherwise.
+     */
+    public synchronized void writeXML(String fileName) throws Err {
+        final String xmlFileName = Util.canon(fileName);
+        final String xml = xml2content.get(xmlFileName);
+        if (xml != null) {
+            Util.writeAll(xmlFileName, xml);
+            xml2content.remove(xmlFileName);
+        }
+    }
+
+    /**
+     * Returns the content of an instance that is only kept in memory, or null.
+     */
+    private synchronized String getXML(String xmlFileName) {
+        return xml2content.get(xmlFileName);
+    }
+
+    // ==============================================================================================//
+
     /** Add a vertical divider to the toolbar. */
     private void addDivider() {
         JPanel divider = OurUtil.makeH(new Dimension(1, 40), Color.LIGHT_GRAY);
@@ -867,6 +911,8 @@ public final class VizGUI implements ComponentListener {
             if (myEvaluatorPanel == null)
                 myEvaluatorPanel = new OurConsole(evaluator, true, "The ", true, "Alloy Evaluator ", false, "allows you to type\nin Alloy expressions and see their values.\nFor example, ", true, "univ", false, " shows the list of all atoms.\n(You can press UP and DOWN to recall old inputs).\n");
             try {
+                // the evaluator reads the instance from its file
+                writeXML(xmlFileName);
                 evaluator.compute(new File(xmlFileName));
             } catch (Exception ex) {} // exception should not happen
             left = myEvaluatorPanel;
@@ -1002,9 +1048,14 @@ public final class VizGUI implements ComponentListener {
         if (forcefully || !xmlFileName.equals(this.xmlFileName)) {
             AlloyInstance myInstance;
             try {
-                if (!f.exists())
-                    throw new IOException("File " + xmlFileName + " does not exist.");
-                myInstance = StaticInstanceReader.parseInstance(f);
+                final String xml = getXML(xmlFileName);
+                if (xml != null) {
+                    myInstance = StaticInstanceReader.parseInstance(new StringReader(xml));
+                } else {
+                    if (!f.exists())
+                        throw new IOException("File " + xmlFileName + " does not exist.");
+                    myInstance = StaticInstanceReader.parseInstance(f);
+                }
             } catch (Throwable e) {
                 xmlLoaded.remove(fileName);
                 xmlLoaded.remove(xmlFileName);
@@ -1293,7 +1344,8 @@ public final class VizGUI implements ComponentListener {
         Util.setCurrentDirectory(file.getParentFile());
         String filename = Util.canon(file.getPath());
         try {
-            Util.writeAll(filename, Util.readAll(xmlFileName));
+            final String xml = getXML(xmlFileName);
+            Util.writeAll(filename, xml != null ? xml : Util.readAll(xmlFileName));
         } catch (Throwable er) {
             OurDialog.alert("Error saving XML instance.\n\nError: " + er.getMessage());
         }
@@ -1,31 +1,26 @@
 package edu.mit.csail.sdg.alloy4whole;
 
-import edu.mit.csail.sdg.alloy4.Version;
 import edu.mit.csail.sdg.alloy4.WorkerEngine;
 import edu.mit.csail.sdg.alloy4whole.instances.AlloySolution;
 import edu.mit.csail.sdg.ast.Command;
-import edu.uiowa.alloy2smt.Utils;
-import edu.uiowa.smt.printers.SmtLibPrinter;
+import edu.uiowa.smt.Result;
+import edu.uiowa.smt.cvc4.Cvc4ModelEnumerator;
 import edu.uiowa.smt.smtAst.SmtModel;
 import edu.uiowa.alloy2smt.translators.Translation;
 
-import java.io.File;
-import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.util.List;
-import java.util.Map;
-
-import static edu.mit.csail.sdg.alloy4.A4Preferences.ImplicitThis;
 
 public class Cvc4EnumerationTask implements WorkerEngine.WorkerTask
 {
+    private static final String NO_MORE_INSTANCES = "There are no more satisfying instances.\n\n" +
+            "Note: due to symmetry breaking and other optimizations,\n" +
+            "some equivalent solutions may have been omitted.";
+
     private final String xmlFileName;
     private Translation translation;
     private AlloySolution alloySolution;
-    private Map<String, String> alloyFiles;
     private int commandIndex;
-    private String originalFileName;
 
     Cvc4EnumerationTask(String xmlFileName) throws Exception
     {
@@ -43,49 +38,45 @@ public class Cvc4EnumerationTask implements WorkerEngine.WorkerTask
                 return;
             }
 
-            // read the solution from the xml file
-            alloySolution = AlloySolution.readFromXml(xmlFileName);
-            alloyFiles = alloySolution.getAlloyFiles();
-            if (alloySolution.instances.size() == 0)
+            if(Cvc4Task.cvc4Process == null)
             {
-                throw new Exception("No instance found in the file " + xmlFileName);
+                // the process of the last command was stopped
+                workerCallback.callback(new Object[]{"pop", NO_MORE_INSTANCES});
+                return;
             }
-            // read the command from the only instance in the file
-            String command      = alloySolution.instances.get(0).command;
-            originalFileName    = alloySolution.instances.get(0).fileName;
 
-            translation = translateToSMT();
+            // the worker keeps the solution of the last command in memory,
+            // so neither the xml file nor the alloy model needs to be parsed again
+            alloySolution   = Cvc4Task.lastSolution;
+            translation     = Cvc4Task.lastTranslation;
+            commandIndex    = Cvc4Task.lastCommandIndex;
 
-            // find the index of the matching command
-            List<Command> commands = translation.getCommands();
-            for (commandIndex = 0; commandIndex < commands.size() ; commandIndex++)
+            // (block-model), (check-sat) and the model command are pipelined, and the next
+            // solutions are prefetched while this one is displayed
+            if(Cvc4Task.modelEnumerator == null)
             {
-                if(command.equals(commands.get(commandIndex).toString()))
-                {
-                    break;
-                }
+                Cvc4Task.modelEnumerator = new Cvc4ModelEnumerator(Cvc4Task.cvc4Process,
+                        Cvc4Task.lastModelCommand, Cvc4Task::needsModel, Cvc4ModelEnumerator.DEFAULT_PREFETCH);
             }
-
-            // (block-model)
-            Cvc4Task.cvc4Process.sendCommand(SmtLibPrinter.BLOCK_MODEL);
-            // (check-sat)
-            String result = Cvc4Task.cvc4Process.sendCommand(SmtLibPrinter.CHECK_SAT);
-            if(result != null)
+            if(!Cvc4Task.modelEnumerator.hasNext())
+            {
+                workerCallback.callback(new Object[]{"pop", NO_MORE_INSTANCES});
+                return;
+            }
+            Result result = Cvc4Task.modelEnumerator.next();
+            switch (result.satResult)
             {
-                switch (result)
-                {
-                    case "sat":
-                        // get a new model and save it
-                        prepareInstance(commandIndex);
-                        // tell alloySolution user interface that the last instance has changed
-                        workerCallback.callback(new Object[]{"declare", xmlFileName});
-                        break;
-                    case "unsat":
-                        workerCallback.callback(new Object[]{"pop", "There are no more satisfying instances.\n\n" + "Note: due to symmetry breaking and other optimizations,\n" + "some equivalent solutions may have been omitted."});
-                        break;
-                    default:
-                        workerCallback.callback(new Object[]{"pop", "CVC4 solver returned unknown."});
-                }
+                case "sat":
+                    // tell alloySolution user interface that the last instance has changed,
+                    // and send the new instance, which is written only when it is needed
+                    String xml = prepareInstance(commandIndex, result.model);
+                    workerCallback.callback(new Object[]{"declare", xmlFileName, xml});
+                    break;
+                case "unsat":
+                    workerCallback.callback(new Object[]{"pop", NO_MORE_INSTANCES});
+                    break;
+                default:
+                    workerCallback.callback(new Object[]{"pop", "CVC4 solver returned unknown."});
             }
         }
         catch (Exception exception)
@@ -96,26 +87,17 @@ public class Cvc4EnumerationTask implements WorkerEngine.WorkerTask
         }
     }
 
-    private Translation translateToSMT() throws IOException
+    private String prepareInstance(int commandIndex, String smtModel) throws Exception
     {
-        int resolutionMode      = (Version.experimental && ImplicitThis.get()) ? 2 : 1;
-        Cvc4Task.setAlloySettings();
-        Translation translation = Utils.translate(alloyFiles, originalFileName, resolutionMode, Cvc4Task.alloySettings);
-        return translation;
-    }
-
-    private void prepareInstance(int commandIndex) throws Exception
-    {
-        String smtModel     = Cvc4Task.cvc4Process.sendCommand(SmtLibPrinter.GET_MODEL);
         Command command     = translation.getCommands().get(commandIndex);
 
-        SmtModel model      = Cvc4Task.parseModel(smtModel);
-
-        File xmlFile        = new File(xmlFileName);
+        SmtModel model      = Cvc4Task.parseModel(translation, smtModel);
 
-        String xmlFilePath  = xmlFile.getAbsolutePath();
+        String originalFileName = alloySolution.instances.get(0).fileName;
 
-        Cvc4Task.writeModelToAlloyXmlFile(translation, model, xmlFilePath,
-                originalFileName, command, alloySolution.getAlloyFiles());
+        alloySolution = Cvc4Task.getAlloySolution(translation, model, originalFileName, command,
+                alloySolution.getAlloyFiles());
+        Cvc4Task.lastSolution = alloySolution;
+        return alloySolution.toXml();
     }
 }
\ No newline at end of file
@@ -4,28 +4,38 @@ import edu.mit.csail.sdg.alloy4.*;
 import edu.mit.csail.sdg.alloy4whole.instances.*;
 import edu.mit.csail.sdg.ast.Command;
 import edu.mit.csail.sdg.ast.Sig;
-import edu.uiowa.alloy2smt.Utils;
 import edu.uiowa.alloy2smt.mapping.Mapper;
 import edu.uiowa.alloy2smt.mapping.MappingField;
 import edu.uiowa.alloy2smt.mapping.MappingSignature;
 import edu.uiowa.alloy2smt.mapping.MappingType;
+import edu.uiowa.alloy2smt.translators.CachedTranslation;
 import edu.uiowa.alloy2smt.translators.Translation;
+import edu.uiowa.alloy2smt.translators.TranslationCache;
 import edu.uiowa.alloy2smt.utils.AlloySettings;
 import edu.uiowa.alloy2smt.utils.AlloyUnsatCore;
+import edu.uiowa.alloy2smt.utils.Serializers;
 import edu.uiowa.smt.AbstractTranslator;
-import edu.uiowa.smt.parser.SmtModelVisitor;
-import edu.uiowa.smt.parser.antlr.SmtLexer;
-import edu.uiowa.smt.parser.antlr.SmtParser;
+import edu.uiowa.smt.Result;
+import edu.uiowa.smt.SmtModelEvaluator;
+import edu.uiowa.smt.cvc4.Cvc4ModelEnumerator;
+import edu.uiowa.smt.cvc4.Cvc4Portfolio;
+import edu.uiowa.smt.cvc4.Cvc4Process;
+import edu.uiowa.smt.cvc4.Cvc4ProcessPool;
 import edu.uiowa.smt.printers.SmtLibPrinter;
 import edu.uiowa.smt.smtAst.*;
-import org.antlr.v4.runtime.CharStream;
-import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
-import org.antlr.v4.runtime.tree.ParseTree;
+import org.alloytools.alloy.core.AlloyCore;
 
 import javax.swing.*;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static edu.mit.csail.sdg.alloy4.A4Preferences.*;
@@ -33,6 +43,7 @@ import static edu.mit.csail.sdg.alloy4.A4Preferences.*;
 public class Cvc4Task implements WorkerEngine.WorkerTask
 {
     public static final String tempDirectory        = System.getProperty("java.io.tmpdir");
+    private static final String UNINTERPRETED_INT_PREFIX = "@uc_" + AbstractTranslator.uninterpretedIntName + "_";
 
     private final Map<String, String>   alloyFiles;
     private final String                originalFileName;
@@ -41,12 +52,51 @@ public class Cvc4Task implements WorkerEngine.WorkerTask
     // store the results of "Execute All" command
     private final List<CommandResult>   commandResults = new ArrayList<>();
 
-    // only one process for alloy editor
+    public static final String binPath = System.getProperty("user.dir") + File.separator;
+
+    // warm cvc4 processes shared by all runs in this worker, with enough room for parallel workers
+    public static final Cvc4ProcessPool cvc4ProcessPool = new Cvc4ProcessPool(binPath,
+            Math.max(Cvc4ProcessPool.DEFAULT_MAX_SIZE, Runtime.getRuntime().availableProcessors() + 1),
+            Cvc4ProcessPool.DEFAULT_IDLE_TIMEOUT);
+
+    // races option profiles on the commands whose solutions can be enumerated
+    public static final Cvc4Portfolio cvc4Portfolio = new Cvc4Portfolio(cvc4ProcessPool);
+
+    // the time cvc4 has to report its own timeout before the solve is stopped
+    private static final long TIMEOUT_GRACE = 2000;
+    // the processes currently solving a command, which can be cancelled from another thread
+    private static final Set<Cvc4Process> solvingProcesses = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private static volatile boolean isCancelled;
+
+    // when set, callback messages of the current thread are buffered instead of being sent
+    private static final ThreadLocal<List<Object[]>> bufferedMessages = new ThreadLocal<>();
+
+    static
+    {
+        // the stop button of the GUI destroys the worker JVM, which runs the shutdown hooks
+        Runtime.getRuntime().addShutdownHook(new Thread(() ->
+        {
+            cancel();
+            cvc4ProcessPool.shutdown();
+        }, "cvc4-cancel"));
+    }
+
+    // the process of the last executed command, kept leased for enumerating its solutions
     public static Cvc4Process cvc4Process;
+    // prefetches the next solutions of the last executed command
+    public static Cvc4ModelEnumerator modelEnumerator;
     private WorkerEngine.WorkerCallback workerCallback;
     private Translation translation;
+    // identifies the model and settings of the translation
+    private String translationKey;
     public static AlloySettings alloySettings = AlloySettings.getInstance();
     public static String lastXmlFile;
+    // the solution in the last xml file and its translation, kept in memory for enumeration
+    public static AlloySolution lastSolution;
+    public static Translation lastTranslation;
+    public static int lastCommandIndex;
+    // the command that prints the models of the last command
+    public static String lastModelCommand;
 
     Cvc4Task(Map<String, String> alloyFiles, String originalFileName, int resolutionMode, int targetCommandIndex)
     {
@@ -61,6 +111,7 @@ public class Cvc4Task implements WorkerEngine.WorkerTask
         try
         {
             this.workerCallback = workerCallback;
+            isCancelled = false;
 
             final long startTranslate = System.currentTimeMillis();
 
@@ -74,29 +125,58 @@ public class Cvc4Task implements WorkerEngine.WorkerTask
 
             if (smtScript != null)
             {
-                cvc4Process = Cvc4Process.start(workerCallback);
-
-                cvc4Process.sendCommand(smtScript);
+                // return the process of the previous run to the pool before leasing a new one
+                if(modelEnumerator != null)
+                {
+                    modelEnumerator.close();
+                    modelEnumerator = null;
+                }
+                if(cvc4Process != null)
+                {
+                    cvc4ProcessPool.release(cvc4Process);
+                    cvc4Process = null;
+                }
+                forgetLastSolution();
+                cvc4Process = cvc4ProcessPool.lease(smtScript);
 
                 CommandResult commandResult;
 
                 // execute all commands if targetCommandIndex < 0
                 if(targetCommandIndex < 0)
                 {
-                    // surround each command except the last one with (push) and (pop)
-                    for (int index = 0; index < translation.getCommands().size() - 1; index++)
+                    int lastIndex = translation.getCommands().size() - 1;
+                    int workers = Math.min(Cvc4Workers.get(), lastIndex);
+                    if(workers > 1)
                     {
-                        // (push)
-                        cvc4Process.sendCommand(SmtLibPrinter.PUSH);
-                        commandResult = solveCommand(index);
-                        // (pop)
-                        cvc4Process.sendCommand(SmtLibPrinter.POP);
-                        this.commandResults.add(commandResult);
+                        commandResult = solveAllInParallel(workers);
                     }
+                    else
+                    {
+                        // surround each command except the last one with (push) and (pop)
+                        for (int index = 0; index < lastIndex; index++)
+                        {
+                            // (push)
+                            cvc4Process.sendCommand(SmtLibPrinter.PUSH);
+                            final int commandIndex = index;
+                            commandResult = solveCommand(index, writer -> translation.translateCommand(commandIndex, writer), cvc4Process);
+                            if(commandResult.interruption != null)
+                            {
+                                // the stopped process is replaced by one at the same level as before the (push)
+                                cvc4Process = cvc4ProcessPool.replace(cvc4Process);
+                            }
+                            else
+                            {
+                                // (pop)
+                                cvc4Process.sendCommand(SmtLibPrinter.POP);
+                            }
+                            this.commandResults.add(commandResult);
+                        }
 
-                    // solve the last command without push and pop to view multiple models if sat
-                    commandResult = solveCommand(translation.getCommands().size() - 1);
-                    this.commandResults.add(commandResult);
+                        // solve the last command without push and pop to view multiple models if sat
+                        commandResult = solveEnumerableCommand(lastIndex,
+                                writer -> translation.translateCommand(lastIndex, writer));
+                        this.commandResults.add(commandResult);
+                    }
 
                     // display a summary of the results
                     displaySummary(workerCallback);
@@ -104,16 +184,26 @@ public class Cvc4Task implements WorkerEngine.WorkerTask
                 else// execute only the target command
                 {
                     // solve the target command without push and pop to view multiple models if sat
-                    commandResult = solveCommand(targetCommandIndex);
+                    commandResult = solveEnumerableCommand(targetCommandIndex,
+                            writer -> translation.translateCommand(targetCommandIndex, writer));
                 }
 
-                if(commandResult != null && commandResult.xmlFileName != null)
+                if(commandResult != null && commandResult.interruption != null)
                 {
-                    lastXmlFile = commandResult.xmlFileName;
+                    // a new process is leased by the next run
+                    cvc4ProcessPool.invalidate(cvc4Process);
+                    cvc4Process = null;
+                    forgetLastSolution();
                 }
 
-                //ToDo: review when to destroy the process
-                //cvc4Process.destroy();
+                if(commandResult != null && commandResult.xmlFileName != null)
+                {
+                    lastXmlFile         = commandResult.xmlFileName;
+                    lastSolution        = commandResult.solution;
+                    lastTranslation     = translation;
+                    lastCommandIndex    = commandResult.index;
+                    lastModelCommand    = commandResult.modelCommand;
+                }
             }
             else
             {
@@ -129,6 +219,134 @@ public class Cvc4Task implements WorkerEngine.WorkerTask
     }
 
 
+    // the solutions of the last command can no longer be enumerated
+    private static void forgetLastSolution()
+    {
+        lastXmlFile         = null;
+        lastSolution        = null;
+        lastTranslation     = null;
+        lastModelCommand    = null;
+    }
+
+    /**
+     * solves all commands except the last one on a work-stealing pool of
+     * workers, each leasing its own process from the pool. The last command is
+     * solved meanwhile like {@link Cvc4Task#solveEnumerableCommand} so that its
+     * solutions can be enumerated.
+     * @param workers the number of parallel workers
+     * @return the result of the last command
+     */
+    private CommandResult solveAllInParallel(int workers) throws Exception
+    {
+        int lastIndex = translation.getCommands().size() - 1;
+
+        // command translation is not thread safe, so translate all commands up front
+        List<String> commandTranslations = new ArrayList<>();
+        for (int index = 0; index <= lastIndex; index++)
+        {
+            commandTranslations.add(translation.translateCommand(index));
+        }
+
+        String smtScript = translation.getSmtScript();
+        List<Callable<CommandResult>> commands = new ArrayList<>();
+        for (int index = 0; index < lastIndex; index++)
+        {
+            final int commandIndex = index;
+            commands.add(() ->
+            {
+                Cvc4Process process = cvc4ProcessPool.lease(smtScript);
+                try
+                {
+                    // the pool pops the assertions of the command when the process is released
+                    return solveCommand(commandIndex, writer -> writer.write(commandTranslations.get(commandIndex)), process);
+                }
+                finally
+                {
+                    cvc4ProcessPool.release(process);
+                }
+            });
+        }
+        commands.add(() -> solveEnumerableCommand(lastIndex, writer -> writer.write(commandTranslations.get(lastIndex))));
+
+        this.commandResults.addAll(solveInOrder(commands, workers, workerCallback));
+        return this.commandResults.get(lastIndex);
+    }
+
+    /**
+     * solves all given commands except the last one on a work-stealing pool of
+     * workers, and the last one meanwhile on the current thread. The messages
+     * of each command are buffered and sent in command order once all commands
+     * are solved.
+     * @param commands the commands, which send their messages with {@link Cvc4Task#buffer(Object[])}
+     * @param workers the number of parallel workers
+     * @param workerCallback receives the messages of the commands
+     * @return the results of the commands in command order
+     * @throws Exception the exception of the first failed command, in command order
+     */
+    static <T> List<T> solveInOrder(List<Callable<T>> commands, int workers,
+                                    WorkerEngine.WorkerCallback workerCallback) throws Exception
+    {
+        int lastIndex = commands.size() - 1;
+        List<List<Object[]>> messages = new ArrayList<>();
+        List<Future<T>> futures = new ArrayList<>();
+        List<T> results = new ArrayList<>();
+        ExecutorService executor = Executors.newWorkStealingPool(workers);
+        try
+        {
+            for (int index = 0; index < lastIndex; index++)
+            {
+                final Callable<T> command = commands.get(index);
+                final List<Object[]> commandMessages = new ArrayList<>();
+                messages.add(commandMessages);
+                futures.add(executor.submit(() -> solveBuffered(command, commandMessages)));
+            }
+
+            List<Object[]> lastMessages = new ArrayList<>();
+            messages.add(lastMessages);
+            T lastResult = solveBuffered(commands.get(lastIndex), lastMessages);
+
+            for (Future<T> future : futures)
+            {
+                try
+                {
+                    results.add(future.get());
+                }
+                catch (ExecutionException exception)
+                {
+                    throw exception.getCause() instanceof Exception ?
+                            (Exception) exception.getCause() : exception;
+                }
+            }
+            results.add(lastResult);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        for (List<Object[]> commandMessages : messages)
+        {
+            for (Object[] message : commandMessages)
+            {
+                workerCallback.callback(message);
+            }
+        }
+        return results;
+    }
+
+    private static <T> T solveBuffered(Callable<T> command, List<Object[]> messages) throws Exception
+    {
+        bufferedMessages.set(messages);
+        try
+        {
+            return command.call();
+        }
+        finally
+        {
+            bufferedMessages.remove();
+        }
+    }
+
     void displaySummary(WorkerEngine.WorkerCallback workerCallback)
     {
         if(this.commandResults.size() > 1)
@@ -159,55 +377,120 @@ public class Cvc4Task implements WorkerEngine.WorkerTask
                         break;
                     default:
                         callbackPlain(commandResult.command.label + " is unknown");
+                        if(commandResult.interruption != null)
+                        {
+                            callbackPlain(" (" + commandResult.interruption + ")");
+                        }
                 }
                 callbackPlain("\n");
             }
         }
     }
 
-    private CommandResult solveCommand(int index) throws Exception
+    /**
+     * @param commandTranslation streams the translation of the command into the cvc4 pipe
+     */
+    private CommandResult solveCommand(int index, Cvc4Process.CommandWriter commandTranslation,
+                                       Cvc4Process cvc4Process) throws Exception
     {
-        String commandTranslation = translation.translateCommand(index);
+        announceCommand(index);
 
-        Command command = translation.getCommands().get(index);
+        final long startSolve   = System.currentTimeMillis();
 
-        callbackBold("Executing " + command + "\n");
+        // (check-sat)
+//        callbackPlain( commandTranslation + SmtLibPrinter.CHECK_SAT);
+        String result;
+        solvingProcesses.add(cvc4Process);
+        try
+        {
+            if(isCancelled)
+            {
+                cvc4Process.cancel();
+            }
+            result = cvc4Process.solve(writer ->
+            {
+                commandTranslation.write(writer);
+                writer.write(SmtLibPrinter.CHECK_SAT);
+            }, getWallClockLimit());
+        }
+        finally
+        {
+            solvingProcesses.remove(cvc4Process);
+        }
 
-        if(! Cvc4IncludeCommandScope.get())
+        final long endSolve     = System.currentTimeMillis();
+        long duration		    = (endSolve - startSolve);
+//        callbackBold("Solving time: " + duration + " ms\n");
+
+        return getCommandResult(index, result, duration, cvc4Process);
+    }
+
+    /**
+     * solves a command whose solutions can be enumerated on {@link Cvc4Task#cvc4Process}.
+     * If enabled, a portfolio of option profiles races on the command, and the
+     * process of the winning profile replaces {@link Cvc4Task#cvc4Process}.
+     */
+    private CommandResult solveEnumerableCommand(int index, Cvc4Process.CommandWriter commandTranslation)
+            throws Exception
+    {
+        int size = Cvc4PortfolioSize.get();
+        if(size <= 1 || isCancelled)
         {
-            ErrorWarning warning = new ErrorWarning(command.pos, "The scope is ignored by cvc4");
-            callbackWarning(warning);
+            return solveCommand(index, commandTranslation, cvc4Process);
         }
 
+        announceCommand(index);
+        StringWriter commandWriter = new StringWriter();
+        commandTranslation.write(commandWriter);
+        String command = commandWriter + SmtLibPrinter.CHECK_SAT;
+        // the processes of the portfolio are leased from the pool, which may reuse the current one
+        cvc4ProcessPool.release(cvc4Process);
+        cvc4Process = null;
 
         final long startSolve   = System.currentTimeMillis();
+        Cvc4Portfolio.Outcome outcome = cvc4Portfolio.solve(translationKey, translation.getSmtScript(), command,
+                size, getWallClockLimit());
+        final long endSolve     = System.currentTimeMillis();
 
-        // (check-sat)
-//        callbackPlain( commandTranslation + SmtLibPrinter.CHECK_SAT);
-        String result = cvc4Process.sendCommand(commandTranslation + SmtLibPrinter.CHECK_SAT);
+        cvc4Process = outcome.process;
+        callbackPlain("Profile: " + outcome.profile + "\n");
+        return getCommandResult(index, outcome.result, endSolve - startSolve, cvc4Process);
+    }
 
-        final long endSolve     = System.currentTimeMillis();
-        long duration		    = (endSolve - startSolve);
-//        callbackBold("Solving time: " + duration + " ms\n");
+    private void announceCommand(int index)
+    {
+        Command command = translation.getCommands().get(index);
+
+        callbackBold("Executing " + command + "\n");
+
+        if(! Cvc4IncludeCommandScope.get())
+        {
+            ErrorWarning warning = new ErrorWarning(command.pos, "The scope is ignored by cvc4");
+            callbackWarning(warning);
+        }
+    }
 
+    private CommandResult getCommandResult(int index, String result, long duration, Cvc4Process cvc4Process) throws Exception
+    {
         callbackPlain("Satisfiability: " + result + "\n");
 
         CommandResult commandResult = new CommandResult();
         commandResult.index         = index;
-        commandResult.command       = command;
+        commandResult.command       = translation.getCommands().get(index);
         commandResult.result        = result;
+        commandResult.interruption  = Cvc4Process.getInterruption(result);
 
         if(result != null)
         {
             switch (result)
             {
                 case "sat":
-                    commandResult.xmlFileName = prepareInstance(index, duration);
+                    prepareInstance(commandResult, duration, cvc4Process);
                     break;
                 case "unsat":
                     if(Cvc4ProduceUnsatCores.get())
                     {
-                        commandResult.unsatCore = prepareUnsatCore(index, duration);
+                        commandResult.unsatCore = prepareUnsatCore(index, duration, cvc4Process);
                     }
                     break;
                 default:
@@ -223,13 +506,37 @@ public class Cvc4Task implements WorkerEngine.WorkerTask
         return commandResult;
     }
 
-    private Set<Pos> prepareUnsatCore(int commandIndex, long duration) throws Exception
+    /**
+     * stops the commands being solved, and the remaining commands of the current run.
+     * It is called when the JVM running the task shuts down, so that stopping the
+     * worker JVM does not leave cvc4 processes solving.
+     */
+    public static void cancel()
+    {
+        isCancelled = true;
+        for (Cvc4Process process : solvingProcesses)
+        {
+            process.cancel();
+        }
+        cvc4Portfolio.cancel();
+    }
+
+    /**
+     * @return the time in milliseconds after which a solve is stopped, or 0 for no limit
+     */
+    private static long getWallClockLimit()
+    {
+        int timeout = Cvc4Timeout.get();
+        return timeout > 0 ? timeout + TIMEOUT_GRACE : 0;
+    }
+
+    private Set<Pos> prepareUnsatCore(int commandIndex, long duration, Cvc4Process cvc4Process) throws Exception
     {
         String smtCore = cvc4Process.sendCommand(SmtLibPrinter.GET_UNSAT_CORE);
 
         callbackPlain("CVC4 found an ");
         Object[] modelMessage = new Object []{"link", "unsat core", "MSG: " + smtCore};
-        workerCallback.callback(modelMessage);
+        callback(modelMessage);
         callbackPlain("\n");
 
         SmtUnsatCore smtUnsatCore = parseUnsatCore(smtCore);
@@ -239,7 +546,7 @@ public class Cvc4Task implements WorkerEngine.WorkerTask
         String coreMessage = getCoreMessage(positions);
 
         Object[] message = new Object []{"link", "Core", coreMessage};
-        workerCallback.callback(message);
+        callback(message);
         callbackPlain(" contains " + positions.size() + " top-level formulas. "
                 + duration + "ms.\n");
         
@@ -282,93 +589,120 @@ public class Cvc4Task implements WorkerEngine.WorkerTask
         return coreMessage;
     }
 
+    private void callback(Object[] message)
+    {
+        if(!buffer(message))
+        {
+            workerCallback.callback(message);
+        }
+    }
+
+    /**
+     * buffers a message of a command solved by {@link Cvc4Task#solveInOrder(List, int, WorkerEngine.WorkerCallback)}
+     * @return false if the messages of the current thread are not buffered
+     */
+    static boolean buffer(Object[] message)
+    {
+        List<Object[]> buffer = bufferedMessages.get();
+        if(buffer == null)
+        {
+            return false;
+        }
+        buffer.add(message);
+        return true;
+    }
+
     private void callbackLink(String log, String link)
     {
-        workerCallback.callback(new Object[]{"link", log, link});
+        callback(new Object[]{"link", log, link});
     }
 
     private void callbackPlain(String log)
     {
-        workerCallback.callback(new Object[]{"", log});
-        workerCallback.callback(new Object[]{"", ""});
+        callback(new Object[]{"", log});
+        callback(new Object[]{"", ""});
     }
 
     private void callbackBold(String log)
     {
-        workerCallback.callback(new Object[]{"S2", "\n"});
-        workerCallback.callback(new Object[]{"S2", log});
-        workerCallback.callback(new Object[]{"S2", "\n"});
+        callback(new Object[]{"S2", "\n"});
+        callback(new Object[]{"S2", log});
+        callback(new Object[]{"S2", "\n"});
     }
 
     private void callbackWarning(ErrorWarning warning)
     {
-        workerCallback.callback(new Object[]{"warning", warning});
+        callback(new Object[]{"warning", warning});
     }
 
 
     /**
-     * gets a model from cvc4 if the satResult is sat and saves it into a new xml file
-     * and return its path
-     * @param commandIndex the index of the sat command
+     * gets a model from cvc4 if the satResult is sat, sends it to the user interface
+     * with the path of its xml file, and stores the path and the solution in the command result
+     * @param commandResult the result of the sat command
      * @param duration the solving duration in milli seconds
-     * @return a path to the xml file where the model is saved
+     * @param cvc4Process the process that solved the command
      * @throws Exception
      */
-    private String prepareInstance(int commandIndex, long duration) throws Exception
+    private void prepareInstance(CommandResult commandResult, long duration, Cvc4Process cvc4Process) throws Exception
     {
-        String smtModel = cvc4Process.sendCommand(SmtLibPrinter.GET_MODEL);
+        // request only the values of the relations in the instance when possible,
+        // instead of the model with all the auxiliary functions
+        String modelCommand = getModelCommand(translation);
+        String smtModel = cvc4Process.sendCommand(modelCommand);
+        if(needsModel(smtModel))
+        {
+            smtModel = cvc4Process.sendCommand(SmtLibPrinter.GET_MODEL);
+        }
 
         callbackPlain("CVC4 found a ");
         Object[] modelMessage = new Object []{"link", "model", "MSG: " + smtModel};
-        workerCallback.callback(modelMessage);
+        callback(modelMessage);
         callbackPlain("\n");
 
 //        callbackPlain(smtModel + "\n");
 
-        Command command = translation.getCommands().get(commandIndex);
-
-        smtModel= showInputDialog(smtModel);
+        Command command = commandResult.command;
 
-        SmtModel model = parseModel(smtModel);
+        if(AlloyCore.isDebug())
+        {
+            // lets the model be inspected and edited before it is parsed
+            smtModel = showInputDialog(smtModel);
+        }
 
-        File xmlFile        = File.createTempFile("tmp", ".smt.xml", new File(tempDirectory));
+        SmtModel model = parseModel(translation, smtModel);
 
-        String xmlFilePath  = xmlFile.getAbsolutePath();
+        // the xml file is written by the user interface only when it is needed
+        String xmlFilePath  = new File(tempDirectory, "tmp" + UUID.randomUUID() + ".smt.xml").getAbsolutePath();
 
-        Instance instance = writeModelToAlloyXmlFile(translation, model, xmlFilePath, originalFileName, command, alloyFiles);
+        AlloySolution alloySolution = getAlloySolution(translation, model, originalFileName, command, alloyFiles);
 
-        // generate alloy code that restricts the model to be the instance found
-        String alloyCode = instance.generateAlloyCode();
-        File alloyFile = File.createTempFile("tmp", ".als", new File(tempDirectory));
-        Formatter formatter = new Formatter(alloyFile);
-        formatter.format("%s", alloyCode);
-        formatter.close();
+        // generate alloy code that restricts the model to be the instance found,
+        // and send it along so that the user interface does not parse the xml file again
+        String alloyCode = alloySolution.instances.get(0).generateAlloyCode();
 
         String  satResult = "sat";
-        Object[] message = new Object []{satResult, command.check, command.expects, xmlFilePath, null, duration};
-        workerCallback.callback(message);
+        Object[] message = new Object []{satResult, command.check, command.expects, xmlFilePath, null, duration, alloyCode,
+                alloySolution.toXml()};
+        callback(message);
 
-        return xmlFilePath;
+        commandResult.xmlFileName   = xmlFilePath;
+        commandResult.solution      = alloySolution;
+        commandResult.modelCommand  = modelCommand;
     }
 
-    public static Instance writeModelToAlloyXmlFile(Translation translation, SmtModel model, String xmlFileName,
-              String originalFileName, Command command, Map<String, String> alloyFiles) throws Exception
+    public static AlloySolution getAlloySolution(Translation translation, SmtModel model, String originalFileName,
+                                                 Command command, Map<String, String> alloyFiles) throws Exception
     {
         Mapper mapper = translation.getMapper();
 
-        Map<String, FunctionDefinition> functionsMap = new HashMap<>();
-
-        for(FunctionDeclaration function: model.getFunctions())
-        {
-            FunctionDefinition definition = (FunctionDefinition) function;
-            functionsMap.put(function.getName(), definition);
-        }
+        SmtModelEvaluator evaluator = new SmtModelEvaluator(model);
 
         List<Signature> signatures = new ArrayList<>();
 
         for (MappingSignature mappingSignature : mapper.signatures )
         {
-            Signature signature = getSignature(functionsMap, mappingSignature);
+            Signature signature = getSignature(evaluator, mappingSignature);
             signatures.add(signature);
         }
 
@@ -377,11 +711,11 @@ public class Cvc4Task implements WorkerEngine.WorkerTask
 
         for (MappingField mappingField : mapper.fields )
         {
-            Field field = getField(functionsMap, mappingField);
+            Field field = getField(evaluator, mappingField);
             fields.add(field);
         }
 
-        // addSpecialSignatures(translation, functionsMap, signatures ,fields);
+        // addSpecialSignatures(translation, evaluator, signatures ,fields);
 
         Instance instance   = new Instance();
         instance.signatures = signatures;
@@ -402,12 +736,10 @@ public class Cvc4Task implements WorkerEngine.WorkerTask
         {
             alloySolution.alloyFiles.add(new AlloyFile(entry.getKey(), entry.getValue()));
         }
-
-        alloySolution.writeToXml(xmlFileName);
-        return instance;
+        return alloySolution;
     }
 
-    private static void addSpecialSignatures(Translation translation, Map<String, FunctionDefinition> functionsMap, List<Signature> signatures, List<Field> fields) throws Exception
+    private static void addSpecialSignatures(Translation translation, SmtModelEvaluator evaluator, List<Signature> signatures, List<Field> fields) throws Exception
     {
         Signature signature  = new Signature();
         signature.label         = "Operations";
@@ -426,34 +758,34 @@ public class Cvc4Task implements WorkerEngine.WorkerTask
         signature.isExact   	= "no";
         signature.isEnum        = "no";
         signatures.add(signature);
-        addSpecialFields(functionsMap, fields, signature.id);
+        addSpecialFields(evaluator, fields, signature.id);
     }
 
-    private static void addSpecialFields(Map<String, FunctionDefinition> functionsMap, List<Field> fields, int parentId) throws Exception
+    private static void addSpecialFields(SmtModelEvaluator evaluator, List<Field> fields, int parentId) throws Exception
     {
-        if(functionsMap.containsKey(AbstractTranslator.plus))
+        if(evaluator.getDefinition(AbstractTranslator.plus) != null)
         {
-            fields.add(getSpecialField(functionsMap, AbstractTranslator.plus, parentId));
+            fields.add(getSpecialField(evaluator, AbstractTranslator.plus, parentId));
         }
-        if(functionsMap.containsKey(AbstractTranslator.minus))
+        if(evaluator.getDefinition(AbstractTranslator.minus) != null)
         {
-            fields.add(getSpecialField(functionsMap, AbstractTranslator.minus, parentId));
+            fields.add(getSpecialField(evaluator, AbstractTranslator.minus, parentId));
         }
-        if(functionsMap.containsKey(AbstractTranslator.multiply))
+        if(evaluator.getDefinition(AbstractTranslator.multiply) != null)
         {
-            fields.add(getSpecialField(functionsMap, AbstractTranslator.multiply, parentId));
+            fields.add(getSpecialField(evaluator, AbstractTranslator.multiply, parentId));
         }
-        if(functionsMap.containsKey(AbstractTranslator.divide))
+        if(evaluator.getDefinition(AbstractTranslator.divide) != null)
         {
-            fields.add(getSpecialField(functionsMap, AbstractTranslator.divide, parentId));
+            fields.add(getSpecialField(evaluator, AbstractTranslator.divide, parentId));
         }
-        if(functionsMap.containsKey(AbstractTranslator.mod))
+        if(evaluator.getDefinition(AbstractTranslator.mod) != null)
         {
-            fields.add(getSpecialField(functionsMap, AbstractTranslator.mod, parentId));
+            fields.add(getSpecialField(evaluator, AbstractTranslator.mod, parentId));
         }
     }
 
-    private static Signature getSignature(Map<String, FunctionDefinition> functionsMap, MappingSignature mappingSignature) throws Exception
+    private static Signature getSignature(SmtModelEvaluator evaluator, MappingSignature mappingSignature) throws Exception
     {
         Signature signature  = new Signature();
 
@@ -492,18 +824,22 @@ public class Cvc4Task implements WorkerEngine.WorkerTask
         }
 
         // get the corresponding function from the model
-        FunctionDefinition function = functionsMap.get(mappingSignature.functionName);
+        FunctionDefinition function = evaluator.getDefinition(mappingSignature.functionName);
         if(function == null)
         {
             throw new Exception("Can not find the function "+ mappingSignature.functionName
                     + " for signature "+ signature.label + "in the model.") ;
         }
 
-        signature.atoms = getAtoms(function.expression, functionsMap);
+        signature.atoms = new ArrayList<>();
+        for (List<Expression> tuple : evaluator.getTuples(function.getName()))
+        {
+            signature.atoms.addAll(getAtoms(tuple));
+        }
         return signature;
     }
 
-    private static Field getSpecialField(Map<String,FunctionDefinition> functionsMap, String fieldName, int parentId) throws Exception
+    private static Field getSpecialField(SmtModelEvaluator evaluator, String fieldName, int parentId) throws Exception
     {
         Field field = new Field();
         field.label = fieldName;
@@ -514,13 +850,13 @@ public class Cvc4Task implements WorkerEngine.WorkerTask
         field.isMeta = "no";
 
         // get the corresponding function from the model
-        FunctionDefinition function = functionsMap.get(fieldName);
+        FunctionDefinition function = evaluator.getDefinition(fieldName);
         if (function == null)
         {
             throw new Exception("Can not find the function " + fieldName
                     + " for field " + field.label + "in the model.");
         }
-        field.tuples = getTuples(function.expression, functionsMap);
+        field.tuples = getTuples(evaluator, function.getName());
         field.types  = Collections.singletonList(new Types());
         //ToDo: refactor these magic numbers
         field.types.get(0).types = Arrays.stream(new int[]{parentId, parentId, parentId})
@@ -530,7 +866,7 @@ public class Cvc4Task implements WorkerEngine.WorkerTask
     }
 
 
-        private static Field getField(Map<String,FunctionDefinition> functionsMap, MappingField mappingField) throws Exception
+    private static Field getField(SmtModelEvaluator evaluator, MappingField mappingField) throws Exception
     {
         Field field  = new Field();
 
@@ -543,14 +879,14 @@ public class Cvc4Task implements WorkerEngine.WorkerTask
         field.isMeta        = mappingField.isMeta? "yes" : "no";
 
         // get the corresponding function from the model
-        FunctionDefinition function = functionsMap.get(mappingField.functionName);
+        FunctionDefinition function = evaluator.getDefinition(mappingField.functionName);
         if(function == null)
         {
             throw new Exception("Can not find the function "+ mappingField.functionName
                     + " for field "+ field.label + "in the model.") ;
         }
 
-        field.tuples = getTuples(function.expression, functionsMap);
+        field.tuples = getTuples(evaluator, function.getName());
         field.types  = getTypes(mappingField);
 
         return field;
@@ -569,163 +905,70 @@ public class Cvc4Task implements WorkerEngine.WorkerTask
         return types;
     }
 
-    private static List<Tuple> getTuples(Expression expression, Map<String,FunctionDefinition> functionsMap)
+    private static List<Tuple> getTuples(SmtModelEvaluator evaluator, String functionName)
     {
         List<Tuple> tuples = new ArrayList<>();
-
-        if(expression instanceof  UnaryExpression)
+        for (List<Expression> elements : evaluator.getTuples(functionName))
         {
-            UnaryExpression unary = (UnaryExpression) expression;
-            switch (unary.getOP())
-            {
-                case EMPTYSET: return new ArrayList<>();
-                case SINGLETON:
-                {
-                    Expression unaryExpression = unary.getExpression();
-                    if(unaryExpression instanceof MultiArityExpression)
-                    {
-                        MultiArityExpression multiArity = (MultiArityExpression) unaryExpression;
-
-                        if(multiArity.getOp() == MultiArityExpression.Op.MKTUPLE)
-                        {
-                            List<Atom> atoms    = getAtoms(multiArity, functionsMap);
-                            Tuple tuple         = new Tuple();
-                            tuple.atoms         = atoms;
-                            return Collections.singletonList(tuple);
-                        }
-
-                        throw new UnsupportedOperationException();
-                    }
-                    throw new UnsupportedOperationException();
-                }
-                default:
-                    throw new UnsupportedOperationException();
-            }
+            Tuple tuple = new Tuple();
+            tuple.atoms = getAtoms(elements);
+            tuples.add(tuple);
         }
-
-        if(expression instanceof  BinaryExpression)
-        {
-            BinaryExpression binary = (BinaryExpression) expression;
-
-            switch (binary.getOp())
-            {
-                case UNION:
-                {
-                    tuples.addAll(getTuples(binary.getA(), functionsMap));
-                    tuples.addAll(getTuples(binary.getB(), functionsMap));
-                    return tuples;
-                }
-                default:
-                    throw new UnsupportedOperationException();
-            }
-        }
-
-        throw new UnsupportedOperationException();
+        return tuples;
     }
 
-    private static List<Atom> getAtoms(Expression expression, Map<String,FunctionDefinition> functions)
+    /**
+     * @param elements evaluated elements, where uninterpreted integers are already replaced by their values
+     */
+    private static List<Atom> getAtoms(List<Expression> elements)
     {
         List<Atom> atoms = new ArrayList<>();
-
-        if(expression instanceof UninterpretedConstant)
-        {
-            UninterpretedConstant uninterpretedConstant = (UninterpretedConstant) expression;
-            if(uninterpretedConstant.getSort().equals(AbstractTranslator.atomSort))
-            {
-                atoms.add(new Atom(uninterpretedConstant.getName()));
-            }
-            if(uninterpretedConstant.getSort().equals(AbstractTranslator.uninterpretedInt))
-            {
-                IntConstant intConstant = (IntConstant) uninterpretedConstant.evaluate(functions);
-                atoms.add(new Atom(intConstant.getValue()));
-            }
-            return  atoms;
-        }
-
-        //ToDo: review removing this which is replaced with uninterpretedInt
-        if(expression instanceof IntConstant)
+        for (Expression element : elements)
         {
-            IntConstant intConstant  = (IntConstant) expression;
-            atoms.add(new Atom(intConstant.getValue()));
-            return atoms;
-        }
-
-        if(expression instanceof  UnaryExpression)
-        {
-            UnaryExpression unary = (UnaryExpression) expression;
-            switch (unary.getOP())
+            if(element instanceof UninterpretedConstant &&
+                    ((UninterpretedConstant) element).getSort().equals(AbstractTranslator.atomSort))
             {
-                case EMPTYSET: return new ArrayList<>();
-                case SINGLETON:
-                    {
-                        return getAtoms(unary.getExpression(), functions);
-                    }
-                default:
-                    throw new UnsupportedOperationException();
+                atoms.add(new Atom(((UninterpretedConstant) element).getName()));
             }
-        }
-
-        if(expression instanceof  BinaryExpression)
-        {
-            BinaryExpression binary = (BinaryExpression) expression;
-
-            switch (binary.getOp())
+            else if(element instanceof IntConstant)
             {
-                case UNION:
-                {
-                    atoms.addAll(getAtoms(binary.getA(), functions));
-                    atoms.addAll(getAtoms(binary.getB(), functions));
-                    return atoms;
-                }
-                default:
-                    throw new UnsupportedOperationException();
+                atoms.add(new Atom(((IntConstant) element).getValue()));
             }
-        }
-
-        if(expression instanceof MultiArityExpression)
-        {
-            MultiArityExpression multiArity = (MultiArityExpression) expression;
-            switch (multiArity.getOp())
+            else
             {
-                case MKTUPLE:
-                {
-                    for (Expression expr: multiArity.getExpressions())
-                    {
-                        atoms.addAll(getAtoms(expr, functions));
-                    }
-
-                    return atoms;
-                }
-
-                default:
-                    throw new UnsupportedOperationException();
+                throw new UnsupportedOperationException(element.toString());
             }
         }
-
-        throw new UnsupportedOperationException();
+        return atoms;
     }
 
     private Translation translateToSMT() throws IOException
     {
         setAlloySettings();
 
-        Translation translation = Utils.translate(alloyFiles, originalFileName, resolutionMode, alloySettings);
+        // reuse the translation if the model has not changed since it was last executed
+        CachedTranslation translation = TranslationCache.getInstance().translate(alloyFiles, originalFileName,
+                resolutionMode, alloySettings);
+        translationKey = translation.getKey();
 
         // callbackBold("Translation output");
         // callbackPlain(translation.getSmtScript());
 
-        // output the smt file
-        File smtFile        = File.createTempFile("tmp", ".smt2", new File(tempDirectory));
-        String allCommands  = translation.translateAllCommandsWithCheckSat();
-        Formatter formatter = new Formatter(smtFile);
-        formatter.format("%s", allCommands);
-        formatter.close();
-
-        File jsonFile = File.createTempFile("tmp", ".mapping.json", new File(tempDirectory));
-
+        // send the smt file and the mapping, named after the cache key, unless they were
+        // written already. The user interface writes them only when they are viewed
+        File smtFile = new File(tempDirectory, "alloy2smt-" + translation.getKey() + ".smt2");
+        if(!smtFile.exists())
+        {
+            workerCallback.callback(new Object[]{"file", smtFile.getAbsolutePath(),
+                    translation.translateAllCommandsWithCheckSat()});
+        }
 
-        // output the mapping
-        translation.getMapper().writeToJson(jsonFile.getPath());
+        File jsonFile = new File(tempDirectory, "alloy2smt-" + translation.getKey() + ".mapping.json");
+        if(!jsonFile.exists())
+        {
+            workerCallback.callback(new Object[]{"file", jsonFile.getAbsolutePath(),
+                    Serializers.getPrettyWriter().writeValueAsString(translation.getMapper())});
+        }
 
         callbackPlain("\nGenerated smt2 file: ");
 
@@ -739,10 +982,62 @@ public class Cvc4Task implements WorkerEngine.WorkerTask
         return translation;
     }
 
+    /**
+     * writes the content of a file
+     */
+    interface FileContent
+    {
+        void write(File file) throws IOException;
+    }
+
+    /**
+     * writes a file unless it exists already. The content is written into a
+     * temporary file in the same directory, which is renamed once complete,
+     * so that other runs never see a partial file.
+     * @param file the file, whose name identifies its content
+     * @param content writes the content into the given file
+     * @return true if the file was written
+     */
+    static boolean writeOnce(File file, FileContent content) throws IOException
+    {
+        if(file.exists())
+        {
+            return false;
+        }
+        File temporaryFile = File.createTempFile("tmp", ".part", file.getAbsoluteFile().getParentFile());
+        try
+        {
+            content.write(temporaryFile);
+            moveFile(temporaryFile, file);
+            return true;
+        }
+        finally
+        {
+            // only left when the content could not be written or moved
+            temporaryFile.delete();
+        }
+    }
+
+    /**
+     * renames a completely written file, so that other runs never see a partial file
+     */
+    private static void moveFile(File source, File target) throws IOException
+    {
+        Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
     public static void setAlloySettings()
     {
         // (set-option :tlimit 30000)
         alloySettings.putSolverOption(SmtSettings.TLIMIT, Cvc4Timeout.get().toString());
+        long memoryLimit = Cvc4MemoryLimit.get();
+        if(memoryLimit != Cvc4Process.getMemoryLimit())
+        {
+            // the limit applies to the processes started afterwards, so the warm ones are replaced
+            Cvc4Process.setMemoryLimit(memoryLimit);
+            cvc4ProcessPool.clear();
+        }
         //(set-option :produce-unsat-cores false)
         alloySettings.putSolverOption(SmtSettings.PRODUCE_UNSAT_CORES, Cvc4ProduceUnsatCores.get().toString());
         //(set-option :finite-model-find false)
@@ -753,45 +1048,72 @@ public class Cvc4Task implements WorkerEngine.WorkerTask
         alloySettings.integerSingletonsOnly = Cvc4IntegerSingletonsOnly.get();
     }
 
-    //ToDo: replace this with a call edu.uiowa.smt.Result.parseModel
     public static SmtModel parseModel(String model)
     {
-        CharStream charStream = CharStreams.fromString(model);
-
-        SmtLexer lexer = new SmtLexer(charStream);
-        CommonTokenStream tokenStream = new CommonTokenStream(lexer);
-        SmtParser parser = new SmtParser(tokenStream);
+        return new Result().parseModel(model);
+    }
 
-        ParseTree tree =  parser.model();
-        SmtModelVisitor visitor = new SmtModelVisitor();
+    /**
+     * @return the (get-value) command of the relations in the instances of the
+     * translation if enabled and possible, or (get-model)
+     */
+    public static String getModelCommand(Translation translation)
+    {
+        String getValueCommand = Cvc4GetValues.get() ? translation.getMapper().buildGetValueCommand() : null;
+        return getValueCommand != null ? getValueCommand : SmtLibPrinter.GET_MODEL;
+    }
 
-        SmtModel smtModel = (SmtModel) visitor.visit(tree);
+    /**
+     * @return true if the output of a (get-value) command contains uninterpreted
+     * integers, whose values are only printed by (get-model)
+     */
+    public static boolean needsModel(String output)
+    {
+        return !output.startsWith("(model") && output.contains(UNINTERPRETED_INT_PREFIX);
+    }
 
-        return  smtModel;
+    /**
+     * @param model the output of (get-model), or of the (get-value) command of the translation
+     */
+    public static SmtModel parseModel(Translation translation, String model)
+    {
+        if(model.startsWith("(model"))
+        {
+            return parseModel(model);
+        }
+        SmtValues values = new Result().parseValues(model);
+        return translation.getMapper().buildModel(values);
     }
 
-    //ToDo: replace this with a call edu.uiowa.smt.Result.parseUnsatCore
     public static SmtUnsatCore parseUnsatCore(String smtCore)
     {
-        CharStream charStream = CharStreams.fromString(smtCore);
-
-        SmtLexer lexer = new SmtLexer(charStream);
-        CommonTokenStream tokenStream = new CommonTokenStream(lexer);
-        SmtParser parser = new SmtParser(tokenStream);
-
-        ParseTree tree =  parser.getUnsatCore();
-        SmtModelVisitor visitor = new SmtModelVisitor();
-
-        SmtUnsatCore smtUnsatCore = (SmtUnsatCore) visitor.visit(tree);
-        return smtUnsatCore;
+        return new Result().parseUnsatCore(smtCore);
     }
 
-    public static String showInputDialog(String text)
+    /**
+     * shows the given text in a dialog on the event dispatch thread, one dialog
+     * at a time when commands are solved in parallel
+     * @return the text as edited in the dialog
+     */
+    public static synchronized String showInputDialog(String text) throws Exception
     {
-        JTextArea textArea = new JTextArea(text);
-        textArea.setSize(textArea.getPreferredSize().width, textArea.getPreferredSize().height);
-        JOptionPane.showConfirmDialog(null, new JScrollPane(textArea), "Debugging", JOptionPane.OK_OPTION);
-        return textArea.getText();
+        String[] editedText = {text};
+        Runnable dialog = () ->
+        {
+            JTextArea textArea = new JTextArea(text);
+            textArea.setSize(textArea.getPreferredSize().width, textArea.getPreferredSize().height);
+            JOptionPane.showConfirmDialog(null, new JScrollPane(textArea), "Debugging", JOptionPane.OK_OPTION);
+            editedText[0] = textArea.getText();
+        };
+        if(SwingUtilities.isEventDispatchThread())
+        {
+            dialog.run();
+        }
+        else
+        {
+            SwingUtilities.invokeAndWait(dialog);
+        }
+        return editedText[0];
     }
     
     private class CommandResult
@@ -800,6 +1122,10 @@ public class Cvc4Task implements WorkerEngine.WorkerTask
         public Command command;
         public String result;
         public String xmlFileName;
+        public AlloySolution solution;
+        public String modelCommand;
         public Set<Pos> unsatCore;
+        // why cvc4 was stopped before answering, if it was
+        public Cvc4Process.Interruption interruption;
     }
 }
@@ -34,6 +34,8 @@ import java.awt.Toolkit;
 import java.awt.event.*;
 import java.io.*;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.LinkedHashMap;
@@ -43,6 +45,7 @@ import java.util.Map;
 import java.util.Random;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.swing.Action;
 import javax.swing.Box;
@@ -1389,15 +1392,22 @@ public final class SimpleGUI implements ComponentListener, Listener {
             // CVC4 options
             JMenu relationalSolverMenu = addToMenu(optmenu, RelationalSolver);
             JMenu cvc4TimeoutMenu = addToMenu(optmenu, Cvc4Timeout);
+            JMenu cvc4WorkersMenu = addToMenu(optmenu, Cvc4Workers);
+            JMenu cvc4MemoryLimitMenu = addToMenu(optmenu, Cvc4MemoryLimit);
+            JMenu cvc4PortfolioMenu = addToMenu(optmenu, Cvc4PortfolioSize);
             List<JMenuItem> cvc4BooleanPreferences = addToMenu(optmenu,
                     Cvc4IncludeCommandScope,
                     Cvc4ProduceUnsatCores,
                     Cvc4FiniteModelFind,
-                    Cvc4IntegerSingletonsOnly);
+                    Cvc4IntegerSingletonsOnly,
+                    Cvc4GetValues);
 
             if(RelationalSolver.get().equals(KODKOD))
             {
                 cvc4TimeoutMenu.setEnabled(false);
+                cvc4WorkersMenu.setEnabled(false);
+                cvc4MemoryLimitMenu.setEnabled(false);
+                cvc4PortfolioMenu.setEnabled(false);
                 for(JMenuItem item: cvc4BooleanPreferences)
                 {
                     item.setEnabled(false);
@@ -1406,6 +1416,9 @@ public final class SimpleGUI implements ComponentListener, Listener {
             else
             {
                 cvc4TimeoutMenu.setEnabled(true);
+                cvc4WorkersMenu.setEnabled(true);
+                cvc4MemoryLimitMenu.setEnabled(true);
+                cvc4PortfolioMenu.setEnabled(true);
                 for(JMenuItem item: cvc4BooleanPreferences)
                 {
                     item.setEnabled(true);
@@ -1634,6 +1647,44 @@ public final class SimpleGUI implements ComponentListener, Listener {
         latestAutoInstance = arg;
     }
 
+    /**
+     * This method changes the latest instance, whose content is kept in memory
+     * until its file is needed.
+     */
+    void doSetLatest(String arg, String xml) {
+        try {
+            viz.putXML(arg, xml);
+        } catch (Err ex) {
+            log.logRed(ex.msg + "\n");
+        }
+        doSetLatest(arg);
+    }
+
+    /**
+     * The contents of the files that are written only when they are viewed, keyed
+     * by their canonical names.
+     */
+    private final Map<String,String> pendingFiles = new ConcurrentHashMap<String,String>();
+
+    /** This method records the content of a file that is written when it is viewed. */
+    void doSetPendingFile(String filename, String content) {
+        pendingFiles.put(Util.canon(filename), content);
+    }
+
+    /**
+     * This method writes a file whose content is only kept in memory; it does
+     * nothing otherwise.
+     */
+    private void writePendingFile(String filename) throws IOException, Err {
+        final String content = pendingFiles.get(filename);
+        if (content != null) {
+            Cvc4Task.writeOnce(new File(filename), f -> Files.write(f.toPath(), content.getBytes(StandardCharsets.UTF_8)));
+            pendingFiles.remove(filename);
+        } else {
+            viz.writeXML(filename);
+        }
+    }
+
     /**
      * The color to use for functions/predicate/paragraphs that contains part of the
      * unsat core.
@@ -1697,10 +1748,13 @@ public final class SimpleGUI implements ComponentListener, Listener {
         if (arg.startsWith("CNF: ")) { // CNF: filename
             String filename = Util.canon(arg.substring(5));
             try {
+                writePendingFile(filename);
                 String text = Util.readAll(filename);
                 OurDialog.showtext("Text Viewer", text);
             } catch (IOException ex) {
                 log.logRed("Error reading the file \"" + filename + "\"\n");
+            } catch (Err ex) {
+                log.logRed("Error writing the file \"" + filename + "\"\n");
             }
         }
         if (arg.startsWith("XML: ")) { // XML: filename
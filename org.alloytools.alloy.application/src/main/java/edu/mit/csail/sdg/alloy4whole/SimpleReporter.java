@@ -170,7 +170,13 @@ final class SimpleReporter extends A4Reporter {
                     OurDialog.alert(x);
             }
             if (array[0].equals("declare")) {
-                gui.doSetLatest((String) (array[1]));
+                if (array.length > 2)
+                    gui.doSetLatest((String) (array[1]), (String) (array[2]));
+                else
+                    gui.doSetLatest((String) (array[1]));
+            }
+            if (array[0].equals("file")) {
+                gui.doSetPendingFile((String) (array[1]), (String) (array[2]));
             }
             if (array[0].equals("S2")) {
                 len3 = len2 = span.getLength();
@@ -244,12 +250,22 @@ final class SimpleReporter extends A4Reporter {
                 String filename = (String) (array[3]), formula = (String) (array[4]);
                 results.add(filename);
                 (new File(filename)).deleteOnExit();
-                gui.doSetLatest(filename);
+                // cvc4 tasks send the instance along, which is written only when it is needed
+                if (array.length > 7)
+                    gui.doSetLatest(filename, (String) (array[7]));
+                else
+                    gui.doSetLatest(filename);
 
                 // generate model constraints
                 try
                 {
-                    AlloySolution alloySolution = AlloySolution.readFromXml(filename);
+                    // cvc4 tasks send the constraints along, which avoids parsing the xml file here
+                    String constraints = array.length > 6 ? (String) (array[6]) : null;
+                    if (constraints == null)
+                    {
+                        AlloySolution alloySolution = AlloySolution.readFromXml(filename);
+                        constraints = alloySolution.instances.get(0).generateAlloyCode();
+                    }
 
                     span.log("\nGenerated xml instance file: ");
 
@@ -257,7 +273,6 @@ final class SimpleReporter extends A4Reporter {
 
                     span.log("\n");
 
-                    String constraints = alloySolution.instances.get(0).generateAlloyCode();
                     span.log("Generated " + (chk ? "counterexample" : "instance"));
 
                     span.logLink(" constraints", "MSG: " + constraints);
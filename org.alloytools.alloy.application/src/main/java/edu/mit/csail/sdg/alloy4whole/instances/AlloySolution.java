@@ -1,18 +1,16 @@
 package edu.mit.csail.sdg.alloy4whole.instances;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.uiowa.alloy2smt.utils.Serializers;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
@@ -46,32 +44,37 @@ public class AlloySolution
         return files;
     }
 
-    public void writeToXml(String xmlFile) throws JAXBException
+    public void writeToXml(String xmlFile) throws IOException
     {
-        JAXBContext context = JAXBContext.newInstance(AlloySolution.class);
-        Marshaller marshaller = context.createMarshaller();
-        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-        marshaller.marshal(this, new File(xmlFile));
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(xmlFile), StandardCharsets.UTF_8)))
+        {
+            new AlloySolutionXmlWriter(writer).write(this);
+        }
+    }
+
+    public String toXml() throws IOException
+    {
+        StringWriter writer = new StringWriter();
+        new AlloySolutionXmlWriter(writer).write(this);
+        return writer.toString();
     }
 
     public static AlloySolution readFromXml(String xmlFile) throws JAXBException
     {
-        JAXBContext context = JAXBContext.newInstance(AlloySolution.class);
-        Unmarshaller unmarshaller = context.createUnmarshaller();
+        Unmarshaller unmarshaller = Serializers.getUnmarshaller(AlloySolution.class);
         AlloySolution alloySolution = (AlloySolution) unmarshaller.unmarshal(new File(xmlFile));
         return alloySolution;
     }
 
     public void writeToJson(String jsonFile) throws IOException
     {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File(jsonFile), this);
+        Serializers.getPrettyWriter().writeValue(new File(jsonFile), this);
     }
 
     public static AlloySolution readFromJson(String jsonFile) throws IOException
     {
-        ObjectMapper objectMapper = new ObjectMapper();
-        AlloySolution alloySolution = objectMapper.readValue(new File(jsonFile), AlloySolution.class);
+        AlloySolution alloySolution = Serializers.getObjectMapper().readValue(new File(jsonFile), AlloySolution.class);
         return alloySolution;
     }
 }
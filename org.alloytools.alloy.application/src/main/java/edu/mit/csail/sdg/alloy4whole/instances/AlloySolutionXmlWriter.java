@@ -0,0 +1,239 @@
+package edu.mit.csail.sdg.alloy4whole.instances;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Streams an {@link AlloySolution} as xml, element by element, in the same
+ * format of its JAXB annotations. The output does not depend on JAXB and is not
+ * buffered in memory, which matters for instances with many atoms and tuples.
+ * Line breaks in attributes, like the sources of the alloy files, are escaped so
+ * that they survive attribute normalization.
+ */
+public class AlloySolutionXmlWriter
+{
+    private static final String INDENT = "    ";
+
+    private final Writer writer;
+    private int depth = 0;
+
+    public AlloySolutionXmlWriter(Writer writer)
+    {
+        this.writer = writer;
+    }
+
+    /**
+     * writes the solution and flushes, but does not close, the writer
+     */
+    public void write(AlloySolution solution) throws IOException
+    {
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+        startElement("alloy");
+        attribute("builddate", solution.buildDate);
+        boolean empty = isEmpty(solution.instances) && isEmpty(solution.alloyFiles);
+        endStartElement(empty);
+        if(solution.instances != null)
+        {
+            for (Instance instance : solution.instances)
+            {
+                writeInstance(instance);
+            }
+        }
+        if(solution.alloyFiles != null)
+        {
+            for (AlloyFile file : solution.alloyFiles)
+            {
+                startElement("source");
+                attribute("filename", file.fileName);
+                attribute("content", file.content);
+                endStartElement(true);
+            }
+        }
+        endElement("alloy", empty);
+        writer.flush();
+    }
+
+    private void writeInstance(Instance instance) throws IOException
+    {
+        startElement("instance");
+        attribute("bitwidth", Integer.toString(instance.bitWidth));
+        attribute("maxseq", Integer.toString(instance.maxSeq));
+        attribute("command", instance.command);
+        attribute("filename", instance.fileName);
+        boolean empty = isEmpty(instance.signatures) && isEmpty(instance.fields);
+        endStartElement(empty);
+        if(instance.signatures != null)
+        {
+            for (Signature signature : instance.signatures)
+            {
+                writeSignature(signature);
+            }
+        }
+        if(instance.fields != null)
+        {
+            for (Field field : instance.fields)
+            {
+                writeField(field);
+            }
+        }
+        endElement("instance", empty);
+    }
+
+    private void writeSignature(Signature signature) throws IOException
+    {
+        startElement("sig");
+        attribute("label", signature.label);
+        attribute("ID", Integer.toString(signature.id));
+        attribute("parentID", Integer.toString(signature.parentId));
+        attribute("builtin", signature.builtIn);
+        attribute("abstract", signature.isAbstract);
+        attribute("one", signature.isOne);
+        attribute("lone", signature.isLone);
+        attribute("some", signature.isSome);
+        attribute("private", signature.isPrivate);
+        attribute("meta", signature.isMeta);
+        attribute("exact", signature.isExact);
+        attribute("enum", signature.isEnum);
+        boolean empty = isEmpty(signature.atoms) && isEmpty(signature.types);
+        endStartElement(empty);
+        writeAtoms(signature.atoms);
+        writeTypes(signature.types);
+        endElement("sig", empty);
+    }
+
+    private void writeField(Field field) throws IOException
+    {
+        startElement("field");
+        attribute("label", field.label);
+        attribute("ID", Integer.toString(field.id));
+        attribute("parentID", Integer.toString(field.parentId));
+        attribute("private", field.isPrivate);
+        attribute("meta", field.isMeta);
+        boolean empty = isEmpty(field.tuples) && isEmpty(field.types);
+        endStartElement(empty);
+        if(field.tuples != null)
+        {
+            for (Tuple tuple : field.tuples)
+            {
+                startElement("tuple");
+                endStartElement(isEmpty(tuple.atoms));
+                writeAtoms(tuple.atoms);
+                endElement("tuple", isEmpty(tuple.atoms));
+            }
+        }
+        if(field.types != null)
+        {
+            for (Types types : field.types)
+            {
+                startElement("types");
+                endStartElement(isEmpty(types.types));
+                writeTypes(types.types);
+                endElement("types", isEmpty(types.types));
+            }
+        }
+        endElement("field", empty);
+    }
+
+    private void writeAtoms(List<Atom> atoms) throws IOException
+    {
+        if(atoms != null)
+        {
+            for (Atom atom : atoms)
+            {
+                startElement("atom");
+                attribute("label", atom.label);
+                endStartElement(true);
+            }
+        }
+    }
+
+    private void writeTypes(List<Type> types) throws IOException
+    {
+        if(types != null)
+        {
+            for (Type type : types)
+            {
+                startElement("type");
+                attribute("ID", Integer.toString(type.id));
+                endStartElement(true);
+            }
+        }
+    }
+
+    private static boolean isEmpty(List<?> list)
+    {
+        return list == null || list.isEmpty();
+    }
+
+    private void startElement(String name) throws IOException
+    {
+        for (int i = 0; i < depth; i++)
+        {
+            writer.write(INDENT);
+        }
+        writer.write('<');
+        writer.write(name);
+    }
+
+    /**
+     * closes the start tag, which is also the end tag of empty elements
+     */
+    private void endStartElement(boolean empty) throws IOException
+    {
+        writer.write(empty ? "/>\n" : ">\n");
+        if(!empty)
+        {
+            depth++;
+        }
+    }
+
+    private void endElement(String name, boolean empty) throws IOException
+    {
+        if(empty)
+        {
+            return;
+        }
+        depth--;
+        for (int i = 0; i < depth; i++)
+        {
+            writer.write(INDENT);
+        }
+        writer.write("</");
+        writer.write(name);
+        writer.write(">\n");
+    }
+
+    private void attribute(String name, String value) throws IOException
+    {
+        // null attributes are omitted like in JAXB
+        if(value == null)
+        {
+            return;
+        }
+        writer.write(' ');
+        writer.write(name);
+        writer.write("=\"");
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            switch (c)
+            {
+                case '&': writer.write("&amp;"); break;
+                case '<': writer.write("&lt;"); break;
+                case '>': writer.write("&gt;"); break;
+                case '"': writer.write("&quot;"); break;
+                default:
+                    if(c < 0x20)
+                    {
+                        writer.write("&#x" + Integer.toHexString(c).toUpperCase() + ";");
+                    }
+                    else
+                    {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+}
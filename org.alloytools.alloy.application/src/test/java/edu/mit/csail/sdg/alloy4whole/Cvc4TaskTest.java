@@ -0,0 +1,116 @@
+package edu.mit.csail.sdg.alloy4whole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import edu.mit.csail.sdg.alloy4.WorkerEngine;
+import junit.framework.TestCase;
+
+/**
+ * Tests the parallel solving of the commands of "Execute All", and the files
+ * written for a translation.
+ */
+public class Cvc4TaskTest extends TestCase {
+
+    private static final class Log implements WorkerEngine.WorkerCallback {
+
+        final List<Object> messages = new ArrayList<>();
+
+        @Override
+        public synchronized void callback(Object msg) {
+            messages.add(((Object[]) msg)[1]);
+        }
+
+        @Override
+        public void done() {}
+
+        @Override
+        public void fail() {}
+    }
+
+    public void testSolveInOrder() throws Exception {
+        // the first command finishes only once the second one started, so they have to run in parallel
+        final CountDownLatch started = new CountDownLatch(1);
+        List<Callable<Integer>> commands = new ArrayList<>();
+        commands.add(() -> {
+            Cvc4Task.buffer(new Object[] {"", "0a"});
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            Cvc4Task.buffer(new Object[] {"", "0b"});
+            return 0;
+        });
+        commands.add(() -> {
+            Cvc4Task.buffer(new Object[] {"", "1a"});
+            started.countDown();
+            Cvc4Task.buffer(new Object[] {"", "1b"});
+            return 1;
+        });
+        commands.add(() -> {
+            Cvc4Task.buffer(new Object[] {"", "2a"});
+            return 2;
+        });
+
+        Log log = new Log();
+        assertEquals(Arrays.asList(0, 1, 2), Cvc4Task.solveInOrder(commands, 2, log));
+        assertEquals(Arrays.asList("0a", "0b", "1a", "1b", "2a"), log.messages);
+        // the messages of the current thread are no longer buffered
+        assertFalse(Cvc4Task.buffer(new Object[] {"", "3a"}));
+    }
+
+    public void testFailure() throws Exception {
+        final IllegalStateException failure = new IllegalStateException();
+        List<Callable<Integer>> commands = new ArrayList<>();
+        commands.add(() -> 0);
+        commands.add(() -> {
+            throw failure;
+        });
+        commands.add(() -> 2);
+
+        Log log = new Log();
+        try {
+            Cvc4Task.solveInOrder(commands, 2, log);
+            fail();
+        } catch (IllegalStateException exception) {
+            // a work-stealing pool may rethrow a copy caused by the original exception
+            assertTrue(exception == failure || exception.getCause() == failure);
+        }
+        assertTrue(log.messages.isEmpty());
+    }
+
+    public void testWriteOnce() throws Exception {
+        File directory = Files.createTempDirectory("cvc4task").toFile();
+        File file = new File(directory, "alloy2smt-key.smt2");
+        try {
+            assertTrue(Cvc4Task.writeOnce(file, f -> Files.write(f.toPath(), "first".getBytes("UTF-8"))));
+            // an existing file is not written again
+            assertFalse(Cvc4Task.writeOnce(file, f -> fail()));
+            assertEquals("first", new String(Files.readAllBytes(file.toPath()), "UTF-8"));
+            assertEquals(1, directory.list().length);
+
+            // a failed write leaves neither the file nor the temporary file
+            File failed = new File(directory, "alloy2smt-other.smt2");
+            try {
+                Cvc4Task.writeOnce(failed, f -> {
+                    Files.write(f.toPath(), "partial".getBytes("UTF-8"));
+                    throw new IOException("disk full");
+                });
+                fail();
+            } catch (IOException exception) {
+                assertEquals("disk full", exception.getMessage());
+            }
+            assertFalse(failed.exists());
+            assertEquals(1, directory.list().length);
+        } finally {
+            for (File f : directory.listFiles()) {
+                f.delete();
+            }
+            directory.delete();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package edu.mit.csail.sdg.alloy4whole.instances;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import edu.uiowa.alloy2smt.utils.Serializers;
+import junit.framework.TestCase;
+
+/**
+ * Tests that {@link AlloySolutionXmlWriter} writes what the JAXB marshaller of
+ * {@link AlloySolution} writes.
+ */
+public class AlloySolutionXmlWriterTest extends TestCase {
+
+    private static final String SOURCE = "sig A { r: set A }\n\tfact { some r } // \"<&>\" 'é' ∀\r\n";
+
+    private static Signature signature(String label, int id, int parentId, String... atoms) {
+        Signature signature = new Signature();
+        signature.label = label;
+        signature.id = id;
+        signature.parentId = parentId;
+        signature.builtIn = "no";
+        signature.isAbstract = "yes";
+        signature.isOne = "no";
+        signature.atoms = new ArrayList<>();
+        for (String atom : atoms) {
+            signature.atoms.add(new Atom(atom));
+        }
+        if (parentId > 0) {
+            signature.types.add(new Type(parentId));
+        }
+        return signature;
+    }
+
+    private static Tuple tuple(String... atoms) {
+        Tuple tuple = new Tuple();
+        tuple.atoms = new ArrayList<>();
+        for (String atom : atoms) {
+            tuple.atoms.add(new Atom(atom));
+        }
+        return tuple;
+    }
+
+    private static AlloySolution solution() {
+        Field field = new Field();
+        field.label = "r";
+        field.id = 4;
+        field.parentId = 3;
+        field.isPrivate = "no";
+        field.tuples = Arrays.asList(tuple("A$0", "A$1"), tuple("A$1", "A$0"));
+        Types types = new Types();
+        types.types = Arrays.asList(new Type(3), new Type(3));
+        field.types.add(types);
+
+        Field empty = new Field();
+        empty.label = "s";
+        empty.id = 5;
+        empty.parentId = 3;
+        empty.tuples = Collections.emptyList();
+
+        Instance instance = new Instance();
+        instance.command = "Run run$1 for 3 A";
+        instance.fileName = "/tmp/a \"b\".als";
+        instance.signatures = Arrays.asList(signature("seq/Int", 0, 1), signature("this/A", 3, 2, "A$0", "A$1"));
+        instance.fields = Arrays.asList(field, empty);
+
+        AlloySolution solution = new AlloySolution();
+        solution.buildDate = "2020-01-01T00:00:00Z";
+        solution.instances = Collections.singletonList(instance);
+        solution.alloyFiles = Arrays.asList(new AlloyFile("/tmp/a \"b\".als", SOURCE), new AlloyFile("empty.als", ""));
+        return solution;
+    }
+
+    private static byte[] marshal(AlloySolution solution) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Serializers.getMarshaller(AlloySolution.class).marshal(solution, output);
+        return output.toByteArray();
+    }
+
+    public void testSameAsJaxb() throws Exception {
+        AlloySolution solution = solution();
+        File file = File.createTempFile("solution", ".xml");
+        try {
+            solution.writeToXml(file.getPath());
+            assertEquals(new String(marshal(solution), "UTF-8"), new String(Files.readAllBytes(file.toPath()), "UTF-8"));
+            assertTrue(Arrays.equals(marshal(solution), Files.readAllBytes(file.toPath())));
+
+            // the line breaks and tabs of the sources are read back
+            AlloySolution read = AlloySolution.readFromXml(file.getPath());
+            assertEquals(SOURCE, read.getAlloyFiles().get("/tmp/a \"b\".als"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testToXml() throws Exception {
+        // the instances are sent to the user interface as strings
+        assertEquals(new String(marshal(solution()), "UTF-8"), solution().toXml());
+    }
+
+    public void testEmpty() throws Exception {
+        AlloySolution solution = new AlloySolution();
+        StringWriter writer = new StringWriter();
+        new AlloySolutionXmlWriter(writer).write(solution);
+        assertEquals(new String(marshal(solution), "UTF-8"), writer.toString());
+    }
+}
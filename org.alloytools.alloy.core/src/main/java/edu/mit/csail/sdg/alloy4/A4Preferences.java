@@ -670,6 +670,24 @@ public class A4Preferences {
         }
     };
 
+    public static final IntChoicePref                Cvc4MemoryLimit        = new IntChoicePref("Cvc4MemoryLimit", "CVC4 memory limit", Arrays.asList(0, 1024, 2048, 4096, 8192, 16384), 0){
+        @Override
+        public Object renderValueShort(Integer value)
+        {
+            return value == 0 ? "None" : value + " MB";
+        }
+    };
+
+    public static final IntChoicePref                Cvc4PortfolioSize      = new IntChoicePref("Cvc4PortfolioSize", "CVC4 portfolio", Arrays.asList(1, 2, 3, 4), 1){
+        @Override
+        public Object renderValueShort(Integer value)
+        {
+            return value == 1 ? "Off" : value + " profiles";
+        }
+    };
+
+    public static final IntChoicePref                Cvc4Workers            = new IntChoicePref("Cvc4Workers", "CVC4 parallel workers", Arrays.asList(1, 2, 4, 8, 16, 32), 1);
+
     public static final BooleanPref Cvc4IncludeCommandScope = new BooleanPref("Cvc4IncludeCommandScope", "CVC4 include scope", false);
 
     public static final BooleanPref Cvc4ProduceUnsatCores = new BooleanPref("Cvc4ProduceUnsatCores", "CVC4 produce unsat cores", false);
@@ -678,6 +696,8 @@ public class A4Preferences {
 
     public static final BooleanPref Cvc4IntegerSingletonsOnly = new BooleanPref("Cvc4IntegerSingletonsOnly", "CVC4 integer singletons only", true);
 
+    public static final BooleanPref Cvc4GetValues = new BooleanPref("Cvc4GetValues", "CVC4 get values of relations only", true);
+
     public static final DelayedChoicePref<SatSolver> Solver                 = new DelayedChoicePref<SatSolver>("SatSolver2", "Solver", SatSolver.values(), SatSolver.SAT4J) {
 
                                                                                 @Override
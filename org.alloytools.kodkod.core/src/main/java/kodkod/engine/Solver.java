@@ -32,7 +32,9 @@ import kodkod.engine.fol2sat.Translation;
 import kodkod.engine.fol2sat.TranslationLog;
 import kodkod.engine.fol2sat.Translator;
 import kodkod.engine.fol2sat.UnboundLeafException;
+import kodkod.engine.satlab.CubeSolver;
 import kodkod.engine.satlab.SATAbortedException;
+import kodkod.engine.satlab.SATFactory;
 import kodkod.engine.satlab.SATProver;
 import kodkod.engine.satlab.SATSolver;
 import kodkod.instance.Bounds;
@@ -134,13 +136,17 @@ public final class Solver implements KodkodSolver {
         final long startTransl = System.currentTimeMillis();
 
         try {
-            final Translation.Whole translation = Translator.translate(formula, bounds, options);
+            final Translation.Whole translation = Translator.translate(formula, bounds, cubeOptions());
             final long endTransl = System.currentTimeMillis();
 
             if (translation.trivial())
                 return trivial(translation, endTransl - startTransl);
 
             final SATSolver cnf = translation.cnf();
+            if (cnf instanceof CubeSolver) {
+                // split on the primary variables, which encode the relations
+                ((CubeSolver) cnf).setMaxSplitVariable(translation.numPrimaryVariables());
+            }
 
             options.reporter().solvingCNF(translation.numPrimaryVariables(), cnf.numberOfVariables(), cnf.numberOfClauses());
             final long startSolve = System.currentTimeMillis();
@@ -155,6 +161,20 @@ public final class Solver implements KodkodSolver {
         }
     }
 
+    /**
+     * Returns this.options, or a copy whose solver splits the problem into cubes
+     * that are conquered on one thread per core if this.options.cubeDepth > 0.
+     *
+     * @return this.options, or a copy that solves in cubes
+     */
+    private Options cubeOptions() {
+        if (options.cubeDepth() == 0 || options.solver().prover())
+            return options;
+        final Options cubeOptions = options.clone();
+        cubeOptions.setSolver(SATFactory.cubeAndConquer(options.solver(), options.cubeDepth(), Runtime.getRuntime().availableProcessors()));
+        return cubeOptions;
+    }
+
     /**
      * Attempts to find all solutions to the given formula with respect to the
      * specified bounds or to prove the formula's unsatisfiability. If the operation
@@ -26,6 +26,7 @@ import static kodkod.engine.bool.Operator.OR;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Map;
 
 import kodkod.engine.config.Options;
 import kodkod.engine.config.Options.IntEncoding;
@@ -382,6 +383,87 @@ public abstract class BooleanFactory {
         return circuits.assemble(g);
     }
 
+    /**
+     * Returns a new factory with the same variables, comparison depth, bitwidth,
+     * overflow policy and int encoding as this factory, and no gates. A factory is
+     * not safe for use by multiple threads, so a replica lets another thread build
+     * circuits over the variables of this factory; these circuits are brought back
+     * with {@link #copy(BooleanValue, Map)}.
+     *
+     * @requires this.maxVariable() = this.numberOfVariables()
+     * @return {f: BooleanFactory | f.components = BooleanConstant +
+     *         (this.components & BooleanVariable) && f.comparisonDepth =
+     *         this.comparisonDepth && f.bitwidth = this.bitwidth && f.intEncoding =
+     *         this.intEncoding }
+     * @throws IllegalStateException this.maxVariable() != this.numberOfVariables()
+     */
+    public abstract BooleanFactory replica();
+
+    /**
+     * Returns a value of this factory that is equivalent to the given value of
+     * another factory over the same variables, such as a {@linkplain #replica()
+     * replica} of this factory. The gates of v are rebuilt bottom-up with this
+     * factory, so they are shared with the gates that this factory already has.
+     * The copies map remembers the rebuilt gates, and it should be given to all
+     * calls that copy values of the same factory.
+     *
+     * @requires v.components & BooleanVariable in this.components
+     * @requires copies.keys in v.factory.components && copies.values in
+     *           this.components
+     * @return {v': BooleanValue | [[v']] = [[v]] && v'.components in
+     *         this.components' }
+     * @ensures copies.keys' = copies.keys + (v.*inputs & BooleanFormula)
+     */
+    public final BooleanValue copy(BooleanValue v, Map<BooleanFormula,BooleanValue> copies) {
+        return v.op() == Operator.CONST ? v : ((BooleanFormula) v).accept(new Copier(copies), null);
+    }
+
+    /**
+     * Rebuilds the gates of another factory with this factory.
+     */
+    private final class Copier implements BooleanVisitor<BooleanValue,Object> {
+
+        private final Map<BooleanFormula,BooleanValue> copies;
+
+        Copier(Map<BooleanFormula,BooleanValue> copies) {
+            this.copies = copies;
+        }
+
+        @Override
+        public BooleanValue visit(MultiGate multigate, Object arg) {
+            BooleanValue ret = copies.get(multigate);
+            if (ret == null) {
+                final BooleanAccumulator acc = BooleanAccumulator.treeGate(multigate.op());
+                for (BooleanFormula input : multigate) {
+                    acc.add(input.accept(this, arg));
+                }
+                ret = accumulate(acc);
+                copies.put(multigate, ret);
+            }
+            return ret;
+        }
+
+        @Override
+        public BooleanValue visit(ITEGate ite, Object arg) {
+            BooleanValue ret = copies.get(ite);
+            if (ret == null) {
+                ret = ite(ite.input(0).accept(this, arg), ite.input(1).accept(this, arg), ite.input(2).accept(this, arg));
+                copies.put(ite, ret);
+            }
+            return ret;
+        }
+
+        @Override
+        public BooleanValue visit(NotGate negation, Object arg) {
+            return not(negation.input(0).accept(this, arg));
+        }
+
+        @Override
+        public BooleanValue visit(BooleanVariable variable, Object arg) {
+            return variable(variable.label());
+        }
+    }
+
     /**
      * Returns an Int that represents the given number using this.intEncoding.
      *
@@ -552,5 +634,17 @@ public abstract class BooleanFactory {
             return new TwosComplementInt(this, number, bit);
         }
 
+        /**
+         * {@inheritDoc}
+         *
+         * @see kodkod.engine.bool.BooleanFactory#replica()
+         */
+        @Override
+        public BooleanFactory replica() {
+            if (maxVariable() != numberOfVariables())
+                throw new IllegalStateException("Variables are interleaved with gates: " + maxVariable() + " != " + numberOfVariables());
+            return new TwosComplementFactory(numberOfVariables(), comparisonDepth(), bitwidth, noOverflow);
+        }
+
     }
 }
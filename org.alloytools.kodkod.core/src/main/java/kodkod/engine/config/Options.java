@@ -46,6 +46,10 @@ import kodkod.util.ints.Ints;
  *            logging)
  * @specfield coreGranularity: [0..3] // unsat core granularity, default is 0
  *            (only top-level conjuncts are considered)
+ * @specfield cubeDepth: [0..SATFactory.MAX_CUBE_DEPTH] // split variables of cube-and-conquer
+ *            solving, default is 0 (no cubes)
+ * @specfield groundingThreads: int // threads that ground top-level quantified
+ *            formulas, default is 1 (grounding on the translating thread)
  * @specfield allowHOL: boolean // allow higher-order quantification
  * @specfield holSome4AllMaxIter: boolean // allow higher-order quantification
  * @author Emina Torlak
@@ -80,6 +84,8 @@ public final class Options implements Cloneable {
     private int            skolemDepth        = 0;
     private int            logTranslation     = 0;
     private int            coreGranularity    = 0;
+    private int            cubeDepth          = 0;
+    private int            groundingThreads   = 1;
 
     // [AM]
     public static boolean isDebug() {
@@ -394,6 +400,64 @@ public final class Options implements Cloneable {
         this.coreGranularity = coreGranularity;
     }
 
+    /**
+     * Returns the maximum number of primary variables that the solver splits on to
+     * solve the cubes of a problem in parallel, one per assignment of the split
+     * variables. The default value of 0 disables cube-and-conquer solving. Higher
+     * values give more, smaller cubes, which balance better across cores but share
+     * less of the search; a few more than log2 of the number of cores is usually
+     * right. It is at most {@link SATFactory#MAX_CUBE_DEPTH}, since solvers that cannot solve under assumptions
+     * are given all the clauses again for each cube. Cube-and-conquer solving is
+     * not used with SAT provers, nor when enumerating solutions.
+     *
+     * @return this.cubeDepth
+     */
+    public int cubeDepth() {
+        return cubeDepth;
+    }
+
+    /**
+     * Sets the cubeDepth option to the given value.
+     *
+     * @ensures this.cubeDepth' = cubeDepth
+     * @throws IllegalArgumentException cubeDepth !in [0..SATFactory.MAX_CUBE_DEPTH]
+     */
+    public void setCubeDepth(int cubeDepth) {
+        checkRange(cubeDepth, 0, SATFactory.MAX_CUBE_DEPTH);
+        this.cubeDepth = cubeDepth;
+    }
+
+    /**
+     * Returns the maximum number of threads that ground a quantified formula which
+     * is not nested in other quantified formulas, comprehensions or int casts. Each
+     * thread grounds a part of the bindings of the formula's first declared
+     * variable with gates of its own, which are then merged into the translation in
+     * the order of the bindings, so the translation does not depend on the
+     * scheduling of the threads. It may however differ from the translation on a
+     * single thread: gates that a thread builds and then discards are never given
+     * labels in the translation, so the CNF usually declares fewer auxiliary
+     * variables, some of which are not used by any clause in the single-threaded
+     * translation. The default value of 1 grounds all formulas on the translating
+     * thread. Grounding on several threads is not used when the
+     * translation is logged for unsat core extraction.
+     *
+     * @return this.groundingThreads
+     */
+    public int groundingThreads() {
+        return groundingThreads;
+    }
+
+    /**
+     * Sets the groundingThreads option to the given value.
+     *
+     * @ensures this.groundingThreads' = groundingThreads
+     * @throws IllegalArgumentException groundingThreads < 1
+     */
+    public void setGroundingThreads(int groundingThreads) {
+        checkRange(groundingThreads, 1, Integer.MAX_VALUE);
+        this.groundingThreads = groundingThreads;
+    }
+
     /**
      * Returns a shallow copy of this Options object. In particular, the returned
      * options shares the same {@linkplain #reporter()} and {@linkplain #solver()}
@@ -413,6 +477,8 @@ public final class Options implements Cloneable {
         c.setSkolemDepth(skolemDepth);
         c.setLogTranslation(logTranslation);
         c.setCoreGranularity(coreGranularity);
+        c.setCubeDepth(cubeDepth);
+        c.setGroundingThreads(groundingThreads);
         c.setOverflowPolicy(ofPolicy);
         c.setAllowHOL(allowHOL);
         c.setHolFullIncrements(holFullIncrements);
@@ -448,6 +514,10 @@ public final class Options implements Cloneable {
         b.append(logTranslation);
         b.append("\n coreGranularity: ");
         b.append(coreGranularity);
+        b.append("\n cubeDepth: ");
+        b.append(cubeDepth);
+        b.append("\n groundingThreads: ");
+        b.append(groundingThreads);
         b.append("\n noOverflow: ");
         b.append(ofPolicy);
         b.append("\n allowHOL: ");
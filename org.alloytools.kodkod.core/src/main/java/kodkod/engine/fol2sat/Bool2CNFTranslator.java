@@ -23,6 +23,10 @@ package kodkod.engine.fol2sat;
 
 import static kodkod.engine.bool.Operator.AND;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
 import kodkod.engine.bool.BooleanConstant;
 import kodkod.engine.bool.BooleanFactory;
 import kodkod.engine.bool.BooleanFormula;
@@ -158,11 +162,16 @@ abstract class Bool2CNFTranslator implements BooleanVisitor<int[],Object> {
         return translator.translate(circuit, maxPrimaryVar);
     }
 
+    /**
+     * The number of literals and terminators that are buffered before the clauses
+     * are flushed to the solver.
+     */
+    private static final int CAPACITY = 1 << 14;
+
     private final SATSolver solver;
     private final IntSet    visited;
-    private final int[]     unaryClause   = new int[1];
-    private final int[]     binaryClause  = new int[2];
-    private final int[]     ternaryClause = new int[3];
+    private final IntBuffer clauses;
+    private final int[]     unaryClause = new int[1];
 
     /**
      * Constructs a translator for the given circuit.
@@ -173,6 +182,7 @@ abstract class Bool2CNFTranslator implements BooleanVisitor<int[],Object> {
     private Bool2CNFTranslator(SATSolver solver) {
         this.solver = solver;
         this.visited = new IntTreeSet();
+        this.clauses = ByteBuffer.allocateDirect(CAPACITY * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
     }
 
     /**
@@ -200,12 +210,12 @@ abstract class Bool2CNFTranslator implements BooleanVisitor<int[],Object> {
                 input.accept(this, null);
             }
             for (BooleanFormula input : circuit) {
-                unaryClause[0] = input.label();
-                solver.addClause(unaryClause);
+                add(input.label());
             }
         } else {
-            solver.addClause(circuit.accept(this, null));
+            add(circuit.accept(this, null));
         }
+        flush();
         return this;
     }
 
@@ -244,25 +254,62 @@ abstract class Bool2CNFTranslator implements BooleanVisitor<int[],Object> {
         return true;
     }
 
-    /** @return 0->lit */
-    private final int[] clause(int lit) {
-        unaryClause[0] = lit;
-        return unaryClause;
+    /**
+     * Adds the given clause to the buffered clauses, flushing them first if the
+     * buffer is full. A clause larger than the buffer is added directly to the
+     * solver.
+     *
+     * @ensures this.solver.clauses' = this.solver.clauses + lits
+     */
+    private final void add(int[] lits) {
+        if (lits.length >= clauses.remaining()) {
+            flush();
+            if (lits.length >= clauses.remaining()) {
+                solver.addClause(lits);
+                return;
+            }
+        }
+        clauses.put(lits).put(0);
     }
 
-    /** @return 0->lit0 + 1->lit1 */
-    private final int[] clause(int lit0, int lit1) {
-        binaryClause[0] = lit0;
-        binaryClause[1] = lit1;
-        return binaryClause;
+    /** @ensures this.solver.clauses' = this.solver.clauses + lit */
+    private final void add(int lit) {
+        if (clauses.remaining() < 2)
+            flush();
+        clauses.put(lit).put(0);
     }
 
-    /** @return 0->lit0 + 1->lit1 + 2->lit2 */
-    private final int[] clause(int lit0, int lit1, int lit2) {
-        ternaryClause[0] = lit0;
-        ternaryClause[1] = lit1;
-        ternaryClause[2] = lit2;
-        return ternaryClause;
+    /** @ensures this.solver.clauses' = this.solver.clauses + lit0 + lit1 */
+    private final void add(int lit0, int lit1) {
+        if (clauses.remaining() < 3)
+            flush();
+        clauses.put(lit0).put(lit1).put(0);
+    }
+
+    /** @ensures this.solver.clauses' = this.solver.clauses + lit0 + lit1 + lit2 */
+    private final void add(int lit0, int lit1, int lit2) {
+        if (clauses.remaining() < 4)
+            flush();
+        clauses.put(lit0).put(lit1).put(lit2).put(0);
+    }
+
+    /**
+     * Adds the buffered clauses to the solver in bulk.
+     *
+     * @see SATSolver#addClauses(IntBuffer)
+     */
+    private final void flush() {
+        if (clauses.position() > 0) {
+            clauses.flip();
+            solver.addClauses(clauses);
+            clauses.clear();
+        }
+    }
+
+    /** @return 0->lit */
+    private final int[] clause(int lit) {
+        unaryClause[0] = lit;
+        return unaryClause;
     }
 
     /**
@@ -298,7 +345,7 @@ abstract class Bool2CNFTranslator implements BooleanVisitor<int[],Object> {
             for (BooleanFormula input : multigate) {
                 int iLit = input.accept(this, arg)[0];
                 if (p) {
-                    solver.addClause(clause(iLit * sgn, output));
+                    add(iLit * sgn, output);
                 }
                 if (n) {
                     lastClause[i++] = iLit * -sgn;
@@ -306,7 +353,7 @@ abstract class Bool2CNFTranslator implements BooleanVisitor<int[],Object> {
             }
             if (n) {
                 lastClause[i] = oLit * sgn;
-                solver.addClause(lastClause);
+                add(lastClause);
             }
         }
         return clause(oLit);
@@ -332,16 +379,16 @@ abstract class Bool2CNFTranslator implements BooleanVisitor<int[],Object> {
             final int e = itegate.input(2).accept(this, arg)[0];
             final boolean p = positive(oLit), n = negative(oLit);
             if (p) {
-                solver.addClause(clause(-i, t, -oLit));
-                solver.addClause(clause(i, e, -oLit));
+                add(-i, t, -oLit);
+                add(i, e, -oLit);
                 // redundant clause that strengthens unit propagation
-                solver.addClause(clause(t, e, -oLit));
+                add(t, e, -oLit);
             }
             if (n) {
-                solver.addClause(clause(-i, -t, oLit));
-                solver.addClause(clause(i, -e, oLit));
+                add(-i, -t, oLit);
+                add(i, -e, oLit);
                 // redundant clause that strengthens unit propagation
-                solver.addClause(clause(-t, -e, oLit));
+                add(-t, -e, oLit);
             }
         }
         return clause(oLit);
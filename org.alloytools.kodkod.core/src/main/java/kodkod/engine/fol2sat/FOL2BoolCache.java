@@ -65,6 +65,20 @@ final class FOL2BoolCache {
         }
     }
 
+    /**
+     * Constructs a new translation cache for the nodes of the given cache, with no
+     * cached translations. Translations that run on several threads give each thread
+     * a cache of its own, since translations are not shared across factories.
+     *
+     * @ensures this.node' = cache.node && no this.cache'
+     */
+    FOL2BoolCache(FOL2BoolCache cache) {
+        this.cache = new IdentityHashMap<Node,Record>(cache.cache.size());
+        for (Map.Entry<Node,Record> e : cache.cache.entrySet()) {
+            this.cache.put(e.getKey(), e.getValue().empty());
+        }
+    }
+
     /**
      * If the translation of the given node, with its free variables bound as they
      * are in the given environment, has been cached, the cached value is returned.
@@ -183,6 +197,15 @@ final class FOL2BoolCache {
          *          env.lookup(v).iterator().next().index() }
          */
         abstract void set(Object transl, Environment<BooleanMatrix,Expression> env);
+
+        /**
+         * Returns a record for the same free variables as this one, with no
+         * translation.
+         *
+         * @return {r: Record | r.varBinding.int = this.varBinding.int && no
+         *         r.translation }
+         */
+        abstract Record empty();
     }
 
     /**
@@ -204,6 +227,16 @@ final class FOL2BoolCache {
             this.tuples = new int[freeVariables.size()];
         }
 
+        /**
+         * Constructs a translation unit for a node which has the given free variables.
+         *
+         * @ensures this.freeVariables' = vars && no this.translation'
+         */
+        private MultiVarRecord(Variable[] vars) {
+            this.vars = vars;
+            this.tuples = new int[vars.length];
+        }
+
         /**
          * @see kodkod.engine.fol2sat.FOL2BoolCache.Record#get(kodkod.engine.fol2sat.Environment)
          */
@@ -234,6 +267,14 @@ final class FOL2BoolCache {
             }
         }
 
+        /**
+         * @see kodkod.engine.fol2sat.FOL2BoolCache.Record#empty()
+         */
+        @Override
+        Record empty() {
+            return new MultiVarRecord(vars);
+        }
+
         /**
          * @see java.lang.Object#toString()
          */
@@ -275,6 +316,14 @@ final class FOL2BoolCache {
             translation = transl;
         }
 
+        /**
+         * @see kodkod.engine.fol2sat.FOL2BoolCache.Record#empty()
+         */
+        @Override
+        Record empty() {
+            return new NoVarRecord();
+        }
+
         /**
          * @see java.lang.Object#toString()
          */
@@ -23,9 +23,16 @@ package kodkod.engine.fol2sat;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import kodkod.ast.BinaryExpression;
 import kodkod.ast.BinaryFormula;
@@ -70,6 +77,7 @@ import kodkod.ast.visitor.ReturnVisitor;
 import kodkod.engine.bool.BooleanAccumulator;
 import kodkod.engine.bool.BooleanConstant;
 import kodkod.engine.bool.BooleanFactory;
+import kodkod.engine.bool.BooleanFormula;
 import kodkod.engine.bool.BooleanMatrix;
 import kodkod.engine.bool.BooleanValue;
 import kodkod.engine.bool.Dimensions;
@@ -112,6 +120,34 @@ abstract class FOL2BoolTranslator implements ReturnVisitor<BooleanMatrix,Boolean
         return (T) annotated.node().accept(translator);
     }
 
+    /**
+     * Translates the given annotated formula into a boolean formula, using the
+     * provided interpreter. The quantified formulas that are not nested in other
+     * quantified formulas, comprehensions or int casts are grounded by up to the
+     * given number of threads, each of which grounds a part of the bindings of the
+     * first declared variable with its own cache and a
+     * {@linkplain LeafInterpreter#replica() replica} of the interpreter's factory.
+     * The parts are copied into the interpreter's factory in the order of the
+     * bindings, so the translation does not depend on the scheduling of the
+     * threads. Only the gates that the parts reach are copied, so the factory
+     * usually ends up with fewer gates, and labels, than a translation on this
+     * thread alone, which also labels the gates that grounding discards.
+     *
+     * @requires interpreter.relations = AnnotatedNode.relations(annotated)
+     * @requires threads > 0
+     * @return the translation of annotated.node with respect to the given
+     *         interpreter
+     * @throws HigherOrderDeclException annotated.node contains a higher order
+     *             declaration
+     * @throws UnboundLeafException annotated.node refers to an undeclared variable
+     **/
+    static final BooleanValue translate(AnnotatedNode<Formula> annotated, LeafInterpreter interpreter, int threads) {
+        final FOL2BoolCache cache = new FOL2BoolCache(annotated);
+        final FOL2BoolTranslator translator = new FOL2BoolTranslator(cache, interpreter, threads) {};
+        translator.addSkolems(annotated.skolemRelations());
+        return annotated.node().accept(translator);
+    }
+
     /**
      * Translates the given annotated formula into a boolean accumulator with
      * respect to the given interpreter and logs the translation events to the given
@@ -227,6 +263,16 @@ abstract class FOL2BoolTranslator implements ReturnVisitor<BooleanMatrix,Boolean
 
     /*---------------------------------------------------------*/
 
+    private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "fol2sat-grounding");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
     private final LeafInterpreter                   interpreter;
     /*
      * When visiting the body of a quantified formula or a comprehension, this
@@ -247,6 +293,11 @@ abstract class FOL2BoolTranslator implements ReturnVisitor<BooleanMatrix,Boolean
 
     private final Map<LeafExpression,BooleanMatrix> leafCache;
 
+    /*
+     * The maximum number of threads that ground a top-level quantified formula
+     */
+    private final int                               threads;
+
     /**
      * Constructs a new translator that will use the given translation cache and
      * interpreter to perform the translation.
@@ -254,10 +305,22 @@ abstract class FOL2BoolTranslator implements ReturnVisitor<BooleanMatrix,Boolean
      * @ensures this.node' = manager.node
      */
     private FOL2BoolTranslator(FOL2BoolCache cache, LeafInterpreter interpreter) {
+        this(cache, interpreter, 1);
+    }
+
+    /**
+     * Constructs a new translator that will use the given translation cache and
+     * interpreter to perform the translation, grounding top-level quantified
+     * formulas with up to the given number of threads.
+     *
+     * @ensures this.node' = manager.node
+     */
+    private FOL2BoolTranslator(FOL2BoolCache cache, LeafInterpreter interpreter, int threads) {
         this.cache = cache;
         this.interpreter = interpreter;
         this.env = Environment.empty();
         this.leafCache = new HashMap<LeafExpression,BooleanMatrix>(64);
+        this.threads = threads;
     }
 
     /**
@@ -271,6 +334,7 @@ abstract class FOL2BoolTranslator implements ReturnVisitor<BooleanMatrix,Boolean
         this.env = env;
         this.cache = cache;
         this.leafCache = new HashMap<LeafExpression,BooleanMatrix>(64);
+        this.threads = 1;
     }
 
     private void addSkolems(Set<Relation> skolemRelations) {
@@ -735,6 +799,135 @@ abstract class FOL2BoolTranslator implements ReturnVisitor<BooleanMatrix,Boolean
         env = env.parent();
     }
 
+    /**
+     * Returns the number of parts into which the bindings of the first variable
+     * declared by the given formula are split, so that each part is grounded by a
+     * thread of its own. The formula is grounded on this thread if the result is 1:
+     * only quantified formulas that are not nested in other quantified formulas,
+     * comprehensions or int casts are split, since their translation does not
+     * depend on the bindings of the enclosing variables, and only when the
+     * variables of this.interpreter.factory are not interleaved with gates, since
+     * each part is grounded with a replica of the factory.
+     *
+     * @return the number of parts into which the bindings of the first variable
+     *         declared by the given formula are split
+     */
+    private int parts(QuantifiedFormula quantFormula) {
+        if (threads < 2 || !env.isEmpty() || vars != NestedSet.<Variable> empty())
+            return 1;
+        final BooleanFactory factory = interpreter.factory();
+        if (factory.maxVariable() != factory.numberOfVariables())
+            return 1;
+        return StrictMath.max(1, StrictMath.min(threads, visit(quantFormula.decls().get(0)).density()));
+    }
+
+    /**
+     * Adds the translation of the given quantified formula to the given
+     * accumulator, splitting the bindings of its first declared variable into the
+     * given number of parts of nearly equal size. Each part is grounded by a
+     * thread of its own, with its own translation cache and a replica of
+     * this.interpreter. The translations of the parts are then copied into
+     * this.interpreter.factory in the order of the bindings, which shares their
+     * gates with the gates of the factory and makes the result independent of the
+     * scheduling of the threads.
+     *
+     * @requires 1 < parts <= visit(quantFormula.decls.get(0)).density()
+     * @requires acc.op = (quantFormula.quantifier = ALL => AND, OR)
+     * @ensures the given accumulator contains the translation of quantFormula
+     */
+    private void ground(final QuantifiedFormula quantFormula, int parts, BooleanAccumulator acc) {
+        final BooleanMatrix declTransl = visit(quantFormula.decls().get(0));
+        final int density = declTransl.density();
+        // the first part starts at index 0 and the last part ends at
+        // Integer.MAX_VALUE, since the replicas may simplify the declaration
+        // to other sets of bindings than this factory
+        final int[] starts = new int[parts + 1];
+        starts[parts] = Integer.MAX_VALUE;
+        int part = 1, entries = 0;
+        for (IndexedEntry<BooleanValue> entry : declTransl) {
+            if (part < parts && entries++ == (int) ((long) part * density / parts)) {
+                starts[part++] = entry.index();
+            }
+        }
+
+        final List<Future<BooleanAccumulator>> grounded = new ArrayList<Future<BooleanAccumulator>>(parts);
+        for (int i = 0; i < parts; i++) {
+            final FOL2BoolTranslator translator = new FOL2BoolTranslator(new FOL2BoolCache(cache), interpreter.replica()) {};
+            if (env.isNegated())
+                translator.env.negate();
+            final int from = starts[i], to = starts[i + 1];
+            grounded.add(executor.submit(new Callable<BooleanAccumulator>() {
+
+                @Override
+                public BooleanAccumulator call() {
+                    return translator.groundPart(quantFormula, from, to);
+                }
+            }));
+        }
+
+        final BooleanFactory factory = interpreter.factory();
+        try {
+            for (Future<BooleanAccumulator> g : grounded) {
+                final Map<BooleanFormula,BooleanValue> copies = new IdentityHashMap<BooleanFormula,BooleanValue>();
+                for (BooleanValue v : g.get()) {
+                    if (acc.add(factory.copy(v, copies)) == acc.op().shortCircuit())
+                        return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while grounding " + quantFormula, e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException(cause);
+        } finally {
+            for (Future<BooleanAccumulator> g : grounded) {
+                g.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Grounds the given quantified formula over the bindings of its first declared
+     * variable whose indices are in [from..to), and returns the accumulator that
+     * contains their translations. Called by the threads of
+     * {@link #ground(QuantifiedFormula, int, BooleanAccumulator)}, each with a
+     * translator of its own.
+     *
+     * @return an accumulator that contains the translation of quantFormula, with
+     *         its first declared variable bound to the tuples whose indices are in
+     *         [from..to)
+     */
+    private BooleanAccumulator groundPart(QuantifiedFormula quantFormula, int from, int to) {
+        final Quantifier quantifier = quantFormula.quantifier();
+        final BooleanAccumulator acc = BooleanAccumulator.treeGate(quantifier == Quantifier.ALL ? Operator.AND : Operator.OR);
+        final BooleanFactory factory = interpreter.factory();
+
+        final Decls decls = quantFormula.decls();
+        final Decl decl = decls.get(0);
+        final BooleanMatrix declTransl = visit(decl);
+        final BooleanMatrix groundValue = factory.matrix(declTransl.dimensions());
+        env = env.extend(decl.variable(), decl.expression(), groundValue, quantifier);
+        for (IndexedEntry<BooleanValue> entry : declTransl) {
+            if (entry.index() < from)
+                continue;
+            if (entry.index() >= to || acc.isShortCircuited())
+                break;
+            groundValue.set(entry.index(), BooleanConstant.TRUE);
+            if (quantifier == Quantifier.ALL)
+                all(decls, quantFormula.formula(), 1, factory.or(factory.not(entry.value()), BooleanConstant.FALSE), acc);
+            else
+                some(decls, quantFormula.formula(), 1, factory.and(entry.value(), BooleanConstant.TRUE), acc);
+            groundValue.set(entry.index(), BooleanConstant.FALSE);
+        }
+        env = env.parent();
+        return acc;
+    }
+
     /**
      * Calls lookup(quantFormula) and returns the cached value, if any. If a
      * translation has not been cached, translates the formula, calls cache(...) on
@@ -750,15 +943,22 @@ abstract class FOL2BoolTranslator implements ReturnVisitor<BooleanMatrix,Boolean
             return ret;
 
         final Quantifier quantifier = quantFormula.quantifier();
+        final int parts = parts(quantFormula);
         switch (quantifier) {
             case ALL :
                 final BooleanAccumulator and = BooleanAccumulator.treeGate(Operator.AND);
-                all(quantFormula.decls(), quantFormula.formula(), 0, BooleanConstant.FALSE, and);
+                if (parts > 1)
+                    ground(quantFormula, parts, and);
+                else
+                    all(quantFormula.decls(), quantFormula.formula(), 0, BooleanConstant.FALSE, and);
                 ret = interpreter.factory().accumulate(and);
                 break;
             case SOME :
                 final BooleanAccumulator or = BooleanAccumulator.treeGate(Operator.OR);
-                some(quantFormula.decls(), quantFormula.formula(), 0, BooleanConstant.TRUE, or);
+                if (parts > 1)
+                    ground(quantFormula, parts, or);
+                else
+                    some(quantFormula.decls(), quantFormula.formula(), 0, BooleanConstant.TRUE, or);
                 ret = interpreter.factory().accumulate(or);
                 break;
             default :
@@ -196,6 +196,22 @@ final class LeafInterpreter {
         return maxLit - minVar;
     }
 
+    /**
+     * Returns an interpreter with the same bindings as this one, whose factory is a
+     * {@linkplain BooleanFactory#replica() replica} of this.factory. The returned
+     * interpreter maps each relation to the same variable labels as this one, so
+     * that circuits built with it can be copied back into this.factory.
+     *
+     * @requires this.factory.maxVariable() = this.factory.numberOfVariables()
+     * @return some l: LeafInterpreter | l.universe = this.universe && l.relations =
+     *         this.relations && l.ints = this.ints && l.lbounds = this.lbounds &&
+     *         l.ubounds = this.ubounds && l.ibounds = this.ibounds && l.factory =
+     *         this.factory.replica() && l.vars.label = this.vars.label
+     */
+    final LeafInterpreter replica() {
+        return new LeafInterpreter(universe, lowers, uppers, ints, factory.replica(), vars);
+    }
+
     /**
      * Returns this.factory.
      *
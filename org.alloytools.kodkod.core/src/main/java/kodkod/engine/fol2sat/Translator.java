@@ -767,7 +767,7 @@ public final class Translator {
             circuit.add(breaker.generateSBP(interpreter, options));
             return toCNF((BooleanFormula) factory.accumulate(circuit), interpreter, log);
         } else {
-            BooleanValue circuit = (BooleanValue) FOL2BoolTranslator.translate(annotated, interpreter);
+            BooleanValue circuit = FOL2BoolTranslator.translate(annotated, interpreter, options.groundingThreads());
             if (circuit.op() == Operator.CONST) {
                 return trivial((BooleanConstant) circuit, null);
             }
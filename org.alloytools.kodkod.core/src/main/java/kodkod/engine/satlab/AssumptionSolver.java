@@ -0,0 +1,44 @@
+/*
+ * Kodkod -- Copyright (c) 2005-present, Emina Torlak
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package kodkod.engine.satlab;
+
+/**
+ * A SAT solver that can solve its clauses under assumptions, which hold only
+ * for one call.
+ */
+interface AssumptionSolver extends SATSolver {
+
+    /**
+     * Returns true if there is a satisfying assignment for this.clauses that
+     * satisfies the given literals. Otherwise returns false. Unlike
+     * {@link SATSolver#solve()}, an unsatisfiable outcome does not prevent
+     * further calls, since the assumptions are dropped afterwards.
+     *
+     * @requires all i: [0..assumptions.length) | abs(assumptions[i]) in
+     *           this.variables
+     * @return true if this.clauses and the assumptions are satisfiable; otherwise
+     *         false.
+     * @throws SATAbortedException the call to solve was cancelled or could not
+     *             terminate normally.
+     */
+    boolean solve(int[] assumptions) throws SATAbortedException;
+}
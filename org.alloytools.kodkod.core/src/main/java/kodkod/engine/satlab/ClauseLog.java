@@ -0,0 +1,143 @@
+/*
+ * Kodkod -- Copyright (c) 2005-present, Emina Torlak
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package kodkod.engine.satlab;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * A log of zero-terminated clauses, kept in a direct buffer in native byte
+ * order so that native solvers read it in place. Offsets into the log are
+ * absolute: they count all the ints ever added, including those that were
+ * discarded.
+ *
+ * @specfield ints: seq int
+ * @specfield discarded: [0..#ints]
+ */
+final class ClauseLog {
+
+    private IntBuffer buffer;
+    // the number of ints discarded from the buffer, and the number that may be
+    private long      discarded, discardable;
+
+    /**
+     * Constructs an empty log with the given initial capacity.
+     *
+     * @requires capacity > 0
+     */
+    ClauseLog(int capacity) {
+        this.buffer = allocate(capacity);
+    }
+
+    private static IntBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    /**
+     * Returns the number of ints ever added to this log.
+     *
+     * @return #this.ints
+     */
+    long size() {
+        return discarded + buffer.position();
+    }
+
+    /**
+     * Appends the given clause to this log.
+     *
+     * @ensures this.ints' = this.ints + lits + 0
+     */
+    void add(int[] lits) {
+        ensure(lits.length + 1);
+        buffer.put(lits).put(0);
+    }
+
+    /**
+     * Appends the zero-terminated clauses between the position and the limit of
+     * the given buffer to this log, and returns their number. The position of the
+     * buffer is set to its limit.
+     *
+     * @ensures this.ints' = this.ints + lits
+     * @return number of clauses in lits
+     */
+    int add(IntBuffer lits) {
+        final int start = lits.position(), limit = lits.limit();
+        ensure(limit - start);
+        buffer.put(lits);
+        int added = 0;
+        for (int i = start; i < limit; i++) {
+            if (lits.get(i) == 0)
+                added++;
+        }
+        return added;
+    }
+
+    /**
+     * Returns a view of the ints of this log from the given offset to its end.
+     * The view is invalidated by the next call to add.
+     *
+     * @requires this.discarded <= offset <= #this.ints
+     * @return a direct buffer in native byte order whose remaining ints are
+     *         this.ints[offset..#this.ints)
+     */
+    IntBuffer from(long offset) {
+        if (offset < discarded || offset > size())
+            throw new IndexOutOfBoundsException("offset " + offset + " !in [" + discarded + ".." + size() + "]");
+        final IntBuffer view = buffer.duplicate();
+        view.limit(buffer.position()).position((int) (offset - discarded));
+        return view;
+    }
+
+    /**
+     * Allows the ints before the given offset to be discarded the next time the
+     * log needs room.
+     *
+     * @requires offset <= #this.ints
+     * @ensures this.discarded <= this.discarded' <= offset
+     */
+    void discard(long offset) {
+        discardable = Math.max(discardable, offset);
+    }
+
+    /**
+     * Makes room for the given number of ints, discarding the ints that may be
+     * discarded and growing the buffer if needed.
+     *
+     * @ensures buffer.remaining() >= length
+     */
+    private void ensure(int length) {
+        if (buffer.remaining() >= length)
+            return;
+        final int drop = (int) (discardable - discarded);
+        buffer.flip();
+        buffer.position(drop);
+        if (buffer.remaining() + length > buffer.capacity()) {
+            final IntBuffer grown = allocate((int) Math.min(Integer.MAX_VALUE / Integer.BYTES, Math.max(2L * buffer.capacity(), (long) buffer.remaining() + length)));
+            grown.put(buffer);
+            buffer = grown;
+        } else {
+            buffer.compact();
+        }
+        discarded += drop;
+    }
+}
@@ -0,0 +1,456 @@
+/*
+ * Kodkod -- Copyright (c) 2005-present, Emina Torlak
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package kodkod.engine.satlab;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A SAT solver that splits its clauses into cubes and conquers them in
+ * parallel. The clauses are kept in a log. On each call to {@link #solve()},
+ * the solver picks the split variables among the variables in
+ * [1..maxSplitVariable] that occur most often in both polarities, and
+ * generates one cube per assignment of the split variables. A pool of workers
+ * solves the cubes, each on its own instance of the underlying factory that is
+ * given all the clauses. Instances that can solve under assumptions are reused
+ * across cubes; the others are given the cube as unit clauses and replaced
+ * after each cube. The solver stops at the first satisfiable cube, and the
+ * clauses are unsatisfiable once every cube is closed.
+ *
+ * @specfield factory: SATFactory
+ * @specfield depth: int // the maximum number of split variables
+ * @specfield maxSplitVariable: int
+ */
+public final class CubeSolver implements SATSolver {
+
+    /**
+     * The initial number of ints in the clause log.
+     */
+    private static final int             CAPACITY  = 1 << 14;
+
+    /**
+     * The maximum number of split variables.
+     */
+    static final int                     MAX_DEPTH = 8;
+
+    private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "sat-cube");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final SATFactory             factory;
+    private final int                    depth, threads;
+    private final ClauseLog              log;
+    private int                          vars, clauses, maxSplitVariable, cubes;
+    private Boolean                      sat;
+    private SATSolver                    winner;
+
+    /**
+     * Constructs a cube solver that splits on at most the given number of
+     * variables, and conquers the cubes with the given number of workers.
+     *
+     * @requires 0 <= depth <= MAX_DEPTH && threads > 0
+     * @ensures this.factory' = factory && this.depth' = depth &&
+     *          this.maxSplitVariable' = Integer.MAX_VALUE
+     */
+    CubeSolver(SATFactory factory, int depth, int threads) {
+        if (depth < 0 || depth > MAX_DEPTH || threads < 1)
+            throw new IllegalArgumentException("depth=" + depth + ", threads=" + threads);
+        this.factory = factory;
+        this.depth = depth;
+        this.threads = threads;
+        this.log = new ClauseLog(CAPACITY);
+        this.maxSplitVariable = Integer.MAX_VALUE;
+        this.sat = null;
+    }
+
+    /**
+     * Restricts the split variables to [1..maxVariable], such as the primary
+     * variables of a translation.
+     *
+     * @ensures this.maxSplitVariable' = maxVariable
+     */
+    public void setMaxSplitVariable(int maxVariable) {
+        this.maxSplitVariable = maxVariable;
+    }
+
+    /**
+     * Returns the number of cubes generated by the last call to {@link #solve()}.
+     *
+     * @return number of cubes generated by the last call to solve
+     */
+    public int numberOfCubes() {
+        return cubes;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see kodkod.engine.satlab.SATSolver#numberOfVariables()
+     */
+    @Override
+    public int numberOfVariables() {
+        return vars;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see kodkod.engine.satlab.SATSolver#numberOfClauses()
+     */
+    @Override
+    public int numberOfClauses() {
+        return clauses;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see kodkod.engine.satlab.SATSolver#addVariables(int)
+     */
+    @Override
+    public void addVariables(int numVars) {
+        if (numVars < 0)
+            throw new IllegalArgumentException("vars < 0: " + numVars);
+        vars += numVars;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see kodkod.engine.satlab.SATSolver#addClause(int[])
+     */
+    @Override
+    public boolean addClause(int[] lits) {
+        log.add(lits);
+        clauses++;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see kodkod.engine.satlab.SATSolver#addClauses(IntBuffer)
+     */
+    @Override
+    public int addClauses(IntBuffer lits) {
+        final int added = log.add(lits);
+        clauses += added;
+        return added;
+    }
+
+    /**
+     * Returns the split variables: at most this.depth variables in
+     * [1..this.maxSplitVariable] that occur in both polarities, ordered by
+     * decreasing product of their positive and negative occurrences, a cheap
+     * estimate of how evenly and how much a variable splits the clauses.
+     *
+     * @return split variables
+     */
+    int[] splitVariables() {
+        final int max = Math.min(vars, maxSplitVariable);
+        if (depth == 0 || max < 1)
+            return new int[0];
+        final int[] positive = new int[max + 1], negative = new int[max + 1];
+        final IntBuffer lits = log.from(0);
+        while (lits.hasRemaining()) {
+            final int lit = lits.get();
+            if (lit > 0 && lit <= max)
+                positive[lit]++;
+            else if (lit < 0 && -lit <= max)
+                negative[-lit]++;
+        }
+        // the best variables so far, by decreasing score
+        final int[] best = new int[depth];
+        final long[] scores = new long[depth];
+        int size = 0;
+        for (int var = 1; var <= max; var++) {
+            final long score = (long) positive[var] * negative[var];
+            if (score == 0 || (size == depth && score <= scores[size - 1]))
+                continue;
+            int i = size == depth ? size - 1 : size++;
+            for (; i > 0 && scores[i - 1] < score; i--) {
+                scores[i] = scores[i - 1];
+                best[i] = best[i - 1];
+            }
+            scores[i] = score;
+            best[i] = var;
+        }
+        final int[] split = new int[size];
+        System.arraycopy(best, 0, split, 0, size);
+        return split;
+    }
+
+    /**
+     * Returns the cubes over the given variables: all their assignments.
+     *
+     * @return the cubes over the given variables
+     */
+    static List<int[]> cubes(int[] split) {
+        final List<int[]> cubes = new ArrayList<int[]>(1 << split.length);
+        for (int signs = 0; signs < 1 << split.length; signs++) {
+            final int[] cube = new int[split.length];
+            for (int i = 0; i < split.length; i++) {
+                cube[i] = (signs & (1 << i)) == 0 ? split[i] : -split[i];
+            }
+            cubes.add(cube);
+        }
+        return cubes;
+    }
+
+    /**
+     * The cubes of one call to {@link CubeSolver#solve()} and the workers that
+     * conquer them. Workers that cannot be aborted may outlive the call; they
+     * stop taking cubes once the conquest is over.
+     */
+    private final class Conquest {
+
+        final ConcurrentLinkedQueue<int[]> queue;
+        final List<Worker>                 workers = new ArrayList<Worker>();
+        SATSolver                          winner;
+        SATAbortedException                failure;
+        int                                running;
+
+        Conquest(List<int[]> cubes) {
+            this.queue = new ConcurrentLinkedQueue<int[]>(cubes);
+        }
+
+        synchronized boolean over() {
+            return winner != null || failure != null;
+        }
+
+        /**
+         * Makes the given instance the winner, unless the conquest is over, and
+         * aborts the other workers.
+         *
+         * @return true if the instance won
+         */
+        synchronized boolean won(SATSolver instance) {
+            if (over())
+                return false;
+            winner = instance;
+            stop();
+            return true;
+        }
+
+        /**
+         * Records the failure of a worker, which leaves its cube open, and aborts
+         * the other workers.
+         */
+        synchronized void failed(RuntimeException e) {
+            if (failure == null)
+                failure = e instanceof SATAbortedException ? (SATAbortedException) e : new SATAbortedException(e);
+            stop();
+        }
+
+        /**
+         * Ends the conquest, and aborts the workers other than the winner.
+         */
+        synchronized void stop() {
+            queue.clear();
+            for (Worker worker : workers) {
+                worker.abort();
+            }
+            notifyAll();
+        }
+
+        synchronized void done() {
+            running--;
+            notifyAll();
+        }
+
+        /**
+         * Waits until a cube is satisfiable, a worker failed, or every cube is
+         * closed.
+         */
+        synchronized void await() throws InterruptedException {
+            while (!over() && running > 0) {
+                wait();
+            }
+        }
+    }
+
+    /**
+     * A worker that conquers cubes until there are none left or the conquest is
+     * over.
+     */
+    private final class Worker implements Runnable {
+
+        private final Conquest     conquest;
+        private volatile SATSolver instance;
+
+        Worker(Conquest conquest) {
+            this.conquest = conquest;
+        }
+
+        @Override
+        public void run() {
+            boolean won = false;
+            try {
+                int[] cube;
+                while (!conquest.over() && (cube = conquest.queue.poll()) != null) {
+                    if (instance == null)
+                        instance = instance();
+                    if (conquest.over())
+                        break;
+                    final boolean outcome;
+                    if (instance instanceof AssumptionSolver) {
+                        outcome = ((AssumptionSolver) instance).solve(cube);
+                    } else {
+                        for (int lit : cube) {
+                            instance.addClause(new int[] {
+                                                          lit
+                            });
+                        }
+                        outcome = instance.solve();
+                    }
+                    if (outcome) {
+                        won = conquest.won(instance);
+                        return;
+                    }
+                    if (!(instance instanceof AssumptionSolver)) {
+                        instance.free();
+                        instance = null;
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (!conquest.over())
+                    conquest.failed(e);
+            } finally {
+                if (instance != null && !won)
+                    instance.free();
+                conquest.done();
+            }
+        }
+
+        /**
+         * Aborts the running cube, if its instance supports it and did not win the
+         * conquest.
+         */
+        void abort() {
+            final SATSolver running = instance;
+            if (running instanceof AbortableSolver && running != conquest.winner)
+                ((AbortableSolver) running).abort();
+        }
+    }
+
+    /**
+     * Returns a new instance of this.factory that is given all the variables and
+     * clauses.
+     */
+    private SATSolver instance() {
+        final SATSolver instance = factory.instance();
+        instance.addVariables(vars);
+        instance.addClauses(log.from(0));
+        return instance;
+    }
+
+    /**
+     * {@inheritDoc} The cubes are conquered in parallel.
+     *
+     * @see kodkod.engine.satlab.SATSolver#solve()
+     */
+    @Override
+    public boolean solve() throws SATAbortedException {
+        if (sat == Boolean.FALSE)
+            return false;
+        if (winner != null) {
+            winner.free();
+            winner = null;
+        }
+        final List<int[]> all = cubes(splitVariables());
+        cubes = all.size();
+        final Conquest conquest = new Conquest(all);
+        synchronized (conquest) {
+            for (int i = Math.min(threads, cubes); i > 0; i--) {
+                final Worker worker = new Worker(conquest);
+                conquest.workers.add(worker);
+                conquest.running++;
+                executor.execute(worker);
+            }
+        }
+        try {
+            conquest.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            conquest.failed(new SATAbortedException(e));
+        }
+        synchronized (conquest) {
+            if (conquest.winner != null) {
+                winner = conquest.winner;
+                sat = Boolean.TRUE;
+            } else if (conquest.failure != null) {
+                throw conquest.failure;
+            } else {
+                sat = Boolean.FALSE;
+            }
+        }
+        return sat;
+    }
+
+    /**
+     * {@inheritDoc} The value is the one assigned by the instance that solved the
+     * satisfiable cube.
+     *
+     * @see kodkod.engine.satlab.SATSolver#valueOf(int)
+     */
+    @Override
+    public boolean valueOf(int variable) {
+        if (sat != Boolean.TRUE)
+            throw new IllegalStateException();
+        if (variable < 1 || variable > vars)
+            throw new IllegalArgumentException(variable + " !in [1.." + vars + "]");
+        return winner.valueOf(variable);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see kodkod.engine.satlab.SATSolver#free()
+     */
+    @Override
+    public synchronized void free() {
+        if (winner != null) {
+            winner.free();
+            winner = null;
+        }
+        sat = Boolean.FALSE;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "cubes(" + factory + ", " + depth + ")";
+    }
+}
@@ -29,27 +29,48 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
  * An implementation of a wrapper for an external SAT solver, executed in a
- * separate process.
+ * separate process. The clauses are either written to a cnf file, which is
+ * passed to the solver when {@link #solve()} is called, or piped to the
+ * standard input of a solver that is started when the first block of clauses
+ * is written.
  *
  * @author Emina Torlak
  */
-final class ExternalSolver implements SATSolver {
+final class ExternalSolver implements AbortableSolver {
 
-    private final StringBuilder    buffer;
-    private final int              capacity = 8192;
-    private final boolean          deleteTemp;
-    private final String           executable, inTemp;
-    private final String[]         options;
-    private final RandomAccessFile cnf;
-    private final BitSet           solution;
-    private volatile Boolean       sat;
-    private volatile int           vars, clauses;
+    /**
+     * The maximum number of bytes of a literal followed by a space.
+     */
+    private static final int    LITERAL_LENGTH = String.valueOf(Integer.MIN_VALUE).length() + 1;
+
+    private final ByteBuffer    buffer;
+    private final int           capacity       = 1 << 16;
+    private final byte[]        digits         = new byte[LITERAL_LENGTH];
+    private final boolean       deleteTemp;
+    private final String        executable, inTemp;
+    private final String[]      options;
+    private final FileChannel   cnf;
+    private WritableByteChannel input;
+    private volatile Process    process;
+    private FutureTask<Boolean> outcome;
+    private final BitSet        solution;
+    private volatile Boolean    sat;
+    private volatile int        vars, clauses;
 
     /**
      * Constructs an ExternalSolver that will execute the specified binary with the
@@ -57,28 +78,41 @@ final class ExternalSolver implements SATSolver {
      * initialized to contain all clauses added to this solver via the
      * {@link #addClause(int[])} method. The solver is assumed to write its output
      * to standard out. The {@code deleteTemp} flag indicates whether the temporary
-     * files should be deleted when they are no longer needed by this solver.
+     * files should be deleted when they are no longer needed by this solver. If
+     * {@code inTemp} is null, the clauses are instead piped to the standard input
+     * of the solver, which is started with the given options when the first block
+     * of clauses is written, so that it parses the clauses while they are being
+     * generated. Since the number of clauses is not known at that point, the
+     * header only counts the clauses of the first block, and the solver must
+     * accept a header that underestimates the number of clauses.
      */
     ExternalSolver(String executable, String inTemp, boolean deleteTemp, String... options) {
-        RandomAccessFile file = null;
-        try {
-            file = new RandomAccessFile(inTemp, "rw");
-            file.setLength(0);
-        } catch (FileNotFoundException e) {
-            throw new SATAbortedException(e);
-        } catch (IOException e) {
-            close(file);
-            throw new SATAbortedException(e);
+        if (inTemp == null) {
+            this.cnf = null;
+        } else {
+            RandomAccessFile file = null;
+            try {
+                file = new RandomAccessFile(inTemp, "rw");
+                file.setLength(0);
+            } catch (FileNotFoundException e) {
+                throw new SATAbortedException(e);
+            } catch (IOException e) {
+                close(file);
+                throw new SATAbortedException(e);
+            }
+            this.cnf = file.getChannel();
+            this.input = cnf;
         }
         this.deleteTemp = deleteTemp;
-        this.cnf = file;
-        // get enough space into the buffer for the cnf header, which will be
+        this.buffer = ByteBuffer.allocate(capacity);
+        // get enough space into the file for the cnf header, which will be
         // written last
-        this.buffer = new StringBuilder();
-        for (int i = headerLength(); i > 0; i--) {
-            buffer.append(" ");
+        if (cnf != null) {
+            for (int i = headerLength(); i > 0; i--) {
+                buffer.put((byte) ' ');
+            }
+            buffer.put((byte) '\n');
         }
-        buffer.append("\n");
         this.sat = null;
         this.solution = new BitSet();
         this.vars = 0;
@@ -116,19 +150,75 @@ final class ExternalSolver implements SATSolver {
     }
 
     /**
-     * Flushes the contents of the string buffer to the cnf file.
+     * Returns the header of the cnf with the given number of clauses.
+     *
+     * @return p cnf this.vars clauses
+     */
+    private final String header(int clauses) {
+        return "p cnf " + vars + " " + clauses;
+    }
+
+    /**
+     * Flushes the contents of the byte buffer to the cnf file or to the standard
+     * input of the solver, which is started if needed.
      */
     private final void flush() {
+        buffer.flip();
         try {
-            cnf.writeBytes(buffer.toString());
+            if (input == null) {
+                start();
+                write(ByteBuffer.wrap((header(clauses) + "\n").getBytes(StandardCharsets.US_ASCII)));
+            }
+            write(buffer);
         } catch (IOException e) {
-            close(cnf);
+            close(input);
             throw new SATAbortedException(e);
         } finally {
-            buffer.setLength(0);
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Writes the remaining bytes of the given buffer to this.input.
+     */
+    private final void write(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            input.write(bytes);
         }
     }
 
+    /**
+     * Appends the ASCII encoding of the given literal, followed by a space, to the
+     * byte buffer.
+     *
+     * @requires lit != Integer.MIN_VALUE
+     * @requires buffer.remaining() >= LITERAL_LENGTH
+     */
+    private final void append(int lit) {
+        if (lit < 0) {
+            buffer.put((byte) '-');
+            lit = -lit;
+        }
+        int start = digits.length;
+        do {
+            final int quotient = lit / 10;
+            digits[--start] = (byte) ('0' + lit - quotient * 10);
+            lit = quotient;
+        } while (lit != 0);
+        buffer.put(digits, start, digits.length - start);
+        buffer.put((byte) ' ');
+    }
+
+    /**
+     * Appends the clause terminator to the byte buffer.
+     */
+    private final void terminate() {
+        if (buffer.remaining() < 2)
+            flush();
+        buffer.put((byte) '0');
+        buffer.put((byte) '\n');
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -137,16 +227,38 @@ final class ExternalSolver implements SATSolver {
     @Override
     public boolean addClause(int[] lits) {
         clauses++;
-        if (buffer.length() > capacity)
-            flush();
         for (int lit : lits) {
-            buffer.append(lit);
-            buffer.append(" ");
+            if (buffer.remaining() < LITERAL_LENGTH)
+                flush();
+            append(lit);
         }
-        buffer.append("0\n");
+        terminate();
         return true;
     }
 
+    /**
+     * {@inheritDoc} The literals are encoded straight from the given buffer.
+     *
+     * @see kodkod.engine.satlab.SATSolver#addClauses(IntBuffer)
+     */
+    @Override
+    public int addClauses(IntBuffer lits) {
+        int added = 0;
+        while (lits.hasRemaining()) {
+            final int lit = lits.get();
+            if (lit == 0) {
+                terminate();
+                added++;
+            } else {
+                if (buffer.remaining() < LITERAL_LENGTH)
+                    flush();
+                append(lit);
+            }
+        }
+        clauses += added;
+        return added;
+    }
+
     /**
      * @see kodkod.engine.satlab.SATSolver#addVariables(int)
      */
@@ -162,12 +274,27 @@ final class ExternalSolver implements SATSolver {
      */
     @Override
     public synchronized void free() {
-        close(cnf);
+        close(input);
+        if (process != null) {
+            process.destroy();
+        }
         if (deleteTemp) {
             (new File(inTemp)).delete();
         }
     }
 
+    /**
+     * {@inheritDoc} The solver process is destroyed.
+     *
+     * @see kodkod.engine.satlab.AbortableSolver#abort()
+     */
+    @Override
+    public void abort() {
+        final Process running = process;
+        if (running != null)
+            running.destroy();
+    }
+
     /**
      * Releases the resources used by this external solver.
      */
@@ -194,8 +321,7 @@ final class ExternalSolver implements SATSolver {
     }
 
     /**
-     * @ensures |lit| <= this.vars && lit != 0 => this.solution'.set(|lit|, lit>0)
-     * @throws SATAbortedException lit=0 || |lit|>this.vars
+     * Updates the solution with the given literal.
      */
     private final void updateSolution(int lit) {
         int abs = StrictMath.abs(lit);
@@ -205,75 +331,131 @@ final class ExternalSolver implements SATSolver {
             throw new SATAbortedException("Invalid variable value: |" + lit + "| !in [1.." + vars + "]");
     }
 
+    /**
+     * Starts the solver on the cnf file, or on its standard input if there is no
+     * cnf file, and starts reading its outcome.
+     *
+     * @ensures this.process' is the started solver and this.outcome' is running
+     */
+    private final void start() throws IOException {
+        final int files = inTemp == null ? 0 : 1;
+        final String[] command = new String[options.length + 1 + files];
+        command[0] = executable;
+        System.arraycopy(options, 0, command, 1, options.length);
+        if (inTemp != null)
+            command[command.length - 1] = inTemp;
+        process = Runtime.getRuntime().exec(command);
+        daemon(drain(process.getErrorStream()), executable + " stderr");
+        final BufferedReader out = outputReader(process);
+        // the output is read while the clauses are piped, so that the solver
+        // never blocks on a full output pipe
+        outcome = new FutureTask<Boolean>(new Callable<Boolean>() {
+
+            @Override
+            public Boolean call() throws IOException {
+                return readOutcome(out);
+            }
+        });
+        daemon(outcome, executable + " outcome");
+        if (inTemp == null) {
+            input = Channels.newChannel(process.getOutputStream());
+        } else {
+            close(process.getOutputStream());
+        }
+    }
+
     /**
      * @see kodkod.engine.satlab.SATSolver#solve()
      */
     @Override
-    @SuppressWarnings("resource" ) // suppressing spurious warning about "out"
-                                  // not being closed (it is, in the finally
-                                  // block)
     public boolean solve() throws SATAbortedException {
         if (sat == null) {
             flush();
-            Process p = null;
-            BufferedReader out = null;
             try {
-                cnf.seek(0);
-                cnf.writeBytes("p cnf " + vars + " " + clauses);
-                cnf.close();
-
-                final String[] command = new String[options.length + 2];
-                command[0] = executable;
-                System.arraycopy(options, 0, command, 1, options.length);
-                command[command.length - 1] = inTemp;
-                p = Runtime.getRuntime().exec(command);
-                new Thread(drain(p.getErrorStream())).start();
-                out = outputReader(p);
-                String line = null;
-                while ((line = out.readLine()) != null) {
-                    String[] tokens = line.split("\\s");
-                    int tlength = tokens.length;
-                    if (tlength > 0) {
-                        if (tokens[0].compareToIgnoreCase("s") == 0) {
-                            if (tlength == 2) {
-                                if (tokens[1].compareToIgnoreCase("SATISFIABLE") == 0) {
-                                    sat = Boolean.TRUE;
-                                    continue;
-                                } else if (tokens[1].compareToIgnoreCase("UNSATISFIABLE") == 0) {
-                                    sat = Boolean.FALSE;
-                                    continue;
-                                }
-                            }
-                            throw new SATAbortedException("Invalid " + executable + " output. Line: " + line);
-                        } else if (tokens[0].compareToIgnoreCase("v") == 0) {
-                            int last = tlength - 1;
-                            for (int i = 1; i < last; i++) {
-                                updateSolution(Integer.parseInt(tokens[i]));
-                            }
-                            int lit = Integer.parseInt(tokens[last]);
-                            if (lit != 0)
-                                updateSolution(lit);
-                            else if (sat != null)
-                                break;
-                        } // not a solution line or a variable line, so ignore
-                         // it.
-                    }
-                }
-                if (sat == null) {
-                    throw new SATAbortedException("Invalid " + executable + " output: no line specifying the outcome.");
+                if (cnf != null) {
+                    cnf.write(ByteBuffer.wrap(header(clauses).getBytes(StandardCharsets.US_ASCII)), 0);
+                    cnf.close();
+                    start();
+                } else {
+                    input.close();
                 }
+                sat = outcome.get();
             } catch (IOException e) {
                 throw new SATAbortedException(e);
-            } catch (NumberFormatException e) {
-                throw new SATAbortedException("Invalid " + executable + " output: encountered a non-integer variable token.", e);
+            } catch (InterruptedException e) {
+                throw new SATAbortedException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof SATAbortedException)
+                    throw (SATAbortedException) e.getCause();
+                throw new SATAbortedException(e.getCause());
             } finally {
-                close(cnf);
-                close(out);
+                close(input);
             }
         }
         return sat;
     }
 
+    /**
+     * Reads the outcome and the solution of the solver from the given reader,
+     * which is closed once it is read.
+     *
+     * @return true if the solver found the clauses satisfiable; otherwise false.
+     * @throws SATAbortedException the output is not properly formatted
+     */
+    private Boolean readOutcome(BufferedReader out) throws IOException {
+        Boolean outcome = null;
+        try {
+            String line = null;
+            while ((line = out.readLine()) != null) {
+                String[] tokens = line.split("\\s");
+                int tlength = tokens.length;
+                if (tlength > 0) {
+                    if (tokens[0].compareToIgnoreCase("s") == 0) {
+                        if (tlength == 2) {
+                            if (tokens[1].compareToIgnoreCase("SATISFIABLE") == 0) {
+                                outcome = Boolean.TRUE;
+                                continue;
+                            } else if (tokens[1].compareToIgnoreCase("UNSATISFIABLE") == 0) {
+                                outcome = Boolean.FALSE;
+                                continue;
+                            }
+                        }
+                        throw new SATAbortedException("Invalid " + executable + " output. Line: " + line);
+                    } else if (tokens[0].compareToIgnoreCase("v") == 0) {
+                        int last = tlength - 1;
+                        for (int i = 1; i < last; i++) {
+                            updateSolution(Integer.parseInt(tokens[i]));
+                        }
+                        int lit = Integer.parseInt(tokens[last]);
+                        if (lit != 0)
+                            updateSolution(lit);
+                        else if (outcome != null)
+                            break;
+                    } // not a solution line or a variable line, so ignore
+                     // it.
+                }
+            }
+            if (outcome == null) {
+                throw new SATAbortedException("Invalid " + executable + " output: no line specifying the outcome.");
+            }
+            return outcome;
+        } catch (NumberFormatException e) {
+            throw new SATAbortedException("Invalid " + executable + " output: encountered a non-integer variable token.", e);
+        } finally {
+            close(out);
+        }
+    }
+
+    /**
+     * Runs the given runnable on a new daemon thread with the given name, so that
+     * a solver that never exits does not keep the JVM alive.
+     */
+    private static void daemon(Runnable runnable, String name) {
+        final Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     /**
      * Returns a runnable that drains the specified input stream.
      *
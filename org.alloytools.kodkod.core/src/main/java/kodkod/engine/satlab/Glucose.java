@@ -21,6 +21,8 @@
  */
 package kodkod.engine.satlab;
 
+import java.nio.IntBuffer;
+
 /**
  * Java wrapper for the Glucose solver by G. Audemard and L. Simon.
  *
@@ -80,6 +82,14 @@ final class Glucose extends NativeSolver {
     @Override
     native boolean addClause(long peer, int[] lits);
 
+    /**
+     * {@inheritDoc}
+     *
+     * @see kodkod.engine.satlab.NativeSolver#addClauses(long, IntBuffer, int, int)
+     */
+    @Override
+    native int addClauses(long peer, IntBuffer lits, int offset, int length);
+
     /**
      * {@inheritDoc}
      *
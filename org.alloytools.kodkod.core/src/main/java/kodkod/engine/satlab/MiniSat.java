@@ -21,6 +21,8 @@
  */
 package kodkod.engine.satlab;
 
+import java.nio.IntBuffer;
+
 /**
  * Java wrapper for the MiniSat solver by Niklas E&eacute;n and Niklas
  * S&ouml;rensson.
@@ -81,6 +83,14 @@ final class MiniSat extends NativeSolver {
     @Override
     native boolean addClause(long peer, int[] lits);
 
+    /**
+     * {@inheritDoc}
+     *
+     * @see kodkod.engine.satlab.NativeSolver#addClauses(long, IntBuffer, int, int)
+     */
+    @Override
+    native int addClauses(long peer, IntBuffer lits, int offset, int length);
+
     /**
      * {@inheritDoc}
      *
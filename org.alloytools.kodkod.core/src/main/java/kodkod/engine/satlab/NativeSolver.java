@@ -22,6 +22,10 @@
 package kodkod.engine.satlab;
 
 import java.io.File;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.alloytools.nativecode.util.NativeCode;
 
@@ -32,6 +36,12 @@ import org.alloytools.nativecode.util.NativeCode;
  */
 abstract class NativeSolver implements SATSolver {
 
+    /**
+     * The wrappers whose libraries have no bulk entry point, such as libraries
+     * built before {@link #addClauses(long, IntBuffer, int, int)} was added.
+     */
+    private static final Set<Class< ? extends NativeSolver>> unbatched = ConcurrentHashMap.newKeySet();
+
     /**
      * The memory address of the native instance wrapped by this wrapper.
      */
@@ -147,6 +157,33 @@ abstract class NativeSolver implements SATSolver {
         return false;
     }
 
+    /**
+     * {@inheritDoc} The clauses of a direct buffer in native byte order are
+     * passed to the native peer in a single call, which reads them in place.
+     *
+     * @see kodkod.engine.satlab.SATSolver#addClauses(IntBuffer)
+     * @see #addClauses(long, IntBuffer, int, int)
+     */
+    @Override
+    public final int addClauses(IntBuffer lits) {
+        if (lits.isDirect() && lits.order() == ByteOrder.nativeOrder() && !unbatched.contains(getClass())) {
+            final int added;
+            try {
+                added = addClauses(peer, lits, lits.position(), lits.remaining());
+            } catch (UnsatisfiedLinkError e) {
+                unbatched.add(getClass());
+                return SATSolver.super.addClauses(lits);
+            }
+            if (added >= 0) {
+                lits.position(lits.limit());
+                clauses += added;
+                return added;
+            }
+            unbatched.add(getClass());
+        }
+        return SATSolver.super.addClauses(lits);
+    }
+
     /**
      * Returns a pointer to the C++ peer class (the native instance wrapped by this
      * object).
@@ -261,6 +298,25 @@ abstract class NativeSolver implements SATSolver {
      */
     abstract boolean addClause(long peer, int[] lits);
 
+    /**
+     * Ensures that the given native peer logically contains the zero-terminated
+     * clauses stored in the given direct buffer from the given offset, and returns
+     * the number of clauses after which the peer's clause database was still
+     * consistent, or a negative integer if the peer has no bulk entry point. The
+     * position of the buffer is not changed.
+     *
+     * @requires lits.isDirect() && lits.order() = ByteOrder.nativeOrder()
+     * @requires lits.get(offset + length - 1) = 0
+     * @ensures ensures that the given native peer logically contains the specified
+     *          clauses
+     * @return number of clauses after which the peer's clause database was
+     *         consistent, or a negative integer if the peer cannot add clauses in
+     *         bulk
+     */
+    int addClauses(long peer, IntBuffer lits, int offset, int length) {
+        return -1;
+    }
+
     /**
      * Calls the solve method on the given native peer.
      *
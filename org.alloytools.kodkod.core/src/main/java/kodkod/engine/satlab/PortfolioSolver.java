@@ -0,0 +1,366 @@
+/*
+ * Kodkod -- Copyright (c) 2005-present, Emina Torlak
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package kodkod.engine.satlab;
+
+import java.nio.IntBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A SAT solver that races several solvers on the same clauses. The clauses are
+ * appended to a shared log, from which each member catches up before it
+ * solves. All idle members solve concurrently; the first answer wins, and the
+ * other members are aborted if they are {@link AbortableSolver abortable}.
+ * Members that cannot be aborted keep running in the background, and they
+ * skip the races that start before they are done, so that incremental use
+ * never waits for the slowest member.
+ *
+ * @specfield members: some SATSolver
+ * @invariant all m: members | [[m.clauses]] in [[this.clauses]]
+ */
+final class PortfolioSolver implements SATSolver {
+
+    /**
+     * The initial number of ints in the clause log.
+     */
+    private static final int             CAPACITY = 1 << 14;
+
+    private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "sat-portfolio");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /**
+     * A member of the portfolio and its progress through the clause log.
+     */
+    private static final class Member {
+
+        final SATSolver   solver;
+        /**
+         * The offset of the first clause of the log that the solver has not been
+         * given yet.
+         */
+        long              consumed;
+        /**
+         * The outcome of the last call to solve.
+         */
+        volatile Boolean  outcome;
+        private boolean   solving, freed;
+        /**
+         * The monitor that is notified when the solver becomes idle.
+         */
+        private final Object idle;
+
+        Member(SATSolver solver, Object idle) {
+            this.solver = solver;
+            this.idle = idle;
+        }
+
+        synchronized boolean busy() {
+            return solving;
+        }
+
+        /**
+         * Solves the clauses of the solver, and frees it afterwards if it was freed
+         * in the meantime.
+         *
+         * @return this
+         */
+        Member solve() {
+            try {
+                outcome = solver.solve();
+                return this;
+            } finally {
+                synchronized (this) {
+                    solving = false;
+                    if (freed)
+                        solver.free();
+                }
+                synchronized (idle) {
+                    idle.notifyAll();
+                }
+            }
+        }
+
+        synchronized void started() {
+            solving = true;
+        }
+
+        /**
+         * Frees the solver now if it is idle, or once its running call to solve
+         * ends.
+         */
+        synchronized void free() {
+            if (!freed) {
+                freed = true;
+                if (!solving)
+                    solver.free();
+            }
+        }
+    }
+
+    private final Member[]  members;
+    /**
+     * The monitor that the members notify when they become idle.
+     */
+    private final Object    idle = new Object();
+    private final ClauseLog log;
+    private Boolean         sat;
+    private SATSolver       winner;
+    private int             vars, clauses;
+
+    /**
+     * Constructs a portfolio of the given solvers, which have no variables and
+     * no clauses.
+     *
+     * @requires solvers.length > 0
+     * @ensures this.members' = solvers[int]
+     */
+    PortfolioSolver(SATSolver... solvers) {
+        if (solvers.length == 0)
+            throw new IllegalArgumentException("no solvers");
+        this.members = new Member[solvers.length];
+        for (int i = 0; i < solvers.length; i++) {
+            members[i] = new Member(solvers[i], idle);
+        }
+        this.log = new ClauseLog(CAPACITY);
+        this.sat = null;
+        this.vars = this.clauses = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see kodkod.engine.satlab.SATSolver#numberOfVariables()
+     */
+    @Override
+    public int numberOfVariables() {
+        return vars;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see kodkod.engine.satlab.SATSolver#numberOfClauses()
+     */
+    @Override
+    public int numberOfClauses() {
+        return clauses;
+    }
+
+    /**
+     * {@inheritDoc} The variables are added to each member when it next catches
+     * up with the clause log.
+     *
+     * @see kodkod.engine.satlab.SATSolver#addVariables(int)
+     */
+    @Override
+    public void addVariables(int numVars) {
+        if (numVars < 0)
+            throw new IllegalArgumentException("vars < 0: " + numVars);
+        vars += numVars;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see kodkod.engine.satlab.SATSolver#addClause(int[])
+     */
+    @Override
+    public boolean addClause(int[] lits) {
+        log.add(lits);
+        clauses++;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see kodkod.engine.satlab.SATSolver#addClauses(IntBuffer)
+     */
+    @Override
+    public int addClauses(IntBuffer lits) {
+        final int added = log.add(lits);
+        clauses += added;
+        return added;
+    }
+
+    /**
+     * Gives the given member the variables and the clauses that it has not
+     * consumed yet.
+     *
+     * @requires !member.busy()
+     */
+    private void catchUp(Member member) {
+        final int newVars = vars - member.solver.numberOfVariables();
+        if (newVars > 0)
+            member.solver.addVariables(newVars);
+        if (member.consumed < log.size()) {
+            member.solver.addClauses(log.from(member.consumed));
+            member.consumed = log.size();
+        }
+    }
+
+    /**
+     * @return true if no member is idle
+     */
+    private boolean allBusy() {
+        for (Member member : members) {
+            if (!member.busy())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Waits until some member is idle.
+     */
+    private void awaitIdle() throws InterruptedException {
+        synchronized (idle) {
+            while (allBusy()) {
+                idle.wait();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc} The idle members race on the clauses, and the first answer
+     * wins.
+     *
+     * @see kodkod.engine.satlab.SATSolver#solve()
+     */
+    @Override
+    public boolean solve() throws SATAbortedException {
+        if (sat == Boolean.FALSE)
+            return false;
+        winner = null;
+        sat = null;
+        try {
+            // the members may all be busy after an interrupted race
+            awaitIdle();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SATAbortedException(e);
+        }
+        final CompletionService<Member> race = new ExecutorCompletionService<Member>(executor);
+        int racing = 0;
+        for (final Member member : members) {
+            if (member.busy())
+                continue;
+            catchUp(member);
+            member.started();
+            race.submit(new Callable<Member>() {
+
+                @Override
+                public Member call() {
+                    return member.solve();
+                }
+            });
+            racing++;
+        }
+        long consumed = log.size();
+        for (Member member : members) {
+            consumed = Math.min(consumed, member.consumed);
+        }
+        log.discard(consumed);
+        SATAbortedException failure = null;
+        try {
+            for (; racing > 0 && winner == null; racing--) {
+                try {
+                    final Member member = race.take().get();
+                    sat = member.outcome;
+                    winner = member.solver;
+                } catch (ExecutionException e) {
+                    if (failure == null)
+                        failure = e.getCause() instanceof SATAbortedException ? (SATAbortedException) e.getCause() : new SATAbortedException(e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = new SATAbortedException(e);
+            winner = null;
+        } finally {
+            for (Member member : members) {
+                if (member.solver != winner && member.busy() && member.solver instanceof AbortableSolver)
+                    ((AbortableSolver) member.solver).abort();
+            }
+        }
+        if (winner == null)
+            throw failure;
+        return sat;
+    }
+
+    /**
+     * {@inheritDoc} The value is the one assigned by the member that won the last
+     * race.
+     *
+     * @see kodkod.engine.satlab.SATSolver#valueOf(int)
+     */
+    @Override
+    public boolean valueOf(int variable) {
+        if (sat != Boolean.TRUE)
+            throw new IllegalStateException();
+        if (variable < 1 || variable > vars)
+            throw new IllegalArgumentException(variable + " !in [1.." + vars + "]");
+        return winner.valueOf(variable);
+    }
+
+    /**
+     * {@inheritDoc} The members that are still solving are freed once they are
+     * done.
+     *
+     * @see kodkod.engine.satlab.SATSolver#free()
+     */
+    @Override
+    public synchronized void free() {
+        for (Member member : members) {
+            if (member.busy() && member.solver instanceof AbortableSolver)
+                ((AbortableSolver) member.solver).abort();
+            member.free();
+        }
+        sat = Boolean.FALSE;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("portfolio(");
+        for (int i = 0; i < members.length; i++) {
+            if (i > 0)
+                builder.append(", ");
+            builder.append(members[i].solver);
+        }
+        return builder.append(")").toString();
+    }
+}
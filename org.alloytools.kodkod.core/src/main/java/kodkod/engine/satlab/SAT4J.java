@@ -21,8 +21,11 @@
  */
 package kodkod.engine.satlab;
 
+import java.nio.IntBuffer;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
 
+import org.sat4j.core.VecInt;
 import org.sat4j.specs.ContradictionException;
 import org.sat4j.specs.ISolver;
 import org.sat4j.specs.IVecInt;
@@ -34,11 +37,13 @@ import org.sat4j.specs.IteratorInt;
  *
  * @author Emina Torlak
  */
-final class SAT4J implements SATSolver {
+final class SAT4J implements AbortableSolver, AssumptionSolver {
 
     private ISolver               solver;
     private final ReadOnlyIVecInt wrapper;
+    private int[][]               clauseArrays;
     private Boolean               sat;
+    private volatile boolean      aborted;
     private int                   vars, clauses;
 
     /**
@@ -51,6 +56,7 @@ final class SAT4J implements SATSolver {
             throw new NullPointerException("solver");
         this.solver = solver;
         this.wrapper = new ReadOnlyIVecInt();
+        this.clauseArrays = new int[0][];
         this.sat = null;
         this.vars = this.clauses = 0;
     }
@@ -114,6 +120,44 @@ final class SAT4J implements SATSolver {
         return false;
     }
 
+    /**
+     * {@inheritDoc} The clauses are copied from the buffer into arrays that are
+     * reused for all clauses of the same length.
+     *
+     * @see kodkod.engine.satlab.SATSolver#addClauses(IntBuffer)
+     */
+    @Override
+    public int addClauses(IntBuffer lits) {
+        int added = 0;
+        for (int start = lits.position(), limit = lits.limit(), i = start; i < limit; i++) {
+            if (lits.get(i) == 0) {
+                final int[] clause = clauseArray(i - start);
+                lits.position(start);
+                lits.get(clause);
+                lits.get(); // the terminator
+                if (addClause(clause))
+                    added++;
+                start = i + 1;
+            }
+        }
+        if (lits.hasRemaining())
+            throw new IllegalArgumentException("unterminated clause at the end of the buffer");
+        return added;
+    }
+
+    /**
+     * Returns the reusable array for clauses of the given length.
+     *
+     * @return some a: int[] | a.length = length
+     */
+    private int[] clauseArray(int length) {
+        if (length >= clauseArrays.length)
+            clauseArrays = Arrays.copyOf(clauseArrays, Math.max(length + 1, clauseArrays.length * 2));
+        if (clauseArrays[length] == null)
+            clauseArrays[length] = new int[length];
+        return clauseArrays[length];
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -121,6 +165,8 @@ final class SAT4J implements SATSolver {
      */
     @Override
     public boolean solve() {
+        // an abort that came after the last call ended does not apply to this one
+        aborted = false;
         try {
             if (solver == null)
                 return false;
@@ -128,7 +174,49 @@ final class SAT4J implements SATSolver {
                 sat = Boolean.valueOf(solver.isSatisfiable());
             return sat;
         } catch (org.sat4j.specs.TimeoutException e) {
+            if (aborted)
+                throw new SATAbortedException("aborted");
             throw new RuntimeException("timed out");
+        } finally {
+            aborted = false;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see kodkod.engine.satlab.AssumptionSolver#solve(int[])
+     */
+    @Override
+    public boolean solve(int[] assumptions) {
+        aborted = false;
+        try {
+            if (solver == null || Boolean.FALSE.equals(sat))
+                return false;
+            // unsatisfiable assumptions leave the clauses open, and the solver
+            // may keep the assumptions, so they are not wrapped
+            sat = solver.isSatisfiable(new VecInt(assumptions.clone())) ? Boolean.TRUE : null;
+            return sat != null;
+        } catch (org.sat4j.specs.TimeoutException e) {
+            if (aborted)
+                throw new SATAbortedException("aborted");
+            throw new RuntimeException("timed out");
+        } finally {
+            aborted = false;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see kodkod.engine.satlab.AbortableSolver#abort()
+     */
+    @Override
+    public void abort() {
+        final ISolver running = solver;
+        if (running != null) {
+            aborted = true;
+            running.expireTimeout();
         }
     }
 
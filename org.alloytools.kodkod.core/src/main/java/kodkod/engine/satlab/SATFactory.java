@@ -330,7 +330,8 @@ public abstract class SATFactory {
      * temporary file, which will be deleted when the solver instance is
      * garbage-collected. The {@code cnf} file, if provided, is not automatically
      * deleted; it is the caller's responsibility to delete it when no longer
-     * needed. External solvers are never incremental.
+     * needed. Since the instances then share the file, they cannot solve
+     * concurrently. External solvers are never incremental.
      *
      * @return SATFactory that produces SATSolver wrappers for the specified
      *         external SAT solver
@@ -356,6 +357,48 @@ public abstract class SATFactory {
                 return false;
             }
 
+            @Override
+            public boolean concurrent() {
+                return cnf == null;
+            }
+
+            @Override
+            public String toString() {
+                return (new File(executable)).getName();
+            }
+        };
+    }
+
+    /**
+     * Returns a SATFactory that produces SATSolver wrappers for the external SAT
+     * solver specified by the executable parameter, which reads the cnf from its
+     * standard input. Each solver instance starts the solver with the specified
+     * options as soon as the first block of clauses is generated, and pipes the
+     * clauses to it while the translation is still running, so that no cnf file
+     * is written. Since the header is written before the number of clauses is
+     * known, it only counts the clauses of the first block; the solver must accept
+     * a header that underestimates the number of clauses, as MiniSat and Glucose
+     * do, or Lingeling with {@code --force}. The output format of the solver must conform to the
+     * <a href= "http://www.satcompetition.org/2011/rules.pdf">SAT competition
+     * standards</a>. External solvers are never incremental.
+     *
+     * @return SATFactory that produces SATSolver wrappers for the specified
+     *         external SAT solver, to which the clauses are piped
+     * @see #externalFactory(String, String, String...)
+     */
+    public static final SATFactory externalPipedFactory(final String executable, final String... options) {
+        return new SATFactory() {
+
+            @Override
+            public SATSolver instance() {
+                return new ExternalSolver(executable, null, false, options);
+            }
+
+            @Override
+            public boolean incremental() {
+                return false;
+            }
+
             @Override
             public String toString() {
                 return (new File(executable)).getName();
@@ -363,6 +406,119 @@ public abstract class SATFactory {
         };
     }
 
+    /**
+     * Returns a SATFactory that produces portfolios of the solvers generated by
+     * the given factories. A portfolio gives its clauses to all of its members,
+     * runs them concurrently on each call to solve, and answers with the first
+     * member that is done; the other members are aborted if they support it, and
+     * otherwise left to finish in the background. Since the members that win
+     * vary widely from one problem to the next, a portfolio is often faster than
+     * any single solver, at the cost of one thread per member. The portfolio is
+     * incremental if all its members are.
+     *
+     * @requires factories.length > 0
+     * @return SATFactory that produces portfolios of the solvers generated by the
+     *         given factories
+     */
+    public static final SATFactory portfolio(final SATFactory... factories) {
+        if (factories.length == 0)
+            throw new IllegalArgumentException("A portfolio needs at least one factory.");
+        final SATFactory[] members = factories.clone();
+        return new SATFactory() {
+
+            @Override
+            public SATSolver instance() {
+                final SATSolver[] solvers = new SATSolver[members.length];
+                try {
+                    for (int i = 0; i < members.length; i++) {
+                        solvers[i] = members[i].instance();
+                    }
+                } catch (RuntimeException | Error e) {
+                    for (SATSolver solver : solvers) {
+                        if (solver != null)
+                            solver.free();
+                    }
+                    throw e;
+                }
+                return new PortfolioSolver(solvers);
+            }
+
+            @Override
+            public boolean incremental() {
+                for (SATFactory member : members) {
+                    if (!member.incremental())
+                        return false;
+                }
+                return true;
+            }
+
+            @Override
+            public boolean concurrent() {
+                for (SATFactory member : members) {
+                    if (!member.concurrent())
+                        return false;
+                }
+                return true;
+            }
+
+            @Override
+            public String toString() {
+                final StringBuilder builder = new StringBuilder("portfolio(");
+                for (int i = 0; i < members.length; i++) {
+                    if (i > 0)
+                        builder.append(", ");
+                    builder.append(members[i]);
+                }
+                return builder.append(")").toString();
+            }
+        };
+    }
+
+    /**
+     * The maximum depth of {@link #cubeAndConquer(SATFactory, int, int)}.
+     */
+    public static final int MAX_CUBE_DEPTH = CubeSolver.MAX_DEPTH;
+
+    /**
+     * Returns a SATFactory that produces {@link CubeSolver cube solvers}, which
+     * split their clauses into at most 2^depth cubes and conquer them with the
+     * given number of instances of the given factory in parallel. The solvers are
+     * not incremental; the instances of the given factory are reused across cubes
+     * if they can solve under assumptions, as the SAT4J solvers do. Otherwise each
+     * cube is solved by a fresh instance that is given all the clauses, which is
+     * why the depth is at most MAX_CUBE_DEPTH. If the instances of the given factory cannot
+     * solve concurrently, the cubes are conquered one at a time.
+     *
+     * @requires 0 <= depth <= MAX_CUBE_DEPTH && threads > 0
+     * @return SATFactory that produces cube solvers over the given factory
+     */
+    public static final SATFactory cubeAndConquer(final SATFactory factory, final int depth, final int threads) {
+        if (depth < 0 || depth > CubeSolver.MAX_DEPTH || threads < 1)
+            throw new IllegalArgumentException("depth=" + depth + ", threads=" + threads);
+        return new SATFactory() {
+
+            @Override
+            public SATSolver instance() {
+                return new CubeSolver(factory, depth, factory.concurrent() ? threads : 1);
+            }
+
+            @Override
+            public boolean incremental() {
+                return false;
+            }
+
+            @Override
+            public boolean concurrent() {
+                return factory.concurrent();
+            }
+
+            @Override
+            public String toString() {
+                return "cubes(" + factory + ", " + depth + ")";
+            }
+        };
+    }
+
     /**
      * Returns an instance of a SATSolver produced by this factory.
      *
@@ -392,4 +548,16 @@ public abstract class SATFactory {
         return true;
     }
 
+    /**
+     * Returns true if the solvers returned by this.instance() can solve at the same
+     * time, on different threads. This is not the case of the solvers that share a
+     * resource, such as the external solvers that write their cnf to the same file.
+     *
+     * @return true if the solvers returned by this.instance() can solve
+     *         concurrently
+     */
+    public boolean concurrent() {
+        return true;
+    }
+
 }
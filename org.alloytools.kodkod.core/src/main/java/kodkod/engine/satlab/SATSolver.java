@@ -21,6 +21,9 @@
  */
 package kodkod.engine.satlab;
 
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
 /**
  * Provides an interface to a SAT solver.
  *
@@ -76,6 +79,44 @@ public interface SATSolver {
      */
     public abstract boolean addClause(int[] lits);
 
+    /**
+     * Adds the clauses between the position and the limit of the given buffer to
+     * this solver, and returns the number of clauses for which
+     * {@link #addClause(int[])} would have returned true. Each clause is a
+     * sequence of literals terminated by 0, so that the last literal before the
+     * limit is 0. The position of the buffer is set to its limit. The default
+     * implementation adds the clauses one by one; solvers that cross a native or
+     * process boundary on each clause add them in bulk instead, preferably when
+     * the buffer is direct.
+     *
+     * @requires all clauses in lits satisfy the requirements of addClause(int[])
+     * @ensures [[this.clauses']] = ([[this.clauses]] and [[lits]])
+     * @return number of clauses for which addClause(int[]) would have returned
+     *         true
+     * @throws NullPointerException lits = null
+     * @throws IllegalArgumentException the last literal of lits is not 0
+     * @see #addClause(int[])
+     */
+    public default int addClauses(IntBuffer lits) {
+        int[] clause = new int[16];
+        int size = 0, added = 0;
+        while (lits.hasRemaining()) {
+            final int lit = lits.get();
+            if (lit == 0) {
+                if (addClause(Arrays.copyOf(clause, size)))
+                    added++;
+                size = 0;
+            } else {
+                if (size == clause.length)
+                    clause = Arrays.copyOf(clause, size * 2);
+                clause[size++] = lit;
+            }
+        }
+        if (size > 0)
+            throw new IllegalArgumentException("unterminated clause at the end of the buffer");
+        return added;
+    }
+
     /**
      * Returns true if there is a satisfying assignment for this.clauses. Otherwise
      * returns false. If this.clauses are satisfiable, the satisfying assignment for
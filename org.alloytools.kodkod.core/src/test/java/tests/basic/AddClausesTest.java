@@ -0,0 +1,161 @@
+package tests.basic;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import kodkod.engine.satlab.SATFactory;
+import kodkod.engine.satlab.SATSolver;
+
+/**
+ * Tests that clauses given in bulk to a SAT solver are solved like the same
+ * clauses given one at a time.
+ */
+public class AddClausesTest extends TestCase {
+
+    private static final int VARS = 60;
+
+    public AddClausesTest(String arg0) {
+        super(arg0);
+    }
+
+    /**
+     * Returns a random 3-CNF over {@link #VARS} variables with the given number of
+     * clauses.
+     */
+    private static int[][] cnf(long seed, int clauses) {
+        final Random random = new Random(seed);
+        final int[][] cnf = new int[clauses][3];
+        for (int[] clause : cnf) {
+            for (int i = 0; i < clause.length; i++) {
+                final int var = random.nextInt(VARS) + 1;
+                clause[i] = random.nextBoolean() ? var : -var;
+            }
+        }
+        return cnf;
+    }
+
+    private static IntBuffer buffer(int[][] cnf, boolean direct) {
+        final int size = cnf.length * 4 + 3;
+        final IntBuffer buffer = direct ? ByteBuffer.allocateDirect(size * 4).order(ByteOrder.nativeOrder()).asIntBuffer() : IntBuffer.allocate(size);
+        // leading junk that must be skipped
+        buffer.put(new int[] {
+                              7, 0, 7
+        });
+        for (int[] clause : cnf) {
+            buffer.put(clause).put(0);
+        }
+        buffer.flip();
+        buffer.position(3);
+        return buffer;
+    }
+
+    private static void checkModel(SATSolver solver, int[][] cnf) {
+        for (int[] clause : cnf) {
+            boolean sat = false;
+            for (int lit : clause) {
+                sat |= solver.valueOf(Math.abs(lit)) == lit > 0;
+            }
+            assertTrue(sat);
+        }
+    }
+
+    /**
+     * Solves the given CNF with clauses given one at a time.
+     */
+    private static boolean solveEach(SATFactory factory, int[][] cnf) {
+        final SATSolver solver = factory.instance();
+        try {
+            solver.addVariables(VARS);
+            for (int[] clause : cnf) {
+                solver.addClause(clause.clone());
+            }
+            final boolean sat = solver.solve();
+            if (sat)
+                checkModel(solver, cnf);
+            return sat;
+        } finally {
+            solver.free();
+        }
+    }
+
+    /**
+     * Solves the given CNF with clauses given in bulk, in two halves.
+     */
+    private static boolean solveBulk(SATFactory factory, int[][] cnf, boolean direct) {
+        final SATSolver solver = factory.instance();
+        try {
+            solver.addVariables(VARS);
+            final int half = cnf.length / 2;
+            final IntBuffer first = buffer(Arrays.copyOfRange(cnf, 0, half), direct);
+            final IntBuffer second = buffer(Arrays.copyOfRange(cnf, half, cnf.length), direct);
+            solver.addClauses(first);
+            assertEquals(first.limit(), first.position());
+            solver.addClauses(second);
+            assertEquals(second.limit(), second.position());
+            final boolean sat = solver.solve();
+            if (sat)
+                checkModel(solver, cnf);
+            return sat;
+        } finally {
+            solver.free();
+        }
+    }
+
+    private void check(SATFactory factory) {
+        if (!SATFactory.available(factory))
+            return;
+        int sat = 0, unsat = 0;
+        // clause to variable ratios around the threshold of random 3-SAT
+        for (int clauses = 180; clauses <= 360; clauses += 10) {
+            final int[][] cnf = cnf(clauses, clauses);
+            final boolean expected = solveEach(SATFactory.DefaultSAT4J, cnf);
+            assertEquals(expected, solveEach(factory, cnf));
+            assertEquals(expected, solveBulk(factory, cnf, true));
+            assertEquals(expected, solveBulk(factory, cnf, false));
+            if (expected)
+                sat++;
+            else
+                unsat++;
+        }
+        assertTrue(sat > 0 && unsat > 0);
+    }
+
+    public void testSAT4J() {
+        check(SATFactory.DefaultSAT4J);
+        check(SATFactory.LightSAT4J);
+    }
+
+    public void testMiniSat() {
+        check(SATFactory.MiniSat);
+    }
+
+    public void testGlucose() {
+        check(SATFactory.Glucose);
+        check(SATFactory.Glucose41);
+    }
+
+    public void testCryptoMiniSat() {
+        check(SATFactory.CryptoMiniSat);
+    }
+
+    public void testLingeling() {
+        check(SATFactory.Lingeling);
+    }
+
+    public void testUnterminated() {
+        final SATSolver solver = SATFactory.DefaultSAT4J.instance();
+        try {
+            solver.addVariables(2);
+            solver.addClauses(IntBuffer.wrap(new int[] {
+                                                        1, 2
+            }));
+            fail();
+        } catch (IllegalArgumentException e) {} finally {
+            solver.free();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package tests.basic;
+
+import examples.alloy.Pigeonhole;
+import examples.alloy.RingElection;
+import junit.framework.TestCase;
+import kodkod.ast.Formula;
+import kodkod.engine.Evaluator;
+import kodkod.engine.Solution;
+import kodkod.engine.Solver;
+import kodkod.engine.satlab.SATFactory;
+import kodkod.instance.Bounds;
+
+/**
+ * Tests cube-and-conquer solving against plain solving.
+ */
+public class CubeTest extends TestCase {
+
+    public CubeTest(String arg0) {
+        super(arg0);
+    }
+
+    private Solution solve(SATFactory factory, int cubeDepth, Formula formula, Bounds bounds) {
+        final Solver solver = new Solver();
+        solver.options().setSolver(factory);
+        solver.options().setCubeDepth(cubeDepth);
+        return solver.solve(formula, bounds);
+    }
+
+    private void check(SATFactory factory, Formula formula, Bounds bounds, Solution.Outcome outcome) {
+        if (!SATFactory.available(factory))
+            return;
+        assertEquals(outcome, solve(factory, 0, formula, bounds).outcome());
+        for (int depth = 1; depth <= 4; depth += 3) {
+            final Solution sol = solve(factory, depth, formula, bounds);
+            assertEquals(outcome, sol.outcome());
+            if (sol.sat())
+                assertTrue(new Evaluator(sol.instance()).evaluate(formula));
+        }
+    }
+
+    private void checkSat(SATFactory factory) {
+        final RingElection model = new RingElection();
+        check(factory, model.declarations().and(model.traces()).and(model.atLeastOneElected()), model.bounds(3, 4), Solution.Outcome.SATISFIABLE);
+    }
+
+    private void checkUnsat(SATFactory factory) {
+        final Pigeonhole model = new Pigeonhole();
+        check(factory, model.declarations().and(model.pigeonPerHole()), model.bounds(7, 6), Solution.Outcome.UNSATISFIABLE);
+    }
+
+    public void testSAT4J() {
+        checkSat(SATFactory.DefaultSAT4J);
+        checkUnsat(SATFactory.DefaultSAT4J);
+    }
+
+    public void testMiniSat() {
+        checkSat(SATFactory.MiniSat);
+        checkUnsat(SATFactory.MiniSat);
+    }
+
+    public void testConcurrent() {
+        assertTrue(SATFactory.externalFactory("solver", null).concurrent());
+        assertFalse(SATFactory.externalFactory("solver", "problem.cnf").concurrent());
+        assertFalse(SATFactory.cubeAndConquer(SATFactory.externalFactory("solver", "problem.cnf"), 2, 4).concurrent());
+        try {
+            SATFactory.cubeAndConquer(SATFactory.DefaultSAT4J, 9, 4);
+            fail();
+        } catch (IllegalArgumentException e) {}
+    }
+}
@@ -0,0 +1,140 @@
+package tests.basic;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+import kodkod.engine.satlab.SATFactory;
+import kodkod.engine.satlab.SATSolver;
+
+/**
+ * Tests that the cnf given to an external solver, in a file or piped to its
+ * standard input, is the DIMACS encoding of the added clauses.
+ */
+public class ExternalSolverTest extends TestCase {
+
+    // more than the 64K bytes that are buffered before a write
+    private static final int CLAUSES = 70000;
+
+    private File             directory, solver, received;
+
+    public ExternalSolverTest(String arg0) {
+        super(arg0);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("kodkod").toFile();
+        solver = new File(directory, "solver.sh");
+        received = new File(directory, "received.cnf");
+        // copies the cnf file, or its standard input, to its first argument and
+        // reports a solution
+        final String script = "#!/bin/sh\n" + "if [ $# -gt 1 ]; then cp \"$2\" \"$1\"; else cat > \"$1\"; fi\n" + "echo \"s SATISFIABLE\"\n" + "echo \"v 1 -2 0\"\n";
+        Files.write(solver.toPath(), script.getBytes(StandardCharsets.US_ASCII));
+        solver.setExecutable(true);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    /**
+     * Returns clauses with negative, single and multi-digit literals, including
+     * the longest ones.
+     */
+    private static int[][] cnf() {
+        final Random random = new Random(42);
+        final int[][] cnf = new int[CLAUSES][];
+        cnf[0] = new int[] {
+                            1, -1, 9, -10, Integer.MAX_VALUE, -Integer.MAX_VALUE
+        };
+        for (int i = 1; i < CLAUSES; i++) {
+            final int[] clause = new int[1 + random.nextInt(4)];
+            for (int j = 0; j < clause.length; j++) {
+                final int var = random.nextBoolean() ? 1 + random.nextInt(100) : 1 + random.nextInt(Integer.MAX_VALUE);
+                clause[j] = random.nextBoolean() ? var : -var;
+            }
+            cnf[i] = clause;
+        }
+        return cnf;
+    }
+
+    private static String dimacs(int[][] cnf) {
+        final StringBuilder body = new StringBuilder();
+        for (int[] clause : cnf) {
+            for (int lit : clause) {
+                body.append(lit).append(' ');
+            }
+            body.append("0\n");
+        }
+        return body.toString();
+    }
+
+    /**
+     * Adds the given clauses to a solver of the given factory, the first half one
+     * at a time and the second in bulk, solves them, and returns the cnf received
+     * by the solver.
+     */
+    private String solve(SATFactory factory, int[][] cnf) throws IOException {
+        final SATSolver solver = factory.instance();
+        try {
+            solver.addVariables(Integer.MAX_VALUE);
+            final int half = cnf.length / 2;
+            for (int i = 0; i < half; i++) {
+                solver.addClause(cnf[i].clone());
+            }
+            final IntBuffer lits = IntBuffer.allocate(cnf.length * 5);
+            for (int i = half; i < cnf.length; i++) {
+                lits.put(cnf[i]).put(0);
+            }
+            lits.flip();
+            assertEquals(cnf.length - half, solver.addClauses(lits));
+            assertEquals(cnf.length, solver.numberOfClauses());
+            assertTrue(solver.solve());
+            assertTrue(solver.valueOf(1));
+            assertFalse(solver.valueOf(2));
+        } finally {
+            solver.free();
+        }
+        return new String(Files.readAllBytes(received.toPath()), StandardCharsets.US_ASCII);
+    }
+
+    private static boolean hasShell() {
+        return new File("/bin/sh").canExecute();
+    }
+
+    public void testFile() throws IOException {
+        if (!hasShell())
+            return;
+        final int[][] cnf = cnf();
+        final String output = solve(SATFactory.externalFactory(solver.getAbsolutePath(), null, received.getAbsolutePath()), cnf);
+        final int newline = output.indexOf('\n');
+        // the header is written over the spaces reserved for it
+        assertEquals("p cnf " + Integer.MAX_VALUE + " " + CLAUSES, output.substring(0, newline).trim());
+        assertEquals(dimacs(cnf), output.substring(newline + 1));
+    }
+
+    public void testPiped() throws IOException {
+        if (!hasShell())
+            return;
+        final int[][] cnf = cnf();
+        final String output = solve(SATFactory.externalPipedFactory(solver.getAbsolutePath(), received.getAbsolutePath()), cnf);
+        final int newline = output.indexOf('\n');
+        // the header only counts the clauses added before the first write
+        final Matcher header = Pattern.compile("p cnf " + Integer.MAX_VALUE + " (\\d+)").matcher(output.substring(0, newline));
+        assertTrue(header.matches());
+        final int clauses = Integer.parseInt(header.group(1));
+        assertTrue(clauses > 0 && clauses < CLAUSES);
+        assertEquals(dimacs(cnf), output.substring(newline + 1));
+    }
+}
@@ -0,0 +1,51 @@
+package tests.basic;
+
+import examples.alloy.RingElection;
+import junit.framework.TestCase;
+import kodkod.ast.Formula;
+import kodkod.engine.Solution;
+import kodkod.engine.Solver;
+import kodkod.instance.Bounds;
+
+/**
+ * Tests the grounding of quantified formulas on several threads.
+ */
+public class GroundingTest extends TestCase {
+
+    private final RingElection model = new RingElection();
+
+    public GroundingTest(String arg0) {
+        super(arg0);
+    }
+
+    private Solution solve(Formula formula, Bounds bounds, int threads) {
+        final Solver solver = new Solver();
+        solver.options().setGroundingThreads(threads);
+        return solver.solve(formula, bounds);
+    }
+
+    /**
+     * Checks that parallel grounding gives the answer of sequential grounding, and
+     * that repeated parallel groundings give the same translation.
+     */
+    private void check(Formula formula, Bounds bounds, Solution.Outcome outcome) {
+        final Solution sequential = solve(formula, bounds, 1);
+        final Solution first = solve(formula, bounds, 4);
+        final Solution second = solve(formula, bounds, 4);
+        assertEquals(outcome, sequential.outcome());
+        assertEquals(outcome, first.outcome());
+        assertEquals(outcome, second.outcome());
+        assertEquals(outcome, solve(formula, bounds, 3).outcome());
+        assertEquals(sequential.stats().primaryVariables(), first.stats().primaryVariables());
+        assertEquals(first.stats().variables(), second.stats().variables());
+        assertEquals(first.stats().clauses(), second.stats().clauses());
+    }
+
+    public void testUnsat() {
+        check(model.checkAtMostOneElected(), model.bounds(5, 6), Solution.Outcome.UNSATISFIABLE);
+    }
+
+    public void testSat() {
+        check(model.declarations().and(model.traces()).and(model.atLeastOneElected()), model.bounds(4, 5), Solution.Outcome.SATISFIABLE);
+    }
+}
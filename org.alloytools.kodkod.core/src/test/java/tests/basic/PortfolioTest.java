@@ -0,0 +1,106 @@
+package tests.basic;
+
+import java.util.Iterator;
+
+import examples.alloy.Pigeonhole;
+import examples.alloy.RingElection;
+import junit.framework.TestCase;
+import kodkod.ast.Formula;
+import kodkod.ast.Relation;
+import kodkod.engine.Evaluator;
+import kodkod.engine.Solution;
+import kodkod.engine.Solver;
+import kodkod.engine.satlab.SATFactory;
+import kodkod.engine.satlab.SATSolver;
+import kodkod.instance.Bounds;
+import kodkod.instance.Universe;
+
+/**
+ * Tests portfolios of SAT solvers against their members.
+ */
+public class PortfolioTest extends TestCase {
+
+    private final SATFactory portfolio;
+
+    public PortfolioTest(String arg0) {
+        super(arg0);
+        if (SATFactory.available(SATFactory.MiniSat))
+            portfolio = SATFactory.portfolio(SATFactory.DefaultSAT4J, SATFactory.MiniSat, SATFactory.LightSAT4J);
+        else
+            portfolio = SATFactory.portfolio(SATFactory.DefaultSAT4J, SATFactory.LightSAT4J);
+    }
+
+    private Solver solver(SATFactory factory) {
+        final Solver solver = new Solver();
+        solver.options().setSolver(factory);
+        solver.options().setSymmetryBreaking(0);
+        return solver;
+    }
+
+    private void check(Formula formula, Bounds bounds, Solution.Outcome outcome) {
+        assertEquals(outcome, solver(SATFactory.DefaultSAT4J).solve(formula, bounds).outcome());
+        // the same solver races repeatedly, with losers possibly still busy
+        final Solver solver = solver(portfolio);
+        for (int i = 0; i < 3; i++) {
+            final Solution sol = solver.solve(formula, bounds);
+            assertEquals(outcome, sol.outcome());
+            if (sol.sat())
+                assertTrue(new Evaluator(sol.instance()).evaluate(formula));
+        }
+    }
+
+    public void testSat() {
+        final RingElection model = new RingElection();
+        check(model.declarations().and(model.traces()).and(model.atLeastOneElected()), model.bounds(3, 4), Solution.Outcome.SATISFIABLE);
+    }
+
+    public void testUnsat() {
+        final Pigeonhole model = new Pigeonhole();
+        check(model.declarations().and(model.pigeonPerHole()), model.bounds(7, 6), Solution.Outcome.UNSATISFIABLE);
+    }
+
+    private int count(SATFactory factory, Formula formula, Bounds bounds) {
+        int count = 0;
+        for (Iterator<Solution> sols = solver(factory).solveAll(formula, bounds); sols.hasNext();) {
+            if (sols.next().sat())
+                count++;
+        }
+        return count;
+    }
+
+    public void testSolveAll() {
+        assertTrue(portfolio.incremental());
+        final Relation r = Relation.unary("r"), s = Relation.binary("s");
+        final Universe universe = new Universe("a", "b", "c");
+        final Bounds bounds = new Bounds(universe);
+        bounds.bound(r, universe.factory().allOf(1));
+        bounds.bound(s, universe.factory().allOf(2));
+        final Formula formula = r.some().and(s.function(r, r));
+        final int expected = count(SATFactory.DefaultSAT4J, formula, bounds);
+        assertTrue(expected > 1);
+        assertEquals(expected, count(portfolio, formula, bounds));
+    }
+
+    public void testIncremental() {
+        // enumerate the models of (1 | 2 | 3) by blocking each one in turn
+        final SATSolver solver = portfolio.instance();
+        try {
+            solver.addVariables(3);
+            solver.addClause(new int[] {
+                                        1, 2, 3
+            });
+            int count = 0;
+            while (solver.solve()) {
+                final int[] block = new int[3];
+                for (int i = 1; i <= 3; i++) {
+                    block[i - 1] = solver.valueOf(i) ? -i : i;
+                }
+                solver.addClause(block);
+                count++;
+            }
+            assertEquals(7, count);
+        } finally {
+            solver.free();
+        }
+    }
+}
@@ -73,6 +73,36 @@ JNIEXPORT jboolean JNICALL Java_kodkod_engine_satlab_CryptoMiniSat_addClause
 	return solverPtr->okay();
 }
 
+/*
+ * Class:     kodkod_engine_satlab_CryptoMiniSat
+ * Method:    addClauses
+ * Signature: (JLjava/nio/IntBuffer;II)I
+ */
+JNIEXPORT jint JNICALL Java_kodkod_engine_satlab_CryptoMiniSat_addClauses
+(JNIEnv * env, jobject, jlong solver, jobject buffer, jint offset, jint length) {
+	jint* buf = (jint*) env->GetDirectBufferAddress(buffer);
+	if (buf == NULL) {
+		return -1;
+	}
+	buf += offset;
+	Solver* solverPtr = ((Solver*)solver);
+	vec<Lit> lits;
+	jint added = 0;
+	for(int i = 0; i < length; ++i) {
+		int lit = *(buf+i);
+		if (lit != 0) {
+			lits.push((lit > 0) ?  Lit(abs(lit)-1, false) : Lit(abs(lit)-1, true));
+		} else {
+			solverPtr->addClause(lits);
+			lits.clear();
+			if (solverPtr->okay()) {
+				++added;
+			}
+		}
+	}
+	return added;
+}
+
 /*
  * Class:     kodkod_engine_satlab_CryptoMiniSat
  * Method:    solve
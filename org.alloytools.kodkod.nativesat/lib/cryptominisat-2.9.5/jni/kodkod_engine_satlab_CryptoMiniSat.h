@@ -39,6 +39,14 @@ JNIEXPORT void JNICALL Java_kodkod_engine_satlab_CryptoMiniSat_addVariables
 JNIEXPORT jboolean JNICALL Java_kodkod_engine_satlab_CryptoMiniSat_addClause
   (JNIEnv *, jobject, jlong, jintArray);
 
+/*
+ * Class:     kodkod_engine_satlab_CryptoMiniSat
+ * Method:    addClauses
+ * Signature: (JLjava/nio/IntBuffer;II)I
+ */
+JNIEXPORT jint JNICALL Java_kodkod_engine_satlab_CryptoMiniSat_addClauses
+  (JNIEnv *, jobject, jlong, jobject, jint, jint);
+
 /*
  * Class:     kodkod_engine_satlab_CryptoMiniSat
  * Method:    solve
@@ -39,6 +39,14 @@ JNIEXPORT void JNICALL Java_kodkod_engine_satlab_Glucose_addVariables
 JNIEXPORT jboolean JNICALL Java_kodkod_engine_satlab_Glucose_addClause
   (JNIEnv *, jobject, jlong, jintArray);
 
+/*
+ * Class:     kodkod_engine_satlab_Glucose
+ * Method:    addClauses
+ * Signature: (JLjava/nio/IntBuffer;II)I
+ */
+JNIEXPORT jint JNICALL Java_kodkod_engine_satlab_Glucose_addClauses
+  (JNIEnv *, jobject, jlong, jobject, jint, jint);
+
 /*
  * Class:     kodkod_engine_satlab_Glucose
  * Method:    solve
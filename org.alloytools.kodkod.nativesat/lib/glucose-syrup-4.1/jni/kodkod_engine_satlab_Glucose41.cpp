@@ -65,6 +65,36 @@ JNIEXPORT jboolean JNICALL Java_kodkod_engine_satlab_Glucose41_addClause
 	return solverPtr->okay();
 }
 
+/*
+ * Class:     kodkod_engine_satlab_Glucose41
+ * Method:    addClauses
+ * Signature: (JLjava/nio/IntBuffer;II)I
+ */
+JNIEXPORT jint JNICALL Java_kodkod_engine_satlab_Glucose41_addClauses
+(JNIEnv * env, jobject, jlong solver, jobject buffer, jint offset, jint length) {
+	jint* buf = (jint*) env->GetDirectBufferAddress(buffer);
+	if (buf == NULL) {
+		return -1;
+	}
+	buf += offset;
+	Solver* solverPtr = ((Solver*)solver);
+	vec<Lit> lits;
+	jint added = 0;
+	for(int i = 0; i < length; ++i) {
+		int var = *(buf+i);
+		if (var != 0) {
+			lits.push((var > 0) ?  mkLit(var-1) : ~mkLit(-var-1));
+		} else {
+			solverPtr->addClause(lits);
+			lits.clear();
+			if (solverPtr->okay()) {
+				++added;
+			}
+		}
+	}
+	return added;
+}
+
 /*
  * Class:     kodkod_engine_satlab_Glucose41
  * Method:    solve